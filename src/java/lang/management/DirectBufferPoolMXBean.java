@@ -0,0 +1,82 @@
+package java.lang.management;
+
+/**
+ * The management interface for a {@link java.nio.DirectBufferPool
+ * DirectBufferPool} whose metrics have been enabled with
+ * {@link java.nio.DirectBufferPool#enableMetrics enableMetrics}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  While metrics are enabled the
+ * management interface is registered with the platform
+ * {@link javax.management.MBeanServer MBeanServer} under an
+ * {@link javax.management.ObjectName ObjectName} of the form:
+ * <pre>
+ *     java.nio:type=DirectBufferPool,name=<i>pool name</i>
+ * </pre>
+ *
+ * <p> The methods inherited from {@link BufferPoolMXBean} describe the
+ * buffers currently allocated from the pool and not yet released, and
+ * the direct memory the pool holds.  Counts are maintained from the
+ * creation of the pool, whether or not metrics are enabled.
+ *
+ * @since 1.8
+ */
+public interface DirectBufferPoolMXBean extends BufferPoolMXBean {
+
+    /**
+     * Returns the number of bytes of direct memory reserved by the
+     * pool for its slabs, from which pooled buffers are carved.
+     *
+     * @return the number of bytes reserved for slabs
+     */
+    long getPooledMemory();
+
+    /**
+     * Returns the number of buffers allocated from the pool.
+     *
+     * @return the number of allocations
+     */
+    long getAllocationCount();
+
+    /**
+     * Returns the number of buffers released to the pool.
+     *
+     * @return the number of releases
+     */
+    long getReleaseCount();
+
+    /**
+     * Returns the number of allocations satisfied from the allocating
+     * thread's cache, without locking.
+     *
+     * @return the number of thread cache hits
+     */
+    long getThreadCacheHitCount();
+
+    /**
+     * Returns the number of buffers allocated outside the pool, as
+     * {@link java.nio.ByteBuffer#allocateDirect allocateDirect} does,
+     * because they were too large to pool or the pool had reached its
+     * memory limit.
+     *
+     * @return the number of unpooled allocations
+     */
+    long getUnpooledAllocationCount();
+
+    /**
+     * Returns the number of buffers found to have been discarded
+     * without being released.  Leaks are found only while leak
+     * detection is enabled.
+     *
+     * @return the number of leaked buffers found
+     */
+    long getLeakCount();
+
+    /**
+     * Tests whether the pool records where each buffer was allocated
+     * so as to report those that are never released.
+     *
+     * @return {@code true} if leak detection is enabled
+     */
+    boolean isLeakDetectionEnabled();
+}
@@ -0,0 +1,186 @@
+package java.lang.management;
+
+/**
+ * The management interface for a
+ * {@link java.util.concurrent.ForkJoinPool ForkJoinPool} whose metrics
+ * have been enabled with
+ * {@link java.util.concurrent.ForkJoinPool#enableMetrics enableMetrics}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  While metrics are enabled the
+ * management interface is registered with the platform
+ * {@link javax.management.MBeanServer MBeanServer} under an
+ * {@link javax.management.ObjectName ObjectName} of the form:
+ * <pre>
+ *     java.util.concurrent:type=ForkJoinPool,name=<i>pool name</i>
+ * </pre>
+ *
+ * <p> Times are in nanoseconds, and the run time histogram has the
+ * form described in {@link ThreadPoolExecutorMXBean}.  The
+ * {@code getWorker} methods return one element per live worker, in
+ * the order of {@link #getWorkerNames}; as workers may start and stop
+ * between calls, arrays from different calls need not correspond.
+ * Pool totals include workers that have stopped.
+ *
+ * @since 1.8
+ */
+public interface ForkJoinPoolMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name of the pool, as used in its object name.
+     *
+     * @return the name of the pool
+     */
+    String getName();
+
+    /**
+     * Returns the targeted parallelism level of the pool.
+     *
+     * @return the targeted parallelism level
+     */
+    int getParallelism();
+
+    /**
+     * Returns the number of worker threads that have started but not
+     * yet terminated.
+     *
+     * @return the number of worker threads
+     */
+    int getPoolSize();
+
+    /**
+     * Returns an estimate of the number of threads that are currently
+     * stealing or executing tasks.
+     *
+     * @return the number of active threads
+     */
+    int getActiveThreadCount();
+
+    /**
+     * Returns an estimate of the number of worker threads that are not
+     * blocked waiting to join tasks or for other managed
+     * synchronization.
+     *
+     * @return the number of running threads
+     */
+    int getRunningThreadCount();
+
+    /**
+     * Returns an estimate of the number of tasks held in worker queues.
+     *
+     * @return the number of queued tasks
+     */
+    long getQueuedTaskCount();
+
+    /**
+     * Returns an estimate of the number of tasks submitted from outside
+     * the pool that have not yet begun executing.
+     *
+     * @return the number of queued submissions
+     */
+    int getQueuedSubmissionCount();
+
+    /**
+     * Returns the number of tasks accepted by the pool's submission
+     * queues.
+     *
+     * @return the number of submissions
+     */
+    long getSubmittedTaskCount();
+
+    /**
+     * Returns the number of submissions rejected because the pool was
+     * shut down.
+     *
+     * @return the number of rejected submissions
+     */
+    long getRejectedTaskCount();
+
+    /**
+     * Returns the total number of top-level tasks taken from a queue
+     * other than the worker's own.
+     *
+     * @return the number of steals
+     */
+    long getStealCount();
+
+    /**
+     * Returns the total number of complete scans of the pool's queues
+     * that found no task.
+     *
+     * @return the number of empty scans
+     */
+    long getEmptyScanCount();
+
+    /**
+     * Returns the total number of times workers parked for lack of
+     * work.
+     *
+     * @return the number of parks
+     */
+    long getParkCount();
+
+    /**
+     * Returns the histogram of run times of top-level tasks, including
+     * the local subtasks each one forked.
+     *
+     * @return the run time histogram
+     */
+    long[] getRunTimeHistogram();
+
+    /**
+     * Returns the total time workers spent running top-level tasks.
+     *
+     * @return the total active time in nanoseconds
+     */
+    long getTotalActiveTime();
+
+    /**
+     * Returns the total time workers spent parked.
+     *
+     * @return the total idle time in nanoseconds
+     */
+    long getTotalIdleTime();
+
+    /**
+     * Returns the names of the live worker threads.
+     *
+     * @return the worker names
+     */
+    String[] getWorkerNames();
+
+    /**
+     * Returns the steal count of each live worker.
+     *
+     * @return the per-worker steal counts
+     */
+    long[] getWorkerStealCounts();
+
+    /**
+     * Returns the empty scan count of each live worker.
+     *
+     * @return the per-worker empty scan counts
+     */
+    long[] getWorkerEmptyScanCounts();
+
+    /**
+     * Returns the park count of each live worker.
+     *
+     * @return the per-worker park counts
+     */
+    long[] getWorkerParkCounts();
+
+    /**
+     * Returns the active time of each live worker.
+     *
+     * @return the per-worker active times in nanoseconds
+     */
+    long[] getWorkerActiveTimes();
+
+    /**
+     * Returns the idle time of each live worker.
+     *
+     * @return the per-worker idle times in nanoseconds
+     */
+    long[] getWorkerIdleTimes();
+}
@@ -0,0 +1,148 @@
+package java.lang.management;
+
+/**
+ * The management interface for a
+ * {@link java.util.concurrent.ThreadPoolExecutor ThreadPoolExecutor}
+ * whose metrics have been enabled with
+ * {@link java.util.concurrent.ThreadPoolExecutor#enableMetrics
+ * enableMetrics}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  While metrics are enabled the
+ * management interface is registered with the platform
+ * {@link javax.management.MBeanServer MBeanServer} under an
+ * {@link javax.management.ObjectName ObjectName} of the form:
+ * <pre>
+ *     java.util.concurrent:type=ThreadPoolExecutor,name=<i>pool name</i>
+ * </pre>
+ *
+ * <p> Times are in nanoseconds.  A histogram is an array in which
+ * element <i>i</i> counts the durations <i>d</i> with
+ * 2<sup><i>i</i></sup> &le; <i>d</i> &lt; 2<sup><i>i</i>+1</sup>;
+ * element 0 also counts zero durations and the last element counts
+ * all longer durations.  Counts cover the period during which metrics
+ * were enabled; all values are estimates while the pool is active.
+ *
+ * @since 1.8
+ */
+public interface ThreadPoolExecutorMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name of the pool, as used in its object name.
+     *
+     * @return the name of the pool
+     */
+    String getName();
+
+    /**
+     * Returns the core number of threads.
+     *
+     * @return the core number of threads
+     */
+    int getCorePoolSize();
+
+    /**
+     * Returns the maximum allowed number of threads.
+     *
+     * @return the maximum allowed number of threads
+     */
+    int getMaximumPoolSize();
+
+    /**
+     * Returns the current number of threads in the pool.
+     *
+     * @return the number of threads
+     */
+    int getPoolSize();
+
+    /**
+     * Returns the largest number of threads that have ever
+     * simultaneously been in the pool.
+     *
+     * @return the largest number of threads
+     */
+    int getLargestPoolSize();
+
+    /**
+     * Returns the approximate number of threads that are actively
+     * executing tasks.
+     *
+     * @return the number of threads
+     */
+    int getActiveCount();
+
+    /**
+     * Returns the approximate number of queued tasks.
+     *
+     * @return the number of queued tasks
+     */
+    int getQueueSize();
+
+    /**
+     * Returns the approximate total number of tasks that have
+     * completed execution.
+     *
+     * @return the number of tasks
+     */
+    long getCompletedTaskCount();
+
+    /**
+     * Returns the number of tasks submitted through {@code execute},
+     * including any that were then rejected.
+     *
+     * @return the number of submitted tasks
+     */
+    long getSubmittedTaskCount();
+
+    /**
+     * Returns the number of tasks passed to the rejected execution
+     * handler.
+     *
+     * @return the number of rejected tasks
+     */
+    long getRejectedTaskCount();
+
+    /**
+     * Returns the number of tasks that completed by throwing an
+     * exception.
+     *
+     * @return the number of failed tasks
+     */
+    long getFailedTaskCount();
+
+    /**
+     * Returns the histogram of the times tasks spent queued before a
+     * worker started them, over a sample of the queued tasks.
+     *
+     * @return the queue-wait time histogram
+     */
+    long[] getQueueWaitTimeHistogram();
+
+    /**
+     * Returns the total time the sampled tasks spent queued.
+     *
+     * @return the total queue-wait time in nanoseconds
+     */
+    long getTotalQueueWaitTime();
+
+    /**
+     * Returns the histogram of task run times.
+     *
+     * @return the run time histogram
+     */
+    long[] getRunTimeHistogram();
+
+    /**
+     * Returns the total time workers spent running tasks.
+     *
+     * @return the total active time in nanoseconds
+     */
+    long getTotalActiveTime();
+
+    /**
+     * Returns the total time workers spent waiting for tasks.
+     *
+     * @return the total idle time in nanoseconds
+     */
+    long getTotalIdleTime();
+}
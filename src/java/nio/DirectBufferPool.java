@@ -0,0 +1,875 @@
+package java.nio;
+
+import java.io.Closeable;
+import java.lang.management.DirectBufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+
+import sun.misc.Cleaner;
+
+/**
+ * A pool of direct byte buffers, for buffers that are allocated and
+ * released often, such as those used for network I/O.
+ *
+ * <p> Each {@link ByteBuffer#allocateDirect allocateDirect} reserves and
+ * zeroes native memory, may call {@link System#gc} and wait when the
+ * direct memory limit is near, and leaves the memory to be freed by a
+ * cleaner after the next garbage collection that finds the buffer
+ * unreachable.  A {@code DirectBufferPool} instead reserves direct
+ * memory in large slabs, divides them into pages, carves runs of pages
+ * into blocks of a fixed set of size classes, and hands out and takes
+ * back blocks as buffers are
+ * {@linkplain #allocate allocated} and {@linkplain #release released},
+ * so that a buffer costs only the allocation of its {@code ByteBuffer}
+ * object.
+ *
+ * <p> The size classes are the powers of two from 64 bytes to 1 megabyte
+ * and the midpoints between them, so that a buffer uses at most a third
+ * more memory than its capacity.  Each thread keeps a small cache of
+ * free blocks of each class, from which it allocates and to which it
+ * releases without locking; the caches are refilled from, and overflow
+ * to, one of several arenas, each with its own lock and runs, so that
+ * threads rarely contend.  A run all of whose blocks have been returned
+ * gives its pages back to the pool, to be carved again for any size
+ * class, so that memory is not tied to the classes that first used it.
+ * The blocks cached by a thread that has terminated are returned before
+ * the pool reserves more memory, and those cached by the allocating
+ * thread before an allocation falls outside the pool.  Larger buffers, and buffers
+ * that do not fit once the pool has reserved its maximum memory, are
+ * allocated as by {@code allocateDirect}, and their memory is freed as
+ * soon as they are released.
+ *
+ * <p> A buffer must be released, once, to the pool that allocated it,
+ * and must not be used, nor any buffer {@linkplain ByteBuffer#slice
+ * sliced} or {@linkplain ByteBuffer#duplicate duplicated} from it, after
+ * it is released: its memory will be reused by another buffer.  Unlike
+ * {@code allocateDirect}, the contents of a pooled buffer are not
+ * zeroed.  A buffer that is never released is not lost to the process,
+ * but its block is lost to the pool.  When leak detection is enabled,
+ * by setting the system property {@code java.nio.DirectBufferPool.leakDetection}
+ * to {@code true}, the pool records where each buffer was allocated,
+ * logs the allocation site of each buffer that becomes unreachable
+ * without having been released, and reclaims its block; this adds to the
+ * cost of every allocation, so it is meant for testing.
+ *
+ * <p> Memory held by the pool is returned to the system only when the
+ * pool and all of its buffers have become unreachable.
+ *
+ * <p> Usage is reported by a {@link DirectBufferPoolMXBean}, which
+ * {@link #enableMetrics} registers with the platform MBeanServer.
+ *
+ * @since 1.8
+ */
+public final class DirectBufferPool implements Closeable {
+
+    /*
+     * Size classes.  Class 2i holds blocks of 2^(i+6) bytes and class
+     * 2i+1 blocks of 3 * 2^(i+5) bytes, up to 2^20 bytes.
+     */
+    private static final int MIN_SHIFT = 6;
+    private static final int MAX_SHIFT = 20;
+    private static final int NUM_CLASSES = 2 * (MAX_SHIFT - MIN_SHIFT) + 1;
+    private static final int MAX_POOLED = 1 << MAX_SHIFT;
+
+    /** The size of the direct buffers from which blocks are carved. */
+    private static final int SLAB_SIZE = 4 << 20;
+
+    /** The size of the pages into which slabs are divided. */
+    private static final int PAGE_SIZE = 64 << 10;
+
+    /** The number of pages in a slab: one bit each of a long. */
+    private static final int PAGES = SLAB_SIZE / PAGE_SIZE;
+
+    /** The number of pages in a run of each class. */
+    private static final int[] RUN_PAGES = new int[NUM_CLASSES];
+
+    /** The bytes of blocks of one class that a thread may cache. */
+    private static final int CACHE_BYTES = 256 << 10;
+
+    /** The most blocks of one class that a thread may cache. */
+    private static final int MAX_CACHED = 64;
+
+    private static final boolean LEAK_DETECTION =
+        AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+            public Boolean run() {
+                return Boolean.getBoolean("java.nio.DirectBufferPool.leakDetection");
+            }
+        });
+
+    static {
+        // the fewest pages holding at least one block and wasting at
+        // most an eighth of the run
+        for (int c = 0; c < NUM_CLASSES; c++) {
+            int size = classSize(c);
+            int n = (size + PAGE_SIZE - 1) / PAGE_SIZE;
+            while ((n * PAGE_SIZE % size) * 8 > n * PAGE_SIZE)
+                n++;
+            RUN_PAGES[c] = n;
+        }
+    }
+
+    static int classSize(int c) {
+        int e = MIN_SHIFT + (c >> 1);
+        return ((c & 1) == 0) ? 1 << e : 3 << (e - 1);
+    }
+
+    static int sizeClass(int capacity) {
+        if (capacity <= 1 << MIN_SHIFT)
+            return 0;
+        // 2^e < capacity <= 2^(e+1)
+        int e = 31 - Integer.numberOfLeadingZeros(capacity - 1);
+        return (capacity <= 3 << (e - 1))
+            ? 2 * (e - MIN_SHIFT) + 1
+            : 2 * (e + 1 - MIN_SHIFT);
+    }
+
+    private static int cacheLimit(int c) {
+        return Math.max(1, Math.min(MAX_CACHED, CACHE_BYTES / classSize(c)));
+    }
+
+    private final String name;
+    private final long maxMemory;
+    private final Arena[] arenas;
+    private final ThreadLocal<Cache> caches;
+    private final ConcurrentLinkedQueue<Cache> allCaches = new ConcurrentLinkedQueue<>();
+
+    /*
+     * Blocks are named by handles holding the index of their slab in
+     * the high 32 bits and their offset in the low 32 bits.  The pages
+     * of each slab that belong to no run are marked in freePages, and
+     * the run of each page that belongs to one is found in pageRuns.
+     */
+    private volatile DirectByteBuffer[] slabs = new DirectByteBuffer[8];
+    private volatile Run[][] pageRuns = new Run[8][];
+    private long[] freePages = new long[8];   // guarded by slabLock
+    private int slabCount;                    // guarded by slabLock
+    private final Object slabLock = new Object();
+    private volatile boolean closed;
+
+    // usage counts
+    private final LongAdder allocations = new LongAdder();
+    private final LongAdder releases = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder unpooled = new LongAdder();
+    private final LongAdder inUseCapacity = new LongAdder();
+    private final LongAdder unpooledCapacity = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+
+    // leak detection
+    private final ReferenceQueue<PooledBuffer> leakQueue;
+    private final Set<Leak> leaks;
+
+    private volatile Metrics metrics;         // non-null while enabled
+
+    /**
+     * Creates a pool that may reserve any amount of direct memory,
+     * within the limit on direct memory of the virtual machine.
+     *
+     * @param name the name of the pool, used in its object name
+     */
+    public DirectBufferPool(String name) {
+        this(name, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a pool that reserves at most the given amount of direct
+     * memory for pooled buffers.  Once it has, buffers are allocated
+     * outside the pool.
+     *
+     * @param name the name of the pool, used in its object name
+     * @param maxMemory the most bytes of direct memory the pool reserves
+     * @throws IllegalArgumentException if {@code maxMemory} is negative
+     */
+    public DirectBufferPool(String name, long maxMemory) {
+        if (name == null)
+            throw new NullPointerException("name");
+        if (maxMemory < 0)
+            throw new IllegalArgumentException("maxMemory < 0");
+        this.name = name;
+        this.maxMemory = maxMemory;
+        int n = Math.max(1, 2 * Runtime.getRuntime().availableProcessors());
+        this.arenas = new Arena[n];
+        for (int i = 0; i < n; i++)
+            arenas[i] = new Arena();
+        this.caches = new ThreadLocal<Cache>() {
+            protected Cache initialValue() {
+                Thread t = Thread.currentThread();
+                Cache c = new Cache(t, arenas[(int)(t.getId() % arenas.length)]);
+                allCaches.add(c);
+                return c;
+            }
+        };
+        if (LEAK_DETECTION) {
+            leakQueue = new ReferenceQueue<>();
+            leaks = ConcurrentHashMap.newKeySet();
+        } else {
+            leakQueue = null;
+            leaks = null;
+        }
+    }
+
+    /**
+     * Returns the name of this pool.
+     *
+     * @return the name of this pool
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Allocates a direct byte buffer from this pool.
+     *
+     * <p> The new buffer's position will be zero, its limit will be its
+     * capacity, its mark will be undefined, and its byte order will be
+     * {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}.  Its contents are
+     * undefined.
+     *
+     * @param  capacity
+     *         The new buffer's capacity, in bytes
+     *
+     * @return  The new byte buffer
+     *
+     * @throws  IllegalArgumentException
+     *          If the <tt>capacity</tt> is a negative integer
+     * @throws  IllegalStateException
+     *          If this pool has been closed
+     */
+    public ByteBuffer allocate(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        if (closed)
+            throw new IllegalStateException("pool closed");
+        if (capacity > MAX_POOLED)
+            return allocateUnpooled(capacity);
+        int c = sizeClass(capacity);
+        Cache cache = caches.get();
+        long h;
+        int n = cache.counts[c];
+        if (n > 0) {
+            h = cache.handles[c][--n];
+            cache.counts[c] = n;
+            cacheHits.increment();
+        } else {
+            if (leakQueue != null)
+                reclaimLeaks();
+            h = cache.arena.refill(this, cache, c, false);
+            if (h == -2L) {
+                reclaimDeadCaches();
+                h = cache.arena.refill(this, cache, c, true);
+            }
+            if (h == -1L && trim(cache))
+                h = cache.arena.refill(this, cache, c, true);
+            if (h < 0L)
+                return allocateUnpooled(capacity);
+        }
+        DirectByteBuffer slab = slabs[(int)(h >>> 32)];
+        PooledBuffer b = new PooledBuffer(this, slab.address() + (int)h,
+                                          capacity, slab, h, c);
+        allocations.increment();
+        inUseCapacity.add(capacity);
+        if (leakQueue != null)
+            track(b);
+        return b;
+    }
+
+    private ByteBuffer allocateUnpooled(int capacity) {
+        PooledBuffer b = new PooledBuffer(this, capacity);
+        allocations.increment();
+        unpooled.increment();
+        inUseCapacity.add(capacity);
+        unpooledCapacity.add(capacity);
+        if (leakQueue != null)
+            track(b);
+        return b;
+    }
+
+    /**
+     * Releases a buffer allocated by this pool, making its memory
+     * available to later allocations.  The buffer must not be used after
+     * it is released.  Releasing a buffer after the pool has been closed
+     * has no effect, other than on buffers too large to pool, whose
+     * memory is freed.
+     *
+     * @param  buffer
+     *         A buffer returned by {@link #allocate allocate} on this
+     *         pool, and not a slice or duplicate of one
+     *
+     * @throws  IllegalArgumentException
+     *          If the buffer was not allocated by this pool
+     * @throws  IllegalStateException
+     *          If the buffer has already been released
+     */
+    public void release(ByteBuffer buffer) {
+        if (!(buffer instanceof PooledBuffer) || ((PooledBuffer)buffer).pool != this)
+            throw new IllegalArgumentException("buffer was not allocated by this pool");
+        PooledBuffer b = (PooledBuffer)buffer;
+        if (!b.markReleased())
+            throw new IllegalStateException("buffer already released");
+        Leak leak = b.leak;
+        if (leak != null) {
+            leaks.remove(leak);
+            leak.clear();
+        }
+        int cap = b.capacity();
+        releases.increment();
+        inUseCapacity.add(-cap);
+        if (b.handle < 0L) {
+            unpooledCapacity.add(-cap);
+            Cleaner cl = b.cleaner();
+            if (cl != null)
+                cl.clean();
+        } else if (!closed) {
+            free(b.handle, b.sizeClass);
+        }
+    }
+
+    /*
+     * Returns a block to this thread's cache, moving the older half of
+     * the cache to its arena if it is full, so that the cache does not
+     * keep the runs it drew from first from being wholly freed.
+     */
+    private void free(long h, int c) {
+        Cache cache = caches.get();
+        int n = cache.counts[c];
+        long[] hs = cache.handles[c];
+        if (hs == null)
+            cache.handles[c] = hs = new long[cacheLimit(c)];
+        if (n == hs.length) {
+            int move = n - (n >>> 1);
+            put(hs, 0, move);
+            System.arraycopy(hs, move, hs, 0, n -= move);
+        }
+        hs[n++] = h;
+        cache.counts[c] = n;
+    }
+
+    /*
+     * Reserves a new slab, returning its index, or -1 if the pool has
+     * reached its memory limit.
+     */
+    int newSlab() {
+        synchronized (slabLock) {
+            if ((long)(slabCount + 1) * SLAB_SIZE > maxMemory)
+                return -1;
+            DirectByteBuffer slab = new DirectByteBuffer(SLAB_SIZE);
+            DirectByteBuffer[] ss = slabs;
+            Run[][] pr = pageRuns;
+            if (slabCount == ss.length) {
+                ss = Arrays.copyOf(ss, ss.length * 2);
+                pr = Arrays.copyOf(pr, pr.length * 2);
+                freePages = Arrays.copyOf(freePages, freePages.length * 2);
+            }
+            ss[slabCount] = slab;
+            pr[slabCount] = new Run[PAGES];
+            freePages[slabCount] = -1L;
+            slabs = ss;               // publish
+            pageRuns = pr;
+            return slabCount++;
+        }
+    }
+
+    /*
+     * Takes a run for class c from the free pages, reserving a new slab
+     * if none has enough consecutive free pages and grow is true.
+     * Returns null if a new slab is needed and grow is false, or if the
+     * pool has reached its memory limit.
+     */
+    Run newRun(Arena arena, int c, boolean grow) {
+        int n = RUN_PAGES[c];
+        long mask = (1L << n) - 1;
+        synchronized (slabLock) {
+            int s = -1, p = -1;
+            for (int i = 0; i < slabCount && s < 0; i++) {
+                long m = freePages[i], r = m;
+                // bit p of r is set if pages p to p + n - 1 are free
+                for (int k = 1; k < n && r != 0L; k++)
+                    r &= m >>> k;
+                if (r != 0L) {
+                    s = i;
+                    p = Long.numberOfTrailingZeros(r);
+                }
+            }
+            if (s < 0) {
+                if (!grow || (s = newSlab()) < 0)
+                    return null;
+                p = 0;
+            }
+            freePages[s] &= ~(mask << p);
+            Run run = new Run(arena, c, s, p);
+            Run[] pr = pageRuns[s];
+            for (int i = p; i < p + n; i++)
+                pr[i] = run;
+            return run;
+        }
+    }
+
+    /*
+     * Returns the pages of a wholly free run to the pool.
+     */
+    void freeRun(Run run) {
+        int n = RUN_PAGES[run.sizeClass];
+        synchronized (slabLock) {
+            Run[] pr = pageRuns[run.slab];
+            for (int i = run.page; i < run.page + n; i++)
+                pr[i] = null;
+            freePages[run.slab] |= ((1L << n) - 1) << run.page;
+        }
+    }
+
+    /*
+     * Returns the run holding the block with handle h.
+     */
+    private Run runOf(long h) {
+        return pageRuns[(int)(h >>> 32)][(int)h / PAGE_SIZE];
+    }
+
+    /*
+     * Returns blocks hs[from] to hs[to - 1] to their runs, taking the
+     * lock of each run's arena once for each stretch of its blocks.
+     */
+    private void put(long[] hs, int from, int to) {
+        int i = from;
+        while (i < to) {
+            Arena a = runOf(hs[i]).arena;
+            synchronized (a) {
+                for (Run r; i < to && (r = runOf(hs[i])).arena == a; i++)
+                    a.free(this, r, hs[i]);
+            }
+        }
+    }
+
+    /*
+     * Returns the blocks cached by this thread to their runs, so that
+     * the pages of runs left wholly free can be carved again.  Returns
+     * false if the cache was empty.
+     */
+    private boolean trim(Cache cache) {
+        boolean cached = false;
+        for (int c = 0; c < NUM_CLASSES; c++) {
+            int n = cache.counts[c];
+            if (n > 0) {
+                put(cache.handles[c], 0, n);
+                cache.counts[c] = 0;
+                cached = true;
+            }
+        }
+        return cached;
+    }
+
+    /*
+     * Moves the blocks cached by terminated threads to their arenas.
+     * Several threads may run this at once; each cache is drained only
+     * by the one that removes it from the queue.
+     */
+    private void reclaimDeadCaches() {
+        for (Cache cache : allCaches) {
+            Thread t = cache.owner.get();
+            if ((t == null || !t.isAlive()) && allCaches.remove(cache)) {
+                for (int c = 0; c < NUM_CLASSES; c++) {
+                    int n = cache.counts[c];
+                    if (n > 0) {
+                        put(cache.handles[c], 0, n);
+                        cache.counts[c] = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes this pool.  Later allocations fail, released buffers are no
+     * longer reused, and the management interface of the pool is
+     * unregistered.  Closing a closed pool has no effect.
+     */
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        disableMetrics();
+        for (Arena a : arenas) {
+            synchronized (a) {
+                Arrays.fill(a.runs, null);
+            }
+        }
+        allCaches.clear();
+    }
+
+    // -- Leak detection --
+
+    /**
+     * Records where a buffer was allocated, to be reported if the buffer
+     * becomes unreachable without being released.
+     */
+    static final class Leak extends PhantomReference<PooledBuffer> {
+        final long handle;
+        final int sizeClass;
+        final int capacity;
+        final Throwable allocation;
+
+        Leak(PooledBuffer b, ReferenceQueue<PooledBuffer> q) {
+            super(b, q);
+            this.handle = b.handle;
+            this.sizeClass = b.sizeClass;
+            this.capacity = b.capacity();
+            this.allocation = new Throwable("buffer allocated");
+        }
+    }
+
+    private void track(PooledBuffer b) {
+        Leak leak = new Leak(b, leakQueue);
+        b.leak = leak;
+        leaks.add(leak);
+    }
+
+    /*
+     * Reports and reclaims the blocks of buffers discarded unreleased.
+     */
+    private void reclaimLeaks() {
+        Leak leak;
+        while ((leak = (Leak)leakQueue.poll()) != null) {
+            if (!leaks.remove(leak))
+                continue;   // released after all
+            leakCount.increment();
+            inUseCapacity.add(-leak.capacity);
+            if (leak.handle < 0L) {
+                // its memory is freed by its own cleaner
+                unpooledCapacity.add(-leak.capacity);
+            } else if (!closed) {
+                put(new long[] { leak.handle }, 0, 1);
+            }
+            sun.util.logging.PlatformLogger.getLogger("java.nio").warning(
+                "DirectBufferPool " + name + ": a buffer of capacity " +
+                leak.capacity + " was not released", leak.allocation);
+        }
+    }
+
+    // -- Internal classes --
+
+    /**
+     * A buffer allocated from a pool, remembering its block.
+     */
+    static final class PooledBuffer extends DirectByteBuffer {
+        final DirectBufferPool pool;
+        final long handle;            // -1 if not pooled
+        final int sizeClass;
+        volatile int released;
+        Leak leak;
+
+        private static final AtomicIntegerFieldUpdater<PooledBuffer> RELEASED =
+            AtomicIntegerFieldUpdater.newUpdater(PooledBuffer.class, "released");
+
+        // a block of a slab
+        PooledBuffer(DirectBufferPool pool, long addr, int cap,
+                     DirectByteBuffer slab, long handle, int sizeClass) {
+            super(addr, cap, slab);
+            this.pool = pool;
+            this.handle = handle;
+            this.sizeClass = sizeClass;
+        }
+
+        // memory of its own
+        PooledBuffer(DirectBufferPool pool, int cap) {
+            super(cap);
+            this.pool = pool;
+            this.handle = -1L;
+            this.sizeClass = -1;
+        }
+
+        boolean markReleased() {
+            return RELEASED.compareAndSet(this, 0, 1);
+        }
+    }
+
+    /**
+     * A run of pages of a slab, carved into blocks of one size class.
+     * Blocks not yet handed out are carved in order; those returned are
+     * kept on a stack.  Guarded by the lock of the arena owning it.
+     */
+    static final class Run {
+        final Arena arena;
+        final int sizeClass;
+        final int slab;
+        final int page;               // index of its first page
+        final long base;              // handle of its first block
+        final int size;               // block size
+        final int capacity;           // number of blocks
+        int carved;                   // blocks handed out at least once
+        int[] free;                   // indices of returned blocks
+        int top;                      // number of returned blocks
+        Run prev, next;               // in the arena's list for the class
+
+        Run(Arena arena, int c, int slab, int page) {
+            this.arena = arena;
+            this.sizeClass = c;
+            this.slab = slab;
+            this.page = page;
+            this.base = ((long)slab << 32) | (page * PAGE_SIZE);
+            this.size = classSize(c);
+            this.capacity = RUN_PAGES[c] * PAGE_SIZE / size;
+        }
+
+        int available() {
+            return top + capacity - carved;
+        }
+
+        long take() {
+            int i = (top > 0) ? free[--top] : carved++;
+            return base + (long)i * size;
+        }
+
+        void put(long h) {
+            if (free == null)
+                free = new int[capacity];
+            free[top++] = (int)((h - base) / size);
+        }
+    }
+
+    /**
+     * For each size class, a list of the runs with blocks available.
+     */
+    static final class Arena {
+        final Run[] runs = new Run[NUM_CLASSES];
+
+        /*
+         * Fills half of the thread's cache for class c and returns one
+         * more block; returns -2 if that would need a new slab and grow
+         * is false, or -1 if the pool has reached its memory limit.
+         */
+        synchronized long refill(DirectBufferPool pool, Cache cache, int c,
+                                 boolean grow) {
+            if (pool.closed)
+                return -1L;
+            Run r = runs[c];
+            if (r == null) {
+                if ((r = pool.newRun(this, c, grow)) == null)
+                    return grow ? -1L : -2L;
+                link(r);
+            }
+            long h = r.take();
+            long[] ch = cache.handles[c];
+            if (ch == null)
+                cache.handles[c] = ch = new long[cacheLimit(c)];
+            int want = Math.min(cacheLimit(c) >>> 1, ch.length - cache.counts[c]);
+            for (;;) {
+                while (want > 0 && r.available() > 0) {
+                    ch[cache.counts[c]++] = r.take();
+                    want--;
+                }
+                if (r.available() == 0)
+                    unlink(r);
+                // use up partly used runs, but start no more
+                if (want == 0 || (r = runs[c]) == null)
+                    break;
+            }
+            return h;
+        }
+
+        /*
+         * Returns a block to its run, and the run's pages to the pool
+         * once all its blocks are back.
+         */
+        void free(DirectBufferPool pool, Run r, long h) {
+            // assert Thread.holdsLock(this) && r.arena == this;
+            if (r.available() == 0)
+                link(r);
+            r.put(h);
+            if (r.available() == r.capacity) {
+                unlink(r);
+                pool.freeRun(r);
+            }
+        }
+
+        private void link(Run r) {
+            Run h = runs[r.sizeClass];
+            r.prev = null;
+            r.next = h;
+            if (h != null)
+                h.prev = r;
+            runs[r.sizeClass] = r;
+        }
+
+        private void unlink(Run r) {
+            Run p = r.prev, n = r.next;
+            if (p != null)
+                p.next = n;
+            else
+                runs[r.sizeClass] = n;
+            if (n != null)
+                n.prev = p;
+            r.prev = r.next = null;
+        }
+    }
+
+    /**
+     * A thread's cache of free blocks, used only by that thread, or by
+     * the pool once the thread has terminated.
+     */
+    static final class Cache {
+        final WeakReference<Thread> owner;
+        final Arena arena;
+        final long[][] handles = new long[NUM_CLASSES][];
+        final int[] counts = new int[NUM_CLASSES];
+
+        Cache(Thread owner, Arena arena) {
+            this.owner = new WeakReference<>(owner);
+            this.arena = arena;
+        }
+    }
+
+    // -- Metrics --
+
+    /**
+     * Registers the management interface of this pool with the platform
+     * {@link javax.management.MBeanServer MBeanServer}, if not already
+     * registered.  The interface is unregistered when the pool is closed
+     * or metrics are disabled.  Pools whose metrics are enabled at the
+     * same time must have distinct names.
+     *
+     * @return the management interface of this pool
+     * @throws IllegalStateException if the interface cannot be
+     *         registered, for instance because another interface is
+     *         registered under the name of this pool, in which case
+     *         metrics are not enabled
+     */
+    public DirectBufferPoolMXBean enableMetrics() {
+        Metrics mx;
+        synchronized (this) {
+            if ((mx = metrics) != null)
+                return mx;
+            metrics = mx = new Metrics();
+        }
+        try {
+            mx.register();
+        } catch (IllegalStateException e) {
+            synchronized (this) {
+                if (metrics == mx)
+                    metrics = null;
+            }
+            throw e;
+        }
+        if (closed)
+            disableMetrics();
+        return mx;
+    }
+
+    /**
+     * Unregisters the management interface of this pool.  Usage remains
+     * readable through the interface returned by {@link #enableMetrics}.
+     */
+    public void disableMetrics() {
+        final Metrics mx;
+        synchronized (this) {
+            mx = metrics;
+            metrics = null;
+        }
+        if (mx != null)
+            mx.unregister();
+    }
+
+    /**
+     * The usage of this pool, exposed as its management interface.
+     */
+    final class Metrics implements DirectBufferPoolMXBean {
+        final ObjectName objectName;
+        private ObjectInstance registration;  // null unless registered
+        private boolean unregistered;
+
+        Metrics() {
+            try {
+                String value = name;
+                for (int i = 0; i < name.length(); ++i) {
+                    if (",=:\"*?\n".indexOf(name.charAt(i)) >= 0) {
+                        value = ObjectName.quote(name);
+                        break;
+                    }
+                }
+                objectName = new ObjectName("java.nio:type=DirectBufferPool,name=" + value);
+            } catch (javax.management.MalformedObjectNameException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        /**
+         * Registers this interface, unless it has been unregistered.
+         */
+        synchronized void register() {
+            if (unregistered || registration != null)
+                return;
+            registration = AccessController.doPrivileged(
+                new PrivilegedAction<ObjectInstance>() {
+                    public ObjectInstance run() {
+                        try {
+                            return ManagementFactory.getPlatformMBeanServer()
+                                .registerMBean(Metrics.this, objectName);
+                        } catch (JMException e) {
+                            throw new IllegalStateException(
+                                "cannot register " + objectName, e);
+                        }
+                    }
+                });
+        }
+
+        /**
+         * Unregisters this interface if it was registered by this pool,
+         * and not some other interface registered under the same name.
+         */
+        void unregister() {
+            final ObjectInstance inst;
+            synchronized (this) {
+                unregistered = true;
+                inst = registration;
+                registration = null;
+            }
+            if (inst == null)
+                return;
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                public Void run() {
+                    try {
+                        ManagementFactory.getPlatformMBeanServer()
+                            .unregisterMBean(inst.getObjectName());
+                    } catch (JMException ignore) {
+                        // already unregistered by another party
+                    }
+                    return null;
+                }
+            });
+        }
+
+        public ObjectName getObjectName() { return objectName; }
+        public String getName() { return name; }
+        public long getCount() { return allocations.sum() - releases.sum() - leakCount.sum(); }
+        public long getTotalCapacity() { return inUseCapacity.sum(); }
+        public long getMemoryUsed() { return getPooledMemory() + unpooledCapacity.sum(); }
+        public long getAllocationCount() { return allocations.sum(); }
+        public long getReleaseCount() { return releases.sum(); }
+        public long getThreadCacheHitCount() { return cacheHits.sum(); }
+        public long getUnpooledAllocationCount() { return unpooled.sum(); }
+        public boolean isLeakDetectionEnabled() { return leakQueue != null; }
+
+        public long getPooledMemory() {
+            synchronized (slabLock) {
+                return (long)slabCount * SLAB_SIZE;
+            }
+        }
+
+        public long getLeakCount() {
+            if (leakQueue != null)
+                reclaimLeaks();
+            return leakCount.sum();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package java.nio.file;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Helper class to support the {@code Files.transfer} methods.  Bytes are
+ * moved with {@link FileChannel#transferTo transferTo} or {@link
+ * FileChannel#transferFrom transferFrom} when either end is a file
+ * channel, so that the operating system may copy them without passing
+ * them through the Java heap, and otherwise through a direct buffer.
+ */
+
+class FileTransferHelper {
+    private FileTransferHelper() { }
+
+    /*
+     * Bytes passed to the operating system in one transfer call, between
+     * progress reports.
+     */
+    private static final long CHUNK_SIZE = 8L * 1024 * 1024;
+
+    /*
+     * Size of the direct buffer used when neither end is a file.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Parses the arguments for a transfer operation.
+     */
+    static class TransferOptions {
+        boolean replaceExisting = false;
+        boolean sparse = false;
+        LongConsumer listener;
+        long bytesPerSecond;
+
+        private TransferOptions() { }
+
+        static TransferOptions parse(boolean createsFile, CopyOption... options) {
+            TransferOptions result = new TransferOptions();
+            for (CopyOption option: options) {
+                if (option == StandardCopyOption.REPLACE_EXISTING && createsFile) {
+                    result.replaceExisting = true;
+                    continue;
+                }
+                if (option == TransferOption.SPARSE) {
+                    result.sparse = true;
+                    continue;
+                }
+                if (option instanceof TransferOption) {
+                    TransferOption opt = (TransferOption)option;
+                    if (opt.listener() != null)
+                        result.listener = opt.listener();
+                    else
+                        result.bytesPerSecond = opt.bytesPerSecond();
+                    continue;
+                }
+                if (option == null)
+                    throw new NullPointerException("options contains 'null'");
+                throw new UnsupportedOperationException("'" + option +
+                    "' is not a recognized transfer option");
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Creates the target file, replacing it if requested, as
+     * Files.copy(InputStream, Path, CopyOption...) does, and as a sparse
+     * file if the zero runs of the source are to be skipped.
+     */
+    static SeekableByteChannel createTarget(Path target, TransferOptions opts)
+        throws IOException
+    {
+        // attempt to delete an existing file
+        SecurityException se = null;
+        if (opts.replaceExisting) {
+            try {
+                Files.deleteIfExists(target);
+            } catch (SecurityException x) {
+                se = x;
+            }
+        }
+
+        // attempt to create target file. If it fails with
+        // FileAlreadyExistsException then it may be because the security
+        // manager prevented us from deleting the file, in which case we just
+        // throw the SecurityException.
+        try {
+            if (opts.sparse)
+                return Files.newByteChannel(target, StandardOpenOption.CREATE_NEW,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.SPARSE);
+            return Files.newByteChannel(target, StandardOpenOption.CREATE_NEW,
+                                                StandardOpenOption.WRITE);
+        } catch (FileAlreadyExistsException x) {
+            if (se != null)
+                throw se;
+            // someone else won the race and created the file
+            throw x;
+        }
+    }
+
+    /**
+     * Transfers all bytes from src, from its current position, to dst.
+     */
+    static long transfer(ReadableByteChannel src, WritableByteChannel dst,
+                         TransferOptions opts)
+        throws IOException
+    {
+        checkBlocking(src);
+        checkBlocking(dst);
+        Transfer t = new Transfer(opts);
+        if (opts.sparse) {
+            if (!(dst instanceof SeekableByteChannel))
+                throw new UnsupportedOperationException("SPARSE requires a file target");
+            return t.sparse(src, (SeekableByteChannel)dst);
+        }
+        if (src instanceof FileChannel) {
+            if (hasBytesAt((FileChannel)src))
+                return t.transferTo((FileChannel)src, dst);
+            // transferFrom would position the source as well
+            return t.copy(src, dst);
+        }
+        if (dst instanceof FileChannel && isSeekable((FileChannel)dst))
+            return t.transferFrom(src, (FileChannel)dst);
+        return t.copy(src, dst);
+    }
+
+    /**
+     * Tests whether the channel can be positioned, which fails for the
+     * channel of a stream on a pipe, socket or terminal.
+     */
+    private static boolean isSeekable(FileChannel ch) {
+        try {
+            ch.position();
+            return true;
+        } catch (IOException x) {
+            return false;
+        }
+    }
+
+    /**
+     * Tests whether transferTo can read the source: it must be seekable
+     * and have bytes before its size.  Devices such as /dev/zero report
+     * a size of zero, and are read by the buffered copy instead, as is
+     * an empty file, which that copy finds empty just as well.
+     */
+    private static boolean hasBytesAt(FileChannel ch) {
+        try {
+            return ch.size() > ch.position();
+        } catch (IOException x) {
+            return false;
+        }
+    }
+
+    private static void checkBlocking(Object ch) {
+        if (ch instanceof SelectableChannel && !((SelectableChannel)ch).isBlocking())
+            throw new IllegalBlockingModeException();
+    }
+
+    /**
+     * The state of one transfer: the bytes moved, and the clock for
+     * rate limiting.
+     */
+    private static class Transfer {
+        private final LongConsumer listener;
+        private final long bytesPerSecond;
+        private final long chunkSize;
+        private final long startNanos;
+        private long total;
+
+        Transfer(TransferOptions opts) {
+            this.listener = opts.listener;
+            this.bytesPerSecond = opts.bytesPerSecond;
+            // with a rate limit, transfer about a tenth of a second at a time
+            this.chunkSize = (bytesPerSecond > 0)
+                ? Math.max(BUFFER_SIZE, Math.min(CHUNK_SIZE, bytesPerSecond / 10))
+                : CHUNK_SIZE;
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Records n more bytes transferred, reports them, and sleeps if
+         * the transfer is ahead of its rate limit.
+         */
+        void advance(long n) throws IOException {
+            total += n;
+            if (listener != null)
+                listener.accept(total);
+            if (bytesPerSecond > 0) {
+                long due = startNanos +
+                    (long)(total * (1_000_000_000.0 / bytesPerSecond));
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(wait);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        InterruptedIOException x = new InterruptedIOException();
+                        x.bytesTransferred = (int)Math.min(total, Integer.MAX_VALUE);
+                        throw x;
+                    }
+                }
+            }
+        }
+
+        long transferTo(FileChannel src, WritableByteChannel dst) throws IOException {
+            long pos = src.position();
+            try {
+                for (;;) {
+                    long n = src.transferTo(pos, chunkSize, dst);
+                    if (n <= 0)
+                        break;  // end of file
+                    pos += n;
+                    advance(n);
+                }
+            } finally {
+                src.position(pos);
+            }
+            return total;
+        }
+
+        long transferFrom(ReadableByteChannel src, FileChannel dst) throws IOException {
+            long pos = dst.position();
+            try {
+                for (;;) {
+                    // a blocking read of a non-empty buffer returns 0 bytes
+                    // only at end of stream
+                    long n = dst.transferFrom(src, pos, chunkSize);
+                    if (n <= 0)
+                        break;
+                    pos += n;
+                    advance(n);
+                }
+            } finally {
+                dst.position(pos);
+            }
+            return total;
+        }
+
+        long copy(ReadableByteChannel src, WritableByteChannel dst) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (src.read(buf) >= 0 || buf.position() > 0) {
+                buf.flip();
+                int n = buf.remaining();
+                while (buf.hasRemaining())
+                    dst.write(buf);
+                buf.clear();
+                if (n > 0)
+                    advance(n);
+            }
+            return total;
+        }
+
+        long sparse(ReadableByteChannel src, SeekableByteChannel dst) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long start = dst.position();
+            boolean hole = false;
+            for (;;) {
+                // fill the buffer, so that holes are found block by block
+                while (buf.hasRemaining() && src.read(buf) >= 0) { }
+                buf.flip();
+                int n = buf.remaining();
+                if (n == 0)
+                    break;
+                if (isZero(buf)) {
+                    dst.position(dst.position() + n);
+                    hole = true;
+                } else {
+                    while (buf.hasRemaining())
+                        dst.write(buf);
+                    hole = false;
+                }
+                buf.clear();
+                advance(n);
+                if (n < BUFFER_SIZE)
+                    break;
+            }
+            if (hole) {
+                // write the last byte, so that the file has its full size
+                long end = start + total;
+                dst.position(end - 1);
+                ByteBuffer zero = ByteBuffer.allocate(1);
+                while (zero.hasRemaining())
+                    dst.write(zero);
+            }
+            return total;
+        }
+
+        private static boolean isZero(ByteBuffer buf) {
+            int i = buf.position(), limit = buf.limit();
+            for (; i <= limit - 8; i += 8) {
+                if (buf.getLong(i) != 0L)
+                    return false;
+            }
+            for (; i < limit; i++) {
+                if (buf.get(i) != 0)
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -29,9 +29,12 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;   // javadoc
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
@@ -39,7 +42,9 @@ import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
@@ -3070,6 +3075,289 @@ public final class Files {
         }
     }
 
+    // -- transfers --
+
+    /**
+     * Transfers all bytes from a file to a new file, letting the operating
+     * system copy them where it can.
+     *
+     * <p> Where both files are associated with a provider whose channels are
+     * {@link FileChannel}s, the bytes are transferred with {@link
+     * FileChannel#transferTo transferTo}, which may copy them within the
+     * operating system without passing them through the Java heap; otherwise
+     * they are copied through a direct buffer.  Unlike {@link
+     * #copy(Path,Path,CopyOption[]) copy}, only the bytes of the file are
+     * transferred, never its attributes, and the two files may be associated
+     * with different providers.
+     *
+     * <p> By default, the transfer fails if the target file already exists or
+     * is a symbolic link. If the {@link StandardCopyOption#REPLACE_EXISTING
+     * REPLACE_EXISTING} option is specified, and the target file already
+     * exists, then it is replaced if it is not a non-empty directory.  The
+     * {@link TransferOption}s may also be specified, to report progress, to
+     * limit the rate of the transfer, or to leave holes in the target file for
+     * blocks of zeros.
+     *
+     * <p> If an I/O error occurs then it may do so after the target file has
+     * been created and after some bytes have been transferred.
+     *
+     * @param   source
+     *          the path to the file to read
+     * @param   target
+     *          the path to the file to create
+     * @param   options
+     *          options specifying how the transfer should be done
+     *
+     * @return  the number of bytes transferred
+     *
+     * @throws  IOException
+     *          if an I/O error occurs when reading or writing
+     * @throws  FileAlreadyExistsException
+     *          if the target file exists but cannot be replaced because the
+     *          {@code REPLACE_EXISTING} option is not specified <i>(optional
+     *          specific exception)</i>
+     * @throws  DirectoryNotEmptyException
+     *          the {@code REPLACE_EXISTING} option is specified but the file
+     *          cannot be replaced because it is a non-empty directory
+     *          <i>(optional specific exception)</i>
+     * @throws  InterruptedIOException
+     *          if the thread is interrupted while waiting to keep within a
+     *          {@link TransferOption#maxRate rate limit}
+     * @throws  UnsupportedOperationException
+     *          if {@code options} contains an option that is not supported
+     * @throws  SecurityException
+     *          In the case of the default provider, and a security manager is
+     *          installed, the {@link SecurityManager#checkRead(String) checkRead}
+     *          method is invoked to check read access to the source file, the
+     *          {@link SecurityManager#checkWrite(String) checkWrite} is invoked
+     *          to check write access to the target file, and where the {@code
+     *          REPLACE_EXISTING} option is specified, the security manager's
+     *          {@link SecurityManager#checkDelete(String) checkDelete} method
+     *          is invoked to check that an existing file can be deleted.
+     *
+     * @since 1.8
+     */
+    public static long transfer(Path source, Path target, CopyOption... options)
+        throws IOException
+    {
+        FileTransferHelper.TransferOptions opts =
+            FileTransferHelper.TransferOptions.parse(true, options);
+        try (SeekableByteChannel in = newByteChannel(source);
+             SeekableByteChannel out = FileTransferHelper.createTarget(target, opts)) {
+            return FileTransferHelper.transfer(in, out, opts);
+        }
+    }
+
+    /**
+     * Transfers all bytes from a file to a channel, letting the operating
+     * system copy them where it can.  The channel is not closed.
+     *
+     * <p> Where the file is associated with a provider whose channels are
+     * {@link FileChannel}s, the bytes are transferred with {@link
+     * FileChannel#transferTo transferTo}, which on some operating systems
+     * sends them from the file system cache directly to a socket; otherwise
+     * they are copied through a direct buffer.  This is the way to serve a
+     * static file over a {@link java.nio.channels.SocketChannel
+     * SocketChannel}.  The {@link TransferOption#progress progress} and
+     * {@link TransferOption#maxRate maxRate} options may be specified.
+     *
+     * <p> If an I/O error occurs reading from the file or writing to the
+     * channel, then it may do so after some bytes have been transferred.
+     *
+     * @param   source
+     *          the path to the file
+     * @param   target
+     *          the channel to write to, which must be in blocking mode
+     * @param   options
+     *          options specifying how the transfer should be done
+     *
+     * @return  the number of bytes transferred
+     *
+     * @throws  IOException
+     *          if an I/O error occurs when reading or writing
+     * @throws  java.nio.channels.IllegalBlockingModeException
+     *          if the channel is in non-blocking mode
+     * @throws  InterruptedIOException
+     *          if the thread is interrupted while waiting to keep within a
+     *          rate limit
+     * @throws  UnsupportedOperationException
+     *          if {@code options} contains an option that is not supported
+     * @throws  SecurityException
+     *          In the case of the default provider, and a security manager is
+     *          installed, the {@link SecurityManager#checkRead(String) checkRead}
+     *          method is invoked to check read access to the file.
+     *
+     * @since 1.8
+     */
+    public static long transfer(Path source, WritableByteChannel target,
+                                CopyOption... options)
+        throws IOException
+    {
+        Objects.requireNonNull(target);
+        FileTransferHelper.TransferOptions opts =
+            FileTransferHelper.TransferOptions.parse(false, options);
+        if (opts.sparse)
+            throw new UnsupportedOperationException("SPARSE not supported");
+        try (SeekableByteChannel in = newByteChannel(source)) {
+            return FileTransferHelper.transfer(in, target, opts);
+        }
+    }
+
+    /**
+     * Transfers all bytes from a channel to a new file, letting the
+     * operating system copy them where it can.  On return, the channel
+     * will be at end of stream; it is not closed.
+     *
+     * <p> Where the file is associated with a provider whose channels are
+     * {@link FileChannel}s, the bytes are transferred with {@link
+     * FileChannel#transferFrom transferFrom}, or, if the source is itself a
+     * {@code FileChannel}, with {@link FileChannel#transferTo transferTo};
+     * otherwise they are copied through a direct buffer.  Options are as for
+     * {@link #transfer(Path,Path,CopyOption[]) transfer(Path,Path,...)}.
+     *
+     * <p> If an I/O error occurs then it may do so after the target file has
+     * been created and after some bytes have been transferred.
+     *
+     * @param   source
+     *          the channel to read from, which must be in blocking mode
+     * @param   target
+     *          the path to the file to create
+     * @param   options
+     *          options specifying how the transfer should be done
+     *
+     * @return  the number of bytes transferred
+     *
+     * @throws  IOException
+     *          if an I/O error occurs when reading or writing
+     * @throws  FileAlreadyExistsException
+     *          if the target file exists but cannot be replaced because the
+     *          {@code REPLACE_EXISTING} option is not specified <i>(optional
+     *          specific exception)</i>
+     * @throws  DirectoryNotEmptyException
+     *          the {@code REPLACE_EXISTING} option is specified but the file
+     *          cannot be replaced because it is a non-empty directory
+     *          <i>(optional specific exception)</i>
+     * @throws  java.nio.channels.IllegalBlockingModeException
+     *          if the channel is in non-blocking mode
+     * @throws  InterruptedIOException
+     *          if the thread is interrupted while waiting to keep within a
+     *          rate limit
+     * @throws  UnsupportedOperationException
+     *          if {@code options} contains an option that is not supported
+     * @throws  SecurityException
+     *          In the case of the default provider, and a security manager is
+     *          installed, the {@link SecurityManager#checkWrite(String) checkWrite}
+     *          method is invoked to check write access to the file. Where the
+     *          {@code REPLACE_EXISTING} option is specified, the security
+     *          manager's {@link SecurityManager#checkDelete(String) checkDelete}
+     *          method is invoked to check that an existing file can be deleted.
+     *
+     * @since 1.8
+     */
+    public static long transfer(ReadableByteChannel source, Path target,
+                                CopyOption... options)
+        throws IOException
+    {
+        // ensure not null before opening file
+        Objects.requireNonNull(source);
+        FileTransferHelper.TransferOptions opts =
+            FileTransferHelper.TransferOptions.parse(true, options);
+        try (SeekableByteChannel out = FileTransferHelper.createTarget(target, opts)) {
+            return FileTransferHelper.transfer(source, out, opts);
+        }
+    }
+
+    /**
+     * Transfers all bytes from an input stream to a new file.  On return,
+     * the input stream will be at end of stream.
+     *
+     * <p> This method behaves as {@link
+     * #transfer(ReadableByteChannel,Path,CopyOption[])
+     * transfer(ReadableByteChannel,Path,...)} on the {@linkplain
+     * FileInputStream#getChannel channel} of a {@link FileInputStream}, so
+     * that a file is transferred without passing through the Java heap, and
+     * on a channel reading from any other stream, including a subclass of
+     * {@code FileInputStream}, whose {@code read} methods may be overridden.
+     *
+     * @param   in
+     *          the input stream to read from
+     * @param   target
+     *          the path to the file to create
+     * @param   options
+     *          options specifying how the transfer should be done
+     *
+     * @return  the number of bytes transferred
+     *
+     * @throws  IOException
+     *          if an I/O error occurs when reading or writing
+     * @throws  FileAlreadyExistsException
+     *          if the target file exists but cannot be replaced because the
+     *          {@code REPLACE_EXISTING} option is not specified <i>(optional
+     *          specific exception)</i>
+     * @throws  InterruptedIOException
+     *          if the thread is interrupted while waiting to keep within a
+     *          rate limit
+     * @throws  UnsupportedOperationException
+     *          if {@code options} contains an option that is not supported
+     * @throws  SecurityException
+     *          As for {@link #transfer(ReadableByteChannel,Path,CopyOption[])
+     *          transfer(ReadableByteChannel,Path,...)}.
+     *
+     * @since 1.8
+     */
+    public static long transfer(InputStream in, Path target, CopyOption... options)
+        throws IOException
+    {
+        ReadableByteChannel ch = (in.getClass() == FileInputStream.class)
+            ? ((FileInputStream)in).getChannel()
+            : Channels.newChannel(in);
+        return transfer(ch, target, options);
+    }
+
+    /**
+     * Transfers all bytes from a file to an output stream.
+     *
+     * <p> This method behaves as {@link
+     * #transfer(Path,WritableByteChannel,CopyOption[])
+     * transfer(Path,WritableByteChannel,...)} on the {@linkplain
+     * FileOutputStream#getChannel channel} of a {@link FileOutputStream}, so
+     * that a file is transferred without passing through the Java heap, and
+     * on a channel writing to any other stream, including a subclass of
+     * {@code FileOutputStream}, whose {@code write} methods may be
+     * overridden.  The stream is not flushed.
+     *
+     * @param   source
+     *          the path to the file
+     * @param   out
+     *          the output stream to write to
+     * @param   options
+     *          options specifying how the transfer should be done
+     *
+     * @return  the number of bytes transferred
+     *
+     * @throws  IOException
+     *          if an I/O error occurs when reading or writing
+     * @throws  InterruptedIOException
+     *          if the thread is interrupted while waiting to keep within a
+     *          rate limit
+     * @throws  UnsupportedOperationException
+     *          if {@code options} contains an option that is not supported
+     * @throws  SecurityException
+     *          In the case of the default provider, and a security manager is
+     *          installed, the {@link SecurityManager#checkRead(String) checkRead}
+     *          method is invoked to check read access to the file.
+     *
+     * @since 1.8
+     */
+    public static long transfer(Path source, OutputStream out, CopyOption... options)
+        throws IOException
+    {
+        WritableByteChannel ch = (out.getClass() == FileOutputStream.class)
+            ? ((FileOutputStream)out).getChannel()
+            : Channels.newChannel(out);
+        return transfer(source, ch, options);
+    }
+
     /**
      * The maximum size of array to allocate.
      * Some VMs reserve some header words in an array.
@@ -0,0 +1,89 @@
+package java.nio.file;
+
+import java.util.Objects;
+import java.util.function.LongConsumer;
+
+/**
+ * Options that configure how bytes are transferred by the {@link
+ * Files#transfer(Path,Path,CopyOption[]) Files.transfer} methods.
+ *
+ * <p> Transfer options may be given together with the {@link
+ * StandardCopyOption#REPLACE_EXISTING REPLACE_EXISTING} option where a
+ * {@code transfer} method creates a file.
+ *
+ * @since 1.8
+ */
+
+public final class TransferOption implements CopyOption {
+    private final String name;
+    private final LongConsumer listener;
+    private final long bytesPerSecond;
+
+    private TransferOption(String name, LongConsumer listener, long bytesPerSecond) {
+        this.name = name;
+        this.listener = listener;
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Creates holes in the target file for blocks of zeros in the source.
+     *
+     * <p> With this option the bytes are read and examined, a block at a
+     * time, rather than transferred by the operating system, and a block
+     * that contains only zeros is not written; the target file is
+     * extended past it instead, which on file systems that support sparse
+     * files leaves a hole that occupies no space.  The target must be a
+     * file.
+     */
+    public static final TransferOption SPARSE =
+        new TransferOption("SPARSE", null, 0L);
+
+    /**
+     * Returns an option that reports the progress of a transfer.  The
+     * listener is invoked, on the transferring thread, with the total
+     * number of bytes transferred so far each time a block has been
+     * transferred.
+     *
+     * @param   listener
+     *          the listener to invoke
+     *
+     * @return  the option
+     */
+    public static TransferOption progress(LongConsumer listener) {
+        Objects.requireNonNull(listener);
+        return new TransferOption("PROGRESS", listener, 0L);
+    }
+
+    /**
+     * Returns an option that limits the average rate of a transfer.  The
+     * transferring thread sleeps between blocks as needed to keep the
+     * number of bytes transferred within the limit, measured from the
+     * start of the transfer.
+     *
+     * @param   bytesPerSecond
+     *          the maximum rate, in bytes per second
+     *
+     * @return  the option
+     *
+     * @throws  IllegalArgumentException
+     *          if {@code bytesPerSecond} is not positive
+     */
+    public static TransferOption maxRate(long bytesPerSecond) {
+        if (bytesPerSecond <= 0)
+            throw new IllegalArgumentException("bytesPerSecond must be positive");
+        return new TransferOption("MAX_RATE", null, bytesPerSecond);
+    }
+
+    LongConsumer listener() {
+        return listener;
+    }
+
+    long bytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return (bytesPerSecond > 0) ? name + "(" + bytesPerSecond + ")" : name;
+    }
+}
@@ -36,6 +36,9 @@ import java.util.function.IntToDoubleFunction;
 import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
@@ -1571,6 +1574,1253 @@ public class Arrays {
         }
     }
 
+    // Radix sorting
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(int[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than the size of the
+     * original array. Arrays shorter than a few hundred elements are sorted
+     * using {@link #sort(int[]) sort}.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] a) {
+        RadixSort.sort(a, 0, a.length, null);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If {@code fromIndex
+     * == toIndex}, the range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(int[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than the size of the
+     * specified range of the original array. Arrays shorter than a few hundred
+     * elements are sorted using {@link #sort(int[]) sort}.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex, null);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(long[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than the size of the
+     * original array. Arrays shorter than a few hundred elements are sorted
+     * using {@link #sort(long[]) sort}.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] a) {
+        RadixSort.sort(a, 0, a.length, null);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If {@code fromIndex
+     * == toIndex}, the range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(long[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than the size of the
+     * specified range of the original array. Arrays shorter than a few hundred
+     * elements are sorted using {@link #sort(long[]) sort}.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex, null);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values, so this method uses the total order imposed by {@link
+     * Float#compare}: {@code -0.0f} is treated as less than {@code 0.0f}, and
+     * {@code Float.NaN} as greater than any other value, all NaN values being
+     * considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(float[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than twice the size of
+     * original array. Arrays shorter than a few hundred elements are sorted
+     * using {@link #sort(float[]) sort}.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(float[] a) {
+        RadixSort.sort(a, 0, a.length);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If {@code fromIndex
+     * == toIndex}, the range to be sorted is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values, so this method uses the total order imposed by {@link
+     * Float#compare}: {@code -0.0f} is treated as less than {@code 0.0f}, and
+     * {@code Float.NaN} as greater than any other value, all NaN values being
+     * considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(float[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than twice the size of
+     * specified range of the original array. Arrays shorter than a few hundred
+     * elements are sorted using {@link #sort(float[]) sort}.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(float[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values, so this method uses the total order imposed by {@link
+     * Double#compare}: {@code -0.0d} is treated as less than {@code 0.0d}, and
+     * {@code Double.NaN} as greater than any other value, all NaN values being
+     * considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(double[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than twice the size of
+     * original array. Arrays shorter than a few hundred elements are sorted
+     * using {@link #sort(double[]) sort}.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(double[] a) {
+        RadixSort.sort(a, 0, a.length);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If {@code fromIndex
+     * == toIndex}, the range to be sorted is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values, so this method uses the total order imposed by {@link
+     * Double#compare}: {@code -0.0d} is treated as less than {@code 0.0d}, and
+     * {@code Double.NaN} as greater than any other value, all NaN values being
+     * considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(double[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than twice the size of
+     * specified range of the original array. Arrays shorter than a few hundred
+     * elements are sorted using {@link #sort(double[]) sort}.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * permuting the array of values so that each value stays with its key.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: values of equal keys
+     * remain in their original order. Sorting an array of keys together with
+     * the indices {@code 0, 1, ..., n - 1} yields the permutation that sorts
+     * them.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(int[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than the size of the
+     * original arrays.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted with the keys
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException(
+                    "keys.length(" + keys.length + ") != values.length(" +
+                    values.length + ")");
+        RadixSort.sort(keys, 0, keys.length, values);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending numerical
+     * order, permuting the same range of the array of values so that each
+     * value stays with its key. The range to be sorted extends from the index
+     * {@code fromIndex}, inclusive, to the index {@code toIndex}, exclusive.
+     * If {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: values of equal keys
+     * remain in their original order. Sorting an array of keys together with
+     * the indices {@code 0, 1, ..., n - 1} yields the permutation that sorts
+     * them.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(int[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than the size of the
+     * specified ranges of the original arrays.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted with the keys
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0}, or {@code toIndex} is greater than
+     *     the length of either array
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] keys, int[] values, int fromIndex,
+                                 int toIndex) {
+        rangeCheck(keys.length, fromIndex, toIndex);
+        rangeCheck(values.length, fromIndex, toIndex);
+        RadixSort.sort(keys, fromIndex, toIndex, values);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * permuting the array of values so that each value stays with its key.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: values of equal keys
+     * remain in their original order. Sorting an array of keys together with
+     * the indices {@code 0, 1, ..., n - 1} yields the permutation that sorts
+     * them.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(long[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than the size of the
+     * original arrays.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted with the keys
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException(
+                    "keys.length(" + keys.length + ") != values.length(" +
+                    values.length + ")");
+        RadixSort.sort(keys, 0, keys.length, values);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending numerical
+     * order, permuting the same range of the array of values so that each
+     * value stays with its key. The range to be sorted extends from the index
+     * {@code fromIndex}, inclusive, to the index {@code toIndex}, exclusive.
+     * If {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: values of equal keys
+     * remain in their original order. Sorting an array of keys together with
+     * the indices {@code 0, 1, ..., n - 1} yields the permutation that sorts
+     * them.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix sort,
+     * which distributes the elements by each byte of their keys in turn,
+     * skipping bytes that all keys share. It runs in time linear in the number
+     * of elements and the width of the key, and is typically faster than
+     * {@link #sort(long[]) sort} on large arrays of keys spread over a wide
+     * range. It requires working space no greater than the size of the
+     * specified ranges of the original arrays.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted with the keys
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0}, or {@code toIndex} is greater than
+     *     the length of either array
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] keys, int[] values, int fromIndex,
+                                 int toIndex) {
+        rangeCheck(keys.length, fromIndex, toIndex);
+        rangeCheck(values.length, fromIndex, toIndex);
+        RadixSort.sort(keys, fromIndex, toIndex, values);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the array is less than the minimum
+     * granularity, it is sorted using the corresponding {@code radixSort}
+     * method. It requires working space no greater than the size of the
+     * original array. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] a) {
+        int n = a.length, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(a, 0, a.length, null);
+        else
+            RadixSort.parallelSort(a, 0, a.length, null,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If {@code fromIndex
+     * == toIndex}, the range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the specified range is less than the
+     * minimum granularity, it is sorted using the corresponding {@code
+     * radixSort} method. It requires working space no greater than the size of
+     * the specified range of the original array. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute any
+     * parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(a, fromIndex, toIndex, null);
+        else
+            RadixSort.parallelSort(a, fromIndex, toIndex, null,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the array is less than the minimum
+     * granularity, it is sorted using the corresponding {@code radixSort}
+     * method. It requires working space no greater than the size of the
+     * original array. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] a) {
+        int n = a.length, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(a, 0, a.length, null);
+        else
+            RadixSort.parallelSort(a, 0, a.length, null,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If {@code fromIndex
+     * == toIndex}, the range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the specified range is less than the
+     * minimum granularity, it is sorted using the corresponding {@code
+     * radixSort} method. It requires working space no greater than the size of
+     * the specified range of the original array. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute any
+     * parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(a, fromIndex, toIndex, null);
+        else
+            RadixSort.parallelSort(a, fromIndex, toIndex, null,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values, so this method uses the total order imposed by {@link
+     * Float#compare}: {@code -0.0f} is treated as less than {@code 0.0f}, and
+     * {@code Float.NaN} as greater than any other value, all NaN values being
+     * considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the array is less than the minimum
+     * granularity, it is sorted using the corresponding {@code radixSort}
+     * method. It requires working space no greater than twice the size of
+     * original array. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(float[] a) {
+        int n = a.length, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(a, 0, a.length);
+        else
+            RadixSort.parallelSort(a, 0, a.length,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If {@code fromIndex
+     * == toIndex}, the range to be sorted is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values, so this method uses the total order imposed by {@link
+     * Float#compare}: {@code -0.0f} is treated as less than {@code 0.0f}, and
+     * {@code Float.NaN} as greater than any other value, all NaN values being
+     * considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the specified range is less than the
+     * minimum granularity, it is sorted using the corresponding {@code
+     * radixSort} method. It requires working space no greater than twice the
+     * size of specified range of the original array. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute any
+     * parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(float[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(a, fromIndex, toIndex);
+        else
+            RadixSort.parallelSort(a, fromIndex, toIndex,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values, so this method uses the total order imposed by {@link
+     * Double#compare}: {@code -0.0d} is treated as less than {@code 0.0d}, and
+     * {@code Double.NaN} as greater than any other value, all NaN values being
+     * considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the array is less than the minimum
+     * granularity, it is sorted using the corresponding {@code radixSort}
+     * method. It requires working space no greater than twice the size of
+     * original array. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(double[] a) {
+        int n = a.length, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(a, 0, a.length);
+        else
+            RadixSort.parallelSort(a, 0, a.length,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical order.
+     * The range to be sorted extends from the index {@code fromIndex},
+     * inclusive, to the index {@code toIndex}, exclusive. If {@code fromIndex
+     * == toIndex}, the range to be sorted is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values, so this method uses the total order imposed by {@link
+     * Double#compare}: {@code -0.0d} is treated as less than {@code 0.0d}, and
+     * {@code Double.NaN} as greater than any other value, all NaN values being
+     * considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the specified range is less than the
+     * minimum granularity, it is sorted using the corresponding {@code
+     * radixSort} method. It requires working space no greater than twice the
+     * size of specified range of the original array. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute any
+     * parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(a, fromIndex, toIndex);
+        else
+            RadixSort.parallelSort(a, fromIndex, toIndex,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * permuting the array of values so that each value stays with its key.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: values of equal keys
+     * remain in their original order. Sorting an array of keys together with
+     * the indices {@code 0, 1, ..., n - 1} yields the permutation that sorts
+     * them.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the arrays is less than the minimum
+     * granularity, it is sorted using the corresponding {@code radixSort}
+     * method. It requires working space no greater than the size of the
+     * original arrays. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted with the keys
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException(
+                    "keys.length(" + keys.length + ") != values.length(" +
+                    values.length + ")");
+        int n = keys.length, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(keys, 0, keys.length, values);
+        else
+            RadixSort.parallelSort(keys, 0, keys.length, values,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending numerical
+     * order, permuting the same range of the array of values so that each
+     * value stays with its key. The range to be sorted extends from the index
+     * {@code fromIndex}, inclusive, to the index {@code toIndex}, exclusive.
+     * If {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: values of equal keys
+     * remain in their original order. Sorting an array of keys together with
+     * the indices {@code 0, 1, ..., n - 1} yields the permutation that sorts
+     * them.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the specified range is less than the
+     * minimum granularity, it is sorted using the corresponding {@code
+     * radixSort} method. It requires working space no greater than the size of
+     * the specified ranges of the original arrays. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute any
+     * parallel tasks.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted with the keys
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0}, or {@code toIndex} is greater than
+     *     the length of either array
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] keys, int[] values, int fromIndex,
+                                         int toIndex) {
+        rangeCheck(keys.length, fromIndex, toIndex);
+        rangeCheck(values.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(keys, fromIndex, toIndex, values);
+        else
+            RadixSort.parallelSort(keys, fromIndex, toIndex, values,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * permuting the array of values so that each value stays with its key.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: values of equal keys
+     * remain in their original order. Sorting an array of keys together with
+     * the indices {@code 0, 1, ..., n - 1} yields the permutation that sorts
+     * them.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the arrays is less than the minimum
+     * granularity, it is sorted using the corresponding {@code radixSort}
+     * method. It requires working space no greater than the size of the
+     * original arrays. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted with the keys
+     *
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException(
+                    "keys.length(" + keys.length + ") != values.length(" +
+                    values.length + ")");
+        int n = keys.length, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(keys, 0, keys.length, values);
+        else
+            RadixSort.parallelSort(keys, 0, keys.length, values,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending numerical
+     * order, permuting the same range of the array of values so that each
+     * value stays with its key. The range to be sorted extends from the index
+     * {@code fromIndex}, inclusive, to the index {@code toIndex}, exclusive.
+     * If {@code fromIndex == toIndex}, the range to be sorted is empty.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: values of equal keys
+     * remain in their original order. Sorting an array of keys together with
+     * the indices {@code 0, 1, ..., n - 1} yields the permutation that sorts
+     * them.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort. The array is divided into blocks, and for each byte of the
+     * keys the blocks' histograms of that byte are computed in parallel,
+     * combined by a parallel prefix computation into the blocks' offsets in a
+     * working array, and the blocks' elements then scattered to those offsets
+     * in parallel. If the length of the specified range is less than the
+     * minimum granularity, it is sorted using the corresponding {@code
+     * radixSort} method. It requires working space no greater than the size of
+     * the specified ranges of the original arrays. The {@link
+     * ForkJoinPool#commonPool() ForkJoin common pool} is used to execute any
+     * parallel tasks.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted with the keys
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0}, or {@code toIndex} is greater than
+     *     the length of either array
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] keys, int[] values, int fromIndex,
+                                         int toIndex) {
+        rangeCheck(keys.length, fromIndex, toIndex);
+        rangeCheck(values.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            RadixSort.sort(keys, fromIndex, toIndex, values);
+        else
+            RadixSort.parallelSort(keys, fromIndex, toIndex, values,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g);
+    }
+
+    // Sorting by key
+
+    /**
+     * Returns the permutation that sorts the specified array into
+     * ascending order of the {@code int} keys extracted from its
+     * elements: the indices of the elements, from that of the element
+     * with the least key to that of the element with the greatest.  The
+     * array itself is not modified.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of
+     * elements with equal keys are in ascending order.
+     *
+     * @implNote The key of each element is extracted once, into an
+     * {@code int} array that is sorted together with the indices by
+     * {@link #radixSort(int[], int[]) radixSort}, so the elements are
+     * not accessed while sorting.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array whose elements are to be ordered
+     * @param keyExtractor the function extracting the key of an element
+     * @return the indices of the elements in ascending order of their keys
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> int[]
+    sortedIndicesByInt(T[] a, ToIntFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length;
+        int[] keys = new int[n], indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = keyExtractor.applyAsInt(a[i]);
+            indices[i] = i;
+        }
+        radixSort(keys, indices);
+        return indices;
+    }
+
+    /**
+     * Returns the permutation that sorts the specified array into
+     * ascending order of the {@code long} keys extracted from its
+     * elements: the indices of the elements, from that of the element
+     * with the least key to that of the element with the greatest.  The
+     * array itself is not modified.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of
+     * elements with equal keys are in ascending order.
+     *
+     * @implNote The key of each element is extracted once, into a
+     * {@code long} array that is sorted together with the indices by
+     * {@link #radixSort(long[], int[]) radixSort}, so the elements are
+     * not accessed while sorting.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array whose elements are to be ordered
+     * @param keyExtractor the function extracting the key of an element
+     * @return the indices of the elements in ascending order of their keys
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> int[]
+    sortedIndicesByLong(T[] a, ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length;
+        long[] keys = new long[n];
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = keyExtractor.applyAsLong(a[i]);
+            indices[i] = i;
+        }
+        radixSort(keys, indices);
+        return indices;
+    }
+
+    /**
+     * Returns the permutation that sorts the specified array into
+     * ascending order of the {@code double} keys extracted from its
+     * elements: the indices of the elements, from that of the element
+     * with the least key to that of the element with the greatest.  The
+     * array itself is not modified.  Keys are ordered by {@link
+     * Double#compare}.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of
+     * elements with equal keys are in ascending order.
+     *
+     * @implNote The key of each element is extracted once, and its bits
+     * stored into a {@code long} array, transformed so that they order
+     * like the keys, which is sorted together with the indices by {@link
+     * #radixSort(long[], int[]) radixSort}.  The elements are not
+     * accessed while sorting.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array whose elements are to be ordered
+     * @param keyExtractor the function extracting the key of an element
+     * @return the indices of the elements in ascending order of their keys
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> int[]
+    sortedIndicesByDouble(T[] a, ToDoubleFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length;
+        long[] keys = new long[n];
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = sortableKey(keyExtractor.applyAsDouble(a[i]));
+            indices[i] = i;
+        }
+        radixSort(keys, indices);
+        return indices;
+    }
+
+    /**
+     * Returns, computing it in parallel, the permutation that sorts the
+     * specified array into ascending order of the {@code int} keys
+     * extracted from its elements, as by {@link
+     * #sortedIndicesByInt(Object[], ToIntFunction) sortedIndicesByInt}.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of
+     * elements with equal keys are in ascending order.  The key
+     * extractor may be applied to elements concurrently, in any order.
+     *
+     * @implNote Keys are extracted in parallel and sorted together with
+     * the indices by {@link #parallelRadixSort(int[], int[])
+     * parallelRadixSort}.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array whose elements are to be ordered
+     * @param keyExtractor the function extracting the key of an element
+     * @return the indices of the elements in ascending order of their keys
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> int[]
+    parallelSortedIndicesByInt(T[] a, ToIntFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length;
+        int[] keys = new int[n], indices = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            keys[i] = keyExtractor.applyAsInt(a[i]);
+            indices[i] = i;
+        });
+        parallelRadixSort(keys, indices);
+        return indices;
+    }
+
+    /**
+     * Returns, computing it in parallel, the permutation that sorts the
+     * specified array into ascending order of the {@code long} keys
+     * extracted from its elements, as by {@link
+     * #sortedIndicesByLong(Object[], ToLongFunction)
+     * sortedIndicesByLong}.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of
+     * elements with equal keys are in ascending order.  The key
+     * extractor may be applied to elements concurrently, in any order.
+     *
+     * @implNote Keys are extracted in parallel and sorted together with
+     * the indices by {@link #parallelRadixSort(long[], int[])
+     * parallelRadixSort}.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array whose elements are to be ordered
+     * @param keyExtractor the function extracting the key of an element
+     * @return the indices of the elements in ascending order of their keys
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> int[]
+    parallelSortedIndicesByLong(T[] a, ToLongFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length;
+        long[] keys = new long[n];
+        int[] indices = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            keys[i] = keyExtractor.applyAsLong(a[i]);
+            indices[i] = i;
+        });
+        parallelRadixSort(keys, indices);
+        return indices;
+    }
+
+    /**
+     * Returns, computing it in parallel, the permutation that sorts the
+     * specified array into ascending order of the {@code double} keys
+     * extracted from its elements, as by {@link
+     * #sortedIndicesByDouble(Object[], ToDoubleFunction)
+     * sortedIndicesByDouble}.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: the indices of
+     * elements with equal keys are in ascending order.  The key
+     * extractor may be applied to elements concurrently, in any order.
+     *
+     * @implNote Keys are extracted in parallel and sorted together with
+     * the indices by {@link #parallelRadixSort(long[], int[])
+     * parallelRadixSort}.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array whose elements are to be ordered
+     * @param keyExtractor the function extracting the key of an element
+     * @return the indices of the elements in ascending order of their keys
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> int[]
+    parallelSortedIndicesByDouble(T[] a, ToDoubleFunction<? super T> keyExtractor) {
+        Objects.requireNonNull(keyExtractor);
+        int n = a.length;
+        long[] keys = new long[n];
+        int[] indices = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            keys[i] = sortableKey(keyExtractor.applyAsDouble(a[i]));
+            indices[i] = i;
+        });
+        parallelRadixSort(keys, indices);
+        return indices;
+    }
+
+    /**
+     * Sorts the specified array into ascending order of the {@code int}
+     * keys extracted from its elements.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: equal elements
+     * will not be reordered as a result of the sort.
+     *
+     * @implNote The sorting permutation is computed by {@link
+     * #sortedIndicesByInt(Object[], ToIntFunction) sortedIndicesByInt},
+     * each key being extracted once and the elements not being accessed
+     * while sorting, and the elements are then moved into place.  This
+     * requires working space of an array of {@code int} keys, an array
+     * of indices and a copy of the specified array.  It is typically
+     * faster than sorting with {@link Comparator#comparingInt
+     * comparingInt} when extracting the key dereferences the elements.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array to be sorted
+     * @param keyExtractor the function extracting the key of an element
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> void
+    sortByIntKey(T[] a, ToIntFunction<? super T> keyExtractor) {
+        permute(a, sortedIndicesByInt(a, keyExtractor), false);
+    }
+
+    /**
+     * Sorts the specified array into ascending order of the {@code long}
+     * keys extracted from its elements.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: equal elements
+     * will not be reordered as a result of the sort.
+     *
+     * @implNote The sorting permutation is computed by {@link
+     * #sortedIndicesByLong(Object[], ToLongFunction)
+     * sortedIndicesByLong}, each key being extracted once and the
+     * elements not being accessed while sorting, and the elements are
+     * then moved into place.  This requires working space of an array of
+     * {@code long} keys, an array of indices and a copy of the specified
+     * array.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array to be sorted
+     * @param keyExtractor the function extracting the key of an element
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> void
+    sortByLongKey(T[] a, ToLongFunction<? super T> keyExtractor) {
+        permute(a, sortedIndicesByLong(a, keyExtractor), false);
+    }
+
+    /**
+     * Sorts the specified array into ascending order of the
+     * {@code double} keys extracted from its elements, as ordered by
+     * {@link Double#compare}.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: equal elements
+     * will not be reordered as a result of the sort.
+     *
+     * @implNote The sorting permutation is computed by {@link
+     * #sortedIndicesByDouble(Object[], ToDoubleFunction)
+     * sortedIndicesByDouble}, each key being extracted once and the
+     * elements not being accessed while sorting, and the elements are
+     * then moved into place.  This requires working space of an array of
+     * {@code long} keys, an array of indices and a copy of the specified
+     * array.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array to be sorted
+     * @param keyExtractor the function extracting the key of an element
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> void
+    sortByDoubleKey(T[] a, ToDoubleFunction<? super T> keyExtractor) {
+        permute(a, sortedIndicesByDouble(a, keyExtractor), false);
+    }
+
+    /**
+     * Sorts the specified array into ascending order of the {@code int}
+     * keys extracted from its elements, in parallel.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: equal elements
+     * will not be reordered as a result of the sort.  The key extractor
+     * may be applied to elements concurrently, in any order.
+     *
+     * @implNote The sorting permutation is computed by {@link
+     * #parallelSortedIndicesByInt(Object[], ToIntFunction)
+     * parallelSortedIndicesByInt}, and the elements are then moved into
+     * place in parallel.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array to be sorted
+     * @param keyExtractor the function extracting the key of an element
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> void
+    parallelSortByIntKey(T[] a, ToIntFunction<? super T> keyExtractor) {
+        permute(a, parallelSortedIndicesByInt(a, keyExtractor), true);
+    }
+
+    /**
+     * Sorts the specified array into ascending order of the {@code long}
+     * keys extracted from its elements, in parallel.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: equal elements
+     * will not be reordered as a result of the sort.  The key extractor
+     * may be applied to elements concurrently, in any order.
+     *
+     * @implNote The sorting permutation is computed by {@link
+     * #parallelSortedIndicesByLong(Object[], ToLongFunction)
+     * parallelSortedIndicesByLong}, and the elements are then moved into
+     * place in parallel.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array to be sorted
+     * @param keyExtractor the function extracting the key of an element
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> void
+    parallelSortByLongKey(T[] a, ToLongFunction<? super T> keyExtractor) {
+        permute(a, parallelSortedIndicesByLong(a, keyExtractor), true);
+    }
+
+    /**
+     * Sorts the specified array into ascending order of the
+     * {@code double} keys extracted from its elements, as ordered by
+     * {@link Double#compare}, in parallel.
+     *
+     * <p>This sort is guaranteed to be <i>stable</i>: equal elements
+     * will not be reordered as a result of the sort.  The key extractor
+     * may be applied to elements concurrently, in any order.
+     *
+     * @implNote The sorting permutation is computed by {@link
+     * #parallelSortedIndicesByDouble(Object[], ToDoubleFunction)
+     * parallelSortedIndicesByDouble}, and the elements are then moved
+     * into place in parallel.
+     *
+     * @param <T> the class of the objects in the array
+     * @param a the array to be sorted
+     * @param keyExtractor the function extracting the key of an element
+     * @throws NullPointerException if the key extractor is null
+     * @since 1.8
+     */
+    public static <T> void
+    parallelSortByDoubleKey(T[] a, ToDoubleFunction<? super T> keyExtractor) {
+        permute(a, parallelSortedIndicesByDouble(a, keyExtractor), true);
+    }
+
+    /**
+     * Returns bits of the given double whose signed order is the order of
+     * {@link Double#compare}: the bits of a negative value are flipped,
+     * other than the sign bit, and NaNs are collapsed to the canonical
+     * NaN, which is greater than positive infinity.
+     */
+    private static long sortableKey(double d) {
+        long bits = Double.doubleToLongBits(d);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Rearranges the array so that element {@code i} is the element
+     * formerly at index {@code indices[i]}.
+     */
+    private static void permute(Object[] a, int[] indices, boolean parallel) {
+        Object[] copy = a.clone();
+        if (parallel)
+            IntStream.range(0, a.length).parallel().forEach(i -> { a[i] = copy[indices[i]]; });
+        else {
+            for (int i = 0; i < a.length; i++)
+                a[i] = copy[indices[i]];
+        }
+    }
+
     // Parallel prefix
 
     /**
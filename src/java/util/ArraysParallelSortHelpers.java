@@ -26,6 +26,7 @@ package java.util;
 
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.CountedCompleter;
+import java.util.function.IntConsumer;
 
 /**
  * Helper utilities for the parallel sort methods in Arrays.parallelSort.
@@ -66,6 +67,10 @@ import java.util.concurrent.CountedCompleter;
  * The primitive class versions (FJByte... FJDouble) are
  * identical to each other except for type declarations.
  *
+ * FJRadix holds the block task of the parallel radix sorts in
+ * RadixSort, which run each pass as phases over fixed blocks of the
+ * array rather than recursively.
+ *
  * The base sequential sorts rely on non-public versions of TimSort,
  * ComparableTimSort, and DualPivotQuicksort sort methods that accept
  * temp workspace array slices that we will have already allocated, so
@@ -1007,4 +1012,36 @@ import java.util.concurrent.CountedCompleter;
         }
     } // FJDouble
 
+    /** Radix sort support class */
+    static final class FJRadix {
+        /**
+         * Runs one phase of a radix sort pass, an action applied to
+         * each of a range of blocks, splitting the range in halves
+         * down to single blocks.  Completes when the action has been
+         * applied to all blocks.
+         */
+        static final class Pass extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final IntConsumer action;
+            final int lo, hi;
+            Pass(CountedCompleter<?> par, IntConsumer action, int lo, int hi) {
+                super(par);
+                this.action = action; this.lo = lo; this.hi = hi;
+            }
+            public final void compute() {
+                IntConsumer action = this.action;
+                int l = this.lo, h = this.hi;
+                while (h - l > 1) {
+                    int m = (l + h) >>> 1;
+                    addToPendingCount(1);
+                    new Pass(this, action, m, h).fork();
+                    h = m;
+                }
+                if (h > l)
+                    action.accept(l);
+                tryComplete();
+            }
+        }
+    } // FJRadix
+
 }
@@ -0,0 +1,736 @@
+package java.util;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A resizable-array implementation of the {@code List} interface that
+ * holds its elements in a sequence of chunks rather than in one array.
+ * Growing the list allocates a new chunk and never copies the existing
+ * elements, so appending is amortized constant time without the
+ * allocation spike, and the transient doubling of memory, of
+ * {@link ArrayList} copying its whole backing array.
+ *
+ * <p>The chunk layout is that of the spined buffers used by streams:
+ * the first two chunks have {@value #FIRST_CHUNK_SIZE} elements and each
+ * later chunk is twice the size of the one before it, so chunk
+ * {@code k > 0} holds the indices from {@code 8 << k} to
+ * {@code (16 << k) - 1}.  The chunk holding an index, and its position in
+ * that chunk, are therefore computed from the index's highest one bit,
+ * and {@link #get get} and {@link #set set} run in constant time, as in
+ * {@code ArrayList}.  At most half of the allocated capacity, the unused
+ * part of the last chunk, is wasted.
+ *
+ * <p>Inserting or removing an element other than the last shifts the
+ * elements after it, chunk by chunk, and runs in linear time.  The
+ * {@link #spliterator spliterator} splits at chunk boundaries, so that
+ * each part traverses whole chunks where possible.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators returned by this class's {@link #iterator() iterator}
+ * and {@link #listIterator(int) listIterator} methods, and its
+ * spliterator, are <i>fail-fast</i> in the same sense as those of
+ * {@code ArrayList}.
+ *
+ * @param <E> the type of elements in this list
+ * @see ArrayList
+ * @since 1.8
+ */
+public class ChunkedArrayList<E> extends AbstractList<E>
+        implements RandomAccess, Cloneable, java.io.Serializable
+{
+    private static final long serialVersionUID = -2853093409315421736L;
+
+    /**
+     * The log2 of the size of the first two chunks.
+     */
+    private static final int FIRST_CHUNK_POWER = 4;
+
+    /**
+     * The size of the first two chunks.
+     */
+    static final int FIRST_CHUNK_SIZE = 1 << FIRST_CHUNK_POWER;
+
+    /**
+     * The initial length of the spine.
+     */
+    private static final int INITIAL_SPINE_LENGTH = 8;
+
+    /**
+     * The chunks holding the elements, allocated as needed.  Chunk
+     * {@code k} has length {@link #chunkSize chunkSize(k)}; chunks beyond
+     * the last allocated one are null.
+     */
+    transient Object[][] spine;
+
+    /**
+     * The number of allocated chunks.
+     */
+    private transient int chunks;
+
+    /**
+     * The size of the list (the number of elements it contains).
+     *
+     * @serial
+     */
+    private int size;
+
+    /**
+     * Constructs an empty list.
+     */
+    public ChunkedArrayList() {
+    }
+
+    /**
+     * Constructs an empty list with chunks allocated to hold at least the
+     * specified number of elements.
+     *
+     * @param  initialCapacity  the initial capacity of the list
+     * @throws IllegalArgumentException if the specified initial capacity
+     *         is negative
+     */
+    public ChunkedArrayList(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: "+
+                                               initialCapacity);
+        ensureCapacity(initialCapacity);
+    }
+
+    /**
+     * Constructs a list containing the elements of the specified
+     * collection, in the order they are returned by the collection's
+     * iterator.
+     *
+     * @param c the collection whose elements are to be placed into this list
+     * @throws NullPointerException if the specified collection is null
+     */
+    public ChunkedArrayList(Collection<? extends E> c) {
+        addAll(c);
+    }
+
+    // Chunk arithmetic
+
+    /**
+     * Returns the length of chunk {@code k}.
+     */
+    static int chunkSize(int k) {
+        return (k == 0) ? FIRST_CHUNK_SIZE : FIRST_CHUNK_SIZE << (k - 1);
+    }
+
+    /**
+     * Returns the index of the first element of chunk {@code k}.
+     */
+    static int chunkStart(int k) {
+        return (k == 0) ? 0 : FIRST_CHUNK_SIZE << (k - 1);
+    }
+
+    /**
+     * Returns the chunk holding the element at the given index.
+     */
+    static int chunkFor(int index) {
+        return (Integer.SIZE - FIRST_CHUNK_POWER) -
+            Integer.numberOfLeadingZeros(index | (FIRST_CHUNK_SIZE - 1));
+    }
+
+    /**
+     * Returns the position of the element at the given index in its chunk.
+     */
+    static int offsetIn(int index) {
+        return (index < FIRST_CHUNK_SIZE)
+            ? index : index & (Integer.highestOneBit(index) - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    E elementData(int index) {
+        return (E) spine[chunkFor(index)][offsetIn(index)];
+    }
+
+    /**
+     * Allocates chunks until the list can hold {@code capacity} elements.
+     */
+    private void allocate(int capacity) {
+        Object[][] sp = spine;
+        int k = chunks;
+        if (capacity <= chunkStart(k))
+            return;
+        int need = chunkFor(capacity - 1) + 1;
+        if (sp == null)
+            spine = sp = new Object[Math.max(need, INITIAL_SPINE_LENGTH)][];
+        else if (need > sp.length)
+            spine = sp = Arrays.copyOf(sp, Math.max(need, sp.length << 1));
+        for (; k < need; ++k)
+            sp[k] = new Object[chunkSize(k)];
+        chunks = k;
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, to hold at least
+     * the number of elements specified by the minimum capacity argument.
+     * Unlike in {@code ArrayList}, this allocates new chunks and does not
+     * copy elements.
+     *
+     * @param   minCapacity   the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > chunkStart(chunks))
+            allocate(minCapacity);
+    }
+
+    /**
+     * Releases the chunks that hold no elements.  The last chunk holding
+     * elements is kept whole, so up to half of the remaining capacity
+     * may be unused.
+     */
+    public void trimToSize() {
+        modCount++;
+        int need = (size == 0) ? 0 : chunkFor(size - 1) + 1;
+        for (int k = need; k < chunks; ++k)
+            spine[k] = null;
+        if (need < chunks)
+            chunks = need;
+    }
+
+    // Positional access
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param  index index of the element to return
+     * @return the element at the specified position in this list
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public E get(int index) {
+        rangeCheck(index);
+        return elementData(index);
+    }
+
+    /**
+     * Replaces the element at the specified position in this list with
+     * the specified element.
+     *
+     * @param index index of the element to replace
+     * @param element element to be stored at the specified position
+     * @return the element previously at the specified position
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public E set(int index, E element) {
+        rangeCheck(index);
+        Object[] chunk = spine[chunkFor(index)];
+        int i = offsetIn(index);
+        @SuppressWarnings("unchecked") E oldValue = (E) chunk[i];
+        chunk[i] = element;
+        return oldValue;
+    }
+
+    /**
+     * Appends the specified element to the end of this list.
+     *
+     * @param e element to be appended to this list
+     * @return {@code true} (as specified by {@link Collection#add})
+     */
+    public boolean add(E e) {
+        modCount++;
+        int s = size;
+        if (s == Integer.MAX_VALUE)
+            throw new OutOfMemoryError();
+        if (s == chunkStart(chunks))
+            allocate(s + 1);
+        spine[chunkFor(s)][offsetIn(s)] = e;
+        size = s + 1;
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the specified position in this
+     * list. Shifts the element currently at that position (if any) and
+     * any subsequent elements to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param element element to be inserted
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public void add(int index, E element) {
+        rangeCheckForAdd(index);
+        add(element);
+        int s = size;
+        if (index < s - 1) {
+            move(index, index + 1, s - 1 - index);
+            spine[chunkFor(index)][offsetIn(index)] = element;
+        }
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     * Shifts any subsequent elements to the left (subtracts one from their
+     * indices).
+     *
+     * @param index the index of the element to be removed
+     * @return the element that was removed from the list
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public E remove(int index) {
+        rangeCheck(index);
+        modCount++;
+        E oldValue = elementData(index);
+        int s = size - 1;
+        if (index < s)
+            move(index + 1, index, s - index);
+        spine[chunkFor(s)][offsetIn(s)] = null; // clear to let GC do its work
+        size = s;
+        return oldValue;
+    }
+
+    /**
+     * Removes all of the elements from this list.  The first chunk is
+     * retained; the others are released.
+     */
+    public void clear() {
+        modCount++;
+        if (chunks > 0) {
+            Arrays.fill(spine[0], 0, Math.min(size, FIRST_CHUNK_SIZE), null);
+            for (int k = 1; k < chunks; ++k)
+                spine[k] = null;
+            chunks = 1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Appends all of the elements in the specified collection to the end
+     * of this list, in the order that they are returned by the specified
+     * collection's iterator.  The behavior of this operation is undefined
+     * if the specified collection is modified while the operation is in
+     * progress.
+     *
+     * @param c collection containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        Object[] a = c.toArray();
+        int numNew = a.length;
+        if (numNew > Integer.MAX_VALUE - size)
+            throw new OutOfMemoryError();
+        modCount++;
+        allocate(size + numNew);
+        copyIn(a, size, numNew);
+        size += numNew;
+        return numNew != 0;
+    }
+
+    /**
+     * Inserts all of the elements in the specified collection into this
+     * list, starting at the specified position.  Shifts the element
+     * currently at that position (if any) and any subsequent elements to
+     * the right (increases their indices).  The new elements will appear
+     * in the list in the order that they are returned by the specified
+     * collection's iterator.
+     *
+     * @param index index at which to insert the first element from the
+     *              specified collection
+     * @param c collection containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(int index, Collection<? extends E> c) {
+        rangeCheckForAdd(index);
+        Object[] a = c.toArray();
+        int numNew = a.length;
+        if (numNew > Integer.MAX_VALUE - size)
+            throw new OutOfMemoryError();
+        modCount++;
+        allocate(size + numNew);
+        if (index < size)
+            move(index, index + numNew, size - index);
+        copyIn(a, index, numNew);
+        size += numNew;
+        return numNew != 0;
+    }
+
+    /**
+     * Removes from this list all of the elements whose index is between
+     * {@code fromIndex}, inclusive, and {@code toIndex}, exclusive.
+     * Shifts any succeeding elements to the left (reduces their index).
+     *
+     * @throws IndexOutOfBoundsException if {@code fromIndex} or
+     *         {@code toIndex} is out of range
+     *         ({@code fromIndex < 0 ||
+     *          fromIndex >= size() ||
+     *          toIndex > size() ||
+     *          toIndex < fromIndex})
+     */
+    protected void removeRange(int fromIndex, int toIndex) {
+        modCount++;
+        int s = size, newSize = s - (toIndex - fromIndex);
+        move(toIndex, fromIndex, s - toIndex);
+        clearRange(newSize, s);
+        size = newSize;
+    }
+
+    /**
+     * Copies {@code len} elements starting at index {@code src} to the
+     * indices starting at {@code dst}, as if through a temporary array,
+     * by one {@code System.arraycopy} per overlapping pair of chunks.
+     */
+    private void move(int src, int dst, int len) {
+        Object[][] sp = spine;
+        if (dst < src) {
+            while (len > 0) {
+                Object[] sc = sp[chunkFor(src)], dc = sp[chunkFor(dst)];
+                int so = offsetIn(src), doff = offsetIn(dst);
+                int n = Math.min(len, Math.min(sc.length - so, dc.length - doff));
+                System.arraycopy(sc, so, dc, doff, n);
+                src += n; dst += n; len -= n;
+            }
+        } else if (dst > src) {
+            int se = src + len, de = dst + len; // exclusive ends
+            while (len > 0) {
+                Object[] sc = sp[chunkFor(se - 1)], dc = sp[chunkFor(de - 1)];
+                int so = offsetIn(se - 1) + 1, doff = offsetIn(de - 1) + 1;
+                int n = Math.min(len, Math.min(so, doff));
+                System.arraycopy(sc, so - n, dc, doff - n, n);
+                se -= n; de -= n; len -= n;
+            }
+        }
+    }
+
+    /**
+     * Copies the array into the list starting at the given index, which
+     * must be allocated.
+     */
+    private void copyIn(Object[] a, int index, int len) {
+        for (int i = 0; i < len; ) {
+            Object[] chunk = spine[chunkFor(index)];
+            int off = offsetIn(index), n = Math.min(len - i, chunk.length - off);
+            System.arraycopy(a, i, chunk, off, n);
+            i += n; index += n;
+        }
+    }
+
+    /**
+     * Nulls out the elements from {@code from}, inclusive, to {@code to},
+     * exclusive.
+     */
+    private void clearRange(int from, int to) {
+        while (from < to) {
+            Object[] chunk = spine[chunkFor(from)];
+            int off = offsetIn(from), n = Math.min(to - from, chunk.length - off);
+            Arrays.fill(chunk, off, off + n, null);
+            from += n;
+        }
+    }
+
+    /**
+     * Checks if the given index is in range.  If not, throws an appropriate
+     * runtime exception.
+     */
+    private void rangeCheck(int index) {
+        if (index >= size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    /**
+     * A version of rangeCheck used by add and addAll.
+     */
+    private void rangeCheckForAdd(int index) {
+        if (index > size || index < 0)
+            throw new IndexOutOfBoundsException(outOfBoundsMsg(index));
+    }
+
+    private String outOfBoundsMsg(int index) {
+        return "Index: "+index+", Size: "+size;
+    }
+
+    // Bulk operations
+
+    /**
+     * Returns an array containing all of the elements in this list
+     * in proper sequence (from first to last element).
+     *
+     * @return an array containing all of the elements in this list in
+     *         proper sequence
+     */
+    public Object[] toArray() {
+        return copyOut(new Object[size]);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list in
+     * proper sequence (from first to last element); the runtime type of
+     * the returned array is that of the specified array, as in
+     * {@link ArrayList#toArray(Object[])}.
+     *
+     * @param a the array into which the elements of the list are to
+     *          be stored, if it is big enough; otherwise, a new array of the
+     *          same runtime type is allocated for this purpose.
+     * @return an array containing the elements of the list
+     * @throws ArrayStoreException if the runtime type of the specified array
+     *         is not a supertype of the runtime type of every element in
+     *         this list
+     * @throws NullPointerException if the specified array is null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        if (a.length < size)
+            a = (T[]) java.lang.reflect.Array.newInstance(
+                    a.getClass().getComponentType(), size);
+        copyOut(a);
+        if (a.length > size)
+            a[size] = null;
+        return a;
+    }
+
+    private <T> T[] copyOut(T[] a) {
+        int s = size;
+        for (int k = 0, i = 0; i < s; ++k) {
+            int n = Math.min(s - i, spine[k].length);
+            System.arraycopy(spine[k], 0, a, i, n);
+            i += n;
+        }
+        return a;
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        final int expectedModCount = modCount;
+        final int s = size;
+        for (int k = 0, i = 0; i < s && modCount == expectedModCount; ++k) {
+            @SuppressWarnings("unchecked")
+            final E[] chunk = (E[]) spine[k];
+            for (int j = 0, n = Math.min(s - i, chunk.length);
+                 j < n && modCount == expectedModCount; ++j, ++i)
+                action.accept(chunk[j]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        // figure out which elements are to be removed
+        // any exception thrown from the filter predicate at this stage
+        // will leave the collection unmodified
+        int removeCount = 0;
+        final int s = size;
+        final BitSet removeSet = new BitSet(s);
+        final int expectedModCount = modCount;
+        for (int i = 0; modCount == expectedModCount && i < s; i++) {
+            if (filter.test(elementData(i))) {
+                removeSet.set(i);
+                removeCount++;
+            }
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+
+        // shift surviving elements left over the spaces left by removed elements
+        final boolean anyToRemove = removeCount > 0;
+        if (anyToRemove) {
+            final int newSize = s - removeCount;
+            int j = removeSet.nextSetBit(0);
+            for (int i = removeSet.nextClearBit(j); i < s; i = removeSet.nextClearBit(i)) {
+                int end = removeSet.nextSetBit(i);
+                if (end < 0)
+                    end = s;
+                move(i, j, end - i);
+                j += end - i;
+                i = end;
+            }
+            clearRange(newSize, s);
+            size = newSize;
+            modCount++;
+        }
+        return anyToRemove;
+    }
+
+    /**
+     * Returns a shallow copy of this list.  (The elements themselves are
+     * not copied.)
+     *
+     * @return a clone of this list
+     */
+    public Object clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            ChunkedArrayList<E> v = (ChunkedArrayList<E>) super.clone();
+            if (spine != null) {
+                v.spine = spine.clone();
+                for (int k = 0; k < chunks; ++k)
+                    v.spine[k] = spine[k].clone();
+            }
+            v.modCount = 0;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Saves the state of the list to a stream (that is, serializes it).
+     *
+     * @serialData The size of the list is emitted (int), followed by all
+     *             of its elements (each an {@code Object}) in the proper
+     *             order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException{
+        // Write out element count, and any hidden stuff
+        int expectedModCount = modCount;
+        s.defaultWriteObject();
+
+        // Write out all elements in the proper order.
+        for (int i = 0; i < size; i++) {
+            s.writeObject(elementData(i));
+        }
+
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Reconstitutes the list from a stream (that is, deserializes it).
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        // Read in size, and any hidden stuff
+        s.defaultReadObject();
+        int n = size;
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+        size = 0;
+        spine = null;
+        chunks = 0;
+
+        // Read in all elements in the proper order, allocating chunks as
+        // elements arrive.
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            E e = (E) s.readObject();
+            add(e);
+        }
+    }
+
+    /**
+     * Creates a <em><a href="Spliterator.html#binding">late-binding</a></em>
+     * and <em>fail-fast</em> {@link Spliterator} over the elements in this
+     * list.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#SIZED},
+     * {@link Spliterator#SUBSIZED}, and {@link Spliterator#ORDERED}.
+     *
+     * @implNote
+     * The spliterator splits at the chunk boundary nearest the middle of
+     * its remaining elements, and within a chunk only once its elements
+     * lie in a single chunk.
+     *
+     * @return a {@code Spliterator} over the elements in this list
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ChunkSpliterator<>(this, 0, -1, 0);
+    }
+
+    /** Index-based split-by-chunk, lazily initialized Spliterator */
+    static final class ChunkSpliterator<E> implements Spliterator<E> {
+
+        private final ChunkedArrayList<E> list;
+        private int index; // current index, modified on advance/split
+        private int fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        /** Create new spliterator covering the given range */
+        ChunkSpliterator(ChunkedArrayList<E> list, int origin, int fence,
+                         int expectedModCount) {
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() { // initialize fence to size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = list.modCount;
+                hi = fence = list.size;
+            }
+            return hi;
+        }
+
+        public ChunkSpliterator<E> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            if (lo >= mid)
+                return null;
+            int k = chunkFor(mid), start = chunkStart(k);
+            int end = start + chunkSize(k);
+            // split at whichever end of the middle chunk lying inside the
+            // range is nearer mid, or in half if that is the only chunk
+            int split;
+            if (start > lo && (end >= hi || mid - start <= end - mid))
+                split = start;
+            else if (end < hi)
+                split = end;
+            else
+                split = mid;
+            return new ChunkSpliterator<>(list, lo, index = split,
+                                          expectedModCount);
+        }
+
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                E e = list.elementData(i);
+                action.accept(e);
+                if (list.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public void forEachRemaining(Consumer<? super E> action) {
+            Object[][] sp;
+            if (action == null)
+                throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi && (sp = list.spine) != null) {
+                index = hi;
+                for (int k = chunkFor(i), off = offsetIn(i); i < hi; ++k, off = 0) {
+                    Object[] chunk = sp[k];
+                    for (int n = Math.min(chunk.length, off + hi - i); off < n; ++off, ++i) {
+                        @SuppressWarnings("unchecked") E e = (E) chunk[off];
+                        action.accept(e);
+                    }
+                }
+                if (list.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            return (long) (getFence() - index);
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+}
@@ -0,0 +1,954 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+/**
+ * An open-addressing hash map from {@code int} keys to object values.
+ * Keys are held unboxed in a flat array alongside a parallel value
+ * array, so a mapping costs neither a boxed key nor an entry node.
+ *
+ * <p>The table layout is that of {@link IntIntMap}: a power-of-two
+ * capacity, {@link HashMap}-style hash spreading, linear probing with
+ * backward-shift deletion, and doubling once the number of mappings
+ * exceeds {@code capacity * loadFactor}.  The key {@code 0} marks a
+ * free slot and is therefore stored out of line.  Null values are
+ * permitted, with the same ambiguity of {@link #get(int)} as in
+ * {@code HashMap}.
+ *
+ * <p>The {@link #asMap()} view adapts this map to the {@link Map}
+ * interface, boxing keys on access.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators of the {@code asMap()} collection views are
+ * <i>fail-fast</i> in the same sense as those of {@code HashMap}.
+ *
+ * @param <V> the type of mapped values
+ * @see HashMap
+ * @see IntIntMap
+ * @since 1.8
+ */
+public class IntObjectMap<V> implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 3148325529587641706L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity, as for {@link HashMap#MAXIMUM_CAPACITY}.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The keys, allocated on first use.  Length is a power of two plus
+     * one; the extra last slot holds the value of the zero key.
+     */
+    transient int[] keys;
+
+    /**
+     * The values, parallel to {@link #keys}.
+     */
+    transient Object[] values;
+
+    /**
+     * Whether the zero key is present.  Its value is held in the last
+     * slot of {@link #values}.
+     */
+    transient boolean containsZeroKey;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     * Before the table is allocated this holds the initial capacity.
+     *
+     * @serial
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * The boxed view, created on first request.
+     */
+    transient Map<Integer,V> boxedView;
+
+    /** Set by {@link #insertionIndex} when the key was absent. */
+    private transient boolean inserted;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, at most {@code 1}
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is nonpositive or greater than one
+     */
+    public IntObjectMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (initialCapacity > MAXIMUM_CAPACITY)
+            initialCapacity = MAXIMUM_CAPACITY;
+        if (!(loadFactor > 0 && loadFactor <= 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = HashMap.tableSizeFor(initialCapacity);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntObjectMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.75).
+     */
+    public IntObjectMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /* ---------------- Internal table operations -------------- */
+
+    /**
+     * Returns the slot holding the given key, or -1 if absent.
+     */
+    final int indexOf(int key) {
+        int[] ks; int n;
+        if ((ks = keys) == null)
+            return -1;
+        n = ks.length - 1;
+        if (key == 0)
+            return containsZeroKey ? n : -1;
+        int mask = n - 1, k;
+        for (int i = IntIntMap.hash(key) & mask; ; i = (i + 1) & mask) {
+            if ((k = ks[i]) == 0)
+                return -1;
+            if (k == key)
+                return i;
+        }
+    }
+
+    /**
+     * Returns the slot holding the given key, inserting the key with a
+     * null value (and growing the table if needed) when absent.  Sets
+     * {@link #inserted} as a side channel.
+     */
+    private int insertionIndex(int key) {
+        int[] ks;
+        if ((ks = keys) == null)
+            ks = resize();
+        int n = ks.length - 1;
+        if (key == 0) {
+            if (containsZeroKey) {
+                inserted = false;
+                return n;
+            }
+            containsZeroKey = true;
+        }
+        else {
+            int mask = n - 1, i, k;
+            for (i = IntIntMap.hash(key) & mask; (k = ks[i]) != 0;
+                 i = (i + 1) & mask) {
+                if (k == key) {
+                    inserted = false;
+                    return i;
+                }
+            }
+            ks[i] = key;
+            n = i;
+        }
+        inserted = true;
+        ++modCount;
+        if (++size > threshold) {
+            resize();
+            return indexOf(key);
+        }
+        return n;
+    }
+
+    /**
+     * Initializes or doubles the table.
+     *
+     * @return the new key array
+     */
+    final int[] resize() {
+        int[] oldKeys = keys;
+        Object[] oldVals = values;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length - 1;
+        int newCap;
+        if (oldCap > 0) {
+            if (oldCap >= MAXIMUM_CAPACITY) {
+                if (size >= MAXIMUM_CAPACITY - 1)
+                    throw new IllegalStateException("Map is full");
+                threshold = MAXIMUM_CAPACITY - 1;
+                return oldKeys;
+            }
+            newCap = oldCap << 1;
+        }
+        else
+            newCap = Math.max(threshold, 2);
+        int[] ks = new int[newCap + 1];
+        Object[] vs = new Object[newCap + 1];
+        int mask = newCap - 1;
+        if (oldKeys != null) {
+            vs[newCap] = oldVals[oldCap];
+            for (int j = 0; j < oldCap; ++j) {
+                int k;
+                if ((k = oldKeys[j]) != 0) {
+                    int i = IntIntMap.hash(k) & mask;
+                    while (ks[i] != 0)
+                        i = (i + 1) & mask;
+                    ks[i] = k;
+                    vs[i] = oldVals[j];
+                }
+            }
+        }
+        keys = ks;
+        values = vs;
+        threshold = (newCap < MAXIMUM_CAPACITY) ?
+            Math.min((int)(newCap * loadFactor), newCap - 1) :
+            MAXIMUM_CAPACITY - 1;
+        return ks;
+    }
+
+    /**
+     * Removes the entry at the given slot, shifting later members of
+     * its probe run backwards.
+     */
+    @SuppressWarnings("unchecked")
+    final V removeAt(int pos) {
+        int[] ks = keys;
+        Object[] vs = values;
+        int n = ks.length - 1;
+        V oldValue = (V)vs[pos];
+        ++modCount;
+        --size;
+        if (pos == n) {
+            containsZeroKey = false;
+            vs[n] = null;
+            return oldValue;
+        }
+        int mask = n - 1;
+        for (int last, k;;) {
+            pos = ((last = pos) + 1) & mask;
+            for (;;) {
+                if ((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    vs[last] = null;
+                    return oldValue;
+                }
+                int slot = IntIntMap.hash(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos))
+                    break;
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence is to be tested
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.
+     *
+     * @param value the value whose presence is to be tested
+     * @return {@code true} if this map maps one or more keys to the value
+     */
+    public boolean containsValue(Object value) {
+        int[] ks;
+        Object[] vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1;
+            if (containsZeroKey && Objects.equals(vs[n], value))
+                return true;
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0 && Objects.equals(vs[i], value))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value mapped to the key, or {@code null} if none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = indexOf(key);
+        return (i < 0) ? null : (V)values[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if the key is absent
+     * @return the value mapped to the key, or {@code defaultValue}
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(int key, V defaultValue) {
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : (V)values[i];
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the key, or
+     *         {@code null} if there was no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        int i = insertionIndex(key);
+        Object[] vs = values;
+        V oldValue = (V)vs[i];
+        vs[i] = value;
+        return oldValue;
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or
+     * is mapped to {@code null}) associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the key, or
+     *         {@code null} if there was no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(int key, V value) {
+        int i = insertionIndex(key);
+        Object[] vs = values;
+        V oldValue = (V)vs[i];
+        if (oldValue == null)
+            vs[i] = value;
+        return oldValue;
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map is null
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(IntObjectMap<? extends V> m) {
+        int[] ks;
+        Object[] vs;
+        if ((ks = m.keys) != null && m.size > 0) {
+            vs = m.values;
+            int n = ks.length - 1;
+            if (m.containsZeroKey)
+                put(0, (V)vs[n]);
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0)
+                    put(ks[i], (V)vs[i]);
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value or
+     * is associated with null, associates it with the given non-null
+     * value.  Otherwise, replaces the associated value with the results
+     * of the given remapping function, or removes if the result is
+     * {@code null}, as specified by {@link Map#merge}.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the non-null value to be merged with the existing value
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key, or null if
+     *         no value is associated with the key
+     * @throws NullPointerException if the value or remapping function
+     *         is null
+     */
+    @SuppressWarnings("unchecked")
+    public V merge(int key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new NullPointerException();
+        int i = insertionIndex(key);
+        V oldValue = (V)values[i];
+        if (oldValue != null) {
+            int mc = modCount;
+            V v = remappingFunction.apply(oldValue, value);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            if (v == null) {
+                removeAt(i);
+                return null;
+            }
+            value = v;
+        }
+        values[i] = value;
+        return value;
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or
+     * is mapped to {@code null}), attempts to compute its value using
+     * the given mapping function and enters it into this map unless
+     * {@code null}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mapping function is null
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(int key,
+                             IntFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int i;
+        V v;
+        if ((i = indexOf(key)) >= 0 && (v = (V)values[i]) != null)
+            return v;
+        int mc = modCount;
+        v = mappingFunction.apply(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v != null) {
+            i = insertionIndex(key);
+            values[i] = v;
+        }
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with the key, or
+     *         {@code null} if there was no mapping for the key
+     */
+    public V remove(int key) {
+        int i = indexOf(key);
+        return (i < 0) ? null : removeAt(i);
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current capacity.
+     */
+    public void clear() {
+        int[] ks;
+        if ((ks = keys) != null && size > 0) {
+            ++modCount;
+            size = 0;
+            containsZeroKey = false;
+            Arrays.fill(ks, 0);
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, in
+     * unspecified order, without allocating any entry objects.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the map is structurally
+     *         modified by the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int[] ks;
+        Object[] vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1, mc = modCount;
+            if (containsZeroKey)
+                action.accept(0, (V)vs[n]);
+            for (int i = 0; i < n && mc == modCount; ++i)
+                if (ks[i] != 0)
+                    action.accept(ks[i], (V)vs[i]);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a new array containing the keys of this map.
+     *
+     * @return an array of the keys of this map
+     */
+    public int[] keys() {
+        int[] a = new int[size];
+        int[] ks;
+        if ((ks = keys) != null && size > 0) {
+            int n = ks.length - 1, j = 0;
+            if (containsZeroKey)
+                a[j++] = 0;
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0)
+                    a[j++] = ks[i];
+        }
+        return a;
+    }
+
+    /**
+     * Returns a {@link Map} view of this map.  The view is backed by
+     * this map, so changes to either are reflected in the other.  Keys
+     * are boxed on every access through the view.
+     *
+     * @return a boxed {@code Map} view of this map
+     */
+    public Map<Integer,V> asMap() {
+        Map<Integer,V> m;
+        return (m = boxedView) == null ? (boxedView = new BoxedView()) : m;
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is also an
+     * {@code IntObjectMap} holding equal mappings.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntObjectMap))
+            return false;
+        IntObjectMap<?> m = (IntObjectMap<?>)o;
+        if (m.size != size)
+            return false;
+        int[] ks;
+        Object[] vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1, j;
+            if (containsZeroKey &&
+                ((j = m.indexOf(0)) < 0 || !Objects.equals(m.values[j], vs[n])))
+                return false;
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0 &&
+                    ((j = m.indexOf(ks[i])) < 0 ||
+                     !Objects.equals(m.values[j], vs[i])))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, which equals the hash
+     * code of the {@link #asMap()} view as defined by {@link Map#hashCode}.
+     *
+     * @return the hash code value for this map
+     */
+    public int hashCode() {
+        int h = 0;
+        int[] ks;
+        Object[] vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1;
+            if (containsZeroKey)
+                h += Objects.hashCode(vs[n]);
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0)
+                    h += ks[i] ^ Objects.hashCode(vs[i]);
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this map in the same form as
+     * {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder().append('{');
+        int[] ks = keys;
+        Object[] vs = values;
+        int n = ks.length - 1;
+        boolean first = true;
+        for (int i = n; i >= 0; --i) {
+            if (i == n ? containsZeroKey : ks[i] != 0) {
+                if (!first)
+                    sb.append(',').append(' ');
+                Object v = vs[i];
+                sb.append(i == n ? 0 : ks[i]).append('=')
+                  .append(v == this ? "(this Map)" : v);
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Returns a shallow copy of this map: the values themselves are not
+     * cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    public IntObjectMap<V> clone() {
+        IntObjectMap<V> result;
+        try {
+            result = (IntObjectMap<V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        if (keys != null) {
+            result.keys = keys.clone();
+            result.values = values.clone();
+        }
+        result.modCount = 0;
+        result.boxedView = null;
+        return result;
+    }
+
+    /**
+     * Saves this map to a stream.
+     *
+     * @serialData The number of mappings (<tt>int</tt>), followed by
+     *             each key (<tt>int</tt>) and value (Object) in no
+     *             particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        int[] ks;
+        Object[] vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1;
+            if (containsZeroKey) {
+                s.writeInt(0);
+                s.writeObject(vs[n]);
+            }
+            for (int i = 0; i < n; ++i) {
+                if (ks[i] != 0) {
+                    s.writeInt(ks[i]);
+                    s.writeObject(vs[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstitutes this map from a stream.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0 && loadFactor <= 1))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        float fc = (float)mappings / loadFactor + 1.0f;
+        threshold = HashMap.tableSizeFor((fc >= MAXIMUM_CAPACITY) ?
+                                         MAXIMUM_CAPACITY : (int)fc);
+        for (int i = 0; i < mappings; i++) {
+            int key = s.readInt();
+            put(key, (V)s.readObject());
+        }
+    }
+
+    /**
+     * An action applied to each mapping by {@link #forEach}.
+     *
+     * @param <V> the type of mapped values
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        /**
+         * Performs this operation on the given mapping.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(int key, V value);
+    }
+
+    /* ---------------- Iterators -------------- */
+
+    /**
+     * Walks the table from the highest slot down, as in
+     * {@link IntIntMap.SlotIterator}.
+     */
+    abstract class SlotIterator {
+        int pos;                // next slot to examine, counting down
+        int last = -2;          // last returned slot, -1 if wrapped, else -2
+        int remaining = size;   // entries not yet returned
+        int lastKey;            // last returned key
+        V lastValue;            // last returned value
+        int[] wrapped;          // keys shifted across the wrap point
+        int wrappedCount;
+        boolean mustReturnZeroKey = containsZeroKey;
+        int expectedModCount = modCount;
+
+        SlotIterator() {
+            pos = (keys == null) ? 0 : keys.length - 1;
+        }
+
+        public final boolean hasNext() {
+            return remaining != 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        final void nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            remaining--;
+            int[] ks = keys;
+            if (mustReturnZeroKey) {
+                mustReturnZeroKey = false;
+                last = ks.length - 1;
+                lastKey = 0;
+                lastValue = (V)values[last];
+                return;
+            }
+            for (;;) {
+                if (--pos < 0) {
+                    // Only wrapped entries remain
+                    last = -1;
+                    lastKey = wrapped[--wrappedCount];
+                    lastValue = get(lastKey);
+                    return;
+                }
+                if (ks[pos] != 0) {
+                    last = pos;
+                    lastKey = ks[pos];
+                    lastValue = (V)values[pos];
+                    return;
+                }
+            }
+        }
+
+        public final void remove() {
+            if (last == -2)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == -1)
+                IntObjectMap.this.remove(lastKey);
+            else if (last == keys.length - 1)
+                removeAt(last);
+            else
+                shiftFrom(last);
+            last = -2;
+            lastValue = null;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * As {@link #removeAt}, but records entries that move from
+         * unvisited slots to visited ones.
+         */
+        private void shiftFrom(int pos) {
+            int[] ks = keys;
+            Object[] vs = values;
+            int mask = ks.length - 2;
+            ++modCount;
+            --size;
+            for (int last, k;;) {
+                pos = ((last = pos) + 1) & mask;
+                for (;;) {
+                    if ((k = ks[pos]) == 0) {
+                        ks[last] = 0;
+                        vs[last] = null;
+                        return;
+                    }
+                    int slot = IntIntMap.hash(k) & mask;
+                    if (last <= pos ? (last >= slot || slot > pos)
+                                    : (last >= slot && slot > pos))
+                        break;
+                    pos = (pos + 1) & mask;
+                }
+                if (pos < last) {
+                    // Wrapped around: entry moves into a visited slot
+                    if (wrapped == null)
+                        wrapped = new int[2];
+                    else if (wrappedCount == wrapped.length)
+                        wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+                    wrapped[wrappedCount++] = k;
+                }
+                ks[last] = k;
+                vs[last] = vs[pos];
+            }
+        }
+    }
+
+    /* ---------------- Boxed view -------------- */
+
+    /**
+     * Adapts the enclosing map to the {@code Map<Integer,V>} interface.
+     */
+    final class BoxedView extends AbstractMap<Integer,V> {
+        transient Set<Map.Entry<Integer,V>> entrySet;
+
+        public int size()                 { return size; }
+        public void clear()               { IntObjectMap.this.clear(); }
+        public boolean containsKey(Object key) {
+            return (key instanceof Integer) && indexOf((Integer)key) >= 0;
+        }
+        public boolean containsValue(Object value) {
+            return IntObjectMap.this.containsValue(value);
+        }
+        public V get(Object key) {
+            return (key instanceof Integer) ?
+                IntObjectMap.this.get((Integer)key) : null;
+        }
+        public V put(Integer key, V value) {
+            return IntObjectMap.this.put(key, value);
+        }
+        public V remove(Object key) {
+            return (key instanceof Integer) ?
+                IntObjectMap.this.remove((Integer)key) : null;
+        }
+        public V merge(Integer key, V value,
+                       BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+            return IntObjectMap.this.merge(key, value, remappingFunction);
+        }
+        public void forEach(BiConsumer<? super Integer, ? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            IntObjectMap.this.forEach(action::accept);
+        }
+        public Set<Map.Entry<Integer,V>> entrySet() {
+            Set<Map.Entry<Integer,V>> es;
+            return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Integer,V>> {
+        public int size()   { return size; }
+        public void clear() { IntObjectMap.this.clear(); }
+        public Iterator<Map.Entry<Integer,V>> iterator() {
+            return new EntryIterator();
+        }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object k = e.getKey();
+            int i;
+            return k instanceof Integer &&
+                (i = indexOf((Integer)k)) >= 0 &&
+                Objects.equals(values[i], e.getValue());
+        }
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                IntObjectMap.this.remove((Integer)((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    final class EntryIterator extends SlotIterator
+        implements Iterator<Map.Entry<Integer,V>> {
+        public Map.Entry<Integer,V> next() {
+            nextSlot();
+            return new BoxedEntry(lastKey, lastValue);
+        }
+    }
+
+    /**
+     * A detached entry whose {@code setValue} writes through to the map.
+     */
+    final class BoxedEntry extends AbstractMap.SimpleEntry<Integer,V> {
+        private static final long serialVersionUID = -6480531247265870613L;
+
+        BoxedEntry(int key, V value) {
+            super(key, value);
+        }
+
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
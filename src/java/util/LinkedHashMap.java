@@ -145,8 +145,9 @@ import java.io.IOException;
  *
  * @implNote
  * The spliterators returned by the spliterator method of the collections
- * returned by all of this class's collection view methods are created from
- * the iterators of the corresponding collections.
+ * returned by all of this class's collection view methods split the
+ * linked list at entries found by sampling the hash table, so that each
+ * part covers a contiguous run of the encounter order.
  *
  * @param <K> the type of keys maintained by this map
  * @param <V> the type of mapped values
@@ -191,6 +192,7 @@ public class LinkedHashMap<K,V>
      */
     static class Entry<K,V> extends HashMap.Node<K,V> {
         Entry<K,V> before, after;
+        int seq;   // increases from head to tail; see LinkedSpliterator
         Entry(int hash, K key, V value, Node<K,V> next) {
             super(hash, key, value, next);
         }
@@ -216,11 +218,29 @@ public class LinkedHashMap<K,V>
      */
     final boolean accessOrder;
 
+    /**
+     * The sequence number of the last entry linked at the tail.
+     */
+    transient int lastSeq;
+
     // internal utilities
 
+    // number for an entry about to be linked at the tail; renumbers
+    // the list rather than overflow
+    private int nextSeq() {
+        if (lastSeq == Integer.MAX_VALUE) {
+            int i = 0;
+            for (LinkedHashMap.Entry<K,V> e = head; e != null; e = e.after)
+                e.seq = ++i;
+            lastSeq = i;
+        }
+        return ++lastSeq;
+    }
+
     // link at the end of list
     private void linkNodeLast(LinkedHashMap.Entry<K,V> p) {
         LinkedHashMap.Entry<K,V> last = tail;
+        p.seq = nextSeq();
         tail = p;
         if (last == null)
             head = p;
@@ -235,6 +255,7 @@ public class LinkedHashMap<K,V>
                                LinkedHashMap.Entry<K,V> dst) {
         LinkedHashMap.Entry<K,V> b = dst.before = src.before;
         LinkedHashMap.Entry<K,V> a = dst.after = src.after;
+        dst.seq = src.seq;
         if (b == null)
             head = dst;
         else
@@ -250,6 +271,7 @@ public class LinkedHashMap<K,V>
     void reinitialize() {
         super.reinitialize();
         head = tail = null;
+        lastSeq = 0;
     }
 
     Node<K,V> newNode(int hash, K key, V value, Node<K,V> e) {
@@ -322,6 +344,7 @@ public class LinkedHashMap<K,V>
                 p.before = last;
                 last.after = p;
             }
+            p.seq = nextSeq();
             tail = p;
             ++modCount;
         }
@@ -522,7 +545,7 @@ public class LinkedHashMap<K,V>
      * operations.  It does not support the <tt>add</tt> or <tt>addAll</tt>
      * operations.
      * Its {@link Spliterator} typically provides faster sequential
-     * performance but much poorer parallel performance than that of
+     * performance but somewhat poorer parallel performance than that of
      * {@code HashMap}.
      *
      * @return a set view of the keys contained in this map
@@ -543,9 +566,7 @@ public class LinkedHashMap<K,V>
             return removeNode(hash(key), key, null, false, true) != null;
         }
         public final Spliterator<K> spliterator()  {
-            return Spliterators.spliterator(this, Spliterator.SIZED |
-                                            Spliterator.ORDERED |
-                                            Spliterator.DISTINCT);
+            return new LinkedSpliterator<K>(LinkedSpliterator.KEYS);
         }
         public final void forEach(Consumer<? super K> action) {
             if (action == null)
@@ -571,7 +592,7 @@ public class LinkedHashMap<K,V>
      * <tt>retainAll</tt> and <tt>clear</tt> operations.  It does not
      * support the <tt>add</tt> or <tt>addAll</tt> operations.
      * Its {@link Spliterator} typically provides faster sequential
-     * performance but much poorer parallel performance than that of
+     * performance but somewhat poorer parallel performance than that of
      * {@code HashMap}.
      *
      * @return a view of the values contained in this map
@@ -589,8 +610,7 @@ public class LinkedHashMap<K,V>
         }
         public final boolean contains(Object o) { return containsValue(o); }
         public final Spliterator<V> spliterator() {
-            return Spliterators.spliterator(this, Spliterator.SIZED |
-                                            Spliterator.ORDERED);
+            return new LinkedSpliterator<V>(LinkedSpliterator.VALUES);
         }
         public final void forEach(Consumer<? super V> action) {
             if (action == null)
@@ -617,7 +637,7 @@ public class LinkedHashMap<K,V>
      * <tt>clear</tt> operations.  It does not support the
      * <tt>add</tt> or <tt>addAll</tt> operations.
      * Its {@link Spliterator} typically provides faster sequential
-     * performance but much poorer parallel performance than that of
+     * performance but somewhat poorer parallel performance than that of
      * {@code HashMap}.
      *
      * @return a set view of the mappings contained in this map
@@ -651,9 +671,7 @@ public class LinkedHashMap<K,V>
             return false;
         }
         public final Spliterator<Map.Entry<K,V>> spliterator() {
-            return Spliterators.spliterator(this, Spliterator.SIZED |
-                                            Spliterator.ORDERED |
-                                            Spliterator.DISTINCT);
+            return new LinkedSpliterator<Map.Entry<K,V>>(LinkedSpliterator.ENTRIES);
         }
         public final void forEach(Consumer<? super Map.Entry<K,V>> action) {
             if (action == null)
@@ -744,5 +762,157 @@ public class LinkedHashMap<K,V>
         public final Map.Entry<K,V> next() { return nextNode(); }
     }
 
+    // Spliterators
+
+    /**
+     * Spliterator over a contiguous run of the linked list, from an
+     * origin entry up to but not including a fence entry (or null for
+     * the tail).  Entries carry sequence numbers that increase along
+     * the list: each entry linked at the tail, whether on insertion or
+     * on access in access-order maps, takes the next number, and
+     * removal keeps the order of the others.  A split samples entries
+     * from evenly spaced bins of the hash table, which are independent
+     * of list position, and splits at the sampled entry within the run
+     * whose number is closest to the middle of the run's numbers.
+     * The number of bins sampled grows as the run becomes a smaller
+     * part of the map, so that some samples are likely to fall within
+     * it.  This finds a split point in time proportional to the number
+     * of samples rather than to the length of the run, and keeps each
+     * part contiguous, so results are merged in encounter order.  A
+     * run that none of the samples fall within is not split.  Runs no
+     * longer than the number of bins they would need sampled are
+     * instead walked to their middle, so no split costs more than
+     * traversing the run.  Sequence numbers are ints, which with
+     * compressed references fit in the padding of an entry; rather
+     * than overflow, the list is renumbered.
+     */
+    final class LinkedSpliterator<T> implements Spliterator<T> {
+        static final int KEYS = 0, VALUES = 1, ENTRIES = 2;
+        static final int SPLIT_SAMPLES = 128;
+
+        final int kind;
+        LinkedHashMap.Entry<K,V> current; // next entry
+        LinkedHashMap.Entry<K,V> fence;   // one past last, or null
+        int est;                          // size estimate; -1 until bound
+        int expectedModCount;             // for comodification checks
+        boolean split;                    // true once split; no longer SIZED
+
+        LinkedSpliterator(int kind) {
+            this.kind = kind;
+            this.est = -1;
+        }
+
+        LinkedSpliterator(LinkedSpliterator<T> parent,
+                          LinkedHashMap.Entry<K,V> origin,
+                          LinkedHashMap.Entry<K,V> fence, int est) {
+            this.kind = parent.kind;
+            this.current = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = parent.expectedModCount;
+            this.split = true;
+        }
+
+        final int getEstimate() { // initialize on first use
+            int s;
+            if ((s = est) < 0) {
+                current = head;
+                s = est = size;
+                expectedModCount = modCount;
+            }
+            return s;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T element(LinkedHashMap.Entry<K,V> e) {
+            return (T)((kind == KEYS) ? e.key : (kind == VALUES) ? e.value : e);
+        }
+
+        public LinkedSpliterator<T> trySplit() {
+            int n = getEstimate();
+            LinkedHashMap.Entry<K,V> e = current, f = fence, t = tail, s = null;
+            Node<K,V>[] tab = table;
+            if (n < 2 || e == null || e == f || t == null || tab == null)
+                return null;
+            long lo = e.seq, hi = (f == null) ? t.seq + 1L : f.seq, span;
+            if ((span = hi - lo) < 2L)
+                return null;
+            long scale = Math.max(1L, (long)size / n);
+            int len = tab.length;
+            int samples = (int)Math.min((long)len, SPLIT_SAMPLES * scale);
+            if (samples >= n) {
+                // walk to the middle; the run is known exactly after
+                int k = 0;
+                s = e;
+                for (LinkedHashMap.Entry<K,V> p = e; p != null && p != f;
+                     p = p.after) {
+                    if ((++k & 1) == 0)
+                        s = s.after;
+                }
+                if (s == e)
+                    return null;
+                est = k - (k >>> 1);
+                split = true;
+                current = s;
+                return new LinkedSpliterator<T>(this, e, s, k >>> 1);
+            }
+            long mid = lo + (span >>> 1), best = Long.MAX_VALUE;
+            int step = len / samples, i = (int)mid & (len - 1);
+            for (int k = 0; k < samples; ++k, i = (i + step) & (len - 1)) {
+                for (Node<K,V> p = tab[i]; p != null; p = p.next) {
+                    LinkedHashMap.Entry<K,V> q = (LinkedHashMap.Entry<K,V>)p;
+                    long d, qs = q.seq;
+                    if (qs > lo && qs < hi &&
+                        (d = (qs < mid) ? mid - qs : qs - mid) < best) {
+                        best = d;
+                        s = q;
+                    }
+                }
+            }
+            if (s == null)
+                return null;
+            int m = (int)(n * ((double)(s.seq - lo) / (hi - lo)));
+            est = n - m;
+            split = true;
+            current = s;
+            return new LinkedSpliterator<T>(this, e, s, m);
+        }
+
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (action == null)
+                throw new NullPointerException();
+            getEstimate();
+            LinkedHashMap.Entry<K,V> e = current, f = fence;
+            current = f; // exhaust
+            for (; e != null && e != f; e = e.after)
+                action.accept(element(e));
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public boolean tryAdvance(Consumer<? super T> action) {
+            LinkedHashMap.Entry<K,V> e;
+            if (action == null)
+                throw new NullPointerException();
+            getEstimate();
+            if ((e = current) == null || e == fence)
+                return false;
+            current = e.after;
+            action.accept(element(e));
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return true;
+        }
+
+        public long estimateSize() {
+            return (long) getEstimate();
+        }
+
+        public int characteristics() {
+            return (split ? 0 : Spliterator.SIZED) | Spliterator.ORDERED |
+                ((kind == VALUES) ? 0 : Spliterator.DISTINCT);
+        }
+    }
+
 
 }
@@ -1068,13 +1068,13 @@ public class LinkedList<E> extends AbstractSequentialList<E> implements List<E>,
 
     /** A customized variant of Spliterators.IteratorSpliterator */
     static final class LLSpliterator<E> implements Spliterator<E> {
-        static final int BATCH_UNIT = 1 << 10;  // batch array size increment
         static final int MAX_BATCH = 1 << 25;  // max batch array size;
         final LinkedList<E> list; // null OK unless traversed
         Node<E> current;      // current node; null until initialized
         int est;              // size estimate; -1 until first needed
         int expectedModCount; // initialized when est set
         int batch;            // batch size for splits
+        long batchNanos;      // time taken to copy the last batch
 
         LLSpliterator(LinkedList<E> list, int est, int expectedModCount) {
             this.list = list;
@@ -1103,14 +1103,14 @@ public class LinkedList<E> extends AbstractSequentialList<E> implements List<E>,
             Node<E> p;
             int s = getEst();
             if (s > 1 && (p = current) != null) {
-                int n = batch + BATCH_UNIT;
+                int n = Spliterators.nextBatchSize(batch, batchNanos, MAX_BATCH);
                 if (n > s)
                     n = s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
                 Object[] a = new Object[n];
                 int j = 0;
+                long start = System.nanoTime();
                 do { a[j++] = p.item; } while ((p = p.next) != null && j < n);
+                batchNanos = System.nanoTime() - start;
                 current = p;
                 batch = j;
                 est = s - j;
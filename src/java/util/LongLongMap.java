@@ -0,0 +1,978 @@
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * An open-addressing hash map from {@code long} keys to {@code long}
+ * values.  Keys and values are held in two flat arrays rather than in
+ * per-entry nodes, so a mapping costs no allocation and no boxing.
+ *
+ * <p>The table layout follows {@link HashMap}: the capacity is always a
+ * power of two, hashes are spread by XORing the high half into the low
+ * half before masking, and the table doubles once the number of
+ * mappings exceeds {@code capacity * loadFactor}.  Collisions are
+ * resolved by linear probing, and removal shifts later entries of a
+ * probe run backwards instead of leaving tombstones, so lookups never
+ * degrade as a result of churn.  The key {@code 0} marks a free slot
+ * and is therefore stored out of line.
+ *
+ * <p>Operations on absent keys return {@code 0}, in the manner of an
+ * {@code long[]} element; use {@link #containsKey(long)} or
+ * {@link #getOrDefault(long, long)} when {@code 0} is a meaningful value.
+ * The {@link #asMap()} view adapts this map to the {@link Map}
+ * interface, boxing keys and values on access.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The iterators of the {@code asMap()} collection views are
+ * <i>fail-fast</i> in the same sense as those of {@code HashMap}.
+ *
+ * @see HashMap
+ * @see LongObjectMap
+ * @since 1.8
+ */
+public class LongLongMap implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 7016347252735284311L;
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The maximum capacity, as for {@link HashMap#MAXIMUM_CAPACITY}.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The keys, allocated on first use.  Length is a power of two plus
+     * one; the extra last slot holds the value of the zero key.
+     */
+    transient long[] keys;
+
+    /**
+     * The values, parallel to {@link #keys}.
+     */
+    transient long[] values;
+
+    /**
+     * Whether the zero key is present.  Its value is held in the last
+     * slot of {@link #values}.
+     */
+    transient boolean containsZeroKey;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     * Before the table is allocated this holds the initial capacity.
+     *
+     * @serial
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * The boxed view, created on first request.
+     */
+    transient Map<Long,Long> boxedView;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, at most {@code 1}
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is nonpositive or greater than one
+     */
+    public LongLongMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (initialCapacity > MAXIMUM_CAPACITY)
+            initialCapacity = MAXIMUM_CAPACITY;
+        if (!(loadFactor > 0 && loadFactor <= 1))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = HashMap.tableSizeFor(initialCapacity);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongLongMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.75).
+     */
+    public LongLongMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Scrambles the key with a multiplicative constant and then spreads
+     * the higher bits downward as {@link HashMap#hash} does.  Long
+     * keys are frequently sequential, which would otherwise produce
+     * long clusters under linear probing.
+     */
+    static int hash(long key) {
+        long x = key * 0x9E3779B97F4A7C15L;
+        int h = (int)(x ^ (x >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /* ---------------- Internal table operations -------------- */
+
+    /**
+     * Returns the slot holding the given key, or -1 if absent.
+     */
+    final int indexOf(long key) {
+        long[] ks; int n;
+        if ((ks = keys) == null)
+            return -1;
+        n = ks.length - 1;
+        if (key == 0)
+            return containsZeroKey ? n : -1;
+        int mask = n - 1; long k;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if ((k = ks[i]) == 0)
+                return -1;
+            if (k == key)
+                return i;
+        }
+    }
+
+    /**
+     * Returns the slot holding the given key, inserting the key into a
+     * free slot (and growing the table if needed) when absent.  The
+     * value of a newly inserted slot is zero.  Sets {@link #inserted}
+     * as a side channel so that callers need not probe twice.
+     */
+    private int insertionIndex(long key) {
+        long[] ks;
+        if ((ks = keys) == null)
+            ks = resize();
+        int n = ks.length - 1;
+        if (key == 0) {
+            if (containsZeroKey) {
+                inserted = false;
+                return n;
+            }
+            containsZeroKey = true;
+            values[n] = 0;
+        }
+        else {
+            int mask = n - 1, i; long k;
+            for (i = hash(key) & mask; (k = ks[i]) != 0; i = (i + 1) & mask) {
+                if (k == key) {
+                    inserted = false;
+                    return i;
+                }
+            }
+            ks[i] = key;
+            values[i] = 0;
+            n = i;
+        }
+        inserted = true;
+        ++modCount;
+        if (++size > threshold) {
+            resize();
+            return indexOf(key);
+        }
+        return n;
+    }
+
+    /** Set by {@link #insertionIndex} when the key was absent. */
+    private transient boolean inserted;
+
+    /**
+     * Initializes or doubles the table.  Entries are reinserted with
+     * the same probe sequence used for lookups.
+     *
+     * @return the new key array
+     */
+    final long[] resize() {
+        long[] oldKeys = keys, oldVals = values;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length - 1;
+        int newCap;
+        if (oldCap > 0) {
+            if (oldCap >= MAXIMUM_CAPACITY) {
+                if (size >= MAXIMUM_CAPACITY - 1)
+                    throw new IllegalStateException("Map is full");
+                threshold = MAXIMUM_CAPACITY - 1;
+                return oldKeys;
+            }
+            newCap = oldCap << 1;
+        }
+        else
+            newCap = Math.max(threshold, 2);
+        long[] ks = new long[newCap + 1];
+        long[] vs = new long[newCap + 1];
+        int mask = newCap - 1;
+        if (oldKeys != null) {
+            vs[newCap] = oldVals[oldCap];
+            for (int j = 0; j < oldCap; ++j) {
+                long k;
+                if ((k = oldKeys[j]) != 0) {
+                    int i = hash(k) & mask;
+                    while (ks[i] != 0)
+                        i = (i + 1) & mask;
+                    ks[i] = k;
+                    vs[i] = oldVals[j];
+                }
+            }
+        }
+        keys = ks;
+        values = vs;
+        threshold = (newCap < MAXIMUM_CAPACITY) ?
+            Math.min((int)(newCap * loadFactor), newCap - 1) :
+            MAXIMUM_CAPACITY - 1;
+        return ks;
+    }
+
+    /**
+     * Removes the entry at the given slot, shifting later members of
+     * its probe run backwards so that no tombstone is needed.
+     */
+    final long removeAt(int pos) {
+        long[] ks = keys, vs = values;
+        int n = ks.length - 1;
+        long oldValue = vs[pos];
+        ++modCount;
+        --size;
+        if (pos == n) {
+            containsZeroKey = false;
+            vs[n] = 0;
+            return oldValue;
+        }
+        int mask = n - 1;
+        for (int last;;) {
+            long k;
+            pos = ((last = pos) + 1) & mask;
+            for (;;) {
+                if ((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    vs[last] = 0;
+                    return oldValue;
+                }
+                int slot = hash(k) & mask;
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos))
+                    break;
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence is to be tested
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.  This operation requires time linear in the
+     * capacity of the map.
+     *
+     * @param value the value whose presence is to be tested
+     * @return {@code true} if this map maps one or more keys to the value
+     */
+    public boolean containsValue(long value) {
+        long[] ks, vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1;
+            if (containsZeroKey && vs[n] == value)
+                return true;
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0 && vs[i] == value)
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code 0} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value mapped to the key, or {@code 0} if none
+     */
+    public long get(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0 : values[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if the key is absent
+     * @return the value mapped to the key, or {@code defaultValue}
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        int i = indexOf(key);
+        return (i < 0) ? defaultValue : values[i];
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the key, or {@code 0}
+     *         if there was no mapping for the key
+     */
+    public long put(long key, long value) {
+        int i = insertionIndex(key);
+        long[] vs = values;
+        long oldValue = vs[i];
+        vs[i] = value;
+        return oldValue;
+    }
+
+    /**
+     * Associates the specified value with the specified key only if the
+     * key is not already present.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the current value associated with the key, or {@code 0}
+     *         if there was no mapping and {@code value} was stored
+     */
+    public long putIfAbsent(long key, long value) {
+        int i = insertionIndex(key);
+        if (inserted) {
+            values[i] = value;
+            return 0;
+        }
+        return values[i];
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map is null
+     */
+    public void putAll(LongLongMap m) {
+        long[] ks, vs;
+        if ((ks = m.keys) != null && m.size > 0) {
+            vs = m.values;
+            int n = ks.length - 1;
+            if (m.containsZeroKey)
+                put(0, vs[n]);
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0)
+                    put(ks[i], vs[i]);
+        }
+    }
+
+    /**
+     * If the key is absent, associates it with {@code value}; otherwise
+     * replaces its value with the result of the remapping function
+     * applied to the old value and {@code value}.  Unlike
+     * {@link Map#merge}, a mapping is never removed by this method.
+     * No objects are allocated when the remapping function is a
+     * non-capturing lambda or method reference such as
+     * {@code Long::sum}.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the value to store, or to merge with the existing value
+     * @param remappingFunction the function to recompute a present value
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remapping function is null
+     */
+    public long merge(long key, long value, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int i = insertionIndex(key);
+        int mc = modCount;
+        if (!inserted) {
+            long v = remappingFunction.applyAsLong(values[i], value);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            value = v;
+        }
+        values[i] = value;
+        return value;
+    }
+
+    /**
+     * Adds {@code delta} to the value of the given key, treating an
+     * absent key as mapped to {@code 0}.
+     *
+     * @param key the key whose value is to be incremented
+     * @param delta the amount to add
+     * @return the new value associated with the specified key
+     */
+    public long addTo(long key, long delta) {
+        int i = insertionIndex(key);
+        return values[i] += delta;
+    }
+
+    /**
+     * If the specified key is not already present, computes its value
+     * using the given mapping function and enters it into this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mapping function is null
+     */
+    public long computeIfAbsent(long key, LongUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int i;
+        if ((i = indexOf(key)) >= 0)
+            return values[i];
+        int mc = modCount;
+        long v = mappingFunction.applyAsLong(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        i = insertionIndex(key);
+        values[i] = v;
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with the key, or {@code 0}
+     *         if there was no mapping for the key
+     */
+    public long remove(long key) {
+        int i = indexOf(key);
+        return (i < 0) ? 0 : removeAt(i);
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current capacity.
+     */
+    public void clear() {
+        long[] ks;
+        if ((ks = keys) != null && size > 0) {
+            ++modCount;
+            size = 0;
+            containsZeroKey = false;
+            Arrays.fill(ks, 0);
+            Arrays.fill(values, 0);
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, in
+     * unspecified order, without allocating any entry objects.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the map is structurally
+     *         modified by the action
+     */
+    public void forEach(EntryConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        long[] ks, vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1, mc = modCount;
+            if (containsZeroKey)
+                action.accept(0, vs[n]);
+            for (int i = 0; i < n && mc == modCount; ++i)
+                if (ks[i] != 0)
+                    action.accept(ks[i], vs[i]);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a new array containing the keys of this map, in the same
+     * order as {@link #values()}.
+     *
+     * @return an array of the keys of this map
+     */
+    public long[] keys() {
+        long[] a = new long[size];
+        long[] ks;
+        if ((ks = keys) != null && size > 0) {
+            int n = ks.length - 1, j = 0;
+            if (containsZeroKey)
+                a[j++] = 0;
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0)
+                    a[j++] = ks[i];
+        }
+        return a;
+    }
+
+    /**
+     * Returns a new array containing the values of this map, in the
+     * same order as {@link #keys()}.
+     *
+     * @return an array of the values of this map
+     */
+    public long[] values() {
+        long[] a = new long[size];
+        long[] ks, vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1, j = 0;
+            if (containsZeroKey)
+                a[j++] = vs[n];
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0)
+                    a[j++] = vs[i];
+        }
+        return a;
+    }
+
+    /**
+     * Returns a {@link Map} view of this map.  The view is backed by
+     * this map, so changes to either are reflected in the other.  Keys
+     * and values are boxed on every access through the view.
+     *
+     * @return a boxed {@code Map} view of this map
+     */
+    public Map<Long,Long> asMap() {
+        Map<Long,Long> m;
+        return (m = boxedView) == null ? (boxedView = new BoxedView()) : m;
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is also an
+     * {@code LongLongMap} holding the same mappings.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongLongMap))
+            return false;
+        LongLongMap m = (LongLongMap)o;
+        if (m.size != size)
+            return false;
+        long[] ks, vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1, j;
+            if (containsZeroKey &&
+                ((j = m.indexOf(0)) < 0 || m.values[j] != vs[n]))
+                return false;
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0 &&
+                    ((j = m.indexOf(ks[i])) < 0 || m.values[j] != vs[i]))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, which equals the hash
+     * code of the {@link #asMap()} view as defined by {@link Map#hashCode}.
+     *
+     * @return the hash code value for this map
+     */
+    public int hashCode() {
+        int h = 0;
+        long[] ks, vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1;
+            if (containsZeroKey)
+                h += Long.hashCode(vs[n]);
+            for (int i = 0; i < n; ++i)
+                if (ks[i] != 0)
+                    h += Long.hashCode(ks[i]) ^ Long.hashCode(vs[i]);
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this map in the same form as
+     * {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder().append('{');
+        long[] ks = keys, vs = values;
+        int n = ks.length - 1;
+        boolean first = true;
+        if (containsZeroKey) {
+            sb.append(0).append('=').append(vs[n]);
+            first = false;
+        }
+        for (int i = 0; i < n; ++i) {
+            if (ks[i] != 0) {
+                if (!first)
+                    sb.append(',').append(' ');
+                sb.append(ks[i]).append('=').append(vs[i]);
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Returns a shallow copy of this map.
+     *
+     * @return a shallow copy of this map
+     */
+    public LongLongMap clone() {
+        LongLongMap result;
+        try {
+            result = (LongLongMap)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        if (keys != null) {
+            result.keys = keys.clone();
+            result.values = values.clone();
+        }
+        result.modCount = 0;
+        result.boxedView = null;
+        return result;
+    }
+
+    /**
+     * Saves this map to a stream.
+     *
+     * @serialData The number of mappings (<tt>int</tt>), followed by
+     *             each key (<tt>long</tt>) and value (<tt>long</tt>)
+     *             in no particular order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        long[] ks, vs;
+        if ((ks = keys) != null && size > 0) {
+            vs = values;
+            int n = ks.length - 1;
+            if (containsZeroKey) {
+                s.writeLong(0L);
+                s.writeLong(vs[n]);
+            }
+            for (int i = 0; i < n; ++i) {
+                if (ks[i] != 0) {
+                    s.writeLong(ks[i]);
+                    s.writeLong(vs[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconstitutes this map from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0 && loadFactor <= 1))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        float fc = (float)mappings / loadFactor + 1.0f;
+        threshold = HashMap.tableSizeFor((fc >= MAXIMUM_CAPACITY) ?
+                                         MAXIMUM_CAPACITY : (int)fc);
+        for (int i = 0; i < mappings; i++)
+            put(s.readLong(), s.readLong());
+    }
+
+    /**
+     * An action applied to each mapping by {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Performs this operation on the given mapping.
+         *
+         * @param key the key
+         * @param value the value
+         */
+        void accept(long key, long value);
+    }
+
+    /* ---------------- Iterators -------------- */
+
+    /**
+     * Walks the table from the highest slot down.  When a removal
+     * through the iterator shifts an entry from the start of the table
+     * past the wrap-around point into an already visited slot, that
+     * entry is remembered and returned after the table is exhausted.
+     */
+    abstract class SlotIterator {
+        int pos;                // next slot to examine, counting down
+        int last = -2;          // last returned slot, -1 if wrapped, else -2
+        int remaining = size;   // entries not yet returned
+        long lastKey, lastValue; // last returned mapping
+        long[] wrapped;          // keys shifted across the wrap point
+        int wrappedCount;
+        boolean mustReturnZeroKey = containsZeroKey;
+        int expectedModCount = modCount;
+
+        SlotIterator() {
+            pos = (keys == null) ? 0 : keys.length - 1;
+        }
+
+        public final boolean hasNext() {
+            return remaining != 0;
+        }
+
+        final void nextSlot() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            remaining--;
+            long[] ks = keys;
+            if (mustReturnZeroKey) {
+                mustReturnZeroKey = false;
+                last = ks.length - 1;
+                lastKey = 0;
+                lastValue = values[last];
+                return;
+            }
+            for (;;) {
+                if (--pos < 0) {
+                    // Only wrapped entries remain
+                    last = -1;
+                    lastKey = wrapped[--wrappedCount];
+                    lastValue = get(lastKey);
+                    return;
+                }
+                if (ks[pos] != 0) {
+                    last = pos;
+                    lastKey = ks[pos];
+                    lastValue = values[pos];
+                    return;
+                }
+            }
+        }
+
+        public final void remove() {
+            if (last == -2)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == -1)
+                LongLongMap.this.remove(lastKey);
+            else if (last == keys.length - 1)
+                removeAt(last);
+            else
+                shiftFrom(last);
+            last = -2;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * As {@link #removeAt}, but records entries that move from
+         * unvisited slots to visited ones.
+         */
+        private void shiftFrom(int pos) {
+            long[] ks = keys, vs = values;
+            int mask = ks.length - 2;
+            ++modCount;
+            --size;
+            for (int last;;) {
+                long k;
+                pos = ((last = pos) + 1) & mask;
+                for (;;) {
+                    if ((k = ks[pos]) == 0) {
+                        ks[last] = 0;
+                        vs[last] = 0;
+                        return;
+                    }
+                    int slot = hash(k) & mask;
+                    if (last <= pos ? (last >= slot || slot > pos)
+                                    : (last >= slot && slot > pos))
+                        break;
+                    pos = (pos + 1) & mask;
+                }
+                if (pos < last) {
+                    // Wrapped around: entry moves into a visited slot
+                    if (wrapped == null)
+                        wrapped = new long[2];
+                    else if (wrappedCount == wrapped.length)
+                        wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+                    wrapped[wrappedCount++] = k;
+                }
+                ks[last] = k;
+                vs[last] = vs[pos];
+            }
+        }
+    }
+
+    /* ---------------- Boxed view -------------- */
+
+    /**
+     * Adapts the enclosing map to the {@code Map<Long,Long>}
+     * interface.  Single-key operations delegate to the primitive
+     * methods after unboxing.
+     */
+    final class BoxedView extends AbstractMap<Long,Long> {
+        transient Set<Map.Entry<Long,Long>> entrySet;
+
+        public int size()                 { return size; }
+        public void clear()               { LongLongMap.this.clear(); }
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) && indexOf((Long)key) >= 0;
+        }
+        public boolean containsValue(Object value) {
+            return (value instanceof Long) &&
+                LongLongMap.this.containsValue((Long)value);
+        }
+        public Long get(Object key) {
+            int i;
+            return (key instanceof Long && (i = indexOf((Long)key)) >= 0) ?
+                LongLongMap.this.values[i] : null;
+        }
+        public Long put(Long key, Long value) {
+            int i = insertionIndex(key);
+            boolean added = inserted;
+            long oldValue = LongLongMap.this.values[i];
+            LongLongMap.this.values[i] = value;
+            return added ? null : oldValue;
+        }
+        public Long remove(Object key) {
+            int i;
+            return (key instanceof Long && (i = indexOf((Long)key)) >= 0) ?
+                removeAt(i) : null;
+        }
+        public void forEach(BiConsumer<? super Long, ? super Long> action) {
+            if (action == null)
+                throw new NullPointerException();
+            LongLongMap.this.forEach(action::accept);
+        }
+        public Set<Map.Entry<Long,Long>> entrySet() {
+            Set<Map.Entry<Long,Long>> es;
+            return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Long,Long>> {
+        public int size()   { return size; }
+        public void clear() { LongLongMap.this.clear(); }
+        public Iterator<Map.Entry<Long,Long>> iterator() {
+            return new EntryIterator();
+        }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object k = e.getKey(), v = e.getValue();
+            int i;
+            return k instanceof Long && v instanceof Long &&
+                (i = indexOf((Long)k)) >= 0 && values[i] == (Long)v;
+        }
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                LongLongMap.this.remove((Long)((Map.Entry<?,?>)o).getKey());
+                return true;
+            }
+            return false;
+        }
+    }
+
+    final class EntryIterator extends SlotIterator
+        implements Iterator<Map.Entry<Long,Long>> {
+        public Map.Entry<Long,Long> next() {
+            nextSlot();
+            return new BoxedEntry(lastKey, lastValue);
+        }
+    }
+
+    /**
+     * A detached entry whose {@code setValue} writes through to the map.
+     */
+    final class BoxedEntry extends AbstractMap.SimpleEntry<Long,Long> {
+        private static final long serialVersionUID = -1453071283650931520L;
+
+        BoxedEntry(long key, long value) {
+            super(key, value);
+        }
+
+        public Long setValue(Long value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
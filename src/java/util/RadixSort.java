@@ -0,0 +1,569 @@
+package java.util;
+
+import java.util.function.IntConsumer;
+
+/**
+ * This class implements least-significant-digit radix sorts of
+ * {@code int}, {@code long}, {@code float} and {@code double} arrays,
+ * optionally carrying a parallel {@code int} payload array whose
+ * elements are permuted along with the keys.  Each pass distributes
+ * the elements by one 8-bit digit of their keys, from the lowest digit
+ * to the highest, into a workspace array, and the roles of the array
+ * and the workspace alternate between passes.  Every pass is stable,
+ * so the whole sort is.  A pass is skipped when all keys share the
+ * digit it would sort by, which makes keys of a small range cheap to
+ * sort.
+ *
+ * <p>Keys are compared as signed numbers by flipping their sign bit
+ * before extracting digits.  Floating-point keys are first mapped to
+ * integers whose signed order is the order of
+ * {@link Float#compare} and {@link Double#compare}, after moving NaNs
+ * to the end of the range.
+ *
+ * <p>The parallel sorts divide the range into blocks and run each pass
+ * in three phases: each block counts its digits; the counts, laid out
+ * digit-major so that their prefix sums are the blocks' starting
+ * offsets in the workspace, are cumulated with
+ * {@link ArrayPrefixHelpers.IntCumulateTask}; and each block scatters
+ * its elements to their offsets.  The phases for the blocks run as
+ * {@link ArraysParallelSortHelpers.FJRadix.Pass} tasks.
+ *
+ * <p>All exposed methods are package-private, designed to be invoked
+ * from public methods (in class Arrays) after performing any necessary
+ * array bounds checks.
+ *
+ * @since 1.8
+ */
+final class RadixSort {
+
+    /**
+     * Prevents instantiation.
+     */
+    private RadixSort() {}
+
+    /*
+     * Tuning parameters.
+     */
+
+    /** The number of bits of a key distributed by one pass. */
+    private static final int DIGIT_BITS = 8;
+
+    /** The number of distinct digits. */
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    /** The mask extracting one digit. */
+    private static final int DIGIT_MASK = RADIX - 1;
+
+    /**
+     * If the length of a range without a payload is less than this
+     * constant, Dual-Pivot Quicksort is used in preference to radix sort,
+     * whose per-pass histograms dominate on short ranges.
+     */
+    private static final int QUICKSORT_THRESHOLD = 1 << 9;
+
+    /**
+     * If the length of a range with a payload is less than this
+     * constant, a stable insertion sort is used in preference to radix
+     * sort.
+     */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /*
+     * Sequential sorts.
+     */
+
+    /**
+     * Sorts the given range of the array, permuting the same range of
+     * the payload, if any, along with it.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param v the payload array, or null
+     */
+    static void sort(int[] a, int lo, int hi, int[] v) {
+        int n = hi - lo;
+        if (v == null && n < QUICKSORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, lo, hi - 1, null, 0, 0);
+            return;
+        }
+        if (n < INSERTION_SORT_THRESHOLD) {
+            insertionSort(a, lo, hi, v);
+            return;
+        }
+
+        // Count all digits in one scan
+        int[] c = new int[4 * RADIX];
+        for (int i = lo; i < hi; ++i) {
+            int k = a[i] ^ Integer.MIN_VALUE;
+            ++c[k & DIGIT_MASK];
+            ++c[RADIX + ((k >>> 8) & DIGIT_MASK)];
+            ++c[2 * RADIX + ((k >>> 16) & DIGIT_MASK)];
+            ++c[3 * RADIX + (k >>> 24)];
+        }
+
+        int[] src = a, dst = null, vs = v, vd = null;
+        int so = lo, dOff = 0;
+        for (int pass = 0; pass < 4; ++pass) {
+            int base = pass * RADIX, shift = pass * DIGIT_BITS;
+            if (!startOffsets(c, base, n, (src == a) ? 0 : lo))
+                continue;
+            if (dst == null) {
+                dst = new int[n];
+                vd = (v == null) ? null : new int[n];
+            }
+            int end = so + n;
+            if (vs == null) {
+                for (int i = so; i < end; ++i) {
+                    int x = src[i];
+                    dst[c[base + digit(x, shift)]++] = x;
+                }
+            } else {
+                for (int i = so; i < end; ++i) {
+                    int x = src[i], j = c[base + digit(x, shift)]++;
+                    dst[j] = x;
+                    vd[j] = vs[i];
+                }
+            }
+            int[] t = src; src = dst; dst = t;
+            t = vs; vs = vd; vd = t;
+            int o = so; so = dOff; dOff = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, lo, n);
+            if (v != null)
+                System.arraycopy(vs, so, v, lo, n);
+        }
+    }
+
+    /**
+     * Sorts the given range of the array, permuting the same range of
+     * the payload, if any, along with it.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param v the payload array, or null
+     */
+    static void sort(long[] a, int lo, int hi, int[] v) {
+        int n = hi - lo;
+        if (v == null && n < QUICKSORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, lo, hi - 1, null, 0, 0);
+            return;
+        }
+        if (n < INSERTION_SORT_THRESHOLD) {
+            insertionSort(a, lo, hi, v);
+            return;
+        }
+
+        // Count all digits in one scan
+        int[] c = new int[8 * RADIX];
+        for (int i = lo; i < hi; ++i) {
+            long k = a[i] ^ Long.MIN_VALUE;
+            for (int base = 0; base < 8 * RADIX; base += RADIX, k >>>= DIGIT_BITS)
+                ++c[base + ((int) k & DIGIT_MASK)];
+        }
+
+        long[] src = a, dst = null;
+        int[] vs = v, vd = null;
+        int so = lo, dOff = 0;
+        for (int pass = 0; pass < 8; ++pass) {
+            int base = pass * RADIX, shift = pass * DIGIT_BITS;
+            if (!startOffsets(c, base, n, (src == a) ? 0 : lo))
+                continue;
+            if (dst == null) {
+                dst = new long[n];
+                vd = (v == null) ? null : new int[n];
+            }
+            int end = so + n;
+            if (vs == null) {
+                for (int i = so; i < end; ++i) {
+                    long x = src[i];
+                    dst[c[base + digit(x, shift)]++] = x;
+                }
+            } else {
+                for (int i = so; i < end; ++i) {
+                    long x = src[i];
+                    int j = c[base + digit(x, shift)]++;
+                    dst[j] = x;
+                    vd[j] = vs[i];
+                }
+            }
+            long[] t = src; src = dst; dst = t;
+            int[] tv = vs; vs = vd; vd = tv;
+            int o = so; so = dOff; dOff = o;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, lo, n);
+            if (v != null)
+                System.arraycopy(vs, so, v, lo, n);
+        }
+    }
+
+    /**
+     * Sorts the given range of the array.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     */
+    static void sort(float[] a, int lo, int hi) {
+        hi = moveNaNsToEnd(a, lo, hi);
+        int n = hi - lo;
+        if (n < QUICKSORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, lo, hi - 1, null, 0, 0);
+            return;
+        }
+        int[] k = new int[n];
+        for (int i = 0; i < n; ++i)
+            k[i] = sortableBits(a[lo + i]);
+        sort(k, 0, n, null);
+        for (int i = 0; i < n; ++i)
+            a[lo + i] = fromSortableBits(k[i]);
+    }
+
+    /**
+     * Sorts the given range of the array.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     */
+    static void sort(double[] a, int lo, int hi) {
+        hi = moveNaNsToEnd(a, lo, hi);
+        int n = hi - lo;
+        if (n < QUICKSORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, lo, hi - 1, null, 0, 0);
+            return;
+        }
+        long[] k = new long[n];
+        for (int i = 0; i < n; ++i)
+            k[i] = sortableBits(a[lo + i]);
+        sort(k, 0, n, null);
+        for (int i = 0; i < n; ++i)
+            a[lo + i] = fromSortableBits(k[i]);
+    }
+
+    /*
+     * Parallel sorts.
+     */
+
+    /**
+     * Sorts the given range of the array in parallel, permuting the same
+     * range of the payload, if any, along with it.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param v the payload array, or null
+     * @param gran the size of the blocks processed by each task
+     */
+    static void parallelSort(int[] a, int lo, int hi, int[] v, int gran) {
+        final int n = hi - lo, nb = (n + gran - 1) / gran;
+        final int[] c = new int[nb * RADIX];
+        int[] src = a, dst = new int[n];
+        int[] vs = v, vd = (v == null) ? null : new int[n];
+        int so = lo, dOff = 0;
+        for (int shift = 0; shift < 32; shift += DIGIT_BITS) {
+            final int[] s = src, d = dst, sv = vs, dv = vd;
+            final int sOff = so, dO = dOff, sh = shift;
+            runBlocks(nb, b -> {
+                int[] h = new int[RADIX];
+                for (int i = sOff + b * gran, e = Math.min(i + gran, sOff + n);
+                     i < e; ++i)
+                    ++h[digit(s[i], sh)];
+                for (int x = 0; x < RADIX; ++x)
+                    c[x * nb + b] = h[x];
+            });
+            if (!cumulate(c, nb, n))
+                continue;
+            runBlocks(nb, b -> {
+                int[] o = blockOffsets(c, nb, b, dO);
+                for (int i = sOff + b * gran, e = Math.min(i + gran, sOff + n);
+                     i < e; ++i) {
+                    int x = s[i], j = o[digit(x, sh)]++;
+                    d[j] = x;
+                    if (sv != null)
+                        dv[j] = sv[i];
+                }
+            });
+            src = d; dst = s; vs = dv; vd = sv;
+            so = dO; dOff = sOff;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, lo, n);
+            if (v != null)
+                System.arraycopy(vs, so, v, lo, n);
+        }
+    }
+
+    /**
+     * Sorts the given range of the array in parallel, permuting the same
+     * range of the payload, if any, along with it.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param v the payload array, or null
+     * @param gran the size of the blocks processed by each task
+     */
+    static void parallelSort(long[] a, int lo, int hi, int[] v, int gran) {
+        final int n = hi - lo, nb = (n + gran - 1) / gran;
+        final int[] c = new int[nb * RADIX];
+        long[] src = a, dst = new long[n];
+        int[] vs = v, vd = (v == null) ? null : new int[n];
+        int so = lo, dOff = 0;
+        for (int shift = 0; shift < 64; shift += DIGIT_BITS) {
+            final long[] s = src, d = dst;
+            final int[] sv = vs, dv = vd;
+            final int sOff = so, dO = dOff, sh = shift;
+            runBlocks(nb, b -> {
+                int[] h = new int[RADIX];
+                for (int i = sOff + b * gran, e = Math.min(i + gran, sOff + n);
+                     i < e; ++i)
+                    ++h[digit(s[i], sh)];
+                for (int x = 0; x < RADIX; ++x)
+                    c[x * nb + b] = h[x];
+            });
+            if (!cumulate(c, nb, n))
+                continue;
+            runBlocks(nb, b -> {
+                int[] o = blockOffsets(c, nb, b, dO);
+                for (int i = sOff + b * gran, e = Math.min(i + gran, sOff + n);
+                     i < e; ++i) {
+                    long x = s[i];
+                    int j = o[digit(x, sh)]++;
+                    d[j] = x;
+                    if (sv != null)
+                        dv[j] = sv[i];
+                }
+            });
+            src = d; dst = s; vs = dv; vd = sv;
+            so = dO; dOff = sOff;
+        }
+        if (src != a) {
+            System.arraycopy(src, so, a, lo, n);
+            if (v != null)
+                System.arraycopy(vs, so, v, lo, n);
+        }
+    }
+
+    /**
+     * Sorts the given range of the array in parallel.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param gran the size of the blocks processed by each task
+     */
+    static void parallelSort(float[] a, int lo, int hi, int gran) {
+        hi = moveNaNsToEnd(a, lo, hi);
+        final int n = hi - lo, nb = (n + gran - 1) / gran;
+        if (nb < 2) {
+            sort(a, lo, hi);
+            return;
+        }
+        final int[] k = new int[n];
+        runBlocks(nb, b -> {
+            for (int i = b * gran, e = Math.min(i + gran, n); i < e; ++i)
+                k[i] = sortableBits(a[lo + i]);
+        });
+        parallelSort(k, 0, n, null, gran);
+        runBlocks(nb, b -> {
+            for (int i = b * gran, e = Math.min(i + gran, n); i < e; ++i)
+                a[lo + i] = fromSortableBits(k[i]);
+        });
+    }
+
+    /**
+     * Sorts the given range of the array in parallel.
+     *
+     * @param a the array to be sorted
+     * @param lo the index of the first element, inclusive, to be sorted
+     * @param hi the index of the last element, exclusive, to be sorted
+     * @param gran the size of the blocks processed by each task
+     */
+    static void parallelSort(double[] a, int lo, int hi, int gran) {
+        hi = moveNaNsToEnd(a, lo, hi);
+        final int n = hi - lo, nb = (n + gran - 1) / gran;
+        if (nb < 2) {
+            sort(a, lo, hi);
+            return;
+        }
+        final long[] k = new long[n];
+        runBlocks(nb, b -> {
+            for (int i = b * gran, e = Math.min(i + gran, n); i < e; ++i)
+                k[i] = sortableBits(a[lo + i]);
+        });
+        parallelSort(k, 0, n, null, gran);
+        runBlocks(nb, b -> {
+            for (int i = b * gran, e = Math.min(i + gran, n); i < e; ++i)
+                a[lo + i] = fromSortableBits(k[i]);
+        });
+    }
+
+    /*
+     * Support methods.
+     */
+
+    /**
+     * Returns the digit of the key at the given shift, with the sign bit
+     * flipped so that digits order keys as signed numbers.
+     */
+    private static int digit(int key, int shift) {
+        return ((key ^ Integer.MIN_VALUE) >>> shift) & DIGIT_MASK;
+    }
+
+    /**
+     * Returns the digit of the key at the given shift, with the sign bit
+     * flipped so that digits order keys as signed numbers.
+     */
+    private static int digit(long key, int shift) {
+        return (int) ((key ^ Long.MIN_VALUE) >>> shift) & DIGIT_MASK;
+    }
+
+    /**
+     * Runs the action for blocks {@code 0} to {@code nb - 1} in parallel,
+     * returning when all have run.
+     */
+    private static void runBlocks(int nb, IntConsumer action) {
+        new ArraysParallelSortHelpers.FJRadix.Pass(null, action, 0, nb).invoke();
+    }
+
+    /**
+     * Replaces the counts of one digit position by the start offsets of
+     * each digit in the workspace, unless all elements have the same
+     * digit, in which case the pass would not move them.
+     *
+     * @return true if the pass must be run
+     */
+    private static boolean startOffsets(int[] c, int base, int n, int off) {
+        for (int d = base, end = base + RADIX; d < end; ++d) {
+            if (c[d] == n)
+                return false;
+        }
+        for (int d = base, end = base + RADIX, s = off; d < end; ++d) {
+            int t = c[d];
+            c[d] = s;
+            s += t;
+        }
+        return true;
+    }
+
+    /**
+     * Cumulates digit-major block counts in place, unless all elements
+     * have the same digit, in which case the pass would not move them.
+     *
+     * @return true if the pass must be run
+     */
+    private static boolean cumulate(int[] c, int nb, int n) {
+        new ArrayPrefixHelpers.IntCumulateTask
+            (null, Integer::sum, c, 0, c.length).invoke();
+        for (int d = 0, prev = 0; d < RADIX; ++d) {
+            int s = c[d * nb + nb - 1];
+            if (s - prev == n)
+                return false;
+            prev = s;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the offsets in the workspace at which block {@code b}
+     * places its first element of each digit, from the cumulated counts.
+     */
+    private static int[] blockOffsets(int[] c, int nb, int b, int off) {
+        int[] o = new int[RADIX];
+        for (int d = 0; d < RADIX; ++d) {
+            int i = d * nb + b;
+            o[d] = off + ((i == 0) ? 0 : c[i - 1]);
+        }
+        return o;
+    }
+
+    private static void insertionSort(int[] a, int lo, int hi, int[] v) {
+        for (int i = lo + 1; i < hi; ++i) {
+            int x = a[i], y = (v == null) ? 0 : v[i], j = i - 1;
+            for (; j >= lo && a[j] > x; --j) {
+                a[j + 1] = a[j];
+                if (v != null)
+                    v[j + 1] = v[j];
+            }
+            a[j + 1] = x;
+            if (v != null)
+                v[j + 1] = y;
+        }
+    }
+
+    private static void insertionSort(long[] a, int lo, int hi, int[] v) {
+        for (int i = lo + 1; i < hi; ++i) {
+            long x = a[i];
+            int y = (v == null) ? 0 : v[i], j = i - 1;
+            for (; j >= lo && a[j] > x; --j) {
+                a[j + 1] = a[j];
+                if (v != null)
+                    v[j + 1] = v[j];
+            }
+            a[j + 1] = x;
+            if (v != null)
+                v[j + 1] = y;
+        }
+    }
+
+    /**
+     * Moves the NaNs of the range to its end.
+     *
+     * @return the end of the range of non-NaN elements
+     */
+    private static int moveNaNsToEnd(float[] a, int lo, int hi) {
+        for (int i = hi - 1; i >= lo; --i) {
+            float x = a[i];
+            if (x != x) {
+                a[i] = a[--hi];
+                a[hi] = x;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * Moves the NaNs of the range to its end.
+     *
+     * @return the end of the range of non-NaN elements
+     */
+    private static int moveNaNsToEnd(double[] a, int lo, int hi) {
+        for (int i = hi - 1; i >= lo; --i) {
+            double x = a[i];
+            if (x != x) {
+                a[i] = a[--hi];
+                a[hi] = x;
+            }
+        }
+        return hi;
+    }
+
+    /*
+     * The bits of a negative float or double are flipped, other than the
+     * sign bit, so that signed comparison of the bits agrees with
+     * Float.compare and Double.compare (-0.0 sorting before 0.0).  The
+     * mapping is its own inverse.
+     */
+
+    private static int sortableBits(float f) {
+        int bits = Float.floatToRawIntBits(f);
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
+
+    private static float fromSortableBits(int k) {
+        return Float.intBitsToFloat(k ^ ((k >> 31) & Integer.MAX_VALUE));
+    }
+
+    private static long sortableBits(double d) {
+        long bits = Double.doubleToRawLongBits(d);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static double fromSortableBits(long k) {
+        return Double.longBitsToDouble(k ^ ((k >> 63) & Long.MAX_VALUE));
+    }
+}
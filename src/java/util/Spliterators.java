@@ -128,6 +128,37 @@ public final class Spliterators {
         }
     }
 
+    /**
+     * The size of the first batch copied by an iterator-based
+     * spliterator, kept small so that sources with costly elements
+     * are split early.
+     */
+    static final int FIRST_BATCH = 1 << 6;
+
+    /**
+     * The time that a batch copied by an iterator-based spliterator
+     * should take to copy.  Batches of cheap elements grow toward it,
+     * and those of costly elements shrink toward it.
+     */
+    static final long TARGET_BATCH_NANOS = 1L << 17;
+
+    /**
+     * Returns the size of the next batch for an iterator-based
+     * spliterator, given the size of the previous batch (zero if none)
+     * and the nanoseconds taken to copy it.  The size is that which
+     * would take about {@link #TARGET_BATCH_NANOS} at the measured
+     * per-element cost, but at most twice the previous size, so that
+     * one fast batch cannot make the next one huge.
+     */
+    static int nextBatchSize(int batch, long nanos, int maxBatch) {
+        if (batch <= 0)
+            return Math.min(FIRST_BATCH, maxBatch);
+        long n = (nanos <= 0L) ? (long)batch << 1 :
+            Math.min((long)batch << 1,
+                     (long)((double)batch * TARGET_BATCH_NANOS / nanos));
+        return (int)Math.max(1L, Math.min(n, (long)maxBatch));
+    }
+
     // Iterator-based spliterators
 
     public static <T> Spliterator<T> spliterator(Collection<? extends T> c, int characteristics) {
@@ -919,13 +950,11 @@ public final class Spliterators {
 
     /**
      * 默认的可分割迭代器, 分割原则如下,
-     * 首次划分获取1024(1 << 10)个元素, 之后每次在之前的基础上增加1024,单次最大分割数量为33554432(1 << 25)
+     * 首次划分获取64个元素, 之后按上次复制每个元素的耗时调整, 使每批耗时约为TARGET_BATCH_NANOS,
+     * 每次最多翻倍, 单次最大分割数量为33554432(1 << 25), 见nextBatchSize
      */
     static class IteratorSpliterator<T> implements Spliterator<T> {
 
-        //每次分割时的增量,该方法每次调用均比之前增加1024
-        static final int BATCH_UNIT = 1 << 10;
-
         //单次划分的最大值,即单次最大处理量33554432
         static final int MAX_BATCH = 1 << 25;
 
@@ -943,6 +972,7 @@ public final class Spliterators {
 
         //已拆分的迭代器中元素最大数量
         private int batch;
+        private long batchNanos;      // time taken to copy the last batch
 
 
         public IteratorSpliterator(Collection<? extends T> collection, int characteristics) {
@@ -981,16 +1011,16 @@ public final class Spliterators {
             } else
                 s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
+                int n = Spliterators.nextBatchSize(batch, batchNanos, MAX_BATCH);
                 if (n > s)
                     n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
                 Object[] a = new Object[n];
                 int j = 0;
+                long start = System.nanoTime();
                 do {
                     a[j] = i.next();
                 } while (++j < n && i.hasNext());
+                batchNanos = System.nanoTime() - start;
                 batch = j;
                 //该条件成立表示大小已知, this.est = Long.MAX_VALUE只有通过未知大小迭代器构造才成立
                 if (est != Long.MAX_VALUE)
@@ -1048,12 +1078,12 @@ public final class Spliterators {
     }
 
     static final class IntIteratorSpliterator implements Spliterator.OfInt {
-        static final int BATCH_UNIT = IteratorSpliterator.BATCH_UNIT;
         static final int MAX_BATCH = IteratorSpliterator.MAX_BATCH;
         private PrimitiveIterator.OfInt it;
         private final int characteristics;
         private long est;             // size estimate
         private int batch;            // batch size for splits
+        private long batchNanos;      // time taken to copy the last batch
 
         public IntIteratorSpliterator(PrimitiveIterator.OfInt iterator, long size, int characteristics) {
             this.it = iterator;
@@ -1074,16 +1104,16 @@ public final class Spliterators {
             PrimitiveIterator.OfInt i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
+                int n = Spliterators.nextBatchSize(batch, batchNanos, MAX_BATCH);
                 if (n > s)
                     n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
                 int[] a = new int[n];
                 int j = 0;
+                long start = System.nanoTime();
                 do {
                     a[j] = i.nextInt();
                 } while (++j < n && i.hasNext());
+                batchNanos = System.nanoTime() - start;
                 batch = j;
                 if (est != Long.MAX_VALUE)
                     est -= j;
@@ -1127,12 +1157,12 @@ public final class Spliterators {
     }
 
     static final class LongIteratorSpliterator implements Spliterator.OfLong {
-        static final int BATCH_UNIT = IteratorSpliterator.BATCH_UNIT;
         static final int MAX_BATCH = IteratorSpliterator.MAX_BATCH;
         private PrimitiveIterator.OfLong it;
         private final int characteristics;
         private long est;             // size estimate
         private int batch;            // batch size for splits
+        private long batchNanos;      // time taken to copy the last batch
 
         public LongIteratorSpliterator(PrimitiveIterator.OfLong iterator, long size, int characteristics) {
             this.it = iterator;
@@ -1153,16 +1183,16 @@ public final class Spliterators {
             PrimitiveIterator.OfLong i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
+                int n = Spliterators.nextBatchSize(batch, batchNanos, MAX_BATCH);
                 if (n > s)
                     n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
                 long[] a = new long[n];
                 int j = 0;
+                long start = System.nanoTime();
                 do {
                     a[j] = i.nextLong();
                 } while (++j < n && i.hasNext());
+                batchNanos = System.nanoTime() - start;
                 batch = j;
                 if (est != Long.MAX_VALUE)
                     est -= j;
@@ -1206,12 +1236,12 @@ public final class Spliterators {
     }
 
     static final class DoubleIteratorSpliterator implements Spliterator.OfDouble {
-        static final int BATCH_UNIT = IteratorSpliterator.BATCH_UNIT;
         static final int MAX_BATCH = IteratorSpliterator.MAX_BATCH;
         private PrimitiveIterator.OfDouble it;
         private final int characteristics;
         private long est;             // size estimate
         private int batch;            // batch size for splits
+        private long batchNanos;      // time taken to copy the last batch
 
         public DoubleIteratorSpliterator(PrimitiveIterator.OfDouble iterator, long size, int characteristics) {
             this.it = iterator;
@@ -1232,16 +1262,16 @@ public final class Spliterators {
             PrimitiveIterator.OfDouble i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
+                int n = Spliterators.nextBatchSize(batch, batchNanos, MAX_BATCH);
                 if (n > s)
                     n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
                 double[] a = new double[n];
                 int j = 0;
+                long start = System.nanoTime();
                 do {
                     a[j] = i.nextDouble();
                 } while (++j < n && i.hasNext());
+                batchNanos = System.nanoTime() - start;
                 batch = j;
                 if (est != Long.MAX_VALUE)
                     est -= j;
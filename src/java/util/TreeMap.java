@@ -1490,6 +1490,12 @@ public class TreeMap<K,V>
 
         abstract Spliterator<K> keySpliterator();
 
+        /**
+         * Returns a spliterator over the keys, values or entries of
+         * this submap, in its order.
+         */
+        abstract <T> Spliterator<T> viewSpliterator(int kind);
+
         /** Returns descending iterator from the perspective of this submap */
         abstract Iterator<K> descendingKeyIterator();
 
@@ -1616,8 +1622,54 @@ public class TreeMap<K,V>
             return tailMap(fromKey, true);
         }
 
+        public Collection<V> values() {
+            Collection<V> vs = values;
+            if (vs == null) {
+                vs = new SubMapValues();
+                values = vs;
+            }
+            return vs;
+        }
+
         // View classes
 
+        final class SubMapValues extends AbstractCollection<V> {
+            public Iterator<V> iterator() {
+                final Iterator<Map.Entry<K,V>> i = entrySet().iterator();
+                return new Iterator<V>() {
+                    public boolean hasNext() {
+                        return i.hasNext();
+                    }
+                    public V next() {
+                        return i.next().getValue();
+                    }
+                    public void remove() {
+                        i.remove();
+                    }
+                };
+            }
+
+            public int size() {
+                return NavigableSubMap.this.size();
+            }
+
+            public boolean isEmpty() {
+                return NavigableSubMap.this.isEmpty();
+            }
+
+            public boolean contains(Object o) {
+                return NavigableSubMap.this.containsValue(o);
+            }
+
+            public void clear() {
+                NavigableSubMap.this.clear();
+            }
+
+            public Spliterator<V> spliterator() {
+                return viewSpliterator(SubMapSpliterator.VALUES);
+            }
+        }
+
         abstract class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
             private transient int size = -1, sizeModCount;
 
@@ -1896,7 +1948,11 @@ public class TreeMap<K,V>
         }
 
         Spliterator<K> keySpliterator() {
-            return new SubMapKeyIterator(absLowest(), absHighFence());
+            return viewSpliterator(SubMapSpliterator.KEYS);
+        }
+
+        <T> Spliterator<T> viewSpliterator(int kind) {
+            return new SubMapSpliterator<K,V,T>(this, kind, false);
         }
 
         Iterator<K> descendingKeyIterator() {
@@ -1907,6 +1963,10 @@ public class TreeMap<K,V>
             public Iterator<Map.Entry<K,V>> iterator() {
                 return new SubMapEntryIterator(absLowest(), absHighFence());
             }
+
+            public Spliterator<Map.Entry<K,V>> spliterator() {
+                return viewSpliterator(SubMapSpliterator.ENTRIES);
+            }
         }
 
         public Set<Map.Entry<K,V>> entrySet() {
@@ -1981,7 +2041,11 @@ public class TreeMap<K,V>
         }
 
         Spliterator<K> keySpliterator() {
-            return new DescendingSubMapKeyIterator(absHighest(), absLowFence());
+            return viewSpliterator(SubMapSpliterator.KEYS);
+        }
+
+        <T> Spliterator<T> viewSpliterator(int kind) {
+            return new SubMapSpliterator<K,V,T>(this, kind, true);
         }
 
         Iterator<K> descendingKeyIterator() {
@@ -1992,6 +2056,10 @@ public class TreeMap<K,V>
             public Iterator<Map.Entry<K,V>> iterator() {
                 return new DescendingSubMapEntryIterator(absHighest(), absLowFence());
             }
+
+            public Spliterator<Map.Entry<K,V>> spliterator() {
+                return viewSpliterator(SubMapSpliterator.ENTRIES);
+            }
         }
 
         public Set<Map.Entry<K,V>> entrySet() {
@@ -2602,13 +2670,10 @@ public class TreeMap<K,V>
     }
 
     /**
-     * Currently, we support Spliterator-based versions only for the
-     * full map, in either plain of descending form, otherwise relying
-     * on defaults because size estimation for submaps would dominate
-     * costs. The type tests needed to check these for key views are
-     * not very nice but avoid disrupting existing class
-     * structures. Callers must use plain default spliterators if this
-     * returns null.
+     * Returns the TreeMapSpliterator for the full map, in either plain
+     * or descending form, otherwise the submap's SubMapSpliterator.
+     * The type tests needed to check these for key views are not very
+     * nice but avoid disrupting existing class structures.
      */
     static <K> Spliterator<K> keySpliteratorFor(NavigableMap<K,?> m) {
         if (m instanceof TreeMap) {
@@ -2654,12 +2719,10 @@ public class TreeMap<K,V>
      * trySplit methods are identical (except for return types), but
      * not nicely factorable.
      *
-     * Currently, subclass versions exist only for the full map
-     * (including descending keys via its descendingMap).  Others are
-     * possible but currently not worthwhile because submaps require
-     * O(n) computations to determine size, which substantially limits
-     * potential speed-ups of using custom Spliterators versus default
-     * mechanics.
+     * Subclass versions exist only for the full map (including
+     * descending keys via its descendingMap).  Submaps, whose sizes
+     * would take O(n) computations to determine, instead use
+     * SubMapSpliterator, which splits by subtree without sizes.
      *
      * To boostrap initialization, external constructors use
      * negative size estimates: -1 for ascend, -2 for descend.
@@ -2801,9 +2864,9 @@ public class TreeMap<K,V>
                          null);
             if (s != null && s != e && s != f &&
                 tree.compare(e.key, s.key) > 0) {       // e not already past s
-                side = 1;
+                side = -1;
                 return new DescendingKeySpliterator<>
-                        (tree, e, current = s, -1, est >>>= 1, expectedModCount);
+                        (tree, e, current = s, 1, est >>>= 1, expectedModCount);
             }
             return null;
         }
@@ -3012,4 +3075,144 @@ public class TreeMap<K,V>
             }
         }
     }
+
+    /**
+     * Spliterator over the keys, values or entries of a submap, in
+     * either direction.  A submap's range need not contain the root,
+     * so rather than splitting at the root and then at children of
+     * earlier split points, as the full-map spliterators do, each split
+     * descends from the root to the highest node strictly inside the
+     * remaining range: the root of the smallest subtree spanning it.
+     * This takes O(log n) comparisons and, the tree being balanced,
+     * divides the range roughly in proportion to subtree sizes.  Sizes
+     * are not computed, since that would take O(n); the estimate starts
+     * at the size of the whole map and halves on each split.  Binding
+     * to the range is deferred to first use, as for the full-map
+     * spliterators.
+     */
+    static final class SubMapSpliterator<K,V,T> implements Spliterator<T> {
+        static final int KEYS = 0, VALUES = 1, ENTRIES = 2;
+
+        final NavigableSubMap<K,V> map;
+        final TreeMap<K,V> tree;
+        final int kind;
+        final boolean descending;
+        TreeMap.Entry<K,V> current; // traverser; initially first node in range
+        TreeMap.Entry<K,V> fence;   // one past last, or null
+        int est;                    // size estimate; -1 until bound
+        int expectedModCount;       // for CME checks
+
+        SubMapSpliterator(NavigableSubMap<K,V> map, int kind, boolean descending) {
+            this.map = map;
+            this.tree = map.m;
+            this.kind = kind;
+            this.descending = descending;
+            this.est = -1;
+        }
+
+        SubMapSpliterator(SubMapSpliterator<K,V,T> parent,
+                          TreeMap.Entry<K,V> origin, TreeMap.Entry<K,V> fence,
+                          int est) {
+            this.map = parent.map;
+            this.tree = parent.tree;
+            this.kind = parent.kind;
+            this.descending = parent.descending;
+            this.current = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = parent.expectedModCount;
+        }
+
+        private void bind() {
+            if (est < 0) {
+                NavigableSubMap<K,V> m = map;
+                if (descending) {
+                    current = m.absHighest();
+                    fence = m.absLowFence();
+                }
+                else {
+                    current = m.absLowest();
+                    fence = m.absHighFence();
+                }
+                est = tree.size;
+                expectedModCount = tree.modCount;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T element(TreeMap.Entry<K,V> e) {
+            return (T)((kind == KEYS) ? e.key : (kind == VALUES) ? e.value : e);
+        }
+
+        public SubMapSpliterator<K,V,T> trySplit() {
+            bind();
+            TreeMap.Entry<K,V> e = current, f = fence, s = tree.root;
+            if (e == null || e == f)
+                return null;
+            while (s != null) {         // find subtree root inside (e, f)
+                int c = tree.compare(s.key, e.key);
+                if (descending ? c >= 0 : c <= 0)
+                    s = descending ? s.left : s.right;
+                else if (f != null &&
+                         (descending ? tree.compare(s.key, f.key) <= 0 :
+                                       tree.compare(s.key, f.key) >= 0))
+                    s = descending ? s.right : s.left;
+                else
+                    break;
+            }
+            if (s == null)
+                return null;
+            current = s;
+            return new SubMapSpliterator<K,V,T>(this, e, s, est >>>= 1);
+        }
+
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (action == null)
+                throw new NullPointerException();
+            bind();
+            TreeMap.Entry<K,V> f = fence, e;
+            if ((e = current) != null && e != f) {
+                current = f; // exhaust
+                do {
+                    action.accept(element(e));
+                } while ((e = descending ? predecessor(e) : successor(e)) != null &&
+                         e != f);
+                if (tree.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(Consumer<? super T> action) {
+            TreeMap.Entry<K,V> e;
+            if (action == null)
+                throw new NullPointerException();
+            bind();
+            if ((e = current) == null || e == fence)
+                return false;
+            current = descending ? predecessor(e) : successor(e);
+            action.accept(element(e));
+            if (tree.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            return true;
+        }
+
+        public long estimateSize() {
+            bind();
+            return (long)est;
+        }
+
+        public int characteristics() {
+            return (kind == VALUES) ? Spliterator.ORDERED :
+                (kind == KEYS && !descending) ?
+                Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED :
+                Spliterator.DISTINCT | Spliterator.ORDERED;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Comparator<? super T> getComparator() {
+            if (kind == KEYS && !descending)
+                return (Comparator<? super T>)tree.comparator;
+            throw new IllegalStateException();
+        }
+    }
 }
@@ -68,6 +68,19 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQ
         notEmpty.signal();
     }
 
+    /**
+     * Inserts element at current put position and advances, without
+     * signalling.  Batch operations signal once they are done.
+     * Call only when holding lock and count &lt; items.length.
+     */
+    private void enqueueBatched(E x) {
+        final Object[] items = this.items;
+        items[putIndex] = x;
+        if (++putIndex == items.length)
+            putIndex = 0;
+        count++;
+    }
+
     /**
      * 获取元素, 唤醒等待添加元素的线程
      */
@@ -463,39 +476,150 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E> implements BlockingQ
             throw new IllegalArgumentException();
         if (maxElements <= 0)
             return 0;
-        final Object[] items = this.items;
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            int n = Math.min(maxElements, count);
-            int take = takeIndex;
-            int i = 0;
-            try {
-                while (i < n) {
-                    @SuppressWarnings("unchecked")
-                    E x = (E) items[take];
-                    c.add(x);
-                    items[take] = null;
-                    if (++take == items.length)
-                        take = 0;
-                    i++;
+            return drainLocked(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Transfers up to maxElements elements to c, signalling one waiting
+     * producer per element removed.  Called only while holding lock.
+     */
+    private int drainLocked(Collection<? super E> c, int maxElements) {
+        final Object[] items = this.items;
+        final ReentrantLock lock = this.lock;
+        int n = Math.min(maxElements, count);
+        int take = takeIndex;
+        int i = 0;
+        try {
+            while (i < n) {
+                @SuppressWarnings("unchecked")
+                E x = (E) items[take];
+                c.add(x);
+                items[take] = null;
+                if (++take == items.length)
+                    take = 0;
+                i++;
+            }
+            return n;
+        } finally {
+            // Restore invariants even if c.add() threw
+            if (i > 0) {
+                count -= i;
+                takeIndex = take;
+                if (itrs != null) {
+                    if (count == 0)
+                        itrs.queueIsEmpty();
+                    else if (i > take)
+                        itrs.takeIndexWrapped();
                 }
-                return n;
-            } finally {
-                // Restore invariants even if c.add() threw
-                if (i > 0) {
-                    count -= i;
-                    takeIndex = take;
-                    if (itrs != null) {
-                        if (count == 0)
-                            itrs.queueIsEmpty();
-                        else if (i > take)
-                            itrs.takeIndexWrapped();
-                    }
-                    for (; i > 0 && lock.hasWaiters(notFull); i--)
-                        notFull.signal();
+                for (; i > 0 && lock.hasWaiters(notFull); i--)
+                    notFull.signal();
+            }
+        }
+    }
+
+    /**
+     * Inserts as many elements of the collection as fit, under a single
+     * lock acquisition, waking at most one waiting consumer per element
+     * inserted.
+     *
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null; elements before a null one remain inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        int n = 0;
+        try {
+            Iterator<? extends E> it = c.iterator();
+            while (count < items.length && it.hasNext()) {
+                E e = it.next();
+                checkNotNull(e);
+                enqueueBatched(e);
+                ++n;
+            }
+            return n;
+        } finally {
+            for (; n > 0 && lock.hasWaiters(notEmpty); n--)
+                notEmpty.signal();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts all elements of the collection, holding the lock except
+     * while waiting for space.  Waiting consumers are woken once per
+     * batch of inserted elements, before this thread waits and on
+     * return.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null; elements before a null one remain inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        int n = 0;
+        try {
+            for (E e : c) {
+                checkNotNull(e);
+                while (count == items.length) {
+                    for (; n > 0 && lock.hasWaiters(notEmpty); n--)
+                        notEmpty.signal();
+                    n = 0;
+                    notFull.await();
                 }
+                enqueueBatched(e);
+                ++n;
+            }
+        } finally {
+            for (; n > 0 && lock.hasWaiters(notEmpty); n--)
+                notEmpty.signal();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for an element, then transfers up to maxElements available
+     * elements under the same lock acquisition.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        checkNotNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
             }
+            return drainLocked(c, maxElements);
         } finally {
             lock.unlock();
         }
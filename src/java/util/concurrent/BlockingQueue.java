@@ -36,4 +36,85 @@ public interface BlockingQueue<E> extends Queue<E> {
      * 复制元素去一个新的集合中,并制定数量
      */
     int drainTo(Collection<? super E> c, int maxElements);
+
+    /**
+     * Inserts as many elements of the given collection as fit without
+     * waiting, in the collection's iteration order, stopping at the
+     * first element that does not fit.  Implementations may insert the
+     * whole batch under a single lock acquisition and wake waiting
+     * consumers once per batch rather than once per element.
+     *
+     * @param c the elements to insert
+     * @return the number of elements inserted
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    default int offerAll(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        for (E e : c) {
+            if (!offer(e))
+                break;
+            ++n;
+        }
+        return n;
+    }
+
+    /**
+     * Inserts all elements of the given collection, in its iteration
+     * order, waiting for space to become available as necessary.  If
+     * interrupted, the elements inserted so far remain in the queue.
+     *
+     * @param c the elements to insert
+     * @throws InterruptedException if interrupted while waiting
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    default void putAll(Collection<? extends E> c) throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        for (E e : c)
+            put(e);
+    }
+
+    /**
+     * Waits up to the given time for an element to become available,
+     * then removes it and up to {@code maxElements - 1} further
+     * available elements, adding them to the given collection.  Unlike
+     * repeated calls to {@link #poll(long, TimeUnit)}, implementations
+     * may remove the whole batch under a single lock acquisition.
+     *
+     * @param c the collection to transfer elements into
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait for the first element, in units
+     *        of {@code unit}
+     * @param unit the time unit of the {@code timeout} argument
+     * @return the number of elements transferred; zero if none became
+     *         available before the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     * @throws NullPointerException if the collection is null
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    default int pollBatch(Collection<? super E> c, int maxElements,
+                          long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        E first = poll(timeout, unit);
+        if (first == null)
+            return 0;
+        c.add(first);
+        return 1 + drainTo(c, maxElements - 1);
+    }
 }
@@ -0,0 +1,667 @@
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by a ring
+ * of slots, each carrying a sequence number that tells producers and
+ * consumers whether it is free or filled for a given lap.  Producers
+ * and consumers therefore never share a lock and, unlike
+ * {@link LinkedBlockingQueue}, insertions allocate nothing.  The head
+ * and tail counters are padded onto separate cache lines.
+ *
+ * <p>Three variants trade generality for cost:
+ * <ul>
+ * <li>{@link MpmcArrayBlockingQueue} allows any number of producer and
+ * consumer threads;
+ * <li>{@link MpscArrayBlockingQueue} allows any number of producers but
+ * at most one consumer thread at a time;
+ * <li>{@link SpscArrayBlockingQueue} allows a single producer and a
+ * single consumer thread.
+ * </ul>
+ * The single-thread restrictions are not checked.  A consumer-side
+ * operation is any operation that removes the head: {@code poll},
+ * {@code take}, {@code remove()}, {@link #drain drain}, {@code drainTo}
+ * and {@code clear}.  The producer side comprises {@code offer},
+ * {@code put} and {@code add}.  In particular, a
+ * {@link ThreadPoolExecutor} with more than one thread requires the
+ * multi-consumer variant as its work queue.
+ *
+ * <p>Blocking operations wait according to a {@link WaitStrategy}.
+ * Only {@link WaitStrategy#PARK} releases the processor; it makes each
+ * successful insertion and removal pay for a memory fence, so the
+ * spinning strategies are cheaper when a core can be dedicated to the
+ * waiting thread.
+ *
+ * <p>The capacity is rounded up to a power of two.  {@code size} and
+ * {@code remainingCapacity} are estimates while other threads are
+ * active.  {@link #remove(Object)} clears the slot in place, and the
+ * emptied slot becomes reusable once consumers pass it.  Iterators
+ * traverse a snapshot of the elements taken when the iterator was
+ * created.  This queue does not permit {@code null} elements.
+ *
+ * @param <E> the type of elements held in this queue
+ * @since 1.8
+ */
+public abstract class ConcurrentArrayQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /**
+     * How threads wait in blocking operations when the queue is full or
+     * empty.
+     */
+    public enum WaitStrategy {
+        /** Busy-spin, re-checking the queue. Lowest latency. */
+        SPIN,
+        /** Call {@link Thread#yield} between checks. */
+        YIELD,
+        /** Spin briefly, then park until signalled. */
+        PARK
+    }
+
+    /** The number of times to spin before parking, on multiprocessors. */
+    static final int SPINS =
+        (Runtime.getRuntime().availableProcessors() > 1) ? 1 << 6 : 0;
+
+    /** The largest allowed capacity. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The queued items, indexed by position &amp; mask. */
+    final Object[] items;
+
+    /**
+     * Per-slot sequence numbers.  A slot at position p is free for
+     * that position when its sequence is p, and holds the element
+     * inserted at p when its sequence is p + 1.
+     */
+    final long[] sequences;
+
+    final int mask;
+    final WaitStrategy waitStrategy;
+
+    /** The position of the next element to remove. */
+    @sun.misc.Contended volatile long head;
+
+    /** The position of the next element to insert. */
+    @sun.misc.Contended volatile long tail;
+
+    /** The number of slots cleared by remove(Object) not yet passed. */
+    volatile long holes;
+
+    /** Treiber stacks of threads parked in take/poll and put/offer. */
+    volatile WaitNode consumers, producers;
+
+    static final class WaitNode {
+        volatile Thread thread;
+        WaitNode next;
+        WaitNode(Thread thread) { this.thread = thread; }
+    }
+
+    ConcurrentArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException();
+        if (waitStrategy == null)
+            throw new NullPointerException();
+        int cap = (capacity == 1) ? 1 :
+            Integer.highestOneBit(capacity - 1) << 1;
+        this.items = new Object[cap];
+        long[] seqs = new long[cap];
+        for (int i = 0; i < cap; ++i)
+            seqs[i] = i;
+        this.sequences = seqs;
+        this.mask = cap - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Inserts the element if a slot is free, without waiting.
+     */
+    abstract boolean offerElement(E e);
+
+    /**
+     * Removes the head element if one is available, without waiting.
+     */
+    abstract E pollElement();
+
+    /* ---------------- Slot access -------------- */
+
+    final long sequenceAt(long pos) {
+        return U.getLongVolatile(sequences,
+                                 ((pos & mask) << LSHIFT) + LBASE);
+    }
+
+    /**
+     * Stores an element into the slot claimed for position pos, then
+     * publishes it to consumers.
+     */
+    final void publish(long pos, E e) {
+        int i = (int)(pos & mask);
+        U.putOrderedObject(items, ((long)i << ASHIFT) + ABASE, e);
+        U.putOrderedLong(sequences, ((long)i << LSHIFT) + LBASE, pos + 1);
+    }
+
+    /**
+     * Takes the element from the slot claimed for position pos and
+     * frees the slot for the next lap.  Returns null if the element was
+     * removed in place.
+     */
+    @SuppressWarnings("unchecked")
+    final E consume(long pos) {
+        int i = (int)(pos & mask);
+        Object x = U.getAndSetObject(items, ((long)i << ASHIFT) + ABASE, null);
+        U.putOrderedLong(sequences, ((long)i << LSHIFT) + LBASE,
+                         pos + items.length);
+        if (x == null)
+            U.getAndAddLong(this, HOLES, -1L);
+        return (E)x;
+    }
+
+    final boolean casHead(long cmp, long val) {
+        return U.compareAndSwapLong(this, HEAD, cmp, val);
+    }
+
+    final boolean casTail(long cmp, long val) {
+        return U.compareAndSwapLong(this, TAIL, cmp, val);
+    }
+
+    final void lazySetHead(long val) {
+        U.putOrderedLong(this, HEAD, val);
+    }
+
+    final void lazySetTail(long val) {
+        U.putOrderedLong(this, TAIL, val);
+    }
+
+    /* ---------------- Waiting and signalling -------------- */
+
+    /**
+     * Pushes a node for the current thread, first unlinking cancelled
+     * nodes at the top of the stack.
+     */
+    private WaitNode pushWaiter(long offset) {
+        WaitNode node = new WaitNode(Thread.currentThread());
+        for (;;) {
+            WaitNode h = (WaitNode)U.getObjectVolatile(this, offset);
+            if (h != null && h.thread == null) {
+                U.compareAndSwapObject(this, offset, h, h.next);
+                continue;
+            }
+            node.next = h;
+            if (U.compareAndSwapObject(this, offset, h, node))
+                return node;
+        }
+    }
+
+    /**
+     * Unparks all threads waiting on the given stack.  The full fence
+     * orders the preceding publication before the read of the stack,
+     * pairing with the CAS in pushWaiter followed by a re-check.
+     */
+    private void signalAll(long offset) {
+        if (waitStrategy != WaitStrategy.PARK)
+            return;
+        U.fullFence();
+        if (U.getObjectVolatile(this, offset) != null) {
+            WaitNode h = (WaitNode)U.getAndSetObject(this, offset, null);
+            for (; h != null; h = h.next) {
+                Thread t = h.thread;
+                if (t != null) {
+                    h.thread = null;
+                    LockSupport.unpark(t);
+                }
+            }
+        }
+    }
+
+    final void signalNotEmpty() { signalAll(CONSUMERS); }
+    final void signalNotFull()  { signalAll(PRODUCERS); }
+
+    /**
+     * Waits one step according to the wait strategy.  For PARK, the
+     * first call after spinning only enqueues the thread, so that the
+     * caller re-checks the queue before parking.  Returns the wait node
+     * to pass on the next call.
+     */
+    private WaitNode awaitStep(int spins, WaitNode node, long offset,
+                               boolean timed, long nanos) {
+        switch (waitStrategy) {
+        case SPIN:
+            return null;
+        case YIELD:
+            Thread.yield();
+            return null;
+        default:
+            if (spins < SPINS)
+                return null;
+            if (node == null)
+                return pushWaiter(offset);
+            if (timed)
+                LockSupport.parkNanos(this, nanos);
+            else
+                LockSupport.park(this);
+            node.thread = null;     // cancel; re-push before next park
+            return null;
+        }
+    }
+
+    private boolean awaitOffer(E e, boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        WaitNode node = null;
+        try {
+            for (int spins = 0; ; ++spins) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                if (offerElement(e)) {
+                    signalNotEmpty();
+                    return true;
+                }
+                if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                    return false;
+                node = awaitStep(spins, node, PRODUCERS, timed, nanos);
+            }
+        } finally {
+            if (node != null)
+                node.thread = null;
+        }
+    }
+
+    private E awaitPoll(boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        WaitNode node = null;
+        try {
+            for (int spins = 0; ; ++spins) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                E x;
+                if ((x = pollElement()) != null) {
+                    signalNotFull();
+                    return x;
+                }
+                if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                    return null;
+                node = awaitStep(spins, node, CONSUMERS, timed, nanos);
+            }
+        } finally {
+            if (node != null)
+                node.thread = null;
+        }
+    }
+
+    /* ---------------- Queue operations -------------- */
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        if (!offerElement(e))
+            return false;
+        signalNotEmpty();
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        if (e == null)
+            throw new NullPointerException();
+        if (!offerElement(e))
+            awaitOffer(e, false, 0L);
+        else
+            signalNotEmpty();
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (e == null)
+            throw new NullPointerException();
+        if (offerElement(e)) {
+            signalNotEmpty();
+            return true;
+        }
+        return awaitOffer(e, true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Inserts as many elements of the collection as fit without
+     * waiting, signalling waiting consumers once for the whole batch.
+     *
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null; elements before a null one remain inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        try {
+            for (E e : c) {
+                if (e == null)
+                    throw new NullPointerException();
+                if (!offerElement(e))
+                    break;
+                ++n;
+            }
+        } finally {
+            if (n > 0)
+                signalNotEmpty();
+        }
+        return n;
+    }
+
+    public E poll() {
+        E x = pollElement();
+        if (x != null)
+            signalNotFull();
+        return x;
+    }
+
+    public E take() throws InterruptedException {
+        E x = pollElement();
+        if (x == null)
+            return awaitPoll(false, 0L);
+        signalNotFull();
+        return x;
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E x = pollElement();
+        if (x == null)
+            return awaitPoll(true, unit.toNanos(timeout));
+        signalNotFull();
+        return x;
+    }
+
+    /**
+     * Removes up to {@code limit} available elements from this queue,
+     * passing each to the action in order, without waiting.  Producers
+     * are signalled once for the whole batch.  If the action throws an
+     * exception, the element being processed and those already
+     * processed have been removed.
+     *
+     * @param action the action to perform on each element
+     * @param limit the maximum number of elements to remove
+     * @return the number of elements removed
+     * @throws NullPointerException if the action is null
+     * @throws IllegalArgumentException if the limit is negative
+     */
+    public int drain(Consumer<? super E> action, int limit) {
+        if (action == null)
+            throw new NullPointerException();
+        if (limit < 0)
+            throw new IllegalArgumentException();
+        int n = 0;
+        try {
+            for (E x; n < limit && (x = pollElement()) != null; ) {
+                ++n;
+                action.accept(x);
+            }
+        } finally {
+            if (n > 0)
+                signalNotFull();
+        }
+        return n;
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        return drain(c::add, maxElements);
+    }
+
+    public void clear() {
+        drain(e -> {}, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns, but does not remove, the first element that is available
+     * to consumers, or {@code null} if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        for (;;) {
+            long h = head;
+            for (long p = h; p - h <= mask; ++p) {
+                if (sequenceAt(p) != p + 1)
+                    break;
+                Object x = U.getObjectVolatile(
+                    items, ((p & mask) << ASHIFT) + ABASE);
+                if (x != null)
+                    return (E)x;
+            }
+            if (head == h)
+                return null;
+        }
+    }
+
+    /**
+     * Returns an estimate of the number of elements in this queue.
+     */
+    public int size() {
+        for (;;) {
+            long h = head, t = tail, r = holes;
+            if (head == h) {
+                long n = t - h - r;
+                return (int)Math.max(0L, Math.min(n, (long)items.length));
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    /**
+     * Returns the capacity of this queue, which is the requested
+     * capacity rounded up to a power of two.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    public int remainingCapacity() {
+        return items.length - size();
+    }
+
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (Object x : snapshot())
+                if (o.equals(x))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this
+     * queue, if it is present.  The element's slot is emptied in place;
+     * it is reclaimed when consumers reach it.
+     */
+    public boolean remove(Object o) {
+        return o != null && removeItem(o, false);
+    }
+
+    private boolean removeItem(Object o, boolean identity) {
+        long t = tail;
+        for (long p = head; p - t < 0L; ++p) {
+            if (sequenceAt(p) != p + 1)
+                continue;
+            long off = ((p & mask) << ASHIFT) + ABASE;
+            Object x = U.getObjectVolatile(items, off);
+            if (x != null && (identity ? x == o : o.equals(x)) &&
+                U.compareAndSwapObject(items, off, x, null)) {
+                U.getAndAddLong(this, HOLES, 1L);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the elements currently available to consumers, in order.
+     */
+    final Object[] snapshot() {
+        for (;;) {
+            long h = head;
+            Object[] a = new Object[items.length];
+            int n = 0;
+            for (long p = h; p - h <= mask; ++p) {
+                if (sequenceAt(p) != p + 1)
+                    break;
+                Object x = U.getObjectVolatile(
+                    items, ((p & mask) << ASHIFT) + ABASE);
+                if (x != null)
+                    a[n++] = x;
+            }
+            if (head == h)
+                return java.util.Arrays.copyOf(a, n);
+        }
+    }
+
+    public Object[] toArray() {
+        return snapshot();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Object[] s = snapshot();
+        int n = s.length;
+        if (a.length < n)
+            return (T[])java.util.Arrays.copyOf(s, n, a.getClass());
+        System.arraycopy(s, 0, a, 0, n);
+        if (a.length > n)
+            a[n] = null;
+        return a;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue, in order.  The iterator's {@code remove} method removes
+     * the last returned element from the queue if it is still present.
+     */
+    public Iterator<E> iterator() {
+        return new Itr(snapshot());
+    }
+
+    final class Itr implements Iterator<E> {
+        final Object[] array;
+        int cursor;
+        int lastRet = -1;
+
+        Itr(Object[] array) {
+            this.array = array;
+        }
+
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length)
+                throw new NoSuchElementException();
+            lastRet = cursor;
+            return (E)array[cursor++];
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            removeItem(array[lastRet], true);
+            lastRet = -1;
+        }
+    }
+
+    public String toString() {
+        Object[] a = snapshot();
+        if (a.length == 0)
+            return "[]";
+        StringBuilder sb = new StringBuilder().append('[');
+        for (int i = 0; ; ) {
+            Object e = a[i];
+            sb.append(e == this ? "(this Collection)" : e);
+            if (++i == a.length)
+                return sb.append(']').toString();
+            sb.append(',').append(' ');
+        }
+    }
+
+    // Unsafe mechanics
+    static final sun.misc.Unsafe U;
+    static final long HEAD, TAIL, HOLES, CONSUMERS, PRODUCERS;
+    static final long ABASE, LBASE;
+    static final int ASHIFT, LSHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = ConcurrentArrayQueue.class;
+            HEAD = U.objectFieldOffset(k.getDeclaredField("head"));
+            TAIL = U.objectFieldOffset(k.getDeclaredField("tail"));
+            HOLES = U.objectFieldOffset(k.getDeclaredField("holes"));
+            CONSUMERS = U.objectFieldOffset(k.getDeclaredField("consumers"));
+            PRODUCERS = U.objectFieldOffset(k.getDeclaredField("producers"));
+            ABASE = U.arrayBaseOffset(Object[].class);
+            int scale = U.arrayIndexScale(Object[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            LBASE = U.arrayBaseOffset(long[].class);
+            scale = U.arrayIndexScale(long[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            LSHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
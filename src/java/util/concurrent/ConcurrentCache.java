@@ -0,0 +1,1091 @@
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A bounded, concurrent cache backed by a {@link ConcurrentHashMap}.
+ * Entries may be bounded by count or by total weight, may expire a
+ * fixed time after they were written or last read, and hit, miss,
+ * load and eviction counts may be recorded.  Instances are created
+ * with a {@link Builder}:
+ *
+ * <pre> {@code
+ * ConcurrentCache<String, Graph> graphs = new ConcurrentCache.Builder<String, Graph>()
+ *     .maximumSize(10_000)
+ *     .expireAfterWrite(10, TimeUnit.MINUTES)
+ *     .recordStats()
+ *     .build();
+ * Graph g = graphs.get(key, k -> createExpensiveGraph(k));}</pre>
+ *
+ * <p>Retrievals are as cheap as a {@code ConcurrentHashMap} lookup
+ * plus one compare-and-set.  Rather than reorder an LRU list under a
+ * lock on every read, a read is recorded in one of several small ring
+ * buffers, selected with the same per-thread probe and rehash-on-
+ * contention scheme as {@link java.util.concurrent.atomic.LongAdder}.
+ * If a buffer is full the read is simply not recorded.  Writes are
+ * queued in a separate buffer that is never lossy.  Whichever thread
+ * finds a buffer full, or performs a write, tries to acquire the
+ * eviction lock and replays the buffered events against the policy in
+ * one batch; other threads never wait for it.
+ *
+ * <p>The eviction policy is Window TinyLFU.  New entries enter a small
+ * LRU admission window.  Entries leaving the window compete for a place
+ * in a segmented LRU main region against that region's eviction
+ * victim, and the one with the higher estimated access frequency, as
+ * recorded in a 4-bit count-min sketch that periodically halves its
+ * counters, is retained.  This keeps frequently used entries resident
+ * through scans that would flush a plain LRU cache.
+ *
+ * <p>Bounds are enforced in batches, so the cache may briefly exceed
+ * its maximum while a batch is pending.  Expired entries are never
+ * returned, but are reclaimed only during maintenance; call
+ * {@link #cleanUp} to force it.  Neither keys nor values may be
+ * {@code null}.
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ * @since 1.8
+ */
+public class ConcurrentCache<K,V> {
+
+    /**
+     * Configures and builds {@link ConcurrentCache} instances.  By
+     * default a cache is unbounded, never expires entries and records
+     * no statistics.
+     *
+     * @param <K> the type of keys of caches built
+     * @param <V> the type of values of caches built
+     */
+    public static final class Builder<K,V> {
+        long maximum = -1L;
+        boolean weighted;
+        ToIntBiFunction<? super K, ? super V> weigher;
+        long expireAfterWriteNanos, expireAfterAccessNanos;
+        int initialCapacity = 16;
+        boolean recordStats;
+
+        /**
+         * Creates a builder with default settings.
+         */
+        public Builder() {}
+
+        /**
+         * Sets the initial capacity of the backing map.
+         *
+         * @param initialCapacity the expected number of entries
+         * @return this builder
+         * @throws IllegalArgumentException if the capacity is negative
+         */
+        public Builder<K,V> initialCapacity(int initialCapacity) {
+            if (initialCapacity < 0)
+                throw new IllegalArgumentException();
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Bounds the cache to at most the given number of entries.
+         *
+         * @param maximumSize the maximum number of entries
+         * @return this builder
+         * @throws IllegalArgumentException if the size is negative
+         * @throws IllegalStateException if a bound was already set
+         */
+        public Builder<K,V> maximumSize(long maximumSize) {
+            if (maximumSize < 0L)
+                throw new IllegalArgumentException();
+            if (maximum >= 0L)
+                throw new IllegalStateException("Bound already set");
+            this.maximum = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bounds the total weight of the entries, as computed by the
+         * given weigher when an entry is written.
+         *
+         * @param maximumWeight the maximum total weight
+         * @param weigher the function computing the weight of an entry;
+         *        weights must not be negative
+         * @return this builder
+         * @throws IllegalArgumentException if the weight is negative
+         * @throws IllegalStateException if a bound was already set
+         * @throws NullPointerException if the weigher is null
+         */
+        public Builder<K,V> maximumWeight(long maximumWeight,
+                                          ToIntBiFunction<? super K, ? super V> weigher) {
+            if (weigher == null)
+                throw new NullPointerException();
+            if (maximumWeight < 0L)
+                throw new IllegalArgumentException();
+            if (maximum >= 0L)
+                throw new IllegalStateException("Bound already set");
+            this.maximum = maximumWeight;
+            this.weighted = true;
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Expires each entry the given duration after it was created
+         * or its value was last replaced.
+         *
+         * @param duration the duration
+         * @param unit the unit of the duration
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is not positive
+         */
+        public Builder<K,V> expireAfterWrite(long duration, TimeUnit unit) {
+            if (duration <= 0L)
+                throw new IllegalArgumentException();
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Expires each entry the given duration after it was last
+         * written or read.
+         *
+         * @param duration the duration
+         * @param unit the unit of the duration
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is not positive
+         */
+        public Builder<K,V> expireAfterAccess(long duration, TimeUnit unit) {
+            if (duration <= 0L)
+                throw new IllegalArgumentException();
+            this.expireAfterAccessNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Enables recording of the counts reported by
+         * {@link ConcurrentCache#stats}.
+         *
+         * @return this builder
+         */
+        public Builder<K,V> recordStats() {
+            this.recordStats = true;
+            return this;
+        }
+
+        /**
+         * Returns a new cache with the settings of this builder.
+         *
+         * @param <K1> the key type of the cache
+         * @param <V1> the value type of the cache
+         * @return a new cache
+         */
+        @SuppressWarnings("unchecked")
+        public <K1 extends K, V1 extends V> ConcurrentCache<K1,V1> build() {
+            return new ConcurrentCache<K1,V1>((Builder<K1,V1>)this);
+        }
+    }
+
+    /**
+     * A point-in-time snapshot of a cache's statistics.  All counts are
+     * zero unless statistics recording was enabled.
+     */
+    public static final class Stats {
+        private final long hitCount, missCount, loadSuccessCount,
+            loadFailureCount, totalLoadTime, evictionCount, evictionWeight;
+
+        Stats(long hitCount, long missCount, long loadSuccessCount,
+              long loadFailureCount, long totalLoadTime,
+              long evictionCount, long evictionWeight) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadSuccessCount = loadSuccessCount;
+            this.loadFailureCount = loadFailureCount;
+            this.totalLoadTime = totalLoadTime;
+            this.evictionCount = evictionCount;
+            this.evictionWeight = evictionWeight;
+        }
+
+        /** @return the number of lookups that found a live entry */
+        public long hitCount()         { return hitCount; }
+        /** @return the number of lookups that found no live entry */
+        public long missCount()        { return missCount; }
+        /** @return the number of lookups */
+        public long requestCount()     { return hitCount + missCount; }
+        /** @return the number of values computed by a mapping function */
+        public long loadSuccessCount() { return loadSuccessCount; }
+        /** @return the number of mapping functions that returned null or threw */
+        public long loadFailureCount() { return loadFailureCount; }
+        /** @return the total nanoseconds spent in mapping functions */
+        public long totalLoadTime()    { return totalLoadTime; }
+        /** @return the number of entries evicted by a bound or by expiration */
+        public long evictionCount()    { return evictionCount; }
+        /** @return the total weight of evicted entries */
+        public long evictionWeight()   { return evictionWeight; }
+
+        /**
+         * Returns the ratio of hits to lookups, or {@code 1.0} if there
+         * were no lookups.
+         *
+         * @return the hit rate
+         */
+        public double hitRate() {
+            long requests = requestCount();
+            return (requests == 0L) ? 1.0 : (double)hitCount / requests;
+        }
+
+        /**
+         * Returns the ratio of misses to lookups, or {@code 0.0} if
+         * there were no lookups.
+         *
+         * @return the miss rate
+         */
+        public double missRate() {
+            long requests = requestCount();
+            return (requests == 0L) ? 0.0 : (double)missCount / requests;
+        }
+
+        public String toString() {
+            return "Stats[hitCount=" + hitCount + ", missCount=" + missCount +
+                ", loadSuccessCount=" + loadSuccessCount +
+                ", loadFailureCount=" + loadFailureCount +
+                ", totalLoadTime=" + totalLoadTime +
+                ", evictionCount=" + evictionCount +
+                ", evictionWeight=" + evictionWeight + "]";
+        }
+    }
+
+    /* ---------------- Constants -------------- */
+
+    /** Number of CPUS, to size the read buffer stripes */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of read buffer stripes, a power of two. */
+    static final int NUMBER_OF_READ_BUFFERS = Math.min(
+        1 << (32 - Integer.numberOfLeadingZeros(Math.max(NCPU, 2) - 1)), 64);
+
+    /** Fraction of the maximum given to the admission window. */
+    static final double WINDOW_PERCENT = 0.01;
+
+    /** Fraction of the main region given to the protected segment. */
+    static final double PROTECTED_PERCENT = 0.80;
+
+    /** Region tags held in {@link Node#region}. */
+    static final byte WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    /* ---------------- Fields -------------- */
+
+    final ConcurrentHashMap<K,Node<K,V>> data;
+    final ToIntBiFunction<? super K, ? super V> weigher;
+    final long maximum;             // -1 if unbounded
+    final long expireAfterWriteNanos, expireAfterAccessNanos;
+    final boolean recordStats;
+
+    final ReadBuffer[] readBuffers;
+    final ConcurrentLinkedQueue<Runnable> writeBuffer;
+    final ReentrantLock evictionLock = new ReentrantLock();
+
+    // Guarded by evictionLock
+    final NodeDeque<K,V> window, probation, protectedDeque;
+    final WriteOrderDeque<K,V> writeOrder;
+    final FrequencySketch sketch;
+    long weightedSize, windowWeight, protectedWeight;
+    final long windowMaximum, protectedMaximum;
+
+    final LongAdder hits, misses, loadSuccesses, loadFailures, loadTime,
+        evictions, evictionWeight;
+
+    ConcurrentCache(Builder<K,V> builder) {
+        this.data = new ConcurrentHashMap<>(builder.initialCapacity);
+        this.weigher = builder.weigher;
+        this.maximum = builder.maximum;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.recordStats = builder.recordStats;
+        ReadBuffer[] rbs = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+        for (int i = 0; i < rbs.length; ++i)
+            rbs[i] = new ReadBuffer();
+        this.readBuffers = rbs;
+        this.writeBuffer = new ConcurrentLinkedQueue<>();
+        this.window = new NodeDeque<>();
+        this.probation = new NodeDeque<>();
+        this.protectedDeque = new NodeDeque<>();
+        this.writeOrder = new WriteOrderDeque<>();
+        long max = Math.max(maximum, 0L);
+        this.windowMaximum = (maximum < 0L) ? Long.MAX_VALUE :
+            Math.max(1L, (long)(max * WINDOW_PERCENT));
+        this.protectedMaximum = (maximum < 0L) ? Long.MAX_VALUE :
+            (long)((max - windowMaximum) * PROTECTED_PERCENT);
+        this.sketch = (maximum < 0L) ? null : new FrequencySketch(
+            (int)Math.min(builder.weighted ? builder.initialCapacity : max,
+                          1 << 30));
+        if (recordStats) {
+            hits = new LongAdder();
+            misses = new LongAdder();
+            loadSuccesses = new LongAdder();
+            loadFailures = new LongAdder();
+            loadTime = new LongAdder();
+            evictions = new LongAdder();
+            evictionWeight = new LongAdder();
+        } else {
+            hits = misses = loadSuccesses = loadFailures = loadTime =
+                evictions = evictionWeight = null;
+        }
+    }
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * A cache entry.  The value and weight are written while holding the
+     * node's monitor; a node removed from the map is first marked
+     * retired under the same monitor, so that a writer never updates a
+     * node that is no longer reachable.  Policy fields are guarded by
+     * the eviction lock.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long accessTime, writeTime;
+        boolean retired;            // guarded by this
+
+        // Policy state, guarded by evictionLock
+        int policyWeight;
+        byte region;
+        boolean linked, dead;
+        Node<K,V> prev, next;           // access-order links
+        Node<K,V> prevWrite, nextWrite; // write-order links
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.accessTime = now;
+            this.writeTime = now;
+        }
+    }
+
+    /** An access-ordered doubly linked list of nodes. */
+    static final class NodeDeque<K,V> {
+        Node<K,V> first, last;
+
+        void linkLast(Node<K,V> e) {
+            Node<K,V> l = last;
+            e.prev = l;
+            e.next = null;
+            last = e;
+            if (l == null)
+                first = e;
+            else
+                l.next = e;
+        }
+
+        void unlink(Node<K,V> e) {
+            Node<K,V> p = e.prev, n = e.next;
+            if (p == null)
+                first = n;
+            else
+                p.next = n;
+            if (n == null)
+                last = p;
+            else
+                n.prev = p;
+            e.prev = e.next = null;
+        }
+
+        void moveToBack(Node<K,V> e) {
+            if (e != last) {
+                unlink(e);
+                linkLast(e);
+            }
+        }
+    }
+
+    /** A write-ordered doubly linked list of nodes. */
+    static final class WriteOrderDeque<K,V> {
+        Node<K,V> first, last;
+
+        void linkLast(Node<K,V> e) {
+            Node<K,V> l = last;
+            e.prevWrite = l;
+            e.nextWrite = null;
+            last = e;
+            if (l == null)
+                first = e;
+            else
+                l.nextWrite = e;
+        }
+
+        void unlink(Node<K,V> e) {
+            Node<K,V> p = e.prevWrite, n = e.nextWrite;
+            if (p == null)
+                first = n;
+            else
+                p.nextWrite = n;
+            if (n == null)
+                last = p;
+            else
+                n.prevWrite = p;
+            e.prevWrite = e.nextWrite = null;
+        }
+
+        void moveToBack(Node<K,V> e) {
+            if (e != last) {
+                unlink(e);
+                linkLast(e);
+            }
+        }
+    }
+
+    /* ---------------- Read buffers -------------- */
+
+    /**
+     * A small lossy ring buffer of nodes that were read.  Producers
+     * claim a slot by CAS on the tail; the single consumer, holding
+     * the eviction lock, advances the head.
+     */
+    @sun.misc.Contended static final class ReadBuffer {
+        static final int SIZE = 16, MASK = SIZE - 1;
+        static final int SUCCESS = 0, FULL = 1, FAILED = 2;
+
+        final Object[] buffer = new Object[SIZE];
+        volatile long tail;
+        long head;              // guarded by evictionLock
+
+        int offer(Object node) {
+            long t = tail, h = head;
+            if (t - h >= SIZE)
+                return FULL;
+            if (!U.compareAndSwapLong(this, TAIL, t, t + 1))
+                return FAILED;
+            U.putOrderedObject(buffer, ABASE + ((t & MASK) << ASHIFT), node);
+            return (t + 1 - h >= SIZE) ? FULL : SUCCESS;
+        }
+
+        <K,V> void drainTo(ConcurrentCache<K,V> cache) {
+            long h = head, t = tail;
+            Object[] b = buffer;
+            for (; h != t; ++h) {
+                long off = ABASE + ((h & MASK) << ASHIFT);
+                Object e = U.getObjectVolatile(b, off);
+                if (e == null)
+                    break;          // slot claimed but not yet filled
+                U.putOrderedObject(b, off, null);
+                @SuppressWarnings("unchecked") Node<K,V> n = (Node<K,V>)e;
+                cache.onAccess(n);
+            }
+            head = h;
+        }
+
+        private static final long TAIL;
+        static {
+            try {
+                TAIL = U.objectFieldOffset(ReadBuffer.class.getDeclaredField("tail"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /* ---------------- Frequency sketch -------------- */
+
+    /**
+     * A count-min sketch of 4-bit counters, four per item, packed
+     * sixteen to a {@code long}.  When the number of increments reaches
+     * ten times the table width all counters are halved, so that the
+     * estimate favours recent popularity.
+     */
+    static final class FrequencySketch {
+        static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        static final long RESET_MASK = 0x7777777777777777L;
+
+        final long[] table;
+        final int tableMask, sampleSize;
+        int size;
+
+        FrequencySketch(int maximum) {
+            int n = Math.max(maximum, 16);
+            int cap = Integer.highestOneBit(n - 1) << 1;
+            table = new long[cap];
+            tableMask = cap - 1;
+            sampleSize = (int)Math.min(10L * cap, Integer.MAX_VALUE);
+        }
+
+        static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+
+        int indexOf(int item, int i) {
+            long hash = (item + SEED[i]) * SEED[i];
+            hash += hash >>> 32;
+            return ((int)hash) & tableMask;
+        }
+
+        int frequency(Object e) {
+            int hash = spread(e.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; ++i) {
+                int offset = (start + i) << 2;
+                int count = (int)((table[indexOf(hash, i)] >>> offset) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(Object e) {
+            int hash = spread(e.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i) {
+                int index = indexOf(hash, i);
+                long mask = 0xfL << ((start + i) << 2);
+                if ((table[index] & mask) != mask) {
+                    table[index] += 1L << ((start + i) << 2);
+                    added = true;
+                }
+            }
+            if (added && ++size == sampleSize) {
+                for (int i = 0; i < table.length; ++i)
+                    table[i] = (table[i] >>> 1) & RESET_MASK;
+                size >>>= 1;
+            }
+        }
+    }
+
+    /* ---------------- Utilities -------------- */
+
+    final boolean expiresAfterWrite()  { return expireAfterWriteNanos > 0L; }
+    final boolean expiresAfterAccess() { return expireAfterAccessNanos > 0L; }
+    final boolean evicts()             { return maximum >= 0L; }
+
+    final long now() {
+        return (expiresAfterWrite() || expiresAfterAccess() || recordStats) ?
+            System.nanoTime() : 0L;
+    }
+
+    final boolean hasExpired(Node<K,V> n, long now) {
+        return (expiresAfterAccess() &&
+                now - n.accessTime >= expireAfterAccessNanos) ||
+            (expiresAfterWrite() &&
+             now - n.writeTime >= expireAfterWriteNanos);
+    }
+
+    final int weigh(K key, V value) {
+        if (weigher == null)
+            return 1;
+        int w = weigher.applyAsInt(key, value);
+        if (w < 0)
+            throw new IllegalArgumentException("Negative weight: " + w);
+        return w;
+    }
+
+    /**
+     * Records a read of the node in a read buffer stripe, draining the
+     * buffers if the stripe is full.
+     */
+    final void afterRead(Node<K,V> node, long now) {
+        if (expiresAfterAccess())
+            node.accessTime = now;
+        if (!evicts() && !expiresAfterAccess())
+            return;
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = ThreadLocalRandom.getProbe();
+        }
+        ReadBuffer[] rbs = readBuffers;
+        for (int attempts = 0; ; ++attempts) {
+            int r = rbs[h & (rbs.length - 1)].offer(node);
+            if (r == ReadBuffer.SUCCESS)
+                return;
+            if (r == ReadBuffer.FULL || attempts >= 3)
+                break;
+            h = ThreadLocalRandom.advanceProbe(h);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Queues a policy update and performs maintenance unless another
+     * thread is already doing so.
+     */
+    final void afterWrite(Runnable task) {
+        writeBuffer.offer(task);
+        scheduleDrain();
+    }
+
+    /**
+     * Performs maintenance if the eviction lock is free.  The holder
+     * re-checks the write buffer after releasing the lock, so a task
+     * queued while it was busy is not stranded.
+     */
+    final void scheduleDrain() {
+        do {
+            if (!evictionLock.tryLock())
+                return;
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    /**
+     * Replays buffered reads and writes, then expires and evicts.
+     * Called with the eviction lock held.
+     */
+    final void maintenance() {
+        for (ReadBuffer rb : readBuffers)
+            rb.drainTo(this);
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null)
+            task.run();
+        if (expiresAfterWrite() || expiresAfterAccess())
+            expireEntries(System.nanoTime());
+        evictEntries();
+    }
+
+    /* ---------------- Policy -------------- */
+
+    /** Applies a buffered read. */
+    final void onAccess(Node<K,V> n) {
+        if (!n.linked)
+            return;
+        if (sketch != null)
+            sketch.increment(n.key);
+        switch (n.region) {
+        case WINDOW:
+            window.moveToBack(n);
+            break;
+        case PROBATION:
+            probation.unlink(n);
+            n.region = PROTECTED;
+            protectedDeque.linkLast(n);
+            protectedWeight += n.policyWeight;
+            demoteFromProtected();
+            break;
+        default:
+            protectedDeque.moveToBack(n);
+        }
+    }
+
+    /** Moves the least recently used protected entries to probation. */
+    final void demoteFromProtected() {
+        while (protectedWeight > protectedMaximum) {
+            Node<K,V> d = protectedDeque.first;
+            if (d == null)
+                break;
+            protectedDeque.unlink(d);
+            protectedWeight -= d.policyWeight;
+            d.region = PROBATION;
+            probation.linkLast(d);
+        }
+    }
+
+    /** Applies a buffered insertion. */
+    final class AddTask implements Runnable {
+        final Node<K,V> node;
+        AddTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            Node<K,V> n = node;
+            if (n.dead)
+                return;             // removed before it was added
+            int w = n.weight;
+            n.policyWeight = w;
+            n.linked = true;
+            n.region = WINDOW;
+            window.linkLast(n);
+            windowWeight += w;
+            weightedSize += w;
+            if (expiresAfterWrite())
+                writeOrder.linkLast(n);
+            if (sketch != null)
+                sketch.increment(n.key);
+        }
+    }
+
+    /** Applies a buffered in-place value replacement. */
+    final class UpdateTask implements Runnable {
+        final Node<K,V> node;
+        UpdateTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            Node<K,V> n = node;
+            if (!n.linked)
+                return;
+            int w = n.weight, delta = w - n.policyWeight;
+            n.policyWeight = w;
+            weightedSize += delta;
+            if (n.region == WINDOW)
+                windowWeight += delta;
+            else if (n.region == PROTECTED)
+                protectedWeight += delta;
+            if (expiresAfterWrite())
+                writeOrder.moveToBack(n);
+            onAccess(n);
+        }
+    }
+
+    /** Applies a buffered explicit removal. */
+    final class RemovalTask implements Runnable {
+        final Node<K,V> node;
+        RemovalTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            unlinkNode(node);
+        }
+    }
+
+    /** Removes the node from the policy structures, if linked. */
+    final void unlinkNode(Node<K,V> n) {
+        n.dead = true;
+        if (!n.linked)
+            return;
+        n.linked = false;
+        int w = n.policyWeight;
+        weightedSize -= w;
+        switch (n.region) {
+        case WINDOW:
+            window.unlink(n);
+            windowWeight -= w;
+            break;
+        case PROBATION:
+            probation.unlink(n);
+            break;
+        default:
+            protectedDeque.unlink(n);
+            protectedWeight -= w;
+        }
+        if (expiresAfterWrite())
+            writeOrder.unlink(n);
+    }
+
+    /**
+     * Removes a node chosen by the policy from the map and the policy.
+     */
+    final void evictNode(Node<K,V> n) {
+        boolean removed;
+        synchronized (n) {
+            removed = !n.retired;
+            n.retired = true;
+        }
+        if (removed)
+            data.remove(n.key, n);
+        int w = n.policyWeight;
+        unlinkNode(n);
+        if (removed && recordStats) {
+            evictions.increment();
+            evictionWeight.add(w);
+        }
+    }
+
+    /** Evicts entries whose time has passed. */
+    final void expireEntries(long now) {
+        if (expiresAfterAccess()) {
+            expireFrom(window, now);
+            expireFrom(probation, now);
+            expireFrom(protectedDeque, now);
+        }
+        if (expiresAfterWrite()) {
+            Node<K,V> n;
+            while ((n = writeOrder.first) != null &&
+                   now - n.writeTime >= expireAfterWriteNanos)
+                evictNode(n);
+        }
+    }
+
+    private void expireFrom(NodeDeque<K,V> deque, long now) {
+        Node<K,V> n;
+        while ((n = deque.first) != null &&
+               now - n.accessTime >= expireAfterAccessNanos)
+            evictNode(n);
+    }
+
+    /**
+     * Moves entries overflowing the window into probation, then evicts
+     * until the maximum is respected, deciding between the oldest
+     * probation entry and the newest arrival by their frequencies.
+     */
+    final void evictEntries() {
+        if (!evicts())
+            return;
+        while (windowWeight > windowMaximum) {
+            Node<K,V> n = window.first;
+            if (n == null)
+                break;
+            window.unlink(n);
+            windowWeight -= n.policyWeight;
+            n.region = PROBATION;
+            probation.linkLast(n);
+        }
+        while (weightedSize > maximum) {
+            Node<K,V> victim = probation.first, candidate = probation.last;
+            if (victim == null) {
+                if ((victim = protectedDeque.first) == null &&
+                    (victim = window.first) == null)
+                    break;
+                evictNode(victim);
+            }
+            else if (victim == candidate)
+                evictNode(victim);
+            else if (admit(candidate.key, victim.key))
+                evictNode(victim);
+            else
+                evictNode(candidate);
+        }
+    }
+
+    /**
+     * Returns whether the candidate should replace the victim.  A
+     * small random admission of warm candidates defends against an
+     * attacker flooding the sketch to pin a victim in place.
+     */
+    final boolean admit(K candidateKey, K victimKey) {
+        int victimFreq = sketch.frequency(victimKey);
+        int candidateFreq = sketch.frequency(candidateKey);
+        if (candidateFreq > victimFreq)
+            return true;
+        if (candidateFreq <= 5)
+            return false;
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the value associated with the key, or {@code null} if
+     * there is no live mapping.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the cached value, or {@code null}
+     * @throws NullPointerException if the key is null
+     */
+    public V getIfPresent(Object key) {
+        Node<K,V> n = data.get(key);
+        long now = now();
+        if (n == null || hasExpired(n, now)) {
+            if (recordStats)
+                misses.increment();
+            return null;
+        }
+        afterRead(n, now);
+        if (recordStats)
+            hits.increment();
+        return n.value;
+    }
+
+    /**
+     * Returns the value associated with the key, first computing it
+     * with the mapping function if there is no live mapping.  The
+     * computation is performed at most once per absent key, while
+     * other updates of the key's bin in the backing map block.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param mappingFunction the function computing a value
+     * @return the current (existing or computed) value, or {@code null}
+     *         if the computed value is null
+     * @throws NullPointerException if the key or function is null
+     * @throws RuntimeException or Error if the mapping function does so,
+     *         in which case no mapping is established
+     */
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        V v = getIfPresent(key);
+        if (v != null)
+            return v;
+        @SuppressWarnings("unchecked")
+        Node<K,V>[] result = (Node<K,V>[])new Node<?,?>[2]; // [added, replaced]
+        Throwable[] failure = new Throwable[1];
+        Node<K,V> n = data.compute(key, (k, prior) -> {
+            long now = now();
+            if (prior != null) {
+                synchronized (prior) {
+                    if (!prior.retired && !hasExpired(prior, now))
+                        return prior;
+                    prior.retired = true;
+                }
+                result[1] = prior;
+            }
+            V value;
+            try {
+                value = mappingFunction.apply(k);
+            } catch (RuntimeException | Error ex) {
+                if (recordStats) {
+                    loadFailures.increment();
+                    loadTime.add(now() - now);
+                }
+                // drop the retired prior rather than leave it mapped;
+                // the exception is rethrown once the bin is released
+                failure[0] = ex;
+                return null;
+            }
+            if (recordStats) {
+                loadTime.add(now() - now);
+                (value == null ? loadFailures : loadSuccesses).increment();
+            }
+            if (value == null)
+                return null;
+            return result[0] = new Node<K,V>(k, value, weigh(k, value), now);
+        });
+        if (result[1] != null)
+            afterWrite(new RemovalTask(result[1]));
+        if (failure[0] instanceof RuntimeException)
+            throw (RuntimeException)failure[0];
+        if (failure[0] != null)
+            throw (Error)failure[0];
+        if (result[0] != null)
+            afterWrite(new AddTask(result[0]));
+        else if (n != null)
+            afterRead(n, now());
+        return (n == null) ? null : n.value;
+    }
+
+    /**
+     * Associates the value with the key, replacing any existing value.
+     *
+     * @param key the key with which the value is to be associated
+     * @param value the value to be associated with the key
+     * @return the previous live value, or {@code null} if none
+     * @throws NullPointerException if the key or value is null
+     * @throws IllegalArgumentException if the weigher returns a
+     *         negative weight
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        int weight = weigh(key, value);
+        long now = now();
+        Node<K,V> node = null;
+        for (;;) {
+            Node<K,V> prior = data.get(key);
+            if (prior == null) {
+                if (node == null)
+                    node = new Node<K,V>(key, value, weight, now);
+                if ((prior = data.putIfAbsent(key, node)) == null) {
+                    afterWrite(new AddTask(node));
+                    return null;
+                }
+            }
+            V oldValue;
+            boolean expired;
+            synchronized (prior) {
+                if (prior.retired) {
+                    Thread.yield();     // removal in progress
+                    continue;
+                }
+                expired = hasExpired(prior, now);
+                oldValue = prior.value;
+                prior.value = value;
+                prior.weight = weight;
+                prior.writeTime = now;
+                prior.accessTime = now;
+            }
+            afterWrite(new UpdateTask(prior));
+            return expired ? null : oldValue;
+        }
+    }
+
+    /**
+     * Removes the mapping for the key, if present.
+     *
+     * @param key the key whose mapping is to be removed
+     * @return the previous live value, or {@code null} if none
+     * @throws NullPointerException if the key is null
+     */
+    public V remove(Object key) {
+        Node<K,V> n = data.get(key);
+        if (n == null)
+            return null;
+        V oldValue;
+        synchronized (n) {
+            if (n.retired)
+                return null;
+            n.retired = true;
+            oldValue = n.value;
+        }
+        data.remove(key, n);
+        afterWrite(new RemovalTask(n));
+        return hasExpired(n, now()) ? null : oldValue;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll() {
+        for (K key : data.keySet())
+            remove(key);
+    }
+
+    /**
+     * Returns the approximate number of entries, which may include
+     * expired entries not yet reclaimed.
+     *
+     * @return the estimated number of entries
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * Returns the total weight of the entries known to the eviction
+     * policy, or the entry count if no weigher was configured.
+     *
+     * @return the weighted size
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Performs any pending maintenance: replays buffered reads and
+     * writes, reclaims expired entries and enforces the bound.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a snapshot of this cache's cumulative statistics.
+     *
+     * @return the current statistics
+     */
+    public Stats stats() {
+        if (!recordStats)
+            return new Stats(0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        return new Stats(hits.sum(), misses.sum(), loadSuccesses.sum(),
+                         loadFailures.sum(), loadTime.sum(),
+                         evictions.sum(), evictionWeight.sum());
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> ak = Object[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
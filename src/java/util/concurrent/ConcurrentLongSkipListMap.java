@@ -0,0 +1,1822 @@
+package java.util.concurrent;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A scalable concurrent {@link ConcurrentNavigableMap} whose keys are
+ * primitive {@code long} values, sorted in ascending order.
+ *
+ * <p>Unlike {@link ConcurrentSkipListMap}, which allocates a node, a
+ * boxed key and on average more than one index object per mapping, this
+ * map stores its mappings in chunks of up to {@value #CHUNK_CAPACITY}
+ * keys held in a sorted {@code long[]} alongside an array of values.
+ * A skip list indexes the chunks rather than the mappings, so lookups
+ * descend the index in a few steps and finish with a binary search over
+ * adjacent memory, and ordered traversal reads the keys sequentially.
+ *
+ * <p>Reads never block: the contents of a chunk are replaced, never
+ * modified, so a reader always sees a consistent chunk, and a reader
+ * that reaches a chunk whose keys have moved to a neighbour by a
+ * concurrent split or merge follows a link to it.  Writers lock only the
+ * chunk they modify, and additionally its predecessor when merging
+ * underfull chunks.  An insertion above every key of a full chunk
+ * starts a new chunk rather than splitting the full one in half, so
+ * maps filled in ascending key order, such as indexes of timestamps,
+ * stay densely packed.
+ *
+ * <p>In addition to the methods of {@code ConcurrentNavigableMap}, which
+ * box their keys, this class provides methods taking and returning
+ * primitive keys: {@link #get(long)}, {@link #putLong putLong},
+ * {@link #floorValue}, {@link #floorKeyOrElse} and similar navigation
+ * methods, and {@link #forEachInRange}, which visits a range of mappings
+ * without creating entries.  Views returned by {@code subMap},
+ * {@code headMap}, {@code tailMap} and {@code descendingMap} are
+ * themselves instances of this class, and support these methods within
+ * their range and in their order.
+ *
+ * <p>Iterators and spliterators are
+ * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+ * Ascending key ordered views and their iterators are faster than
+ * descending ones.  All {@code Map.Entry} pairs returned by methods in
+ * this class and its views represent snapshots of mappings at the time
+ * they were produced, and do not support {@code setValue}.
+ *
+ * <p>Beware that, unlike in most collections, the {@code size} method
+ * of a view is <em>not</em> a constant-time operation, and that bulk
+ * operations are not guaranteed to be performed atomically.  The map
+ * itself maintains its size in a {@link LongAdder}.
+ *
+ * <p>Like {@link ConcurrentSkipListMap}, this class does <em>not</em>
+ * permit the use of {@code null} values.
+ *
+ * @param <V> the type of mapped values
+ * @see ConcurrentSkipListMap
+ * @since 1.8
+ */
+public class ConcurrentLongSkipListMap<V> extends AbstractMap<Long,V>
+        implements ConcurrentNavigableMap<Long,V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = 2926580290446712870L;
+
+    /*
+     * Overview:
+     *
+     * The mappings are partitioned into a linked list of Chunks.  A
+     * Chunk covers the keys from its low key (fixed for its lifetime;
+     * Long.MIN_VALUE for the first chunk, which is never removed) up to
+     * the low key of its successor, and holds an immutable State with
+     * sorted key and value arrays and the link to the successor.
+     * Writers lock the chunk and replace its state, so readers need
+     * only a volatile read to see a consistent chunk.
+     *
+     * Insertion into a full chunk splits it: a new chunk D is created
+     * holding the upper keys and linked to the old successor, and then
+     * the old chunk's state is replaced by one holding the lower keys
+     * and linked to D.  A reader that reached the old chunk looking
+     * for a key now in D sees that the key is at or above D's low key
+     * and moves right, as in a B-link tree.  Only then is D added to
+     * the index.
+     *
+     * A removal leaving a chunk underfull tries to merge it into its
+     * predecessor P, locking P and then the chunk, in list order (a
+     * split locks a single chunk, so locks are always taken left to
+     * right).  P's state is replaced by one holding both chunks' keys
+     * and linked to the chunk's successor, and then the chunk's state
+     * is replaced by a "dead" state with null arrays whose link points
+     * back to P.  A reader that reaches the dead chunk follows that
+     * link; since P's new state was published first, it finds the keys
+     * there.  The dead chunk is removed from the index while both
+     * locks are held, so no live chunk can share its low key in the
+     * index.
+     *
+     * The index is a conventional skip list over chunks, with p = 1/4
+     * per level.  Index nodes are linked and unlinked under a single
+     * lock, which is taken only on splits and merges, while readers
+     * traverse it without locking.  The index may transiently lag the
+     * chunk list; lookups only require that it lead to some chunk at
+     * or before the key, from which they move right.
+     *
+     * Views share the store of their map and restrict it to an
+     * inclusive range [lo, hi] of keys, possibly in descending order.
+     * An empty range has lo > hi.  Views also keep the bounds they
+     * were created with, unnormalized, as TreeMap's submaps do, and
+     * check the bounds of views of them against those, so that they
+     * accept and reject the same bounds as TreeMap.
+     */
+
+    /** The maximum number of keys in a chunk. */
+    static final int CHUNK_CAPACITY = 64;
+
+    /** The number of keys below which a chunk is merged if possible. */
+    static final int MIN_CHUNK_SIZE = CHUNK_CAPACITY / 4;
+
+    /** The maximum number of keys in a chunk formed by merging. */
+    static final int MAX_MERGED_SIZE = CHUNK_CAPACITY * 3 / 4;
+
+    /** The number of index levels. */
+    static final int MAX_LEVEL = 16;
+
+    /** Relations for findNear, as in ConcurrentSkipListMap */
+    private static final int EQ = 1;
+    private static final int LT = 2;
+    private static final int GT = 0; // Actually checked as !LT
+
+    private static final long[] EMPTY_KEYS = new long[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    /* ---------------- Chunks and index -------------- */
+
+    /**
+     * The contents of a chunk.  A dead state, of a chunk merged into its
+     * predecessor, has null arrays and links to the predecessor.
+     */
+    static final class State {
+        final long low;
+        final long[] keys;
+        final Object[] vals;
+        final Chunk next;
+
+        State(long low, long[] keys, Object[] vals, Chunk next) {
+            this.low = low; this.keys = keys; this.vals = vals; this.next = next;
+        }
+
+        /** Returns whether k belongs to this live state. */
+        boolean covers(long k) {
+            Chunk n;
+            return keys != null && ((n = next) == null || k < n.low);
+        }
+    }
+
+    static final class Chunk {
+        final long low;
+        volatile State state;
+
+        Chunk(State state) {
+            this.low = state.low;
+            this.state = state;
+        }
+    }
+
+    static final class Index {
+        final Chunk chunk;
+        final long low;
+        final Index down;
+        volatile Index right;
+
+        Index(Chunk chunk, Index down) {
+            this.chunk = chunk; this.low = chunk.low; this.down = down;
+        }
+    }
+
+    /**
+     * A position in a state's arrays, as returned by findNear.
+     */
+    static final class Hit {
+        final long[] keys;
+        final Object[] vals;
+        final int index;
+
+        Hit(long[] keys, Object[] vals, int index) {
+            this.keys = keys; this.vals = vals; this.index = index;
+        }
+
+        long key() { return keys[index]; }
+        Object value() { return vals[index]; }
+    }
+
+    /**
+     * The chunks, index and size shared by a map and its views.
+     */
+    static final class Store {
+        final Chunk head =
+            new Chunk(new State(Long.MIN_VALUE, EMPTY_KEYS, EMPTY_VALUES, null));
+        final Index[] heads = new Index[MAX_LEVEL];
+        final Object indexLock = new Object();
+        final LongAdder count = new LongAdder();
+        volatile int level;
+
+        Store() {
+            Index down = null;
+            for (int i = 0; i < MAX_LEVEL; ++i)
+                heads[i] = down = new Index(head, down);
+        }
+
+        /** Returns a chunk at or before the one holding k. */
+        Chunk indexFloor(long k) {
+            Index x = heads[level], r;
+            for (;;) {
+                while ((r = x.right) != null && r.low <= k)
+                    x = r;
+                if (x.down == null)
+                    return x.chunk;
+                x = x.down;
+            }
+        }
+
+        /** Returns the chunk holding k, as of its state's last read. */
+        Chunk chunkFor(long k) {
+            Chunk c = indexFloor(k);
+            for (;;) {
+                State s = c.state;
+                Chunk n = s.next;
+                if (s.keys == null || (n != null && k >= n.low))
+                    c = n;
+                else
+                    return c;
+            }
+        }
+
+        /** Returns the state of the chunk holding k. */
+        State stateFor(long k) {
+            Chunk c = indexFloor(k);
+            for (;;) {
+                State s = c.state;
+                Chunk n = s.next;
+                if (s.keys == null || (n != null && k >= n.low))
+                    c = n;
+                else
+                    return s;
+            }
+        }
+
+        Object get(long k) {
+            State s = stateFor(k);
+            int i = Arrays.binarySearch(s.keys, k);
+            return (i >= 0) ? s.vals[i] : null;
+        }
+
+        /**
+         * Returns the position of the key nearest to k in the given
+         * relation, or null if there is none.
+         */
+        Hit findNear(long k, int rel) {
+            for (;;) {
+                State s = stateFor(k);
+                long[] ks = s.keys;
+                int i = Arrays.binarySearch(ks, k), j;
+                if (i >= 0)
+                    j = ((rel & EQ) != 0) ? i : ((rel & LT) != 0) ? i - 1 : i + 1;
+                else {
+                    j = -(i + 1);
+                    if ((rel & LT) != 0)
+                        --j;
+                }
+                if (j < 0) {
+                    if (s.low == Long.MIN_VALUE)
+                        return null;
+                    k = s.low - 1;
+                    rel = LT|EQ;
+                } else if (j >= ks.length) {
+                    Chunk n = s.next;
+                    if (n == null)
+                        return null;
+                    k = n.low;
+                    rel = GT|EQ;
+                } else
+                    return new Hit(ks, s.vals, j);
+            }
+        }
+
+        Object put(long k, Object v, boolean onlyIfAbsent) {
+            for (;;) {
+                Chunk c = chunkFor(k);
+                synchronized (c) {
+                    State s = c.state;
+                    if (!s.covers(k))
+                        continue;
+                    long[] ks = s.keys;
+                    Object[] vs = s.vals;
+                    int i = Arrays.binarySearch(ks, k);
+                    if (i >= 0) {
+                        Object old = vs[i];
+                        if (!onlyIfAbsent) {
+                            Object[] nvs = vs.clone();
+                            nvs[i] = v;
+                            c.state = new State(s.low, ks, nvs, s.next);
+                        }
+                        return old;
+                    }
+                    insert(c, s, -(i + 1), k, v);
+                    count.increment();
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Inserts k at position j of c's state s, splitting c if full.
+         * Called with c locked.
+         */
+        private void insert(Chunk c, State s, int j, long k, Object v) {
+            long[] ks = s.keys;
+            Object[] vs = s.vals;
+            int n = ks.length;
+            long[] rk = new long[n + 1];
+            Object[] rv = new Object[n + 1];
+            System.arraycopy(ks, 0, rk, 0, j);
+            System.arraycopy(vs, 0, rv, 0, j);
+            rk[j] = k;
+            rv[j] = v;
+            System.arraycopy(ks, j, rk, j + 1, n - j);
+            System.arraycopy(vs, j, rv, j + 1, n - j);
+            if (n < CHUNK_CAPACITY) {
+                c.state = new State(s.low, rk, rv, s.next);
+                return;
+            }
+            // Split; when appending, leave the full chunk full
+            int mid = (j == n) ? n : (n + 1) >>> 1;
+            Chunk d = new Chunk(new State(rk[mid],
+                                          Arrays.copyOfRange(rk, mid, n + 1),
+                                          Arrays.copyOfRange(rv, mid, n + 1),
+                                          s.next));
+            c.state = new State(s.low, Arrays.copyOf(rk, mid),
+                                Arrays.copyOf(rv, mid), d);
+            addIndex(d);
+        }
+
+        /**
+         * Removes k if it is mapped, and if expect is non-null, mapped
+         * to a value equal to expect.  Returns the removed value or null.
+         */
+        Object remove(long k, Object expect) {
+            for (;;) {
+                Chunk c = chunkFor(k);
+                Object old;
+                boolean underfull;
+                synchronized (c) {
+                    State s = c.state;
+                    if (!s.covers(k))
+                        continue;
+                    long[] ks = s.keys;
+                    Object[] vs = s.vals;
+                    int i = Arrays.binarySearch(ks, k);
+                    if (i < 0)
+                        return null;
+                    old = vs[i];
+                    if (expect != null && !expect.equals(old))
+                        return null;
+                    int n = ks.length - 1;
+                    long[] rk = new long[n];
+                    Object[] rv = new Object[n];
+                    System.arraycopy(ks, 0, rk, 0, i);
+                    System.arraycopy(vs, 0, rv, 0, i);
+                    System.arraycopy(ks, i + 1, rk, i, n - i);
+                    System.arraycopy(vs, i + 1, rv, i, n - i);
+                    c.state = new State(s.low, rk, rv, s.next);
+                    count.decrement();
+                    underfull = n < MIN_CHUNK_SIZE && c != head;
+                }
+                if (underfull)
+                    tryMerge(c);
+                return old;
+            }
+        }
+
+        /**
+         * Replaces the value of k if it is mapped, and if expect is
+         * non-null, mapped to a value equal to expect.  Returns the
+         * replaced value or null.
+         */
+        Object replace(long k, Object expect, Object v) {
+            for (;;) {
+                Chunk c = chunkFor(k);
+                synchronized (c) {
+                    State s = c.state;
+                    if (!s.covers(k))
+                        continue;
+                    int i = Arrays.binarySearch(s.keys, k);
+                    if (i < 0)
+                        return null;
+                    Object old = s.vals[i];
+                    if (expect != null && !expect.equals(old))
+                        return null;
+                    Object[] nvs = s.vals.clone();
+                    nvs[i] = v;
+                    c.state = new State(s.low, s.keys, nvs, s.next);
+                    return old;
+                }
+            }
+        }
+
+        /**
+         * Merges c into its predecessor if c is still underfull and
+         * the result is not too large.
+         */
+        private void tryMerge(Chunk c) {
+            Chunk p = chunkFor(c.low - 1);
+            synchronized (p) {
+                State ps = p.state;
+                if (ps.keys == null || ps.next != c)
+                    return;
+                synchronized (c) {
+                    State cs = c.state;
+                    if (cs.keys == null)
+                        return;
+                    int pn = ps.keys.length, cn = cs.keys.length;
+                    if (cn >= MIN_CHUNK_SIZE ||
+                        (cn > 0 && pn + cn > MAX_MERGED_SIZE))
+                        return;
+                    long[] rk = Arrays.copyOf(ps.keys, pn + cn);
+                    Object[] rv = Arrays.copyOf(ps.vals, pn + cn);
+                    System.arraycopy(cs.keys, 0, rk, pn, cn);
+                    System.arraycopy(cs.vals, 0, rv, pn, cn);
+                    p.state = new State(ps.low, rk, rv, cs.next);
+                    c.state = new State(cs.low, null, null, p);
+                    removeIndex(c);
+                }
+            }
+        }
+
+        private void addIndex(Chunk d) {
+            int rnd = ThreadLocalRandom.current().nextInt(), lv = 0;
+            while ((rnd & 3) == 0 && lv < MAX_LEVEL - 1) {
+                ++lv;
+                rnd >>>= 2;
+            }
+            synchronized (indexLock) {
+                int top = Math.max(level, lv);
+                Index[] preds = new Index[lv + 1];
+                Index x = heads[top], r;
+                for (int i = top; ; --i) { // find predecessors top down
+                    while ((r = x.right) != null && r.low < d.low)
+                        x = r;
+                    if (i <= lv)
+                        preds[i] = x;
+                    if (i == 0)
+                        break;
+                    x = x.down;
+                }
+                Index down = null;
+                for (int i = 0; i <= lv; ++i) { // link bottom up
+                    Index node = new Index(d, down);
+                    node.right = preds[i].right;
+                    preds[i].right = node;
+                    down = node;
+                }
+                if (lv > level)
+                    level = lv;
+            }
+        }
+
+        private void removeIndex(Chunk c) {
+            synchronized (indexLock) {
+                Index x = heads[level], r;
+                for (int i = level; ; --i) { // unlink top down
+                    while ((r = x.right) != null && r.low < c.low)
+                        x = r;
+                    if (r != null && r.chunk == c)
+                        x.right = r.right;
+                    if (i == 0)
+                        break;
+                    x = x.down;
+                }
+            }
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /** The mappings, shared with views. */
+    private transient Store store;
+
+    /** The least key in range */
+    private final long lo;
+    /** The greatest key in range */
+    private final long hi;
+    /** Whether this is a descending view */
+    private final boolean descending;
+
+    /*
+     * The bounds this map was created with, as in TreeMap's
+     * NavigableSubMap: if fromStart is true there is no low bound,
+     * and otherwise loBound is the low bound, itself in range if
+     * loInclusive is true; likewise for the high bound.
+     */
+    private final boolean fromStart, toEnd;
+    private final long loBound, hiBound;
+    private final boolean loInclusive, hiInclusive;
+
+    /** Lazily initialized views */
+    private transient KeySet keySet;
+    private transient EntrySet<V> entrySet;
+    private transient Values<V> values;
+    private transient ConcurrentLongSkipListMap<V> descendingMap;
+
+    /**
+     * Constructs a new, empty map.
+     */
+    public ConcurrentLongSkipListMap() {
+        this(new Store(), true, 0L, true, true, 0L, true, false);
+    }
+
+    /**
+     * Constructs a new map containing the same mappings as the given map.
+     *
+     * @param  m the map whose mappings are to be placed in this map
+     * @throws NullPointerException if the specified map or any of its keys
+     *         or values are null
+     */
+    public ConcurrentLongSkipListMap(Map<? extends Long, ? extends V> m) {
+        this();
+        putAll(m);
+    }
+
+    private ConcurrentLongSkipListMap(Store store,
+                                      boolean fromStart, long loBound,
+                                      boolean loInclusive,
+                                      boolean toEnd, long hiBound,
+                                      boolean hiInclusive,
+                                      boolean descending) {
+        if (!fromStart && !toEnd && loBound > hiBound)
+            throw new IllegalArgumentException("fromKey > toKey");
+        long l = Long.MIN_VALUE, h = Long.MAX_VALUE;
+        boolean empty = false;
+        if (!fromStart) {
+            if (loInclusive)
+                l = loBound;
+            else if (loBound != Long.MAX_VALUE)
+                l = loBound + 1;
+            else
+                empty = true;
+        }
+        if (!toEnd) {
+            if (hiInclusive)
+                h = hiBound;
+            else if (hiBound != Long.MIN_VALUE)
+                h = hiBound - 1;
+            else
+                empty = true;
+        }
+        this.store = store;
+        this.lo = empty ? 1L : l;
+        this.hi = empty ? 0L : h;
+        this.descending = descending;
+        this.fromStart = fromStart;
+        this.loBound = loBound;
+        this.loInclusive = loInclusive;
+        this.toEnd = toEnd;
+        this.hiBound = hiBound;
+        this.hiInclusive = hiInclusive;
+    }
+
+    /** Returns whether this map covers all keys. */
+    private boolean isFullRange() {
+        return lo == Long.MIN_VALUE && hi == Long.MAX_VALUE;
+    }
+
+    private boolean inRange(long k) {
+        return lo <= k && k <= hi;
+    }
+
+    /**
+     * Returns whether k lies within the bounds of this map, counting
+     * the bounds themselves as within if not inclusive, as the bound
+     * of a view of this map may be.
+     */
+    private boolean inRange(long k, boolean inclusive) {
+        return inclusive ? inRange(k) :
+            (fromStart || k >= loBound) && (toEnd || k <= hiBound);
+    }
+
+    private void checkKeyInRange(long k) {
+        if (!inRange(k))
+            throw new IllegalArgumentException("key out of range");
+    }
+
+    private static long keyOf(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        return ((Long) key).longValue();
+    }
+
+    /* ---------------- Range-restricted navigation -------------- */
+
+    /** Returns the least mapping in range. */
+    private Hit lowest() {
+        if (lo > hi)
+            return null;
+        Hit h = store.findNear(lo, GT|EQ);
+        return (h != null && h.key() <= hi) ? h : null;
+    }
+
+    /** Returns the greatest mapping in range. */
+    private Hit highest() {
+        if (lo > hi)
+            return null;
+        Hit h = store.findNear(hi, LT|EQ);
+        return (h != null && h.key() >= lo) ? h : null;
+    }
+
+    /**
+     * Returns the mapping in range nearest to k in the given relation,
+     * in this map's order.
+     */
+    private Hit near(long k, int rel) {
+        if (descending)
+            rel ^= LT;
+        if ((rel & LT) != 0) {
+            if (k > hi)
+                return highest();
+            Hit h = store.findNear(k, rel);
+            return (h != null && h.key() >= lo) ? h : null;
+        } else {
+            if (k < lo)
+                return lowest();
+            Hit h = store.findNear(k, rel);
+            return (h != null && h.key() <= hi) ? h : null;
+        }
+    }
+
+    private Hit first() {
+        return descending ? highest() : lowest();
+    }
+
+    private Hit last() {
+        return descending ? lowest() : highest();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Map.Entry<Long,V> entry(Hit h) {
+        return (h == null) ? null :
+            new AbstractMap.SimpleImmutableEntry<Long,V>(h.key(), (V) h.value());
+    }
+
+    private static Long key(Hit h) {
+        return (h == null) ? null : h.key();
+    }
+
+    private static long keyOrElse(Hit h, long other) {
+        return (h == null) ? other : h.key();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V value(Hit h) {
+        return (h == null) ? null : (V) h.value();
+    }
+
+    /**
+     * Removes and returns the first or last mapping in range, retrying
+     * if it is concurrently removed or changed.
+     */
+    private Map.Entry<Long,V> poll(boolean lowest) {
+        for (Hit h; (h = lowest ? lowest() : highest()) != null; ) {
+            if (store.remove(h.key(), h.value()) != null)
+                return entry(h);
+        }
+        return null;
+    }
+
+    /* ---------------- Primitive key operations -------------- */
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if there is no mapping
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return inRange(key) ? (V) store.get(key) : null;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return inRange(key) && store.get(key) != null;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.  This method is named apart from {@link
+     * #put(Long, Object) put}, which a call with a primitive key and a
+     * value to be boxed would otherwise match as well.
+     *
+     * @param key the key
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key, or
+     *         {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified value is null
+     * @throws IllegalArgumentException if this is a view and the key is
+     *         out of its range
+     */
+    @SuppressWarnings("unchecked")
+    public V putLong(long key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        checkKeyInRange(key);
+        return (V) store.put(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  This is the primitive-key
+     * form of {@link #putIfAbsent(Long, Object) putIfAbsent}.
+     *
+     * @param key the key
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified value is null
+     * @throws IllegalArgumentException if this is a view and the key is
+     *         out of its range
+     */
+    @SuppressWarnings("unchecked")
+    public V putIfAbsentLong(long key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        checkKeyInRange(key);
+        return (V) store.put(key, value, true);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key the key
+     * @return the previous value associated with the specified key, or
+     *         {@code null} if there was no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        return inRange(key) ? (V) store.remove(key, null) : null;
+    }
+
+    /**
+     * Returns the value of the greatest key strictly less than the given
+     * key, or {@code null} if there is no such key.
+     *
+     * @param key the key
+     * @return the value of the greatest key less than {@code key},
+     *         or {@code null} if there is no such key
+     */
+    public V lowerValue(long key) {
+        return value(near(key, LT));
+    }
+
+    /**
+     * Returns the value of the greatest key less than or equal to the
+     * given key, or {@code null} if there is no such key.  For a map of
+     * timestamps, this is the value in effect at the given time.
+     *
+     * @param key the key
+     * @return the value of the greatest key less than or equal to
+     *         {@code key}, or {@code null} if there is no such key
+     */
+    public V floorValue(long key) {
+        return value(near(key, LT|EQ));
+    }
+
+    /**
+     * Returns the value of the least key greater than or equal to the
+     * given key, or {@code null} if there is no such key.
+     *
+     * @param key the key
+     * @return the value of the least key greater than or equal to
+     *         {@code key}, or {@code null} if there is no such key
+     */
+    public V ceilingValue(long key) {
+        return value(near(key, GT|EQ));
+    }
+
+    /**
+     * Returns the value of the least key strictly greater than the given
+     * key, or {@code null} if there is no such key.
+     *
+     * @param key the key
+     * @return the value of the least key greater than {@code key},
+     *         or {@code null} if there is no such key
+     */
+    public V higherValue(long key) {
+        return value(near(key, GT));
+    }
+
+    /**
+     * Returns the greatest key strictly less than the given key, or
+     * {@code other} if there is no such key.
+     *
+     * @param key the key
+     * @param other the value to return if there is no such key
+     * @return the greatest key less than {@code key}, or {@code other}
+     */
+    public long lowerKeyOrElse(long key, long other) {
+        return keyOrElse(near(key, LT), other);
+    }
+
+    /**
+     * Returns the greatest key less than or equal to the given key, or
+     * {@code other} if there is no such key.
+     *
+     * @param key the key
+     * @param other the value to return if there is no such key
+     * @return the greatest key less than or equal to {@code key}, or
+     *         {@code other}
+     */
+    public long floorKeyOrElse(long key, long other) {
+        return keyOrElse(near(key, LT|EQ), other);
+    }
+
+    /**
+     * Returns the least key greater than or equal to the given key, or
+     * {@code other} if there is no such key.
+     *
+     * @param key the key
+     * @param other the value to return if there is no such key
+     * @return the least key greater than or equal to {@code key}, or
+     *         {@code other}
+     */
+    public long ceilingKeyOrElse(long key, long other) {
+        return keyOrElse(near(key, GT|EQ), other);
+    }
+
+    /**
+     * Returns the least key strictly greater than the given key, or
+     * {@code other} if there is no such key.
+     *
+     * @param key the key
+     * @param other the value to return if there is no such key
+     * @return the least key greater than {@code key}, or {@code other}
+     */
+    public long higherKeyOrElse(long key, long other) {
+        return keyOrElse(near(key, GT), other);
+    }
+
+    /**
+     * Returns the first (lowest) key in this map, or {@code other} if
+     * this map is empty.
+     *
+     * @param other the value to return if this map is empty
+     * @return the first key, or {@code other}
+     */
+    public long firstKeyOrElse(long other) {
+        return keyOrElse(first(), other);
+    }
+
+    /**
+     * Returns the last (highest) key in this map, or {@code other} if
+     * this map is empty.
+     *
+     * @param other the value to return if this map is empty
+     * @return the last key, or {@code other}
+     */
+    public long lastKeyOrElse(long other) {
+        return keyOrElse(last(), other);
+    }
+
+    /**
+     * Performs the given action for each mapping of this map whose key
+     * is in the range from {@code fromKey}, inclusive, to {@code toKey},
+     * exclusive, in this map's order, passing the value and the key.
+     * No entries are created and no keys are boxed.  The traversal is
+     * weakly consistent.
+     *
+     * @param fromKey low endpoint (inclusive) of the keys visited
+     * @param toKey high endpoint (exclusive) of the keys visited
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the action is null
+     */
+    public void forEachInRange(long fromKey, long toKey,
+                               ObjLongConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        if (!descending) {
+            if (fromKey >= toKey)
+                return;
+            forEachAscending(Math.max(fromKey, lo), Math.min(toKey - 1, hi),
+                             action);
+        } else {
+            if (fromKey <= toKey)
+                return;
+            forEachDescending(Math.max(toKey + 1, lo), Math.min(fromKey, hi),
+                              action);
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping of this map, in this
+     * map's order, passing the value and the key.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the action is null
+     */
+    public void forEachLong(ObjLongConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        if (descending)
+            forEachDescending(lo, hi, action);
+        else
+            forEachAscending(lo, hi, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEachAscending(long from, long to,
+                                  ObjLongConsumer<? super V> action) {
+        if (from > to)
+            return;
+        for (Hit h = store.findNear(from, GT|EQ); h != null; ) {
+            long[] ks = h.keys;
+            Object[] vs = h.vals;
+            int n = ks.length;
+            for (int i = h.index; i < n; ++i) {
+                long k = ks[i];
+                if (k > to)
+                    return;
+                action.accept((V) vs[i], k);
+            }
+            h = store.findNear(ks[n - 1], GT);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEachDescending(long from, long to,
+                                   ObjLongConsumer<? super V> action) {
+        if (from > to)
+            return;
+        for (Hit h = store.findNear(to, LT|EQ); h != null; ) {
+            long[] ks = h.keys;
+            Object[] vs = h.vals;
+            for (int i = h.index; i >= 0; --i) {
+                long k = ks[i];
+                if (k < from)
+                    return;
+                action.accept((V) vs[i], k);
+            }
+            h = store.findNear(ks[0], LT);
+        }
+    }
+
+    /* ---------------- Map operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.  If this map
+     * contains more than {@code Integer.MAX_VALUE} elements, it
+     * returns {@code Integer.MAX_VALUE}.
+     *
+     * <p>For a map, this method reads a counter; for a view, it
+     * traverses the mappings in range.
+     *
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        long n;
+        if (isFullRange())
+            n = store.count.sum();
+        else {
+            long[] c = new long[1];
+            forEachAscending(lo, hi, (v, k) -> ++c[0]);
+            n = c[0];
+        }
+        return (n < 0L) ? 0 : (n >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n;
+    }
+
+    public boolean isEmpty() {
+        return lowest() == null;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the specified key
+     * @throws ClassCastException if the specified key is not a {@code Long}
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        return containsKey(keyOf(key));
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @throws ClassCastException if the specified key is not a {@code Long}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        return get(keyOf(key));
+    }
+
+    public V getOrDefault(Object key, V defaultValue) {
+        V v;
+        return (v = get(keyOf(key))) == null ? defaultValue : v;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key, or
+     *         {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if this is a view and the key is
+     *         out of its range
+     */
+    public V put(Long key, V value) {
+        return putLong(keyOf(key), value);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key for which mapping should be removed
+     * @return the previous value associated with the specified key, or
+     *         {@code null} if there was no mapping for the key
+     * @throws ClassCastException if the specified key is not a {@code Long}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        return remove(keyOf(key));
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.  This operation requires time linear in the
+     * map size.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if a mapping to {@code value} exists;
+     *         {@code false} otherwise
+     * @throws NullPointerException if the specified value is null
+     */
+    public boolean containsValue(Object value) {
+        if (value == null)
+            throw new NullPointerException();
+        for (Hit h = lowest(); h != null; ) {
+            long[] ks = h.keys;
+            Object[] vs = h.vals;
+            int n = ks.length;
+            for (int i = h.index; i < n; ++i) {
+                if (ks[i] > hi)
+                    return false;
+                if (value.equals(vs[i]))
+                    return true;
+            }
+            h = store.findNear(ks[n - 1], GT);
+        }
+        return false;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        for (Hit h; (h = lowest()) != null; ) {
+            long[] ks = h.keys;
+            for (int i = h.index; i < ks.length && ks[i] <= hi; ++i)
+                store.remove(ks[i], null);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if this is a view and the key is
+     *         out of its range
+     */
+    public V putIfAbsent(Long key, V value) {
+        return putIfAbsentLong(keyOf(key), value);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws ClassCastException if the specified key is not a {@code Long}
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean remove(Object key, Object value) {
+        long k = keyOf(key);
+        return value != null && inRange(k) && store.remove(k, value) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public boolean replace(Long key, V oldValue, V newValue) {
+        long k = keyOf(key);
+        if (oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return inRange(k) && store.replace(k, oldValue, newValue) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    @SuppressWarnings("unchecked")
+    public V replace(Long key, V value) {
+        long k = keyOf(key);
+        if (value == null)
+            throw new NullPointerException();
+        return inRange(k) ? (V) store.replace(k, null, value) : null;
+    }
+
+    /* ---------------- SortedMap and NavigableMap operations -------------- */
+
+    /**
+     * Returns {@code null} for the map and its ascending views, which
+     * use the natural ordering of keys, and a reverse-order comparator
+     * for descending views.
+     */
+    public Comparator<? super Long> comparator() {
+        return descending ? Collections.reverseOrder() : null;
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public Long firstKey() {
+        Hit h = first();
+        if (h == null)
+            throw new NoSuchElementException();
+        return h.key();
+    }
+
+    /**
+     * @throws NoSuchElementException {@inheritDoc}
+     */
+    public Long lastKey() {
+        Hit h = last();
+        if (h == null)
+            throw new NoSuchElementException();
+        return h.key();
+    }
+
+    public Map.Entry<Long,V> firstEntry() {
+        return entry(first());
+    }
+
+    public Map.Entry<Long,V> lastEntry() {
+        return entry(last());
+    }
+
+    public Map.Entry<Long,V> pollFirstEntry() {
+        return poll(!descending);
+    }
+
+    public Map.Entry<Long,V> pollLastEntry() {
+        return poll(descending);
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Map.Entry<Long,V> lowerEntry(Long key) {
+        return entry(near(keyOf(key), LT));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Long lowerKey(Long key) {
+        return key(near(keyOf(key), LT));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Map.Entry<Long,V> floorEntry(Long key) {
+        return entry(near(keyOf(key), LT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Long floorKey(Long key) {
+        return key(near(keyOf(key), LT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Map.Entry<Long,V> ceilingEntry(Long key) {
+        return entry(near(keyOf(key), GT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Long ceilingKey(Long key) {
+        return key(near(keyOf(key), GT|EQ));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Map.Entry<Long,V> higherEntry(Long key) {
+        return entry(near(keyOf(key), GT));
+    }
+
+    /**
+     * @throws ClassCastException {@inheritDoc}
+     * @throws NullPointerException if the specified key is null
+     */
+    public Long higherKey(Long key) {
+        return key(near(keyOf(key), GT));
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} or {@code toKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentLongSkipListMap<V> subMap(Long fromKey,
+                                               boolean fromInclusive,
+                                               Long toKey,
+                                               boolean toInclusive) {
+        long f = keyOf(fromKey), t = keyOf(toKey);
+        if (!inRange(f, fromInclusive))
+            throw new IllegalArgumentException("fromKey out of range");
+        if (!inRange(t, toInclusive))
+            throw new IllegalArgumentException("toKey out of range");
+        return descending
+            ? new ConcurrentLongSkipListMap<V>(store, false, t, toInclusive,
+                                               false, f, fromInclusive, true)
+            : new ConcurrentLongSkipListMap<V>(store, false, f, fromInclusive,
+                                               false, t, toInclusive, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code toKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentLongSkipListMap<V> headMap(Long toKey, boolean inclusive) {
+        long t = keyOf(toKey);
+        if (!inRange(t, inclusive))
+            throw new IllegalArgumentException("toKey out of range");
+        return descending
+            ? new ConcurrentLongSkipListMap<V>(store, false, t, inclusive,
+                                               toEnd, hiBound, hiInclusive,
+                                               true)
+            : new ConcurrentLongSkipListMap<V>(store, fromStart, loBound,
+                                               loInclusive, false, t,
+                                               inclusive, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentLongSkipListMap<V> tailMap(Long fromKey, boolean inclusive) {
+        long f = keyOf(fromKey);
+        if (!inRange(f, inclusive))
+            throw new IllegalArgumentException("fromKey out of range");
+        return descending
+            ? new ConcurrentLongSkipListMap<V>(store, fromStart, loBound,
+                                               loInclusive, false, f,
+                                               inclusive, true)
+            : new ConcurrentLongSkipListMap<V>(store, false, f, inclusive,
+                                               toEnd, hiBound, hiInclusive,
+                                               false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} or {@code toKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentLongSkipListMap<V> subMap(Long fromKey, Long toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code toKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentLongSkipListMap<V> headMap(Long toKey) {
+        return headMap(toKey, false);
+    }
+
+    /**
+     * @throws ClassCastException       {@inheritDoc}
+     * @throws NullPointerException if {@code fromKey} is null
+     * @throws IllegalArgumentException {@inheritDoc}
+     */
+    public ConcurrentLongSkipListMap<V> tailMap(Long fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    public ConcurrentLongSkipListMap<V> descendingMap() {
+        ConcurrentLongSkipListMap<V> dm = descendingMap;
+        return (dm != null) ? dm : (descendingMap =
+            new ConcurrentLongSkipListMap<V>(store, fromStart, loBound,
+                                             loInclusive, toEnd, hiBound,
+                                             hiInclusive, !descending));
+    }
+
+    /**
+     * Returns a {@link NavigableSet} view of the keys contained in this
+     * map, in this map's order.  The set is backed by the map, and
+     * supports element removal but not addition.  Its iterator and
+     * spliterator are weakly consistent.
+     *
+     * @return a navigable set view of the keys in this map
+     */
+    public NavigableSet<Long> keySet() {
+        KeySet ks = keySet;
+        return (ks != null) ? ks : (keySet = new KeySet(this));
+    }
+
+    public NavigableSet<Long> navigableKeySet() {
+        return keySet();
+    }
+
+    public NavigableSet<Long> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this
+     * map, in the order of their keys.  The collection is backed by the
+     * map, and supports element removal but not addition.  Its iterator
+     * and spliterator are weakly consistent.
+     *
+     * @return a collection view of the values in this map
+     */
+    public Collection<V> values() {
+        Values<V> vs = values;
+        return (vs != null) ? vs : (values = new Values<V>(this));
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map,
+     * in the order of their keys.  The set is backed by the map, and
+     * supports element removal but not addition.  Its iterator and
+     * spliterator are weakly consistent, and its entries are snapshots
+     * that do not support {@code setValue}.
+     *
+     * @return a set view of the mappings in this map
+     */
+    public Set<Map.Entry<Long,V>> entrySet() {
+        EntrySet<V> es = entrySet;
+        return (es != null) ? es : (entrySet = new EntrySet<V>(this));
+    }
+
+    /* ---------------- Iterators -------------- */
+
+    /**
+     * Base of iterators, holding the arrays of the state containing the
+     * next mapping.  Within a state the iterator steps through the
+     * arrays; past its end it searches for the key following the last.
+     */
+    abstract class Iter<T> implements Iterator<T> {
+        long[] keys;            // null when exhausted
+        Object[] vals;
+        int index;
+        long lastKey;
+        Object lastValue;
+        boolean hasLast;
+
+        Iter() {
+            set(first());
+        }
+
+        private void set(Hit h) {
+            if (h == null)
+                keys = null;
+            else {
+                keys = h.keys;
+                vals = h.vals;
+                index = h.index;
+            }
+        }
+
+        public final boolean hasNext() {
+            return keys != null;
+        }
+
+        /** Advances past the next mapping, setting lastKey and lastValue. */
+        final void advance() {
+            long[] ks = keys;
+            if (ks == null)
+                throw new NoSuchElementException();
+            int i = index, j = descending ? i - 1 : i + 1;
+            lastKey = ks[i];
+            lastValue = vals[i];
+            hasLast = true;
+            if (j >= 0 && j < ks.length && inRange(ks[j]))
+                index = j;
+            else
+                set(near(lastKey, GT));
+        }
+
+        public final void remove() {
+            if (!hasLast)
+                throw new IllegalStateException();
+            hasLast = false;
+            store.remove(lastKey, null);
+        }
+    }
+
+    final class KeyIterator extends Iter<Long> {
+        public Long next() {
+            advance();
+            return lastKey;
+        }
+    }
+
+    final class ValueIterator extends Iter<V> {
+        @SuppressWarnings("unchecked")
+        public V next() {
+            advance();
+            return (V) lastValue;
+        }
+    }
+
+    final class EntryIterator extends Iter<Map.Entry<Long,V>> {
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Long,V> next() {
+            advance();
+            return new AbstractMap.SimpleImmutableEntry<Long,V>(lastKey, (V) lastValue);
+        }
+    }
+
+    Iterator<Long> keyIterator() {
+        return new KeyIterator();
+    }
+
+    Iterator<V> valueIterator() {
+        return new ValueIterator();
+    }
+
+    Iterator<Map.Entry<Long,V>> entryIterator() {
+        return new EntryIterator();
+    }
+
+    static final <E> List<E> toList(Collection<E> c) {
+        // Using size() here would be a pessimization.
+        ArrayList<E> list = new ArrayList<E>();
+        for (E e : c)
+            list.add(e);
+        return list;
+    }
+
+    static final class KeySet
+            extends AbstractSet<Long> implements NavigableSet<Long> {
+        final ConcurrentLongSkipListMap<?> m;
+
+        KeySet(ConcurrentLongSkipListMap<?> map) {
+            m = map;
+        }
+
+        public int size() {
+            return m.size();
+        }
+
+        public boolean isEmpty() {
+            return m.isEmpty();
+        }
+
+        public boolean contains(Object o) {
+            return m.containsKey(o);
+        }
+
+        public boolean remove(Object o) {
+            return m.remove(o) != null;
+        }
+
+        public void clear() {
+            m.clear();
+        }
+
+        public Long lower(Long e) {
+            return m.lowerKey(e);
+        }
+
+        public Long floor(Long e) {
+            return m.floorKey(e);
+        }
+
+        public Long ceiling(Long e) {
+            return m.ceilingKey(e);
+        }
+
+        public Long higher(Long e) {
+            return m.higherKey(e);
+        }
+
+        public Comparator<? super Long> comparator() {
+            return m.comparator();
+        }
+
+        public Long first() {
+            return m.firstKey();
+        }
+
+        public Long last() {
+            return m.lastKey();
+        }
+
+        public Long pollFirst() {
+            Map.Entry<Long, ?> e = m.pollFirstEntry();
+            return (e == null) ? null : e.getKey();
+        }
+
+        public Long pollLast() {
+            Map.Entry<Long, ?> e = m.pollLastEntry();
+            return (e == null) ? null : e.getKey();
+        }
+
+        public Iterator<Long> iterator() {
+            return m.keyIterator();
+        }
+
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (!(o instanceof Set))
+                return false;
+            Collection<?> c = (Collection<?>) o;
+            try {
+                return containsAll(c) && c.containsAll(this);
+            } catch (ClassCastException unused) {
+                return false;
+            } catch (NullPointerException unused) {
+                return false;
+            }
+        }
+
+        public Object[] toArray() {
+            return toList(this).toArray();
+        }
+
+        public <T> T[] toArray(T[] a) {
+            return toList(this).toArray(a);
+        }
+
+        public Iterator<Long> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        public NavigableSet<Long> subSet(Long fromElement,
+                                         boolean fromInclusive,
+                                         Long toElement,
+                                         boolean toInclusive) {
+            return new KeySet(m.subMap(fromElement, fromInclusive,
+                                       toElement, toInclusive));
+        }
+
+        public NavigableSet<Long> headSet(Long toElement, boolean inclusive) {
+            return new KeySet(m.headMap(toElement, inclusive));
+        }
+
+        public NavigableSet<Long> tailSet(Long fromElement, boolean inclusive) {
+            return new KeySet(m.tailMap(fromElement, inclusive));
+        }
+
+        public NavigableSet<Long> subSet(Long fromElement, Long toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        public NavigableSet<Long> headSet(Long toElement) {
+            return headSet(toElement, false);
+        }
+
+        public NavigableSet<Long> tailSet(Long fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+        public NavigableSet<Long> descendingSet() {
+            return new KeySet(m.descendingMap());
+        }
+
+        public Spliterator<Long> spliterator() {
+            return Spliterators.spliteratorUnknownSize(
+                m.keyIterator(),
+                Spliterator.CONCURRENT | Spliterator.DISTINCT |
+                Spliterator.NONNULL | Spliterator.ORDERED |
+                (m.descending ? 0 : Spliterator.SORTED));
+        }
+    }
+
+    static final class Values<E> extends AbstractCollection<E> {
+        final ConcurrentLongSkipListMap<E> m;
+
+        Values(ConcurrentLongSkipListMap<E> map) {
+            m = map;
+        }
+
+        public Iterator<E> iterator() {
+            return m.valueIterator();
+        }
+
+        public boolean isEmpty() {
+            return m.isEmpty();
+        }
+
+        public int size() {
+            return m.size();
+        }
+
+        public boolean contains(Object o) {
+            return m.containsValue(o);
+        }
+
+        public void clear() {
+            m.clear();
+        }
+
+        public Object[] toArray() {
+            return toList(this).toArray();
+        }
+
+        public <T> T[] toArray(T[] a) {
+            return toList(this).toArray(a);
+        }
+
+        public Spliterator<E> spliterator() {
+            return Spliterators.spliteratorUnknownSize(
+                m.valueIterator(),
+                Spliterator.CONCURRENT | Spliterator.NONNULL |
+                Spliterator.ORDERED);
+        }
+    }
+
+    static final class EntrySet<V1> extends AbstractSet<Map.Entry<Long,V1>> {
+        final ConcurrentLongSkipListMap<V1> m;
+
+        EntrySet(ConcurrentLongSkipListMap<V1> map) {
+            m = map;
+        }
+
+        public Iterator<Map.Entry<Long,V1>> iterator() {
+            return m.entryIterator();
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object k = e.getKey();
+            if (!(k instanceof Long))
+                return false;
+            V1 v = m.get(((Long) k).longValue());
+            return v != null && v.equals(e.getValue());
+        }
+
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object k = e.getKey();
+            return (k instanceof Long) && m.remove(k, e.getValue());
+        }
+
+        public boolean isEmpty() {
+            return m.isEmpty();
+        }
+
+        public int size() {
+            return m.size();
+        }
+
+        public void clear() {
+            m.clear();
+        }
+
+        public boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (!(o instanceof Set))
+                return false;
+            Collection<?> c = (Collection<?>) o;
+            try {
+                return containsAll(c) && c.containsAll(this);
+            } catch (ClassCastException unused) {
+                return false;
+            } catch (NullPointerException unused) {
+                return false;
+            }
+        }
+
+        public Object[] toArray() {
+            return toList(this).toArray();
+        }
+
+        public <T> T[] toArray(T[] a) {
+            return toList(this).toArray(a);
+        }
+
+        public Spliterator<Map.Entry<Long,V1>> spliterator() {
+            return Spliterators.spliteratorUnknownSize(
+                m.entryIterator(),
+                Spliterator.CONCURRENT | Spliterator.DISTINCT |
+                Spliterator.NONNULL | Spliterator.ORDERED);
+        }
+    }
+
+    /* ---------------- Cloning and serialization -------------- */
+
+    /**
+     * Returns a shallow copy of this map, holding the mappings of this
+     * map or view.  (The values themselves are not cloned.)
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongSkipListMap<V> clone() {
+        try {
+            ConcurrentLongSkipListMap<V> clone =
+                (ConcurrentLongSkipListMap<V>) super.clone();
+            clone.store = new Store();
+            clone.keySet = null;
+            clone.entrySet = null;
+            clone.values = null;
+            clone.descendingMap = null;
+            forEachAscending(lo, hi, (v, k) -> clone.store.put(k, v, false));
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new InternalError();
+        }
+    }
+
+    /**
+     * Saves this map to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData The range of keys and order of this map, followed by
+     * the value (Object) and key (long) of each mapping in ascending key
+     * order, followed by {@code null}.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        for (Hit h = lowest(); h != null; ) {
+            long[] ks = h.keys;
+            Object[] vs = h.vals;
+            int i = h.index, n = ks.length;
+            for (; i < n && ks[i] <= hi; ++i) {
+                s.writeObject(vs[i]);
+                s.writeLong(ks[i]);
+            }
+            h = (i < n) ? null : store.findNear(ks[n - 1], GT);
+        }
+        s.writeObject(null);
+    }
+
+    /**
+     * Reconstitutes this map from a stream (that is, deserializes it).
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        store = new Store();
+        for (Object v; (v = s.readObject()) != null; ) {
+            long k = s.readLong();
+            if (!inRange(k))
+                throw new java.io.InvalidObjectException("key out of range");
+            store.put(k, v, false);
+        }
+    }
+}
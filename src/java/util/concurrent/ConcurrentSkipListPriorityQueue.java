@@ -0,0 +1,559 @@
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An unbounded {@linkplain BlockingQueue blocking queue} that uses the
+ * same ordering rules as {@link PriorityBlockingQueue}, but whose
+ * insertion and retrieval operations do not share a lock.
+ *
+ * <p>Elements are held in a {@link ConcurrentSkipListMap}, so
+ * {@code offer}, {@code poll} and {@code peek} are lock-free and take
+ * expected {@code O(log n)} time; many producers and consumers may
+ * operate at once, contending only on the first node of the list when
+ * removing.  A lock is taken only by consumers that find the queue
+ * empty and must wait, and by a producer when such consumers exist.
+ * Equal elements are retrieved in the order in which they were
+ * inserted.
+ *
+ * <p>As for {@link ConcurrentSkipListSet}, the {@code size} method is
+ * <em>not</em> a constant-time operation, and may be inaccurate if the
+ * queue is modified during traversal; bulk operations are not atomic.
+ * The iterator and spliterator are <i>weakly consistent</i> and, unlike
+ * those of {@code PriorityBlockingQueue}, traverse the elements in
+ * priority order.
+ *
+ * <p>This queue does not permit {@code null} elements, nor, when relying
+ * on natural ordering, insertion of non-comparable objects.
+ *
+ * <p>Memory consistency effects: As with other concurrent collections,
+ * actions in a thread prior to placing an object into a queue
+ * <a href="package-summary.html#MemoryVisibility"><i>happen-before</i></a>
+ * actions subsequent to the access or removal of that element from the
+ * queue in another thread.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see PriorityBlockingQueue
+ * @since 1.8
+ */
+public class ConcurrentSkipListPriorityQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E>, java.io.Serializable {
+    private static final long serialVersionUID = -3260715437806386409L;
+
+    /**
+     * An element of the queue, made distinct from equal elements by its
+     * insertion sequence number.
+     */
+    static final class Item<E> {
+        final E element;
+        final long seq;
+
+        Item(E element, long seq) {
+            this.element = element;
+            this.seq = seq;
+        }
+    }
+
+    /** The comparator, or null if priority queue uses natural ordering. */
+    private final Comparator<? super E> comparator;
+
+    /** The elements, as the keys of the map. */
+    private transient ConcurrentSkipListMap<Item<E>,Boolean> map;
+
+    /** Sequence number to break ties FIFO */
+    private transient AtomicLong sequencer;
+
+    /** Lock used only for waiting for elements */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Condition for waiting takes */
+    private final Condition notEmpty = lock.newCondition();
+
+    /**
+     * The number of threads waiting in notEmpty, written only under
+     * lock.  A producer that inserts an element and then sees zero
+     * waiters need not signal: a consumer increments the count before
+     * it checks the map a last time, so it either sees the element or
+     * is seen by the producer.
+     */
+    private transient volatile int waiters;
+
+    /**
+     * Creates a {@code ConcurrentSkipListPriorityQueue} that orders its
+     * elements according to their {@linkplain Comparable natural
+     * ordering}.
+     */
+    public ConcurrentSkipListPriorityQueue() {
+        this((Comparator<? super E>) null);
+    }
+
+    /**
+     * Creates a {@code ConcurrentSkipListPriorityQueue} whose elements
+     * are ordered according to the specified comparator.
+     *
+     * @param comparator the comparator that will be used to order this
+     *        priority queue.  If {@code null}, the {@linkplain Comparable
+     *        natural ordering} of the elements will be used.
+     */
+    public ConcurrentSkipListPriorityQueue(Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        initialize();
+    }
+
+    /**
+     * Creates a {@code ConcurrentSkipListPriorityQueue} containing the
+     * elements in the specified collection, ordered by the comparator of
+     * the collection if it is a {@link java.util.SortedSet} or a
+     * priority queue, and otherwise by natural ordering.
+     *
+     * @param c the collection whose elements are to be placed
+     *        into this priority queue
+     * @throws ClassCastException if elements of the specified collection
+     *         cannot be compared to one another according to the priority
+     *         queue's ordering
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentSkipListPriorityQueue(Collection<? extends E> c) {
+        Comparator<? super E> cmp = null;
+        if (c instanceof java.util.SortedSet<?>)
+            cmp = ((java.util.SortedSet<E>) c).comparator();
+        else if (c instanceof java.util.PriorityQueue<?>)
+            cmp = ((java.util.PriorityQueue<E>) c).comparator();
+        else if (c instanceof PriorityBlockingQueue<?>)
+            cmp = ((PriorityBlockingQueue<E>) c).comparator();
+        else if (c instanceof ConcurrentSkipListPriorityQueue<?>)
+            cmp = ((ConcurrentSkipListPriorityQueue<E>) c).comparator();
+        this.comparator = cmp;
+        initialize();
+        for (E e : c)
+            enqueue(e);
+    }
+
+    private void initialize() {
+        final Comparator<? super E> cmp = comparator;
+        sequencer = new AtomicLong();
+        map = new ConcurrentSkipListMap<Item<E>,Boolean>((a, b) -> {
+            @SuppressWarnings("unchecked")
+            int c = (cmp == null)
+                ? ((Comparable<? super E>) a.element).compareTo(b.element)
+                : cmp.compare(a.element, b.element);
+            return (c != 0) ? c : Long.compare(a.seq, b.seq);
+        });
+    }
+
+    /**
+     * Inserts e without signalling.
+     */
+    private void enqueue(E e) {
+        if (e == null)
+            throw new NullPointerException();
+        if (comparator == null && !(e instanceof Comparable))
+            throw new ClassCastException(e.getClass().getName());
+        map.put(new Item<E>(e, sequencer.getAndIncrement()), Boolean.TRUE);
+    }
+
+    /**
+     * Wakes a waiting consumer, if there is one.
+     */
+    private void signalNotEmpty() {
+        if (waiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     *
+     * @param e the element to add
+     * @return {@code true} (as specified by {@link Collection#add})
+     * @throws ClassCastException if the specified element cannot be compared
+     *         with elements currently in the priority queue according to the
+     *         priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean add(E e) {
+        return offer(e);
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     * As the queue is unbounded, this method will never return
+     * {@code false}.
+     *
+     * @param e the element to add
+     * @return {@code true} (as specified by {@link java.util.Queue#offer})
+     * @throws ClassCastException if the specified element cannot be compared
+     *         with elements currently in the priority queue according to the
+     *         priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        enqueue(e);
+        signalNotEmpty();
+        return true;
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     * As the queue is unbounded, this method will never block.
+     *
+     * @param e the element to add
+     * @throws ClassCastException if the specified element cannot be compared
+     *         with elements currently in the priority queue according to the
+     *         priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public void put(E e) {
+        offer(e); // never need to block
+    }
+
+    /**
+     * Inserts the specified element into this priority queue.
+     * As the queue is unbounded, this method will never block or
+     * return {@code false}.
+     *
+     * @param e the element to add
+     * @param timeout This parameter is ignored as the method never blocks
+     * @param unit This parameter is ignored as the method never blocks
+     * @return {@code true} (as specified by
+     *  {@link BlockingQueue#offer(Object,long,TimeUnit) BlockingQueue.offer})
+     * @throws ClassCastException if the specified element cannot be compared
+     *         with elements currently in the priority queue according to the
+     *         priority queue's ordering
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e); // never need to block
+    }
+
+    /**
+     * Inserts all elements of the collection, signalling waiting
+     * consumers once for the whole batch.
+     *
+     * @return the number of elements inserted
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null; elements before a null one remain inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        try {
+            for (E e : c) {
+                enqueue(e);
+                ++n;
+            }
+        } finally {
+            if (n > 0)
+                signalAllNotEmpty();
+        }
+        return n;
+    }
+
+    /**
+     * Inserts all elements of the collection.  As the queue is
+     * unbounded, this method never blocks.
+     *
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null; elements before a null one remain inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public void putAll(Collection<? extends E> c) {
+        offerAll(c);
+    }
+
+    private void signalAllNotEmpty() {
+        if (waiters > 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public E poll() {
+        Map.Entry<Item<E>,Boolean> e = map.pollFirstEntry();
+        return (e == null) ? null : e.getKey().element;
+    }
+
+    public E take() throws InterruptedException {
+        E x = poll();
+        if (x != null)
+            return x;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            waiters++;
+            try {
+                while ((x = poll()) == null)
+                    notEmpty.await();
+            } catch (InterruptedException ie) {
+                passSignal();
+                throw ie;
+            } finally {
+                waiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return x;
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E x = poll();
+        if (x != null)
+            return x;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            waiters++;
+            try {
+                while ((x = poll()) == null && nanos > 0)
+                    nanos = notEmpty.awaitNanos(nanos);
+                if (x == null)
+                    passSignal();
+            } catch (InterruptedException ie) {
+                passSignal();
+                throw ie;
+            } finally {
+                waiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return x;
+    }
+
+    /**
+     * Called with lock held by a consumer giving up its wait, which may
+     * have consumed a signal meant for an element it will not take.
+     */
+    private void passSignal() {
+        if (!map.isEmpty())
+            notEmpty.signal();
+    }
+
+    public E peek() {
+        Map.Entry<Item<E>,Boolean> e = map.firstEntry();
+        return (e == null) ? null : e.getKey().element;
+    }
+
+    /**
+     * Returns the comparator used to order the elements in this queue,
+     * or {@code null} if this queue uses the {@linkplain Comparable
+     * natural ordering} of its elements.
+     *
+     * @return the comparator used to order the elements in this queue,
+     *         or {@code null} if this queue uses the natural
+     *         ordering of its elements
+     */
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Returns the number of elements in this queue.  If this queue
+     * contains more than {@code Integer.MAX_VALUE} elements, returns
+     * {@code Integer.MAX_VALUE}.
+     *
+     * <p>Beware that, unlike in most collections, this method is
+     * <em>NOT</em> a constant-time operation: it traverses the
+     * elements.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * Always returns {@code Integer.MAX_VALUE} because
+     * a {@code ConcurrentSkipListPriorityQueue} is not capacity
+     * constrained.
+     * @return {@code Integer.MAX_VALUE} always
+     */
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this queue,
+     * if it is present.  More formally, removes an element {@code e} such
+     * that {@code o.equals(e)}, if this queue contains one or more such
+     * elements.  This method traverses the queue.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        if (o != null) {
+            for (Item<E> k : map.keySet()) {
+                if (o.equals(k.element) && map.remove(k) != null)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     * More formally, returns {@code true} if and only if this queue contains
+     * at least one element {@code e} such that {@code o.equals(e)}.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (Item<E> k : map.keySet())
+                if (o.equals(k.element))
+                    return true;
+        }
+        return false;
+    }
+
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        for (E e; n < maxElements && (e = poll()) != null; ++n)
+            c.add(e);
+        return n;
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue,
+     * in priority order.
+     *
+     * @return an array containing all of the elements in this queue
+     */
+    public Object[] toArray() {
+        ArrayList<E> list = new ArrayList<E>();
+        for (Item<E> k : map.keySet())
+            list.add(k.element);
+        return list.toArray();
+    }
+
+    public <T> T[] toArray(T[] a) {
+        ArrayList<E> list = new ArrayList<E>();
+        for (Item<E> k : map.keySet())
+            list.add(k.element);
+        return list.toArray(a);
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue, in priority
+     * order.  The iterator is <i>weakly consistent</i>.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new Itr<E>(map.keySet().iterator());
+    }
+
+    static final class Itr<E> implements Iterator<E> {
+        final Iterator<Item<E>> it;
+        Itr(Iterator<Item<E>> it) { this.it = it; }
+        public boolean hasNext() { return it.hasNext(); }
+        public E next() { return it.next().element; }
+        public void remove() { it.remove(); }
+    }
+
+    /**
+     * Returns a {@link Spliterator} over the elements in this queue, in
+     * priority order.  The spliterator is <i>weakly consistent</i>.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#CONCURRENT},
+     * {@link Spliterator#NONNULL} and {@link Spliterator#ORDERED}.
+     *
+     * @return a {@code Spliterator} over the elements in this queue
+     */
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliteratorUnknownSize(
+            iterator(),
+            Spliterator.CONCURRENT | Spliterator.NONNULL | Spliterator.ORDERED);
+    }
+
+    /**
+     * Saves this queue to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData The comparator, followed by each element (Object) in
+     * priority order, followed by {@code null}.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        for (Item<E> k : map.keySet())
+            s.writeObject(k.element);
+        s.writeObject(null);
+    }
+
+    /**
+     * Reconstitutes this queue from a stream (that is, deserializes it).
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        initialize();
+        for (E e; (e = (E) s.readObject()) != null; )
+            enqueue(e);
+    }
+}
@@ -0,0 +1,888 @@
+package java.util.concurrent;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+/**
+ * A thread-safe {@link Map} in which all mutative operations produce a
+ * new version of the map, as {@link CopyOnWriteArrayList} does for a
+ * list, but share all of the old version other than the path to the
+ * changed mapping.
+ *
+ * <p>The mappings are held in a persistent hash array mapped trie: each
+ * node covers five bits of the keys' hashes and holds a 32-bit bitmap of
+ * the occupied slots and a compact array of only those slots, each a
+ * mapping or a child node.  Keys whose full hashes collide share a
+ * collision node.  Lookups visit, and updates copy, one node per five
+ * bits of hash consumed, so an update costs {@code O(log32 n)} rather
+ * than the {@code O(n)} of copying a table.
+ *
+ * <p>Mutations are serialized by a lock and publish the new version
+ * through a single volatile reference; reads, including {@link #get get},
+ * never block.  As for {@code CopyOnWriteArrayList}, iterators and
+ * spliterators of the collection views traverse the version current when
+ * they were created, and never throw
+ * {@link java.util.ConcurrentModificationException}.  Their
+ * {@code remove} method removes the last returned key from the map.
+ * The {@code setValue} method of entries is not supported.
+ *
+ * <p>Like {@link ConcurrentHashMap}, this class does <em>not</em> allow
+ * {@code null} to be used as a key or value.  Memory consistency effects:
+ * actions in a thread prior to placing an object into the map
+ * <a href="package-summary.html#MemoryVisibility"><i>happen-before</i></a>
+ * actions subsequent to the access or removal of that object from the map
+ * in another thread.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see CopyOnWriteTreeList
+ * @see ConcurrentHashMap
+ * @since 1.8
+ */
+public class CopyOnWriteHashTrieMap<K,V> extends AbstractMap<K,V>
+        implements ConcurrentMap<K,V>, Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = 4185240549932384312L;
+
+    /*
+     * Overview:
+     *
+     * A version of the map is an immutable Trie holding the root node
+     * and the number of mappings.  A BitmapNode at depth d indexes
+     * bits [5d, 5d+5) of the spread hash: bit b of its bitmap is set if
+     * slot b is occupied, and the slot's position in the compact array
+     * is the number of lower set bits.  Each occupied slot takes two
+     * array elements: a key and its value, or null and a child node.
+     * A CollisionNode holds the key/value pairs of keys with equal
+     * spread hashes, once all hash bits are consumed or when two such
+     * keys meet at any depth.
+     *
+     * Updates return a new node, or the same node if nothing changed,
+     * copying only the nodes on the path.  A removal that leaves a
+     * BitmapNode with a single mapping and no children returns it to
+     * the parent in place of the node ("canonical" collapse), so the
+     * trie stays no deeper than its keys require.
+     */
+
+    /** Bits of hash consumed per level. */
+    static final int BITS = 5;
+
+    /** The mask for the slot index at one level. */
+    static final int MASK = (1 << BITS) - 1;
+
+    /** The lock protecting all mutators */
+    final transient ReentrantLock lock = new ReentrantLock();
+
+    /** The current version, accessed only via getTrie/setTrie. */
+    private transient volatile Trie trie;
+
+    final Trie getTrie() {
+        return trie;
+    }
+
+    final void setTrie(Trie t) {
+        trie = t;
+    }
+
+    // views
+    private transient KeySetView<K,V> keySet;
+    private transient ValuesView<K,V> values;
+    private transient EntrySetView<K,V> entrySet;
+
+    /**
+     * Creates a new, empty map.
+     */
+    public CopyOnWriteHashTrieMap() {
+        setTrie(Trie.EMPTY);
+    }
+
+    /**
+     * Creates a new map with the same mappings as the given map.
+     *
+     * @param m the map
+     * @throws NullPointerException if the specified map, or any of its
+     *         keys or values, is null
+     */
+    public CopyOnWriteHashTrieMap(Map<? extends K, ? extends V> m) {
+        if (m instanceof CopyOnWriteHashTrieMap)
+            setTrie(((CopyOnWriteHashTrieMap<?,?>) m).getTrie());
+        else {
+            setTrie(Trie.EMPTY);
+            putAll(m);
+        }
+    }
+
+    /**
+     * Spreads higher bits of the hash into the lower ones, which index
+     * the first levels, as in {@link java.util.HashMap#hash}.
+     */
+    static final int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * Records whether an insertion added a mapping rather than
+     * replacing a value, or a removal found its key.
+     */
+    static final class Delta {
+        boolean sizeChanged;
+    }
+
+    abstract static class Node {
+        abstract Object find(int shift, int hash, Object key);
+        abstract Node put(int shift, int hash, Object key, Object value,
+                          Delta d);
+        abstract Node remove(int shift, int hash, Object key, Delta d);
+        /** Calls action for each mapping. */
+        abstract void forEach(BiConsumer<Object,Object> action);
+    }
+
+    static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] array; // key, value or null, child
+
+        BitmapNode(int bitmap, Object[] array) {
+            this.bitmap = bitmap; this.array = array;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        Object find(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0)
+                return null;
+            int i = index(bit) << 1;
+            Object k = array[i], v = array[i + 1];
+            if (k == null)
+                return ((Node) v).find(shift + BITS, hash, key);
+            return (k == key || k.equals(key)) ? v : null;
+        }
+
+        Node put(int shift, int hash, Object key, Object value, Delta d) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = index(bit) << 1;
+            Object[] a = array;
+            if ((bitmap & bit) == 0) {
+                Object[] r = new Object[a.length + 2];
+                System.arraycopy(a, 0, r, 0, i);
+                r[i] = key;
+                r[i + 1] = value;
+                System.arraycopy(a, i, r, i + 2, a.length - i);
+                d.sizeChanged = true;
+                return new BitmapNode(bitmap | bit, r);
+            }
+            Object k = a[i], v = a[i + 1];
+            Object nv;
+            if (k == null) {
+                Node c = (Node) v, nc = c.put(shift + BITS, hash, key, value, d);
+                if (nc == c)
+                    return this;
+                nv = nc;
+            } else if (k == key || k.equals(key)) {
+                if (v == value)
+                    return this;
+                nv = value;
+            } else {
+                d.sizeChanged = true;
+                nv = pair(shift + BITS, spread(k.hashCode()), k, v,
+                          hash, key, value);
+                k = null;
+            }
+            Object[] r = a.clone();
+            r[i] = k;
+            r[i + 1] = nv;
+            return new BitmapNode(bitmap, r);
+        }
+
+        Node remove(int shift, int hash, Object key, Delta d) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0)
+                return this;
+            int i = index(bit) << 1;
+            Object[] a = array;
+            Object k = a[i], v = a[i + 1];
+            if (k == null) {
+                Node c = (Node) v, nc = c.remove(shift + BITS, hash, key, d);
+                if (nc == c)
+                    return this;
+                if (nc instanceof BitmapNode &&
+                    ((BitmapNode) nc).isSingleMapping()) {
+                    // pull a lone mapping up into this node
+                    Object[] r = a.clone();
+                    r[i] = ((BitmapNode) nc).array[0];
+                    r[i + 1] = ((BitmapNode) nc).array[1];
+                    return new BitmapNode(bitmap, r);
+                }
+                Object[] r = a.clone();
+                r[i + 1] = nc;
+                return new BitmapNode(bitmap, r);
+            }
+            if (!(k == key || k.equals(key)))
+                return this;
+            d.sizeChanged = true;
+            if (bitmap == bit)
+                return EMPTY;
+            Object[] r = new Object[a.length - 2];
+            System.arraycopy(a, 0, r, 0, i);
+            System.arraycopy(a, i + 2, r, i, r.length - i);
+            return new BitmapNode(bitmap ^ bit, r);
+        }
+
+        boolean isSingleMapping() {
+            return array.length == 2 && array[0] != null;
+        }
+
+        void forEach(BiConsumer<Object,Object> action) {
+            Object[] a = array;
+            for (int i = 0; i < a.length; i += 2) {
+                if (a[i] == null)
+                    ((Node) a[i + 1]).forEach(action);
+                else
+                    action.accept(a[i], a[i + 1]);
+            }
+        }
+    }
+
+    static final class CollisionNode extends Node {
+        final int hash;
+        final Object[] array; // key, value pairs
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash; this.array = array;
+        }
+
+        int indexOf(Object key) {
+            Object[] a = array;
+            for (int i = 0; i < a.length; i += 2) {
+                Object k = a[i];
+                if (k == key || k.equals(key))
+                    return i;
+            }
+            return -1;
+        }
+
+        Object find(int shift, int hash, Object key) {
+            int i;
+            return (hash == this.hash && (i = indexOf(key)) >= 0)
+                ? array[i + 1] : null;
+        }
+
+        Node put(int shift, int hash, Object key, Object value, Delta d) {
+            if (hash != this.hash) {
+                // nest this node under a bitmap node at this level
+                d.sizeChanged = true;
+                int bit = 1 << ((this.hash >>> shift) & MASK);
+                return new BitmapNode(bit, new Object[] { null, this })
+                    .put(shift, hash, key, value, d);
+            }
+            int i = indexOf(key);
+            Object[] r;
+            if (i >= 0) {
+                if (array[i + 1] == value)
+                    return this;
+                r = array.clone();
+                r[i + 1] = value;
+            } else {
+                r = java.util.Arrays.copyOf(array, array.length + 2);
+                r[array.length] = key;
+                r[array.length + 1] = value;
+                d.sizeChanged = true;
+            }
+            return new CollisionNode(hash, r);
+        }
+
+        Node remove(int shift, int hash, Object key, Delta d) {
+            int i;
+            if (hash != this.hash || (i = indexOf(key)) < 0)
+                return this;
+            d.sizeChanged = true;
+            Object[] a = array;
+            if (a.length == 4) // one mapping left: return it as a bitmap node
+                return new BitmapNode(1 << ((hash >>> shift) & MASK),
+                                      new Object[] { a[2 - i], a[3 - i] });
+            Object[] r = new Object[a.length - 2];
+            System.arraycopy(a, 0, r, 0, i);
+            System.arraycopy(a, i + 2, r, i, r.length - i);
+            return new CollisionNode(hash, r);
+        }
+
+        void forEach(BiConsumer<Object,Object> action) {
+            Object[] a = array;
+            for (int i = 0; i < a.length; i += 2)
+                action.accept(a[i], a[i + 1]);
+        }
+    }
+
+    /**
+     * Returns a node at the given shift holding two mappings of distinct
+     * keys.
+     */
+    static Node pair(int shift, int h1, Object k1, Object v1,
+                     int h2, Object k2, Object v2) {
+        if (h1 == h2)
+            return new CollisionNode(h1, new Object[] { k1, v1, k2, v2 });
+        if (shift >= Integer.SIZE) // cannot happen: distinct hashes differ
+            throw new AssertionError();
+        int b1 = (h1 >>> shift) & MASK, b2 = (h2 >>> shift) & MASK;
+        if (b1 == b2)
+            return new BitmapNode(1 << b1, new Object[] {
+                    null, pair(shift + BITS, h1, k1, v1, h2, k2, v2) });
+        return new BitmapNode((1 << b1) | (1 << b2), (b1 < b2)
+                              ? new Object[] { k1, v1, k2, v2 }
+                              : new Object[] { k2, v2, k1, v1 });
+    }
+
+    /**
+     * An immutable version of the map.
+     */
+    static final class Trie {
+        static final Trie EMPTY = new Trie(BitmapNode.EMPTY, 0);
+
+        final Node root;
+        final int size;
+
+        Trie(Node root, int size) {
+            this.root = root; this.size = size;
+        }
+
+        Object get(Object key) {
+            return root.find(0, spread(key.hashCode()), key);
+        }
+
+        /** Returns the updated trie, or this one if unchanged. */
+        Trie put(Object key, Object value) {
+            Delta d = new Delta();
+            Node r = root.put(0, spread(key.hashCode()), key, value, d);
+            return (r == root) ? this
+                : new Trie(r, d.sizeChanged ? size + 1 : size);
+        }
+
+        /** Returns the updated trie, or this one if unchanged. */
+        Trie remove(Object key) {
+            Delta d = new Delta();
+            Node r = root.remove(0, spread(key.hashCode()), key, d);
+            return (r == root) ? this : new Trie(r, size - 1);
+        }
+    }
+
+    /* ---------------- Reads -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return getTrie().size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        return (V) getTrie().get(key);
+    }
+
+    /**
+     * Tests if the specified object is a key in this map.
+     *
+     * @param  key possible key
+     * @return {@code true} if and only if the specified object
+     *         is a key in this map, as determined by the
+     *         {@code equals} method; {@code false} otherwise
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        return getTrie().get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        Object v;
+        return (v = getTrie().get(key)) == null ? defaultValue : (V) v;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) throw new NullPointerException();
+        getTrie().root.forEach((BiConsumer<Object,Object>) action);
+    }
+
+    /* ---------------- Mutations -------------- */
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     * Neither the key nor the value can be null.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V put(K key, V value) {
+        return put(key, value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return put(key, value, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V put(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null) throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = getTrie();
+            Object old = t.get(key);
+            if (old == null || !onlyIfAbsent)
+                setTrie(t.put(key, value));
+            return (V) old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this one.
+     * These mappings replace any mappings that this map had for any of the
+     * keys currently in the specified map.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map, or any of its
+     *         keys or values, is null
+     */
+    public void putAll(Map<? extends K, ? extends V> m) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = getTrie();
+            for (Map.Entry<? extends K, ? extends V> e : m.entrySet()) {
+                K k; V v;
+                if ((k = e.getKey()) == null || (v = e.getValue()) == null)
+                    throw new NullPointerException();
+                t = t.put(k, v);
+            }
+            setTrie(t);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (key == null) throw new NullPointerException();
+        if (getTrie().get(key) == null)
+            return null;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = getTrie();
+            Object old = t.get(key);
+            if (old != null)
+                setTrie(t.remove(key));
+            return (V) old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean remove(Object key, Object value) {
+        if (key == null) throw new NullPointerException();
+        if (value == null)
+            return false;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = getTrie();
+            if (!value.equals(t.get(key)))
+                return false;
+            setTrie(t.remove(key));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = getTrie();
+            if (!oldValue.equals(t.get(key)))
+                return false;
+            setTrie(t.put(key, newValue));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Trie t = getTrie();
+            Object old = t.get(key);
+            if (old != null)
+                setTrie(t.put(key, value));
+            return (V) old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            setTrie(Trie.EMPTY);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map.  The
+     * set is backed by the map; its iterator and spliterator traverse
+     * the keys of the map as of their creation.
+     *
+     * @return the set view
+     */
+    public Set<K> keySet() {
+        KeySetView<K,V> ks;
+        return (ks = keySet) != null ? ks : (keySet = new KeySetView<K,V>(this));
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this
+     * map.  The collection is backed by the map; its iterator and
+     * spliterator traverse the values of the map as of their creation.
+     *
+     * @return the collection view
+     */
+    public Collection<V> values() {
+        ValuesView<K,V> vs;
+        return (vs = values) != null ? vs : (values = new ValuesView<K,V>(this));
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map; its iterator and spliterator
+     * traverse the mappings of the map as of their creation.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        EntrySetView<K,V> es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySetView<K,V>(this));
+    }
+
+    /**
+     * Iterates over the mappings of one version of the map, keeping a
+     * stack of the nodes being traversed and the position in each.
+     */
+    abstract static class TrieIterator<K,V,T> implements Iterator<T> {
+        final CopyOnWriteHashTrieMap<K,V> map;
+        private final Object[][] stack = new Object[Integer.SIZE / BITS + 2][];
+        private final int[] pos = new int[Integer.SIZE / BITS + 2];
+        private int depth;
+        private Object nextKey, nextValue;
+        private Object lastKey;
+
+        TrieIterator(CopyOnWriteHashTrieMap<K,V> map, Trie t) {
+            this.map = map;
+            push(t.root);
+            advance();
+        }
+
+        private void push(Node n) {
+            stack[depth] = (n instanceof BitmapNode)
+                ? ((BitmapNode) n).array : ((CollisionNode) n).array;
+            pos[depth++] = 0;
+        }
+
+        private void advance() {
+            while (depth > 0) {
+                Object[] a = stack[depth - 1];
+                int i = pos[depth - 1];
+                if (i >= a.length) {
+                    stack[--depth] = null;
+                    continue;
+                }
+                pos[depth - 1] = i + 2;
+                if (a[i] == null)
+                    push((Node) a[i + 1]);
+                else {
+                    nextKey = a[i];
+                    nextValue = a[i + 1];
+                    return;
+                }
+            }
+            nextKey = nextValue = null;
+        }
+
+        public final boolean hasNext() {
+            return nextKey != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public final T next() {
+            Object k = nextKey, v = nextValue;
+            if (k == null)
+                throw new NoSuchElementException();
+            lastKey = k;
+            advance();
+            return make((K) k, (V) v);
+        }
+
+        public final void remove() {
+            Object k = lastKey;
+            if (k == null)
+                throw new IllegalStateException();
+            lastKey = null;
+            map.remove(k);
+        }
+
+        abstract T make(K key, V value);
+    }
+
+    static final class KeySetView<K,V> extends AbstractSet<K> {
+        final CopyOnWriteHashTrieMap<K,V> map;
+        KeySetView(CopyOnWriteHashTrieMap<K,V> map) { this.map = map; }
+        public int size() { return map.size(); }
+        public void clear() { map.clear(); }
+        public boolean contains(Object o) { return map.containsKey(o); }
+        public boolean remove(Object o) { return map.remove(o) != null; }
+        public Iterator<K> iterator() {
+            return new TrieIterator<K,V,K>(map, map.getTrie()) {
+                K make(K key, V value) { return key; }
+            };
+        }
+        public Spliterator<K> spliterator() {
+            Trie t = map.getTrie();
+            return Spliterators.spliterator(
+                new TrieIterator<K,V,K>(map, t) {
+                    K make(K key, V value) { return key; }
+                }, t.size,
+                Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        }
+    }
+
+    static final class ValuesView<K,V> extends AbstractCollection<V> {
+        final CopyOnWriteHashTrieMap<K,V> map;
+        ValuesView(CopyOnWriteHashTrieMap<K,V> map) { this.map = map; }
+        public int size() { return map.size(); }
+        public void clear() { map.clear(); }
+        public boolean contains(Object o) { return map.containsValue(o); }
+        public Iterator<V> iterator() {
+            return new TrieIterator<K,V,V>(map, map.getTrie()) {
+                V make(K key, V value) { return value; }
+            };
+        }
+        public Spliterator<V> spliterator() {
+            Trie t = map.getTrie();
+            return Spliterators.spliterator(
+                new TrieIterator<K,V,V>(map, t) {
+                    V make(K key, V value) { return value; }
+                }, t.size, Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        }
+    }
+
+    static final class EntrySetView<K,V> extends AbstractSet<Map.Entry<K,V>> {
+        final CopyOnWriteHashTrieMap<K,V> map;
+        EntrySetView(CopyOnWriteHashTrieMap<K,V> map) { this.map = map; }
+        public int size() { return map.size(); }
+        public void clear() { map.clear(); }
+        public boolean contains(Object o) {
+            Object k, v, r; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (r = map.get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+        public boolean remove(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    map.remove(k, v));
+        }
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator<K,V>(map, map.getTrie());
+        }
+        public Spliterator<Map.Entry<K,V>> spliterator() {
+            Trie t = map.getTrie();
+            return Spliterators.spliterator(
+                new EntryIterator<K,V>(map, t), t.size,
+                Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        }
+    }
+
+    static final class EntryIterator<K,V>
+            extends TrieIterator<K,V,Map.Entry<K,V>> {
+        EntryIterator(CopyOnWriteHashTrieMap<K,V> map, Trie t) { super(map, t); }
+        Map.Entry<K,V> make(K key, V value) {
+            return new AbstractMap.SimpleImmutableEntry<K,V>(key, value);
+        }
+    }
+
+    /* ---------------- Cloning and serialization -------------- */
+
+    /**
+     * Returns a shallow copy of this map, sharing its current version.
+     * (The keys and values themselves are not cloned.)
+     *
+     * @return a clone of this map
+     */
+    @SuppressWarnings("unchecked")
+    public Object clone() {
+        try {
+            CopyOnWriteHashTrieMap<K,V> clone =
+                (CopyOnWriteHashTrieMap<K,V>) super.clone();
+            clone.resetLock();
+            clone.keySet = null;
+            clone.values = null;
+            clone.entrySet = null;
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError();
+        }
+    }
+
+    /**
+     * Saves the state of the map to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData the number of mappings (int), followed by the key
+     * (Object) and value (Object) for each mapping.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        Trie t = getTrie();
+        s.writeInt(t.size);
+        for (TrieIterator<K,V,Map.Entry<K,V>> it = new EntryIterator<K,V>(this, t);
+             it.hasNext(); ) {
+            Map.Entry<K,V> e = it.next();
+            s.writeObject(e.getKey());
+            s.writeObject(e.getValue());
+        }
+    }
+
+    /**
+     * Reconstitutes the map from a stream (that is, deserializes it).
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        resetLock();
+        int n = s.readInt();
+        if (n < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + n);
+        Trie t = Trie.EMPTY;
+        for (int i = 0; i < n; i++) {
+            Object k = s.readObject(), v = s.readObject();
+            if (k == null || v == null)
+                throw new java.io.InvalidObjectException("Null key or value");
+            t = t.put(k, v);
+        }
+        setTrie(t);
+    }
+
+    // Support for resetting lock while deserializing
+    private void resetLock() {
+        UNSAFE.putObjectVolatile(this, lockOffset, new ReentrantLock());
+    }
+    private static final sun.misc.Unsafe UNSAFE;
+    private static final long lockOffset;
+    static {
+        try {
+            UNSAFE = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = CopyOnWriteHashTrieMap.class;
+            lockOffset = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("lock"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,1247 @@
+package java.util.concurrent;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A thread-safe variant of {@link java.util.ArrayList} in which all
+ * mutative operations produce a new version of the list, as in
+ * {@link CopyOnWriteArrayList}, but share all of the old version other
+ * than the path to the changed position.
+ *
+ * <p>The elements are held in a persistent tree: leaves of up to 32
+ * elements under branches of up to 32 children, each branch recording
+ * the cumulative sizes of its children.  Reading, replacing, inserting
+ * or removing the element at an index copies or visits one node per
+ * level, so costs {@code O(log32 n)} rather than the {@code O(n)} array
+ * copy of {@code CopyOnWriteArrayList}.  Bulk operations such as
+ * {@link #removeIf removeIf}, {@link #sort sort} and
+ * {@link #retainAll retainAll} rebuild the tree in linear time.
+ *
+ * <p>Mutations are serialized by a lock and publish the new version
+ * through a single volatile reference; reads never block.  As in
+ * {@code CopyOnWriteArrayList}, the iterator, list iterator and
+ * spliterator traverse the version current when they were created,
+ * never throw {@link ConcurrentModificationException}, and do not
+ * support the element-changing operations {@code remove}, {@code set}
+ * and {@code add}.  Memory consistency effects are those of
+ * {@code CopyOnWriteArrayList}.  All elements, including {@code null},
+ * are permitted.
+ *
+ * @param <E> the type of elements held in this list
+ * @see CopyOnWriteArrayList
+ * @see CopyOnWriteHashTrieMap
+ * @since 1.8
+ */
+public class CopyOnWriteTreeList<E> extends AbstractList<E>
+        implements List<E>, RandomAccess, Cloneable, java.io.Serializable {
+    private static final long serialVersionUID = -6390425227213926406L;
+
+    /*
+     * Overview:
+     *
+     * A version of the list is an immutable Tree: a root node, the
+     * height of the tree and its size.  Leaves are Object[] arrays of
+     * exactly the elements they hold; branches are Branch nodes with
+     * an array of children and an array of cumulative child sizes.
+     * All leaves are at the same depth.  Nodes are never modified once
+     * published; an update copies the nodes on the path from the root
+     * to the affected leaf.
+     *
+     * Insertion splits a node that would exceed WIDTH entries into two
+     * halves, growing the tree at the root.  Removal drops empty nodes,
+     * merges a node holding fewer than WIDTH/2 entries into an adjacent
+     * sibling if their entries fit in one node, and collapses a root
+     * branch with a single child.  Sibling pairs thus keep at least
+     * half of WIDTH entries between them except at the edges, so the
+     * height stays logarithmic.
+     */
+
+    /** The maximum number of entries of a node. */
+    static final int WIDTH = 32;
+
+    /** The lock protecting all mutators */
+    final transient ReentrantLock lock = new ReentrantLock();
+
+    /** The current version, accessed only via getTree/setTree. */
+    private transient volatile Tree tree;
+
+    final Tree getTree() {
+        return tree;
+    }
+
+    final void setTree(Tree t) {
+        tree = t;
+    }
+
+    /**
+     * Creates an empty list.
+     */
+    public CopyOnWriteTreeList() {
+        setTree(Tree.EMPTY);
+    }
+
+    /**
+     * Creates a list containing the elements of the specified
+     * collection, in the order they are returned by the collection's
+     * iterator.
+     *
+     * @param c the collection of initially held elements
+     * @throws NullPointerException if the specified collection is null
+     */
+    public CopyOnWriteTreeList(Collection<? extends E> c) {
+        setTree((c instanceof CopyOnWriteTreeList)
+                ? ((CopyOnWriteTreeList<?>)c).getTree()
+                : Tree.build(c.toArray()));
+    }
+
+    /**
+     * Creates a list holding a copy of the given array.
+     *
+     * @param toCopyIn the array
+     * @throws NullPointerException if the specified array is null
+     */
+    public CopyOnWriteTreeList(E[] toCopyIn) {
+        setTree(Tree.build(toCopyIn));
+    }
+
+    /* ---------------- Versions -------------- */
+
+    /**
+     * A branch node: children and their cumulative sizes.
+     */
+    static final class Branch {
+        final Object[] kids;
+        final int[] ends; // ends[i] = total size of kids[0..i]
+        Branch(Object[] kids, int[] ends) {
+            this.kids = kids; this.ends = ends;
+        }
+        Branch(Object[] kids) {
+            this(kids, new int[kids.length]);
+            for (int i = 0, s = 0; i < kids.length; ++i)
+                ends[i] = s += sizeOf(kids[i]);
+        }
+        int size() {
+            return ends[ends.length - 1];
+        }
+        /** Returns the index of the child holding the element at index i. */
+        int childFor(int i) {
+            int[] e = ends;
+            int lo = 0, hi = e.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (e[mid] > i)
+                    hi = mid;
+                else
+                    lo = mid + 1;
+            }
+            return lo;
+        }
+    }
+
+    static int sizeOf(Object node) {
+        return (node instanceof Branch)
+            ? ((Branch) node).size() : ((Object[]) node).length;
+    }
+
+    static int entriesOf(Object node) {
+        return (node instanceof Branch)
+            ? ((Branch) node).kids.length : ((Object[]) node).length;
+    }
+
+    /**
+     * An immutable version of the list.
+     */
+    static final class Tree {
+        static final Object[] EMPTY_LEAF = new Object[0];
+        static final Tree EMPTY = new Tree(EMPTY_LEAF, 0, 0);
+
+        final Object root;
+        final int height, size;
+
+        Tree(Object root, int height, int size) {
+            this.root = root; this.height = height; this.size = size;
+        }
+
+        /** Builds a tree from the array, which is not retained. */
+        static Tree build(Object[] a) {
+            int n = a.length;
+            if (n == 0)
+                return EMPTY;
+            Object[] level = new Object[(n + WIDTH - 1) / WIDTH];
+            for (int i = 0, j = 0; i < n; i += WIDTH)
+                level[j++] = Arrays.copyOfRange(a, i, Math.min(n, i + WIDTH),
+                                                Object[].class);
+            int height = 0;
+            while (level.length > 1) {
+                Object[] up = new Object[(level.length + WIDTH - 1) / WIDTH];
+                for (int i = 0, j = 0; i < level.length; i += WIDTH)
+                    up[j++] = new Branch(Arrays.copyOfRange
+                                         (level, i, Math.min(level.length, i + WIDTH)));
+                level = up;
+                ++height;
+            }
+            return new Tree(level[0], height, n);
+        }
+
+        Object get(int index) {
+            Object node = root;
+            for (int h = height; h > 0; --h) {
+                Branch b = (Branch) node;
+                int i = b.childFor(index);
+                if (i > 0)
+                    index -= b.ends[i - 1];
+                node = b.kids[i];
+            }
+            return ((Object[]) node)[index];
+        }
+
+        Tree set(int index, Object e) {
+            return new Tree(set(root, height, index, e), height, size);
+        }
+
+        private static Object set(Object node, int h, int index, Object e) {
+            if (h == 0) {
+                Object[] leaf = ((Object[]) node).clone();
+                leaf[index] = e;
+                return leaf;
+            }
+            Branch b = (Branch) node;
+            int i = b.childFor(index);
+            Object[] kids = b.kids.clone();
+            kids[i] = set(kids[i], h - 1, (i > 0) ? index - b.ends[i - 1] : index, e);
+            return new Branch(kids, b.ends);
+        }
+
+        Tree insert(int index, Object e) {
+            Object[] r = insert(root, height, index, e);
+            return (r.length == 1)
+                ? new Tree(r[0], height, size + 1)
+                : new Tree(new Branch(r), height + 1, size + 1);
+        }
+
+        /**
+         * Returns the replacement for the node, or its two halves if it
+         * had to be split.
+         */
+        private static Object[] insert(Object node, int h, int index, Object e) {
+            Object[] entries;
+            if (h == 0) {
+                Object[] leaf = (Object[]) node;
+                entries = new Object[leaf.length + 1];
+                System.arraycopy(leaf, 0, entries, 0, index);
+                entries[index] = e;
+                System.arraycopy(leaf, index, entries, index + 1, leaf.length - index);
+            } else {
+                Branch b = (Branch) node;
+                int i = (index == b.size()) ? b.kids.length - 1 : b.childFor(index);
+                Object[] r = insert(b.kids[i], h - 1,
+                                    (i > 0) ? index - b.ends[i - 1] : index, e);
+                if (r.length == 1) {
+                    Object[] kids = b.kids.clone();
+                    int[] ends = b.ends.clone();
+                    kids[i] = r[0];
+                    for (int j = i; j < ends.length; ++j)
+                        ++ends[j];
+                    return new Object[] { new Branch(kids, ends) };
+                }
+                Object[] kids = b.kids;
+                entries = new Object[kids.length + 1];
+                System.arraycopy(kids, 0, entries, 0, i);
+                entries[i] = r[0];
+                entries[i + 1] = r[1];
+                System.arraycopy(kids, i + 1, entries, i + 2, kids.length - i - 1);
+            }
+            if (entries.length <= WIDTH)
+                return new Object[] { node(entries, h) };
+            int half = entries.length >>> 1;
+            return new Object[] {
+                node(Arrays.copyOfRange(entries, 0, half), h),
+                node(Arrays.copyOfRange(entries, half, entries.length), h)
+            };
+        }
+
+        private static Object node(Object[] entries, int h) {
+            return (h == 0) ? entries : new Branch(entries);
+        }
+
+        Tree remove(int index) {
+            if (size == 1)
+                return EMPTY;
+            Object root = remove(this.root, height, index);
+            int height = this.height;
+            while (height > 0 && ((Branch) root).kids.length == 1) {
+                root = ((Branch) root).kids[0];
+                --height;
+            }
+            return new Tree(root, height, size - 1);
+        }
+
+        /**
+         * Returns the replacement for the node, which may have no
+         * entries.
+         */
+        private static Object remove(Object node, int h, int index) {
+            if (h == 0) {
+                Object[] leaf = (Object[]) node;
+                Object[] r = new Object[leaf.length - 1];
+                System.arraycopy(leaf, 0, r, 0, index);
+                System.arraycopy(leaf, index + 1, r, index, r.length - index);
+                return r;
+            }
+            Branch b = (Branch) node;
+            int i = b.childFor(index);
+            Object c = remove(b.kids[i], h - 1, (i > 0) ? index - b.ends[i - 1] : index);
+            Object[] kids = b.kids;
+            int n = entriesOf(c);
+            if (n == 0) {
+                Object[] r = new Object[kids.length - 1];
+                System.arraycopy(kids, 0, r, 0, i);
+                System.arraycopy(kids, i + 1, r, i, r.length - i);
+                return (r.length == 0) ? new Branch(r, new int[0]) : new Branch(r);
+            }
+            if (n < WIDTH / 2 && kids.length > 1) {
+                // merge with the smaller neighbour if both fit in one node
+                int j = (i == 0) ? 1
+                    : (i == kids.length - 1) ? i - 1
+                    : (entriesOf(kids[i - 1]) <= entriesOf(kids[i + 1])) ? i - 1 : i + 1;
+                if (n + entriesOf(kids[j]) <= WIDTH) {
+                    int lo = Math.min(i, j);
+                    Object merged = (lo == i) ? concat(c, kids[j], h - 1)
+                                              : concat(kids[j], c, h - 1);
+                    Object[] r = new Object[kids.length - 1];
+                    System.arraycopy(kids, 0, r, 0, lo);
+                    r[lo] = merged;
+                    System.arraycopy(kids, lo + 2, r, lo + 1, r.length - lo - 1);
+                    return new Branch(r);
+                }
+            }
+            kids = kids.clone();
+            kids[i] = c;
+            int[] ends = b.ends.clone();
+            for (int k = i; k < ends.length; ++k)
+                --ends[k];
+            return new Branch(kids, ends);
+        }
+
+        private static Object concat(Object left, Object right, int h) {
+            Object[] l = (h == 0) ? (Object[]) left : ((Branch) left).kids;
+            Object[] r = (h == 0) ? (Object[]) right : ((Branch) right).kids;
+            Object[] a = Arrays.copyOf(l, l.length + r.length);
+            System.arraycopy(r, 0, a, l.length, r.length);
+            return node(a, h);
+        }
+
+        /** Copies the elements into the array, which must be large enough. */
+        Object[] toArray(Object[] a) {
+            if (size > 0)
+                copyOut(root, height, a, 0);
+            return a;
+        }
+
+        private static int copyOut(Object node, int h, Object[] a, int off) {
+            if (h == 0) {
+                Object[] leaf = (Object[]) node;
+                System.arraycopy(leaf, 0, a, off, leaf.length);
+                return off + leaf.length;
+            }
+            for (Object k : ((Branch) node).kids)
+                off = copyOut(k, h - 1, a, off);
+            return off;
+        }
+    }
+
+    /* ---------------- Reads -------------- */
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    public int size() {
+        return getTree().size;
+    }
+
+    /**
+     * Returns {@code true} if this list contains no elements.
+     *
+     * @return {@code true} if this list contains no elements
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Tree t = getTree();
+        rangeCheck(index, t.size);
+        return (E) t.get(index);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list
+     * in proper sequence (from first to last element).
+     *
+     * @return an array containing all the elements in this list
+     */
+    public Object[] toArray() {
+        Tree t = getTree();
+        return t.toArray(new Object[t.size]);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list in
+     * proper sequence (from first to last element); the runtime type of
+     * the returned array is that of the specified array, as in
+     * {@link CopyOnWriteArrayList#toArray(Object[])}.
+     *
+     * @param a the array into which the elements of the list are to
+     *          be stored, if it is big enough; otherwise, a new array of the
+     *          same runtime type is allocated for this purpose.
+     * @return an array containing all the elements in this list
+     * @throws ArrayStoreException if the runtime type of the specified array
+     *         is not a supertype of the runtime type of every element in
+     *         this list
+     * @throws NullPointerException if the specified array is null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Tree t = getTree();
+        int len = t.size;
+        if (a.length < len)
+            a = (T[]) java.lang.reflect.Array.newInstance
+                (a.getClass().getComponentType(), len);
+        t.toArray(a);
+        if (a.length > len)
+            a[len] = null;
+        return a;
+    }
+
+    public void forEach(Consumer<? super E> action) {
+        if (action == null) throw new NullPointerException();
+        new Itr<E>(getTree(), 0).forEachRemaining(action);
+    }
+
+    /* ---------------- Mutations -------------- */
+
+    /**
+     * Replaces the element at the specified position in this list with the
+     * specified element.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public E set(int index, E element) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            rangeCheck(index, t.size);
+            @SuppressWarnings("unchecked") E oldValue = (E) t.get(index);
+            if (oldValue != element)
+                setTree(t.set(index, element));
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the specified element to the end of this list.
+     *
+     * @param e element to be appended to this list
+     * @return {@code true} (as specified by {@link Collection#add})
+     */
+    public boolean add(E e) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            setTree(t.insert(t.size, e));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the specified element at the specified position in this
+     * list. Shifts the element currently at that position (if any) and
+     * any subsequent elements to the right (adds one to their indices).
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public void add(int index, E element) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            if (index > t.size || index < 0)
+                throw new IndexOutOfBoundsException("Index: "+index+
+                                                    ", Size: "+t.size);
+            setTree(t.insert(index, element));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the element at the specified position in this list.
+     * Shifts any subsequent elements to the left (subtracts one from their
+     * indices).  Returns the element that was removed from the list.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public E remove(int index) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            rangeCheck(index, t.size);
+            @SuppressWarnings("unchecked") E oldValue = (E) t.get(index);
+            setTree(t.remove(index));
+            return oldValue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the first occurrence of the specified element from this list,
+     * if it is present.  If this list does not contain the element, it is
+     * unchanged.
+     *
+     * @param o element to be removed from this list, if present
+     * @return {@code true} if this list contained the specified element
+     */
+    public boolean remove(Object o) {
+        Tree snapshot = getTree();
+        int index = indexOf(snapshot, o);
+        if (index < 0)
+            return false;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree current = getTree();
+            if (current != snapshot && (index = indexOf(current, o)) < 0)
+                return false;
+            setTree(current.remove(index));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the element, if not present.
+     *
+     * @param e element to be added to this list, if absent
+     * @return {@code true} if the element was added
+     */
+    public boolean addIfAbsent(E e) {
+        Tree snapshot = getTree();
+        if (indexOf(snapshot, e) >= 0)
+            return false;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree current = getTree();
+            if (current != snapshot && indexOf(current, e) >= 0)
+                return false;
+            setTree(current.insert(current.size, e));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends all of the elements in the specified collection to the end
+     * of this list, in the order that they are returned by the specified
+     * collection's iterator.
+     *
+     * @param c collection containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(Collection<? extends E> c) {
+        return addAll(-1, c);
+    }
+
+    /**
+     * Inserts all of the elements in the specified collection into this
+     * list, starting at the specified position.  Shifts the element
+     * currently at that position (if any) and any subsequent elements to
+     * the right (increases their indices).  The new elements will appear
+     * in this list in the order that they are returned by the
+     * specified collection's iterator.
+     *
+     * @param index index at which to insert the first element
+     *        from the specified collection
+     * @param c collection containing elements to be added to this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean addAll(int index, Collection<? extends E> c) {
+        Object[] cs = c.toArray();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            int len = t.size;
+            if (index < 0) // append
+                index = len;
+            else if (index > len)
+                throw new IndexOutOfBoundsException("Index: "+index+
+                                                    ", Size: "+len);
+            if (cs.length == 0)
+                return false;
+            if (cs.length <= WIDTH) {
+                for (Object e : cs)
+                    t = t.insert(index++, e);
+            } else {
+                Object[] a = t.toArray(new Object[len + cs.length]);
+                System.arraycopy(a, index, a, index + cs.length, len - index);
+                System.arraycopy(cs, 0, a, index, cs.length);
+                t = Tree.build(a);
+            }
+            setTree(t);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all of the elements from this list.
+     * The list will be empty after this call returns.
+     */
+    public void clear() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            setTree(Tree.EMPTY);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes from this list all of its elements that are contained in
+     * the specified collection.
+     *
+     * @param c collection containing elements to be removed from this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean removeAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return bulkRemove(e -> c.contains(e));
+    }
+
+    /**
+     * Retains only the elements in this list that are contained in the
+     * specified collection.
+     *
+     * @param c collection containing elements to be retained in this list
+     * @return {@code true} if this list changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    public boolean retainAll(Collection<?> c) {
+        if (c == null) throw new NullPointerException();
+        return bulkRemove(e -> !c.contains(e));
+    }
+
+    public boolean removeIf(Predicate<? super E> filter) {
+        if (filter == null) throw new NullPointerException();
+        return bulkRemove(filter);
+    }
+
+    private boolean bulkRemove(Predicate<? super E> filter) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            Object[] elements = t.toArray(new Object[t.size]);
+            int newlen = 0;
+            for (Object x : elements) {
+                @SuppressWarnings("unchecked") E e = (E) x;
+                if (!filter.test(e))
+                    elements[newlen++] = e;
+            }
+            if (newlen == elements.length)
+                return false;
+            setTree(Tree.build(Arrays.copyOf(elements, newlen)));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void replaceAll(UnaryOperator<E> operator) {
+        if (operator == null) throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            Object[] elements = t.toArray(new Object[t.size]);
+            for (int i = 0; i < elements.length; ++i) {
+                @SuppressWarnings("unchecked") E e = (E) elements[i];
+                elements[i] = operator.apply(e);
+            }
+            setTree(Tree.build(elements));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void sort(Comparator<? super E> c) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            Object[] elements = t.toArray(new Object[t.size]);
+            @SuppressWarnings("unchecked") E[] es = (E[])elements;
+            Arrays.sort(es, c);
+            setTree(Tree.build(elements));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes from this list all of the elements whose index is between
+     * {@code fromIndex}, inclusive, and {@code toIndex}, exclusive.
+     * Shifts any succeeding elements to the left (reduces their index).
+     *
+     * @throws IndexOutOfBoundsException if fromIndex or toIndex out of range
+     *         ({@code fromIndex < 0 || toIndex > size() ||
+     *         toIndex < fromIndex})
+     */
+    protected void removeRange(int fromIndex, int toIndex) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            int len = t.size;
+            if (fromIndex < 0 || toIndex > len || toIndex < fromIndex)
+                throw new IndexOutOfBoundsException();
+            setTree(removeRange(t, fromIndex, toIndex));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Tree removeRange(Tree t, int fromIndex, int toIndex) {
+        int numRemoved = toIndex - fromIndex;
+        if (numRemoved <= WIDTH) {
+            while (numRemoved-- > 0)
+                t = t.remove(fromIndex);
+            return t;
+        }
+        Object[] a = t.toArray(new Object[t.size]);
+        Object[] r = Arrays.copyOf(a, a.length - numRemoved);
+        System.arraycopy(a, toIndex, r, fromIndex, a.length - toIndex);
+        return Tree.build(r);
+    }
+
+    /**
+     * Returns a view of the portion of this list between
+     * {@code fromIndex}, inclusive, and {@code toIndex}, exclusive.
+     * As for {@link CopyOnWriteArrayList#subList}, the semantics of the
+     * returned list become undefined, and its operations throw
+     * {@code ConcurrentModificationException}, if the backing list is
+     * modified other than through it.
+     *
+     * @param fromIndex low endpoint (inclusive) of the subList
+     * @param toIndex high endpoint (exclusive) of the subList
+     * @return a view of the specified range within this list
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public List<E> subList(int fromIndex, int toIndex) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Tree t = getTree();
+            if (fromIndex < 0 || toIndex > t.size || fromIndex > toIndex)
+                throw new IndexOutOfBoundsException();
+            return new COWSubList<E>(this, t, fromIndex, toIndex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sublist for CopyOnWriteTreeList, checking on each operation that
+     * the backing list is at the version it last saw.
+     */
+    private static class COWSubList<E>
+        extends AbstractList<E>
+        implements RandomAccess
+    {
+        private final CopyOnWriteTreeList<E> l;
+        private final int offset;
+        private int size;
+        private Tree expectedTree;
+
+        // only call this holding l's lock
+        COWSubList(CopyOnWriteTreeList<E> list, Tree t,
+                   int fromIndex, int toIndex) {
+            l = list;
+            expectedTree = t;
+            offset = fromIndex;
+            size = toIndex - fromIndex;
+        }
+
+        // only call this holding l's lock
+        private Tree checkForComodification() {
+            Tree t = l.getTree();
+            if (t != expectedTree)
+                throw new ConcurrentModificationException();
+            return t;
+        }
+
+        // only call this holding l's lock
+        private void rangeCheck(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: "+index+
+                                                    ",Size: "+size);
+        }
+
+        private void publish(Tree t) {
+            l.setTree(expectedTree = t);
+        }
+
+        public E set(int index, E element) {
+            final ReentrantLock lock = l.lock;
+            lock.lock();
+            try {
+                rangeCheck(index);
+                Tree t = checkForComodification();
+                @SuppressWarnings("unchecked")
+                E x = (E) t.get(index + offset);
+                publish(t.set(index + offset, element));
+                return x;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            final ReentrantLock lock = l.lock;
+            lock.lock();
+            try {
+                rangeCheck(index);
+                return (E) checkForComodification().get(index + offset);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int size() {
+            final ReentrantLock lock = l.lock;
+            lock.lock();
+            try {
+                checkForComodification();
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void add(int index, E element) {
+            final ReentrantLock lock = l.lock;
+            lock.lock();
+            try {
+                Tree t = checkForComodification();
+                if (index < 0 || index > size)
+                    throw new IndexOutOfBoundsException();
+                publish(t.insert(index + offset, element));
+                size++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void clear() {
+            removeRange(0, size());
+        }
+
+        public E remove(int index) {
+            final ReentrantLock lock = l.lock;
+            lock.lock();
+            try {
+                rangeCheck(index);
+                Tree t = checkForComodification();
+                @SuppressWarnings("unchecked")
+                E x = (E) t.get(index + offset);
+                publish(t.remove(index + offset));
+                size--;
+                return x;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        protected void removeRange(int fromIndex, int toIndex) {
+            final ReentrantLock lock = l.lock;
+            lock.lock();
+            try {
+                Tree t = checkForComodification();
+                if (fromIndex < 0 || toIndex > size || toIndex < fromIndex)
+                    throw new IndexOutOfBoundsException();
+                publish(CopyOnWriteTreeList.removeRange
+                        (t, fromIndex + offset, toIndex + offset));
+                size -= toIndex - fromIndex;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public List<E> subList(int fromIndex, int toIndex) {
+            final ReentrantLock lock = l.lock;
+            lock.lock();
+            try {
+                Tree t = checkForComodification();
+                if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+                    throw new IndexOutOfBoundsException();
+                return new COWSubList<E>(l, t, fromIndex + offset,
+                                         toIndex + offset);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /* ---------------- Support -------------- */
+
+    private static void rangeCheck(int index, int size) {
+        if (index >= size || index < 0)
+            throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+    }
+
+    private static int indexOf(Tree t, Object o) {
+        Itr<Object> it = new Itr<>(t, 0);
+        for (int i = 0; it.hasNext(); ++i) {
+            if (Objects.equals(o, it.next()))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a shallow copy of this list.  (The elements themselves
+     * are not copied.)  The copy shares the current version with this
+     * list.
+     *
+     * @return a clone of this list
+     */
+    public Object clone() {
+        try {
+            @SuppressWarnings("unchecked")
+            CopyOnWriteTreeList<E> clone =
+                (CopyOnWriteTreeList<E>) super.clone();
+            clone.resetLock();
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError();
+        }
+    }
+
+    /**
+     * Saves this list to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData The length of the list is emitted
+     *               (int), followed by all of its elements (each an Object)
+     *               in the proper order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+
+        s.defaultWriteObject();
+
+        Tree t = getTree();
+        // Write out array length
+        s.writeInt(t.size);
+
+        // Write out all elements in the proper order.
+        for (Iterator<Object> it = new Itr<>(t, 0); it.hasNext(); )
+            s.writeObject(it.next());
+    }
+
+    /**
+     * Reconstitutes this list from a stream (that is, deserializes it).
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+
+        s.defaultReadObject();
+
+        // bind to new lock
+        resetLock();
+
+        // Read in array length and allocate array
+        int len = s.readInt();
+        if (len < 0)
+            throw new java.io.InvalidObjectException("Illegal size: " + len);
+        Object[] elements = new Object[len];
+
+        // Read in all elements in the proper order.
+        for (int i = 0; i < len; i++)
+            elements[i] = s.readObject();
+        setTree(Tree.build(elements));
+    }
+
+    /* ---------------- Iteration -------------- */
+
+    /**
+     * Returns an iterator over the elements in this list in proper sequence.
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove} method.
+     *
+     * @return an iterator over the elements in this list in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr<E>(getTree(), 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove}, {@code set} or {@code add} methods.
+     */
+    public ListIterator<E> listIterator() {
+        return new Itr<E>(getTree(), 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned iterator provides a snapshot of the state of the list
+     * when the iterator was constructed. No synchronization is needed while
+     * traversing the iterator. The iterator does <em>NOT</em> support the
+     * {@code remove}, {@code set} or {@code add} methods.
+     *
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    public ListIterator<E> listIterator(int index) {
+        Tree t = getTree();
+        if (index < 0 || index > t.size)
+            throw new IndexOutOfBoundsException("Index: "+index);
+        return new Itr<E>(t, index);
+    }
+
+    /**
+     * Returns a {@link Spliterator} over the elements in this list.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#IMMUTABLE},
+     * {@link Spliterator#ORDERED}, {@link Spliterator#SIZED} and
+     * {@link Spliterator#SUBSIZED}.
+     *
+     * <p>The spliterator provides a snapshot of the state of the list
+     * when the spliterator was constructed. No synchronization is needed
+     * while operating on the spliterator.
+     *
+     * @return a {@code Spliterator} over the elements in this list
+     */
+    public Spliterator<E> spliterator() {
+        Tree t = getTree();
+        return new TreeSpliterator<E>(t, 0, t.size);
+    }
+
+    /**
+     * A position in a version of the list, caching the leaf holding the
+     * current index so that sequential traversal descends the tree once
+     * per leaf.
+     */
+    static class Cursor {
+        final Tree tree;
+        Object[] leaf;      // leaf holding indices [base, base + leaf.length)
+        int base;
+
+        Cursor(Tree tree) {
+            this.tree = tree;
+            this.leaf = Tree.EMPTY_LEAF;
+        }
+
+        /** Returns the element at the index, which must be in range. */
+        final Object at(int index) {
+            int i = index - base;
+            if (i < 0 || i >= leaf.length) {
+                Object node = tree.root;
+                int b = 0;
+                for (int h = tree.height; h > 0; --h) {
+                    Branch br = (Branch) node;
+                    int k = br.childFor(index - b);
+                    if (k > 0)
+                        b += br.ends[k - 1];
+                    node = br.kids[k];
+                }
+                leaf = (Object[]) node;
+                base = b;
+                i = index - b;
+            }
+            return leaf[i];
+        }
+    }
+
+    static final class Itr<E> extends Cursor implements ListIterator<E> {
+        /** Index of element to be returned by subsequent call to next.  */
+        private int cursor;
+
+        Itr(Tree tree, int initialCursor) {
+            super(tree);
+            cursor = initialCursor;
+        }
+
+        public boolean hasNext() {
+            return cursor < tree.size;
+        }
+
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (! hasNext())
+                throw new NoSuchElementException();
+            return (E) at(cursor++);
+        }
+
+        @SuppressWarnings("unchecked")
+        public E previous() {
+            if (! hasPrevious())
+                throw new NoSuchElementException();
+            return (E) at(--cursor);
+        }
+
+        public int nextIndex() {
+            return cursor;
+        }
+
+        public int previousIndex() {
+            return cursor-1;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void set(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        public void add(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            Objects.requireNonNull(action);
+            for (int i = cursor, size = tree.size; i < size; ++i) {
+                cursor = i + 1;
+                action.accept((E) at(i));
+            }
+        }
+    }
+
+    static final class TreeSpliterator<E> extends Cursor implements Spliterator<E> {
+        private int index; // current index, modified on advance/split
+        private final int fence; // one past last index
+
+        TreeSpliterator(Tree tree, int origin, int fence) {
+            super(tree);
+            this.index = origin;
+            this.fence = fence;
+        }
+
+        public Spliterator<E> trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (lo >= mid)
+                ? null
+                : new TreeSpliterator<E>(tree, lo, index = mid);
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (index < fence) {
+                action.accept((E) at(index++));
+                return true;
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i)
+                action.accept((E) at(i));
+        }
+
+        public long estimateSize() {
+            return (long) (fence - index);
+        }
+
+        public int characteristics() {
+            return Spliterator.IMMUTABLE | Spliterator.ORDERED |
+                Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    // Support for resetting lock while deserializing
+    private void resetLock() {
+        UNSAFE.putObjectVolatile(this, lockOffset, new ReentrantLock());
+    }
+    private static final sun.misc.Unsafe UNSAFE;
+    private static final long lockOffset;
+    static {
+        try {
+            UNSAFE = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = CopyOnWriteTreeList.class;
+            lockOffset = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("lock"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
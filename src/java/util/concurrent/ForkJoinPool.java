@@ -36,6 +36,7 @@
 package java.util.concurrent;
 
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.lang.management.ForkJoinPoolMXBean;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -49,9 +50,11 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.security.AccessControlContext;
 import java.security.ProtectionDomain;
 import java.security.Permissions;
+import javax.management.ObjectName;
 
 /**
  * An {@link ExecutorService} for running {@link ForkJoinTask}s.
@@ -683,6 +686,11 @@ public class ForkJoinPool extends AbstractExecutorService {
         int nextWait;              // encoded record of next event waiter
         int nsteals;               // number of steals
         int hint;                  // steal index hint
+        long stealTotal;           // steals, not reset on collection
+        long emptyScans;           // scans finding no task
+        long parks;                // number of parks in awaitWork
+        long activeNanos;          // time running top-level tasks
+        long idleNanos;            // time parked in awaitWork
         short poolIndex;           // index of this queue in pool
         final short mode;          // 0: lifo, > 0: fifo, < 0: shared
         volatile int qlock;        // 1: locked, -1: terminate; else 0
@@ -898,11 +906,14 @@ public class ForkJoinPool extends AbstractExecutorService {
          */
         final void runTask(ForkJoinTask<?> task) {
             if ((currentSteal = task) != null) {
-                ForkJoinWorkerThread thread;
+                ForkJoinWorkerThread thread; ForkJoinPool p;
+                Metrics mx = ((p = pool) == null) ? null : p.metrics;
+                long start = (mx == null) ? 0L : System.nanoTime();
                 task.doExec();
                 ForkJoinTask<?>[] a = array;
                 int md = mode;
                 ++nsteals;
+                ++stealTotal;
                 currentSteal = null;
                 if (md != 0)
                     pollAndExecAll();
@@ -916,6 +927,11 @@ public class ForkJoinPool extends AbstractExecutorService {
                         t.doExec();
                     }
                 }
+                if (mx != null) {
+                    long d = System.nanoTime() - start;
+                    activeNanos += d;
+                    mx.runTime.record(d);
+                }
                 if ((thread = owner) != null) // no need to do in finally clause
                     thread.afterTopLevelExec();
             }
@@ -1262,6 +1278,11 @@ public class ForkJoinPool extends AbstractExecutorService {
 
     // Instance fields
     volatile long stealCount;                  // collects worker counts
+    volatile long retiredEmptyScans;           // counts of dead workers,
+    volatile long retiredParks;                // updated under plock
+    volatile long retiredActiveNanos;
+    volatile long retiredIdleNanos;
+    volatile Metrics metrics;                  // non-null while enabled
     volatile long ctl;                         // main pool control
     volatile int plock;                        // shutdown status and seqLock
     volatile int indexSeed;                    // worker/submitter index seed
@@ -1423,6 +1444,10 @@ public class ForkJoinPool extends AbstractExecutorService {
                 WorkQueue[] ws = workQueues;
                 if (ws != null && idx >= 0 && idx < ws.length && ws[idx] == w)
                     ws[idx] = null;
+                retiredEmptyScans += w.emptyScans; // collect metrics
+                retiredParks += w.parks;
+                retiredActiveNanos += w.activeNanos;
+                retiredIdleNanos += w.idleNanos;
             } finally {
                 if (!U.compareAndSwapInt(this, PLOCK, ps, nps))
                     releasePlock(nps);
@@ -1494,6 +1519,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                 q.qlock = 0;
                 if (n <= 1)
                     signalWork(ws, q);
+                Metrics mx;
+                if ((mx = metrics) != null)
+                    mx.submitted.increment();
                 return;
             }
             q.qlock = 0;
@@ -1527,8 +1555,12 @@ public class ForkJoinPool extends AbstractExecutorService {
         for (;;) {
             WorkQueue[] ws; WorkQueue q; int ps, m, k;
             boolean move = false;
-            if ((ps = plock) < 0)
+            if ((ps = plock) < 0) {
+                Metrics mx;
+                if ((mx = metrics) != null)
+                    mx.rejected.increment();
                 throw new RejectedExecutionException();
+            }
             else if (ps == 0 || (ws = workQueues) == null ||
                      (m = ws.length - 1) < 0) { // initialize workQueues
                 int p = parallelism;            // find power of two table size
@@ -1564,6 +1596,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                     }
                     if (submitted) {
                         signalWork(ws, q);
+                        Metrics mx;
+                        if ((mx = metrics) != null)
+                            mx.submitted.increment();
                         return;
                     }
                 }
@@ -1692,6 +1727,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                     break;
                 }
                 else if (--j < 0) {
+                    ++w.emptyScans;
                     if ((ec | (e = (int)c)) < 0) // inactive or terminating
                         return awaitWork(w, c, ec);
                     else if (ctl == c) {         // try to inactivate and enqueue
@@ -1752,8 +1788,14 @@ public class ForkJoinPool extends AbstractExecutorService {
                     Thread wt = Thread.currentThread();
                     U.putObject(wt, PARKBLOCKER, this);
                     w.parker = wt;            // emulate LockSupport.park
-                    if (w.eventCount == ec && ctl == c)
+                    if (w.eventCount == ec && ctl == c) {
+                        boolean timed = metrics != null;
+                        long start = timed ? System.nanoTime() : 0L;
+                        ++w.parks;
                         U.park(false, parkTime);  // must recheck before park
+                        if (timed)
+                            w.idleNanos += System.nanoTime() - start;
+                    }
                     w.parker = null;
                     U.putObject(wt, PARKBLOCKER, null);
                     if (parkTime != 0L && ctl == c &&
@@ -2235,6 +2277,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                     synchronized (this) {
                         notifyAll();               // signal when 0 workers
                     }
+                    Metrics mx;
+                    if ((mx = metrics) != null)
+                        mx.registration.unregister();
                 }
                 return true;
             }
@@ -2884,6 +2929,180 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Starts recording metrics for this pool, if not already recording,
+     * and registers its management interface with the platform
+     * {@link javax.management.MBeanServer MBeanServer}.  Counts of
+     * steals, empty scans and parks are maintained by each worker
+     * at all times; enabling metrics adds the timing of top-level
+     * tasks and parks and the counting of submissions.  The interface
+     * is unregistered when the pool terminates or metrics are
+     * disabled.  The common pool never terminates, so its interface
+     * remains registered until metrics are disabled.
+     *
+     * @return the management interface of this pool
+     * @throws IllegalStateException if the interface cannot be
+     *         registered, in which case metrics are not enabled
+     * @since 1.8
+     */
+    public ForkJoinPoolMXBean enableMetrics() {
+        Metrics mx;
+        synchronized (this) {
+            if ((mx = metrics) != null)
+                return mx;
+            metrics = mx = new Metrics();
+        }
+        try {
+            mx.registration.register();
+        } catch (IllegalStateException e) {
+            synchronized (this) {
+                if (metrics == mx)
+                    metrics = null;
+            }
+            throw e;
+        }
+        if (isTerminated())
+            mx.registration.unregister();
+        return mx;
+    }
+
+    /**
+     * Stops recording metrics for this pool and unregisters its
+     * management interface.  Values already recorded remain readable
+     * through the interface returned by {@link #enableMetrics}.
+     *
+     * @since 1.8
+     */
+    public void disableMetrics() {
+        Metrics mx;
+        synchronized (this) {
+            mx = metrics;
+            metrics = null;
+        }
+        if (mx != null)
+            mx.registration.unregister();
+    }
+
+    /**
+     * The metrics of this pool, exposed as its management interface.
+     * Per-worker counts are plain fields written only by their owner,
+     * so are read here without synchronization as estimates.
+     */
+    final class Metrics implements ForkJoinPoolMXBean {
+        final LongAdder submitted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final PoolMetrics.Histogram runTime = new PoolMetrics.Histogram();
+        final String name = (ForkJoinPool.this == common) ? "common" :
+            PoolMetrics.nextName();
+        final ObjectName objectName =
+            PoolMetrics.objectName("ForkJoinPool", name);
+        final PoolMetrics.Registration registration =
+            new PoolMetrics.Registration(this, objectName);
+
+        /** Returns the queues of the live workers. */
+        private WorkQueue[] workers() {
+            WorkQueue[] ws = workQueues;
+            if (ws == null)
+                return new WorkQueue[0];
+            ArrayList<WorkQueue> list = new ArrayList<>(ws.length >>> 1);
+            for (int i = 1; i < ws.length; i += 2) {
+                WorkQueue w = ws[i];
+                if (w != null && w.owner != null)
+                    list.add(w);
+            }
+            return list.toArray(new WorkQueue[list.size()]);
+        }
+
+        public ObjectName getObjectName() { return objectName; }
+        public String getName() { return name; }
+        public int getParallelism() { return ForkJoinPool.this.getParallelism(); }
+        public int getPoolSize() { return ForkJoinPool.this.getPoolSize(); }
+        public int getActiveThreadCount() { return ForkJoinPool.this.getActiveThreadCount(); }
+        public int getRunningThreadCount() { return ForkJoinPool.this.getRunningThreadCount(); }
+        public long getQueuedTaskCount() { return ForkJoinPool.this.getQueuedTaskCount(); }
+        public int getQueuedSubmissionCount() { return ForkJoinPool.this.getQueuedSubmissionCount(); }
+        public long getSubmittedTaskCount() { return submitted.sum(); }
+        public long getRejectedTaskCount() { return rejected.sum(); }
+        public long getStealCount() { return ForkJoinPool.this.getStealCount(); }
+        public long[] getRunTimeHistogram() { return runTime.snapshot(); }
+
+        public long getEmptyScanCount() {
+            long n = retiredEmptyScans;
+            for (WorkQueue w : workers())
+                n += w.emptyScans;
+            return n;
+        }
+
+        public long getParkCount() {
+            long n = retiredParks;
+            for (WorkQueue w : workers())
+                n += w.parks;
+            return n;
+        }
+
+        public long getTotalActiveTime() {
+            long n = retiredActiveNanos;
+            for (WorkQueue w : workers())
+                n += w.activeNanos;
+            return n;
+        }
+
+        public long getTotalIdleTime() {
+            long n = retiredIdleNanos;
+            for (WorkQueue w : workers())
+                n += w.idleNanos;
+            return n;
+        }
+
+        public String[] getWorkerNames() {
+            WorkQueue[] ws = workers();
+            String[] a = new String[ws.length];
+            for (int i = 0; i < ws.length; ++i)
+                a[i] = ws[i].owner.getName();
+            return a;
+        }
+
+        public long[] getWorkerStealCounts() {
+            WorkQueue[] ws = workers();
+            long[] a = new long[ws.length];
+            for (int i = 0; i < ws.length; ++i)
+                a[i] = ws[i].stealTotal;
+            return a;
+        }
+
+        public long[] getWorkerEmptyScanCounts() {
+            WorkQueue[] ws = workers();
+            long[] a = new long[ws.length];
+            for (int i = 0; i < ws.length; ++i)
+                a[i] = ws[i].emptyScans;
+            return a;
+        }
+
+        public long[] getWorkerParkCounts() {
+            WorkQueue[] ws = workers();
+            long[] a = new long[ws.length];
+            for (int i = 0; i < ws.length; ++i)
+                a[i] = ws[i].parks;
+            return a;
+        }
+
+        public long[] getWorkerActiveTimes() {
+            WorkQueue[] ws = workers();
+            long[] a = new long[ws.length];
+            for (int i = 0; i < ws.length; ++i)
+                a[i] = ws[i].activeNanos;
+            return a;
+        }
+
+        public long[] getWorkerIdleTimes() {
+            WorkQueue[] ws = workers();
+            long[] a = new long[ws.length];
+            for (int i = 0; i < ws.length; ++i)
+                a[i] = ws[i].idleNanos;
+            return a;
+        }
+    }
+
     /**
      * Returns a string identifying this pool, as well as its state,
      * including indications of run state, parallelism level, and
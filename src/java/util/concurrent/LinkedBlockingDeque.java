@@ -621,6 +621,167 @@ public class LinkedBlockingDeque<E> extends AbstractQueue<E> implements Blocking
         }
     }
 
+    /**
+     * Links a chain of new nodes, allocated from the collection before
+     * the lock is taken, or returns null if the collection is empty.
+     */
+    private static <E> Node<E> chainOf(Collection<? extends E> c) {
+        Node<E> head = null, tail = null;
+        for (E e : c) {
+            if (e == null)
+                throw new NullPointerException();
+            Node<E> node = new Node<E>(e);
+            if (tail == null)
+                head = node;
+            else {
+                node.prev = tail;
+                tail.next = node;
+            }
+            tail = node;
+        }
+        return head;
+    }
+
+    /**
+     * Links up to room nodes of the chain starting at p as last
+     * elements, without signalling, and returns the unlinked remainder.
+     * Called only while holding lock, with room &gt; 0; adds the number
+     * of nodes linked to count.
+     */
+    private Node<E> linkLastChain(Node<E> p, int room) {
+        // assert lock.isHeldByCurrentThread();
+        Node<E> q = p;
+        int n = 1;
+        for (; n < room && q.next != null; ++n)
+            q = q.next;
+        Node<E> rest = q.next;
+        q.next = null;
+        if (rest != null)
+            rest.prev = null;
+        Node<E> l = last;
+        p.prev = l;
+        last = q;
+        if (first == null)
+            first = p;
+        else
+            l.next = p;
+        count += n;
+        return rest;
+    }
+
+    /**
+     * Wakes at most n threads waiting for elements.
+     */
+    private void signalNotEmpty(int n) {
+        // assert lock.isHeldByCurrentThread();
+        for (; n > 0 && lock.hasWaiters(notEmpty); n--)
+            notEmpty.signal();
+    }
+
+    /**
+     * Inserts as many elements of the collection as fit at the end of
+     * this deque, under a single lock acquisition.  Nodes are allocated
+     * before the lock is taken, and at most one waiting consumer is
+     * woken per element inserted.
+     *
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null, in which case nothing is inserted
+     * @throws IllegalArgumentException if the collection is this deque
+     */
+    public int offerAll(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        Node<E> chain = chainOf(c);
+        if (chain == null)
+            return 0;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int before = count;
+            if (before < capacity)
+                linkLastChain(chain, capacity - before);
+            int n = count - before;
+            signalNotEmpty(n);
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts all elements of the collection at the end of this deque,
+     * waiting for space as necessary.  Nodes are allocated before the
+     * lock is taken, and the lock is held except while waiting.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null, in which case nothing is inserted
+     * @throws IllegalArgumentException if the collection is this deque
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        Node<E> p = chainOf(c);
+        if (p == null)
+            return;
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (p != null) {
+                while (count >= capacity)
+                    notFull.await();
+                int before = count;
+                p = linkLastChain(p, capacity - before);
+                signalNotEmpty(count - before);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for an element, then transfers up to maxElements elements
+     * from the front of this deque under the same lock acquisition.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(maxElements, count);
+            for (int i = 0; i < n; i++) {
+                c.add(first.item);   // In this order, in case add() throws.
+                unlinkFirst();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     // Stack methods
 
     /**
@@ -544,6 +544,196 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E> implements Blocking
         }
     }
 
+    /**
+     * Links a chain of new nodes, allocated from the collection before
+     * any lock is taken, or returns null if the collection is empty.
+     */
+    private static <E> Node<E> chainOf(Collection<? extends E> c) {
+        Node<E> first = null, last = null;
+        for (E e : c) {
+            if (e == null)
+                throw new NullPointerException();
+            Node<E> node = new Node<E>(e);
+            if (last == null)
+                first = node;
+            else
+                last.next = node;
+            last = node;
+        }
+        return first;
+    }
+
+    /**
+     * Returns the length of a chain built by chainOf.  Called before
+     * the chain is linked, and so before any lock is taken: once linked,
+     * its nodes may be dequeued and self-linked by consumers.
+     */
+    private static int lengthOf(Node<?> p) {
+        int n = 0;
+        for (; p != null; p = p.next)
+            ++n;
+        return n;
+    }
+
+    /**
+     * Links the first n nodes of the chain starting at p, which has at
+     * least n nodes, at the tail and returns the unlinked remainder.
+     * Called only while holding putLock; the caller publishes the new
+     * count.
+     */
+    private Node<E> enqueueChain(Node<E> p, int n) {
+        Node<E> q = p;
+        while (--n > 0)
+            q = q.next;
+        Node<E> rest = q.next;
+        q.next = null;
+        last.next = p;
+        last = q;
+        return rest;
+    }
+
+    /**
+     * Inserts as many elements of the collection as fit, taking putLock
+     * once.  Nodes are allocated before the lock is taken, and a waiting
+     * consumer is signalled only once, when the queue was empty; it
+     * wakes the next consumer if elements remain, as in {@link #take}.
+     *
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null, in which case nothing is inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        final AtomicInteger count = this.count;
+        if (count.get() == capacity)
+            return 0;
+        Node<E> chain = chainOf(c);
+        if (chain == null)
+            return 0;
+        int len = lengthOf(chain);
+        int k = -1, n = 0;
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            int room = capacity - count.get();
+            if (room > 0) {
+                n = Math.min(room, len);
+                enqueueChain(chain, n);  // the rest is garbage
+                k = count.getAndAdd(n);
+                if (k + n < capacity)
+                    notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (k == 0)
+            signalNotEmpty();
+        return n;
+    }
+
+    /**
+     * Inserts all elements of the collection, waiting for space as
+     * necessary.  Nodes are allocated before putLock is taken, and each
+     * batch linked while holding it signals waiting consumers at most
+     * once.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null, in which case nothing is inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public void putAll(Collection<? extends E> c) throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        Node<E> p = chainOf(c);
+        if (p == null)
+            return;
+        int len = lengthOf(p);
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        putLock.lockInterruptibly();
+        try {
+            while (p != null) {
+                while (count.get() == capacity)
+                    notFull.await();
+                int n = Math.min(capacity - count.get(), len);
+                p = enqueueChain(p, n);
+                len -= n;
+                int k = count.getAndAdd(n);
+                if (k + n < capacity)
+                    notFull.signal();
+                if (k == 0)
+                    signalNotEmpty();   // lock order putLock, takeLock
+            }
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for an element, then transfers up to maxElements available
+     * elements while holding takeLock once.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        int k = -1;
+        final AtomicInteger count = this.count;
+        final ReentrantLock takeLock = this.takeLock;
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(maxElements, count.get());
+            Node<E> h = head;
+            int i = 0;
+            try {
+                while (i < n) {
+                    Node<E> p = h.next;
+                    c.add(p.item);
+                    p.item = null;
+                    h.next = h;
+                    h = p;
+                    ++i;
+                }
+                return n;
+            } finally {
+                // Restore invariants even if c.add() threw
+                if (i > 0) {
+                    head = h;
+                    k = count.getAndAdd(-i);
+                    if (k > i)
+                        notEmpty.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+            if (k == capacity)
+                signalNotFull();
+        }
+    }
+
     /**
      * Returns an iterator over the elements in this queue in proper sequence.
      * The elements will be returned in order from first (head) to last (tail).
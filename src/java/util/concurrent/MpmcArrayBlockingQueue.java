@@ -0,0 +1,71 @@
+package java.util.concurrent;
+
+/**
+ * A bounded {@linkplain ConcurrentArrayQueue lock-free array queue}
+ * that supports any number of producer and consumer threads.  Each
+ * insertion and removal claims its position with a single
+ * compare-and-set of the tail or head.  This variant can serve as the
+ * work queue of a {@link ThreadPoolExecutor}.
+ *
+ * @param <E> the type of elements held in this queue
+ * @since 1.8
+ */
+public final class MpmcArrayBlockingQueue<E> extends ConcurrentArrayQueue<E> {
+
+    /**
+     * Creates a queue with the given (minimum) capacity that parks
+     * waiting threads.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         1 or greater than 2<sup>30</sup>
+     */
+    public MpmcArrayBlockingQueue(int capacity) {
+        super(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a queue with the given (minimum) capacity and wait
+     * strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how blocking operations wait
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         1 or greater than 2<sup>30</sup>
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpmcArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    boolean offerElement(E e) {
+        for (;;) {
+            long t = tail;
+            long d = sequenceAt(t) - t;
+            if (d == 0L) {
+                if (casTail(t, t + 1)) {
+                    publish(t, e);
+                    return true;
+                }
+            }
+            else if (d < 0L)
+                return false;       // slot still holds the previous lap
+        }
+    }
+
+    E pollElement() {
+        for (;;) {
+            long h = head;
+            long d = sequenceAt(h) - (h + 1);
+            if (d == 0L) {
+                if (casHead(h, h + 1)) {
+                    E x = consume(h);
+                    if (x != null)
+                        return x;
+                }
+            }
+            else if (d < 0L)
+                return null;        // slot not yet published
+        }
+    }
+}
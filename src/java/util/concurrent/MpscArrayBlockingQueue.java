@@ -0,0 +1,67 @@
+package java.util.concurrent;
+
+/**
+ * A bounded {@linkplain ConcurrentArrayQueue lock-free array queue}
+ * that supports any number of producer threads and a single consumer
+ * thread.  Producers claim positions with a compare-and-set of the
+ * tail; the consumer advances the head with ordered writes only.
+ * Removing the head from more than one thread at a time corrupts the
+ * queue.
+ *
+ * @param <E> the type of elements held in this queue
+ * @since 1.8
+ */
+public final class MpscArrayBlockingQueue<E> extends ConcurrentArrayQueue<E> {
+
+    /**
+     * Creates a queue with the given (minimum) capacity that parks
+     * waiting threads.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         1 or greater than 2<sup>30</sup>
+     */
+    public MpscArrayBlockingQueue(int capacity) {
+        super(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a queue with the given (minimum) capacity and wait
+     * strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how blocking operations wait
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         1 or greater than 2<sup>30</sup>
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpscArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    boolean offerElement(E e) {
+        for (;;) {
+            long t = tail;
+            long d = sequenceAt(t) - t;
+            if (d == 0L) {
+                if (casTail(t, t + 1)) {
+                    publish(t, e);
+                    return true;
+                }
+            }
+            else if (d < 0L)
+                return false;
+        }
+    }
+
+    E pollElement() {
+        for (long h = head; ; ++h) {
+            if (sequenceAt(h) != h + 1)
+                return null;
+            lazySetHead(h + 1);
+            E x = consume(h);
+            if (x != null)
+                return x;
+        }
+    }
+}
@@ -0,0 +1,1026 @@
+package java.util.concurrent;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link ConcurrentMap} whose keys and values live outside the Java
+ * heap, serialized by caller-supplied {@linkplain Codec codecs} into
+ * records carved from large direct or mapped {@link ByteBuffer} slabs.
+ * The collector sees only the slab buffers and one {@code long[]} bin
+ * table, however many mappings the map holds.
+ *
+ * <p>The concurrency scheme follows {@link ConcurrentHashMap}.
+ * Insertion into an empty bin is a single compare-and-set of the bin
+ * slot; other updates lock the stripe that owns the bin.  Resizing
+ * doubles the table under all stripe locks, marking each relocated
+ * old bin as moved so that late compare-and-set insertions fail and
+ * retry against the new table.
+ *
+ * <p>Retrievals do not lock.  Because a record's memory may be
+ * recycled as soon as it is unlinked, each stripe also carries a
+ * sequence number, in the manner of a {@link
+ * java.util.concurrent.locks.StampedLock StampedLock} optimistic read.
+ * Writers advance it before releasing any record, and it is odd while
+ * a resize relinks records.  A reader validates the sequence after
+ * each record header and link it reads and retries on change, and
+ * decodes only bytes it has copied out and validated, so codecs never
+ * see recycled memory.
+ *
+ * <p>Keys are compared by their encoded bytes, and bins are selected by
+ * a hash of those bytes, so a key codec must produce a single canonical
+ * encoding for equal keys.  Values are compared by encoded bytes in
+ * {@link #remove(Object, Object)} and {@link #replace(Object, Object,
+ * Object)}.  Neither keys nor values may be {@code null}.
+ *
+ * <p>Memory is managed explicitly.  Records are allocated from
+ * power-of-two size classes, recycled through per-class free lists,
+ * and the slabs themselves are released only by {@link #close}.  The
+ * caller must ensure that no other thread is using the map when it is
+ * closed.  Iterators are <i>weakly consistent</i>; each one decodes
+ * the entries of a bin under that bin's stripe lock.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see ConcurrentHashMap
+ * @since 1.8
+ */
+public class OffHeapConcurrentHashMap<K,V> extends AbstractMap<K,V>
+    implements ConcurrentMap<K,V>, Closeable {
+
+    /**
+     * Converts values to and from the byte form stored off-heap.
+     *
+     * @param <T> the type of value converted
+     */
+    public interface Codec<T> {
+        /**
+         * Returns the exact number of bytes {@link #write} will produce
+         * for the given value.
+         *
+         * @param value the value
+         * @return the encoded size in bytes
+         */
+        int sizeOf(T value);
+
+        /**
+         * Writes the encoded form of the value into the buffer, which
+         * has exactly {@code sizeOf(value)} bytes remaining.
+         *
+         * @param value the value
+         * @param dst the destination buffer
+         */
+        void write(T value, ByteBuffer dst);
+
+        /**
+         * Reads a value from the buffer, whose remaining bytes are
+         * exactly those produced by {@link #write}.
+         *
+         * @param src the source buffer
+         * @return the decoded value
+         */
+        T read(ByteBuffer src);
+    }
+
+    /* ---------------- Constants -------------- */
+
+    /** The largest possible table capacity. */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The default initial table capacity. */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The default slab size, 1MB. */
+    private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    /** The smallest slab size accepted. */
+    private static final int MIN_SLAB_SIZE = 1 << 12;
+
+    /** The load factor for the bin table. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** Number of CPUS, to bound the number of stripes. */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Bin marker for an old-table bin relocated by a resize. */
+    static final long MOVED = -1L;
+
+    /*
+     * Record layout.  Every record starts with a fixed header followed
+     * by the key bytes and then the value bytes:
+     *
+     *   0: long  address of next record in the bin, or 0
+     *   8: int   spread hash of the key bytes
+     *  12: int   key length
+     *  16: int   value length
+     *  20: int   size class of the block holding the record
+     */
+    static final int NEXT = 0, HASH = 8, KLEN = 12, VLEN = 16, SCLASS = 20;
+    static final int HEADER = 24;
+
+    /* ---------------- Fields -------------- */
+
+    /** The bin table of record addresses.  Length is a power of two. */
+    volatile long[] table;
+
+    /** The stripes; stripe i guards all bins whose index is i mod length. */
+    final Stripe[] stripes;
+
+    /** Size at which the next resize is triggered. */
+    volatile int threshold;
+
+    /** The number of mappings. */
+    final LongAdder count = new LongAdder();
+
+    final Codec<K> keyCodec;
+    final Codec<V> valueCodec;
+    final SlabAllocator allocator;
+
+    /** Set once by {@link #close}. */
+    volatile boolean closed;
+
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    /**
+     * A lock guarding the bins of one stripe, together with the
+     * sequence number used to validate lock-free reads.
+     */
+    static final class Stripe extends ReentrantLock {
+        private static final long serialVersionUID = -6426094117932716453L;
+        /** Even when stable; advanced whenever a record is released. */
+        volatile int seq;
+    }
+
+    /* ---------------- Constructors -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial capacity,
+     * drawing 1MB slabs from {@link ByteBuffer#allocateDirect}.
+     *
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     * @throws NullPointerException if either codec is null
+     */
+    public OffHeapConcurrentHashMap(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this(keyCodec, valueCodec, DEFAULT_CAPACITY, DEFAULT_SLAB_SIZE,
+             ByteBuffer::allocateDirect);
+    }
+
+    /**
+     * Creates a new, empty map.  Slabs are obtained from the given
+     * factory, which is called with the slab size and may return any
+     * direct buffer with at least that many bytes remaining, such as
+     * a region of a file mapped by {@link
+     * java.nio.channels.FileChannel#map FileChannel.map}.
+     *
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     * @param initialCapacity the expected number of mappings
+     * @param slabSize the size of each slab, rounded up to a power of two;
+     *        no single record may exceed it
+     * @param slabFactory the source of slab memory
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the slab size is nonpositive
+     * @throws NullPointerException if a codec or the factory is null
+     */
+    public OffHeapConcurrentHashMap(Codec<K> keyCodec, Codec<V> valueCodec,
+                                    int initialCapacity, int slabSize,
+                                    IntFunction<? extends ByteBuffer> slabFactory) {
+        if (keyCodec == null || valueCodec == null || slabFactory == null)
+            throw new NullPointerException();
+        if (initialCapacity < 0 || slabSize <= 0)
+            throw new IllegalArgumentException();
+        int ns = tableSizeFor(Math.max(NCPU << 2, 16));
+        long size = (long)(1.0 + (long)initialCapacity / LOAD_FACTOR);
+        int cap = Math.max(ns, (size >= (long)MAXIMUM_CAPACITY) ?
+                           MAXIMUM_CAPACITY : tableSizeFor((int)size));
+        Stripe[] ss = new Stripe[ns];
+        for (int i = 0; i < ns; ++i)
+            ss[i] = new Stripe();
+        this.stripes = ss;
+        this.table = new long[cap];
+        this.threshold = (int)(cap * LOAD_FACTOR);
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.allocator = new SlabAllocator(
+            tableSizeFor(Math.max(slabSize, MIN_SLAB_SIZE)), slabFactory);
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Returns a power of two table size for the given desired capacity.
+     */
+    private static final int tableSizeFor(int c) {
+        int n = c - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /**
+     * Hashes the encoded key bytes and spreads the result as
+     * {@link ConcurrentHashMap#spread} does.
+     */
+    static final int hashBytes(byte[] b) {
+        int h = 1;
+        for (byte x : b)
+            h = 31 * h + x;
+        return ConcurrentHashMap.spread(h);
+    }
+
+    static final long tabAt(long[] tab, int i) {
+        return U.getLongVolatile(tab, ((long)i << LSHIFT) + LBASE);
+    }
+
+    static final boolean casTabAt(long[] tab, int i, long c, long v) {
+        return U.compareAndSwapLong(tab, ((long)i << LSHIFT) + LBASE, c, v);
+    }
+
+    static final void setTabAt(long[] tab, int i, long v) {
+        U.putLongVolatile(tab, ((long)i << LSHIFT) + LBASE, v);
+    }
+
+    /* ---------------- Record access -------------- */
+
+    static final long next(long r)      { return U.getLongVolatile(null, r + NEXT); }
+    static final int hashOf(long r)     { return U.getInt(r + HASH); }
+    static final int keyLength(long r)  { return U.getInt(r + KLEN); }
+    static final int valLength(long r)  { return U.getInt(r + VLEN); }
+
+    static final void setNext(long r, long next) {
+        U.putLongVolatile(null, r + NEXT, next);
+    }
+
+    /**
+     * Returns true if the {@code len} bytes at {@code addr} equal
+     * {@code b}.
+     */
+    static boolean bytesEqual(long addr, byte[] b, int len) {
+        if (b.length != len)
+            return false;
+        int i = 0;
+        for (; i + 8 <= len; i += 8)
+            if (U.getLong(addr + i) != U.getLong(b, BBASE + i))
+                return false;
+        for (; i < len; ++i)
+            if (U.getByte(addr + i) != b[i])
+                return false;
+        return true;
+    }
+
+    /**
+     * Copies {@code len} bytes at {@code addr} into a new array.
+     */
+    static byte[] copyOut(long addr, int len) {
+        byte[] b = new byte[len];
+        U.copyMemory(null, addr, b, BBASE, len);
+        return b;
+    }
+
+    private static <T> byte[] encode(Codec<T> codec, T x) {
+        if (x == null)
+            throw new NullPointerException();
+        byte[] b = new byte[codec.sizeOf(x)];
+        ByteBuffer bb = ByteBuffer.wrap(b);
+        codec.write(x, bb);
+        if (bb.hasRemaining())
+            throw new IllegalStateException("Codec wrote " + bb.position() +
+                                            " of " + b.length + " bytes");
+        return b;
+    }
+
+    private static <T> T decode(Codec<T> codec, byte[] b) {
+        return codec.read(ByteBuffer.wrap(b));
+    }
+
+    /**
+     * Allocates and fills a record.  Its next link is zero.
+     */
+    private long newRecord(int hash, byte[] kb, byte[] vb) {
+        int size = HEADER + kb.length + vb.length;
+        int sc = allocator.sizeClassFor(size);
+        long r = allocator.allocate(sc);
+        U.putLong(r + NEXT, 0L);
+        U.putInt(r + HASH, hash);
+        U.putInt(r + KLEN, kb.length);
+        U.putInt(r + VLEN, vb.length);
+        U.putInt(r + SCLASS, sc);
+        U.copyMemory(kb, BBASE, null, r + HEADER, kb.length);
+        U.copyMemory(vb, BBASE, null, r + HEADER + kb.length, vb.length);
+        return r;
+    }
+
+    private void freeRecord(long r) {
+        allocator.free(r, U.getInt(r + SCLASS));
+    }
+
+    final Stripe stripeFor(int binIndex) {
+        Stripe[] ss = stripes;
+        return ss[binIndex & (ss.length - 1)];
+    }
+
+    private void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("Map closed");
+    }
+
+    /* ---------------- Lock-free lookup -------------- */
+
+    /**
+     * Finds the record for the given key and, if found, returns a copy
+     * of its value bytes (or an empty marker when only presence is
+     * wanted), validated against the stripe sequence.
+     *
+     * @param wantValue whether to copy the value bytes
+     * @return the value bytes, {@code NO_VALUE} if present but not
+     *         wanted, or null if absent
+     */
+    private byte[] lookup(byte[] kb, int h, boolean wantValue) {
+        ensureOpen();
+        for (;;) {
+            long[] tab = table;
+            int i = (tab.length - 1) & h;
+            Stripe s = stripeFor(i);
+            int seq = s.seq;
+            if ((seq & 1) != 0) {           // resize in progress
+                Thread.yield();
+                continue;
+            }
+            long e = tabAt(tab, i);
+            if (e == MOVED) {
+                Thread.yield();
+                continue;
+            }
+            byte[] result = null;
+            boolean stale = false;
+            while (e != 0L) {
+                int eh = hashOf(e), kl = keyLength(e), vl = valLength(e);
+                U.loadFence();
+                if (s.seq != seq) {
+                    stale = true;
+                    break;
+                }
+                if (eh == h && bytesEqual(e + HEADER, kb, kl)) {
+                    result = wantValue ? copyOut(e + HEADER + kl, vl) : NO_VALUE;
+                    break;
+                }
+                e = next(e);
+                U.loadFence();
+                if (s.seq != seq) {
+                    stale = true;
+                    break;
+                }
+            }
+            if (!stale) {
+                U.loadFence();
+                if (s.seq == seq)
+                    return result;
+            }
+        }
+    }
+
+    private static final byte[] NO_VALUE = new byte[0];
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of mappings, saturated at
+     * {@code Integer.MAX_VALUE}.
+     */
+    public int size() {
+        long n = count.sum();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * Returns the number of mappings as a {@code long}.  The value
+     * returned is an estimate; the actual count may differ if there are
+     * concurrent insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        long n = count.sum();
+        return (n < 0L) ? 0L : n;
+    }
+
+    public boolean isEmpty() {
+        return count.sum() <= 0L;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, decoded
+     * into a new object, or {@code null} if this map contains no
+     * mapping for the key.
+     *
+     * @throws NullPointerException if the specified key is null
+     * @throws ClassCastException if the key is not of the key codec's type
+     * @throws IllegalStateException if the map has been closed
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        byte[] kb = encode(keyCodec, (K)key);
+        byte[] vb = lookup(kb, hashBytes(kb), true);
+        return (vb == null) ? null : decode(valueCodec, vb);
+    }
+
+    /**
+     * Tests if the specified object is a key in this map.
+     *
+     * @throws NullPointerException if the specified key is null
+     * @throws ClassCastException if the key is not of the key codec's type
+     * @throws IllegalStateException if the map has been closed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean containsKey(Object key) {
+        byte[] kb = encode(keyCodec, (K)key);
+        return lookup(kb, hashBytes(kb), false) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if the encoded mapping is larger
+     *         than a slab
+     * @throws IllegalStateException if the map has been closed
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    final V putVal(K key, V value, boolean onlyIfAbsent) {
+        ensureOpen();
+        byte[] kb = encode(keyCodec, key), vb = encode(valueCodec, value);
+        int h = hashBytes(kb);
+        long rec = newRecord(h, kb, vb);
+        byte[] old = null;
+        try {
+            for (;;) {
+                long[] tab = table;
+                int n = tab.length, i = (n - 1) & h;
+                long f = tabAt(tab, i);
+                if (f == 0L) {
+                    if (casTabAt(tab, i, 0L, rec)) {
+                        rec = 0L;
+                        break;              // no lock when adding to empty bin
+                    }
+                    continue;
+                }
+                Stripe s = stripeFor(i);
+                s.lock();
+                try {
+                    if (table != tab || (f = tabAt(tab, i)) == MOVED || f == 0L)
+                        continue;
+                    long pred = 0L;
+                    for (long e = f; e != 0L; pred = e, e = next(e)) {
+                        int kl;
+                        if (hashOf(e) == h && bytesEqual(e + HEADER, kb,
+                                                         kl = keyLength(e))) {
+                            old = copyOut(e + HEADER + kl, valLength(e));
+                            if (!onlyIfAbsent) {
+                                setNext(rec, next(e));
+                                if (pred == 0L)
+                                    setTabAt(tab, i, rec);
+                                else
+                                    setNext(pred, rec);
+                                rec = 0L;
+                                s.seq += 2;     // invalidate readers of e
+                                freeRecord(e);
+                            }
+                            break;
+                        }
+                    }
+                    if (old == null) {
+                        setNext(pred, rec);
+                        rec = 0L;
+                    }
+                } finally {
+                    s.unlock();
+                }
+                break;
+            }
+        } finally {
+            if (rec != 0L)
+                freeRecord(rec);            // unused or failed insertion
+        }
+        if (old != null)
+            return decode(valueCodec, old);
+        count.increment();
+        if (count.sum() > threshold)
+            resize();
+        return null;
+    }
+
+    /**
+     * Removes the mapping for a key, optionally only if it currently
+     * encodes to {@code expect}, optionally replacing it with a record
+     * holding {@code update}.
+     *
+     * @return the old value bytes, or null if nothing was done
+     */
+    private byte[] replaceNode(byte[] kb, byte[] expect, byte[] update) {
+        ensureOpen();
+        int h = hashBytes(kb);
+        long rec = (update == null) ? 0L : newRecord(h, kb, update);
+        byte[] old = null;
+        try {
+            for (;;) {
+                long[] tab = table;
+                int i = (tab.length - 1) & h;
+                long f = tabAt(tab, i);
+                if (f == 0L)
+                    break;
+                Stripe s = stripeFor(i);
+                s.lock();
+                try {
+                    if (table != tab || (f = tabAt(tab, i)) == MOVED)
+                        continue;
+                    long pred = 0L;
+                    for (long e = f; e != 0L; pred = e, e = next(e)) {
+                        int kl;
+                        if (hashOf(e) == h && bytesEqual(e + HEADER, kb,
+                                                         kl = keyLength(e))) {
+                            long va = e + HEADER + kl;
+                            int vl = valLength(e);
+                            if (expect != null && !bytesEqual(va, expect, vl))
+                                break;
+                            old = copyOut(va, vl);
+                            long succ = next(e);
+                            if (rec != 0L) {
+                                setNext(rec, succ);
+                                succ = rec;
+                                rec = 0L;
+                            }
+                            if (pred == 0L)
+                                setTabAt(tab, i, succ);
+                            else
+                                setNext(pred, succ);
+                            s.seq += 2;
+                            freeRecord(e);
+                            break;
+                        }
+                    }
+                } finally {
+                    s.unlock();
+                }
+                break;
+            }
+        } finally {
+            if (rec != 0L)
+                freeRecord(rec);
+        }
+        if (old != null && update == null)
+            count.decrement();
+        return old;
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        byte[] old = replaceNode(encode(keyCodec, (K)key), null, null);
+        return (old == null) ? null : decode(valueCodec, old);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object key, Object value) {
+        if (key == null)
+            throw new NullPointerException();
+        return value != null &&
+            replaceNode(encode(keyCodec, (K)key),
+                        encode(valueCodec, (V)value), null) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return replaceNode(encode(keyCodec, key), encode(valueCodec, oldValue),
+                           encode(valueCodec, newValue)) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V replace(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        byte[] old = replaceNode(encode(keyCodec, key), null,
+                                 encode(valueCodec, value));
+        return (old == null) ? null : decode(valueCodec, old);
+    }
+
+    /**
+     * Removes all of the mappings from this map, returning their
+     * records to the free lists.  Slab memory is retained.
+     */
+    public void clear() {
+        ensureOpen();
+        lockAll();
+        try {
+            long[] tab = table;
+            long removed = 0L;
+            for (Stripe s : stripes)
+                s.seq++;                    // hold off readers
+            for (int i = 0; i < tab.length; ++i) {
+                long e;
+                // An insertion into an empty bin takes no lock; detach
+                // the bin with a CAS so that such a record is either
+                // freed here or left in place, never lost.
+                do {
+                    e = tabAt(tab, i);
+                } while (e != 0L && !casTabAt(tab, i, e, 0L));
+                for (long next; e != 0L; e = next) {
+                    next = next(e);
+                    freeRecord(e);
+                    ++removed;
+                }
+            }
+            count.add(-removed);
+            for (Stripe s : stripes)
+                s.seq++;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Releases all slab memory.  Direct buffers obtained from the slab
+     * factory are freed eagerly rather than left to the collector.  The
+     * map must not be used, by this or any other thread, after this
+     * method is called; subsequent operations throw
+     * {@link IllegalStateException}.
+     */
+    public void close() {
+        lockAll();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            table = new long[stripes.length];
+            count.reset();
+            allocator.release();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of slab memory reserved by this map.
+     *
+     * @return the reserved off-heap bytes
+     */
+    public long offHeapCapacity() {
+        return allocator.reserved;
+    }
+
+    /**
+     * Returns the number of bytes of slab memory currently holding
+     * records, including the rounding of each record to its size class.
+     *
+     * @return the used off-heap bytes
+     */
+    public long offHeapUsed() {
+        return allocator.used;
+    }
+
+    /* ---------------- Resizing -------------- */
+
+    private void lockAll() {
+        for (Stripe s : stripes)
+            s.lock();
+    }
+
+    private void unlockAll() {
+        for (Stripe s : stripes)
+            s.unlock();
+    }
+
+    /**
+     * Doubles the table.  Each old bin is split into a low and a high
+     * list as in {@link ConcurrentHashMap#transfer}, except that
+     * records are relinked in place; readers are held off by odd
+     * stripe sequence numbers for the duration.
+     */
+    private void resize() {
+        long[] tab = table;
+        int n = tab.length;
+        if (n >= MAXIMUM_CAPACITY)
+            return;
+        lockAll();
+        try {
+            if (closed || table != tab || count.sum() <= threshold)
+                return;
+            Stripe[] ss = stripes;
+            for (Stripe s : ss)
+                s.seq++;
+            long[] nt = new long[n << 1];
+            for (int i = 0; i < n; ++i) {
+                for (;;) {
+                    long f = tabAt(tab, i), lo = 0L, hi = 0L;
+                    for (long e = f, next; e != 0L; e = next) {
+                        next = next(e);
+                        if ((hashOf(e) & n) == 0) {
+                            setNext(e, lo);
+                            lo = e;
+                        }
+                        else {
+                            setNext(e, hi);
+                            hi = e;
+                        }
+                    }
+                    if (casTabAt(tab, i, f, MOVED)) {
+                        nt[i] = lo;
+                        nt[i + n] = hi;
+                        break;
+                    }
+                    // Only an insertion into an empty bin can race with
+                    // us, in which case nothing was relinked; retry.
+                }
+            }
+            table = nt;
+            threshold = (int)((n << 1) * LOAD_FACTOR);
+            for (Stripe s : ss)
+                s.seq++;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /* ---------------- Views and iteration -------------- */
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set supports removal, and entry {@code setValue} writes
+     * through to the map.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySet());
+    }
+
+    /**
+     * Decodes the entries of old-table bin {@code i}, following the
+     * bin's descendants if the table has grown, under its stripe lock.
+     */
+    final void collectBin(int n, int i, ArrayList<Map.Entry<K,V>> out) {
+        Stripe s = stripeFor(i);
+        s.lock();
+        try {
+            ensureOpen();
+            long[] tab = table;
+            for (int j = i; j < tab.length; j += n) {
+                for (long e = tabAt(tab, j); e != 0L; e = next(e)) {
+                    int kl = keyLength(e);
+                    K k = decode(keyCodec, copyOut(e + HEADER, kl));
+                    V v = decode(valueCodec,
+                                 copyOut(e + HEADER + kl, valLength(e)));
+                    out.add(new MapEntry(k, v));
+                }
+            }
+        } finally {
+            s.unlock();
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public int size()   { return OffHeapConcurrentHashMap.this.size(); }
+        public void clear() { OffHeapConcurrentHashMap.this.clear(); }
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public boolean contains(Object o) {
+            Object k, v, r;
+            Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (r = get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+        public boolean remove(Object o) {
+            Object k, v;
+            Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    OffHeapConcurrentHashMap.this.remove(k, v));
+        }
+    }
+
+    /**
+     * Iterates bins of the table present at construction, decoding one
+     * bin at a time.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<K,V>> {
+        final int n = table.length;
+        final ArrayList<Map.Entry<K,V>> batch = new ArrayList<>();
+        int bin;        // next old-table bin to collect
+        int index;      // next index in batch
+        MapEntry lastReturned;
+
+        public boolean hasNext() {
+            while (index >= batch.size()) {
+                if (bin >= n)
+                    return false;
+                batch.clear();
+                index = 0;
+                collectBin(n, bin++, batch);
+            }
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K,V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return lastReturned = (MapEntry)batch.get(index++);
+        }
+
+        public void remove() {
+            MapEntry p;
+            if ((p = lastReturned) == null)
+                throw new IllegalStateException();
+            lastReturned = null;
+            OffHeapConcurrentHashMap.this.remove(p.getKey());
+        }
+    }
+
+    /**
+     * A decoded entry whose {@code setValue} writes through to the map.
+     */
+    final class MapEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 4960244958512315409L;
+
+        MapEntry(K key, V value) {
+            super(key, value);
+        }
+
+        public V setValue(V value) {
+            if (value == null)
+                throw new NullPointerException();
+            V v = super.setValue(value);
+            put(getKey(), value);
+            return v;
+        }
+    }
+
+    /* ---------------- Slab allocation -------------- */
+
+    /**
+     * Carves power-of-two blocks out of slabs.  Freed blocks are pushed
+     * onto an intrusive free list per size class, linked through their
+     * first word; slabs are bump-allocated otherwise.  Slab memory is
+     * never returned before {@link #release}, which is what makes
+     * reading a recycled record harmless to a reader that will fail
+     * validation.
+     */
+    static final class SlabAllocator {
+        /** log2 of the smallest block size, 32 bytes */
+        static final int MIN_SHIFT = 5;
+
+        final int slabSize;
+        final IntFunction<? extends ByteBuffer> slabFactory;
+        final long[] freeLists;
+        final ArrayList<ByteBuffer> slabs = new ArrayList<>();
+        long bump, bumpLimit;           // current slab's unallocated range
+        volatile long reserved, used;
+
+        SlabAllocator(int slabSize, IntFunction<? extends ByteBuffer> slabFactory) {
+            this.slabSize = slabSize;
+            this.slabFactory = slabFactory;
+            this.freeLists = new long[sizeClassFor(slabSize) + 1];
+        }
+
+        int sizeClassFor(int size) {
+            if (size > slabSize || size < 0)
+                throw new IllegalArgumentException(
+                    "Record of " + size + " bytes exceeds slab size " + slabSize);
+            int shift = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1);
+            return Math.max(shift, MIN_SHIFT) - MIN_SHIFT;
+        }
+
+        synchronized long allocate(int sc) {
+            long b = freeLists[sc];
+            int bytes = 1 << (sc + MIN_SHIFT);
+            if (b != 0L)
+                freeLists[sc] = U.getLong(b);
+            else {
+                if (bumpLimit - bump < bytes)
+                    newSlab();
+                b = bump;
+                bump += bytes;
+            }
+            used += bytes;
+            return b;
+        }
+
+        synchronized void free(long b, int sc) {
+            U.putLong(b, freeLists[sc]);
+            freeLists[sc] = b;
+            used -= 1 << (sc + MIN_SHIFT);
+        }
+
+        private void newSlab() {
+            ByteBuffer buf = slabFactory.apply(slabSize);
+            if (buf == null || !buf.isDirect() || buf.remaining() < slabSize)
+                throw new IllegalArgumentException(
+                    "Slab factory must supply direct buffers of " +
+                    slabSize + " bytes");
+            // Give the unused tail of the current slab to the free lists
+            for (long rem; (rem = bumpLimit - bump) >= (1 << MIN_SHIFT); ) {
+                int sc = 31 - Integer.numberOfLeadingZeros((int)rem) - MIN_SHIFT;
+                U.putLong(bump, freeLists[sc]);
+                freeLists[sc] = bump;
+                bump += 1 << (sc + MIN_SHIFT);
+            }
+            long base = ((sun.nio.ch.DirectBuffer)buf).address() + buf.position();
+            slabs.add(buf);
+            bump = base;
+            bumpLimit = base + slabSize;
+            reserved += slabSize;
+        }
+
+        synchronized void release() {
+            for (ByteBuffer buf : slabs) {
+                sun.misc.Cleaner c = ((sun.nio.ch.DirectBuffer)buf).cleaner();
+                if (c != null)
+                    c.clean();
+            }
+            slabs.clear();
+            java.util.Arrays.fill(freeLists, 0L);
+            bump = bumpLimit = 0L;
+            reserved = used = 0L;
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long LBASE;
+    private static final int LSHIFT;
+    private static final long BBASE;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            LBASE = U.arrayBaseOffset(long[].class);
+            int scale = U.arrayIndexScale(long[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            LSHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            BBASE = U.arrayBaseOffset(byte[].class);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
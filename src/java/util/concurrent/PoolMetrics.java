@@ -0,0 +1,150 @@
+package java.util.concurrent;
+
+import java.lang.management.ManagementFactory;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+
+/**
+ * Support for the optional metrics of {@link ThreadPoolExecutor} and
+ * {@link ForkJoinPool}: a histogram of durations, and registration of
+ * the pools' management interfaces with the platform MBeanServer.
+ * This class is loaded only when metrics are first enabled.
+ */
+final class PoolMetrics {
+    private PoolMetrics() {}
+
+    /** The number of histogram buckets; the last is unbounded. */
+    static final int BUCKETS = 40;
+
+    /**
+     * A histogram of nanosecond durations over power-of-two buckets,
+     * with a LongAdder per bucket so that concurrent recording does
+     * not contend.
+     */
+    static final class Histogram {
+        final LongAdder[] counts = new LongAdder[BUCKETS];
+        final LongAdder total = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < BUCKETS; ++i)
+                counts[i] = new LongAdder();
+        }
+
+        void record(long nanos) {
+            if (nanos < 0L)
+                nanos = 0L;
+            int i = 63 - Long.numberOfLeadingZeros(nanos | 1L);
+            counts[(i < BUCKETS) ? i : BUCKETS - 1].increment();
+            total.add(nanos);
+        }
+
+        long[] snapshot() {
+            long[] a = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; ++i)
+                a[i] = counts[i].sum();
+            return a;
+        }
+    }
+
+    /**
+     * Returns an object name for a pool of the given type, quoting the
+     * name if it contains characters not allowed in a value.
+     */
+    static ObjectName objectName(String type, String name) {
+        try {
+            String value = name;
+            for (int i = 0; i < name.length(); ++i) {
+                if (",=:\"*?\n".indexOf(name.charAt(i)) >= 0) {
+                    value = ObjectName.quote(name);
+                    break;
+                }
+            }
+            return new ObjectName("java.util.concurrent:type=" + type +
+                                  ",name=" + value);
+        } catch (javax.management.MalformedObjectNameException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Returns a name for a pool, unique within this VM.
+     */
+    static String nextName() {
+        return Long.toString(sequence.incrementAndGet());
+    }
+
+    /**
+     * The registration of a pool's management interface with the
+     * platform MBeanServer.  It unregisters only the instance that it
+     * registered itself, at most once, and once unregistered is never
+     * registered again, so that pools cannot unregister each other's
+     * interfaces and a registration racing with termination does not
+     * outlive it.
+     */
+    static final class Registration {
+        private final Object bean;
+        private final ObjectName name;
+        private ObjectInstance instance;  // null unless registered
+        private boolean cancelled;        // true once unregistered
+
+        Registration(Object bean, ObjectName name) {
+            this.bean = bean;
+            this.name = name;
+        }
+
+        /**
+         * Registers the bean, unless already registered or unregistered.
+         *
+         * @throws IllegalStateException if the bean cannot be
+         *         registered, for instance because its name is in use
+         */
+        synchronized void register() {
+            if (cancelled || instance != null)
+                return;
+            instance = AccessController.doPrivileged(
+                new PrivilegedAction<ObjectInstance>() {
+                    public ObjectInstance run() {
+                        try {
+                            return ManagementFactory.getPlatformMBeanServer()
+                                .registerMBean(bean, name);
+                        } catch (JMException e) {
+                            throw new IllegalStateException(
+                                "cannot register " + name, e);
+                        }
+                    }
+                });
+        }
+
+        /**
+         * Unregisters the bean if this registration registered it.
+         */
+        void unregister() {
+            final ObjectInstance inst;
+            synchronized (this) {
+                cancelled = true;
+                inst = instance;
+                instance = null;
+            }
+            if (inst == null)
+                return;
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                public Void run() {
+                    try {
+                        ManagementFactory.getPlatformMBeanServer()
+                            .unregisterMBean(inst.getObjectName());
+                    } catch (JMException ignore) {
+                        // already unregistered by another party
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+}
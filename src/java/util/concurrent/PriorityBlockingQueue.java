@@ -466,6 +466,116 @@ public class PriorityBlockingQueue<E> extends AbstractQueue<E> implements Blocki
     }
 
 
+    /**
+     * Inserts all elements of the collection under a single lock
+     * acquisition, growing the array first if necessary, and wakes at
+     * most one waiting consumer per element inserted.  As the queue is
+     * unbounded this always inserts every element.
+     *
+     * @return the number of elements inserted
+     * @throws ClassCastException if an element cannot be compared with
+     *         elements currently in the priority queue according to the
+     *         priority queue's ordering
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null, in which case nothing is inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        int k = a.length;
+        for (Object e : a)
+            if (e == null)
+                throw new NullPointerException();
+        if (k == 0)
+            return 0;
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        int i = 0;
+        try {
+            int n, cap;
+            Object[] array;
+            while ((n = size) + k > (cap = (array = queue).length)) {
+                if (n + k < 0 || n + k > MAX_ARRAY_SIZE)
+                    throw new OutOfMemoryError();
+                tryGrow(array, cap);
+            }
+            Comparator<? super E> cmp = comparator;
+            for (; i < k; i++) {
+                @SuppressWarnings("unchecked") E e = (E) a[i];
+                if (cmp == null)
+                    siftUpComparable(n + i, e, array);
+                else
+                    siftUpUsingComparator(n + i, e, array, cmp);
+                size = n + i + 1;
+            }
+            return k;
+        } finally {
+            for (; i > 0 && lock.hasWaiters(notEmpty); i--)
+                notEmpty.signal();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts all elements of the collection.  As the queue is
+     * unbounded this method never blocks; it is equivalent to
+     * {@link #offerAll}.
+     *
+     * @throws ClassCastException if an element cannot be compared with
+     *         elements currently in the priority queue according to the
+     *         priority queue's ordering
+     * @throws NullPointerException if the collection or any of its
+     *         elements is null, in which case nothing is inserted
+     * @throws IllegalArgumentException if the collection is this queue
+     */
+    public void putAll(Collection<? extends E> c) {
+        offerAll(c);
+    }
+
+    /**
+     * Waits for an element, then transfers up to maxElements elements
+     * in priority order under the same lock acquisition.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public int pollBatch(Collection<? super E> c, int maxElements,
+                         long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0)
+                    return 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(size, maxElements);
+            for (int i = 0; i < n; i++) {
+                c.add((E) queue[0]); // In this order, in case add() throws.
+                dequeue();
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public void clear() {
         final ReentrantLock lock = this.lock;
         lock.lock();
@@ -0,0 +1,61 @@
+package java.util.concurrent;
+
+/**
+ * A bounded {@linkplain ConcurrentArrayQueue lock-free array queue}
+ * for exactly one producer thread and one consumer thread.  Neither
+ * side performs a compare-and-set on its position; each advances it
+ * with ordered writes only.  Inserting from more than one thread at a
+ * time, or removing the head from more than one thread at a time,
+ * corrupts the queue.
+ *
+ * @param <E> the type of elements held in this queue
+ * @since 1.8
+ */
+public final class SpscArrayBlockingQueue<E> extends ConcurrentArrayQueue<E> {
+
+    /**
+     * Creates a queue with the given (minimum) capacity that parks
+     * waiting threads.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         1 or greater than 2<sup>30</sup>
+     */
+    public SpscArrayBlockingQueue(int capacity) {
+        super(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a queue with the given (minimum) capacity and wait
+     * strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how blocking operations wait
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         1 or greater than 2<sup>30</sup>
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public SpscArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    boolean offerElement(E e) {
+        long t = tail;
+        if (sequenceAt(t) != t)
+            return false;
+        publish(t, e);
+        lazySetTail(t + 1);
+        return true;
+    }
+
+    E pollElement() {
+        for (long h = head; ; ++h) {
+            if (sequenceAt(h) != h + 1)
+                return null;
+            lazySetHead(h + 1);
+            E x = consume(h);
+            if (x != null)
+                return x;
+        }
+    }
+}
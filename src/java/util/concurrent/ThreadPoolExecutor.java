@@ -1,14 +1,18 @@
 package java.util.concurrent;
 
+import java.lang.management.ThreadPoolExecutorMXBean;
 import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
+import javax.management.ObjectName;
 
 public class ThreadPoolExecutor extends AbstractExecutorService {
 
@@ -172,6 +176,42 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     private static final RuntimePermission shutdownPerm = new RuntimePermission("modifyThread");
 
+    /**
+     * Whether workers keep tasks submitted from worker threads in
+     * local queues that idle workers steal from.
+     */
+    private final boolean workStealing;
+
+    /**
+     * The worker run by the current thread, if it belongs to a pool in
+     * work-stealing mode.
+     */
+    private static final ThreadLocal<ThreadPoolExecutor.Worker> currentWorker =
+            new ThreadLocal<ThreadPoolExecutor.Worker>();
+
+    /**
+     * Snapshot of the workers set for lock-free stealing, replaced
+     * while holding mainLock.  Empty unless work stealing.
+     */
+    private volatile Worker[] stealTargets = new Worker[0];
+
+    /**
+     * The number of workers blocked on workQueue after finding no
+     * local, shared or stealable task.
+     */
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+
+    /**
+     * Local tasks of workers that died abruptly and could not be moved
+     * to a full workQueue.  Null unless work stealing.
+     */
+    private final ConcurrentLinkedQueue<Runnable> strandedTasks;
+
+    /**
+     * Metrics recorded while enabled; null otherwise.
+     */
+    private volatile Metrics metrics;
+
     /**
      * 继承AQS并实现Runnable,该类内部保存了一个线程池中的线程,用于控制线程 继承AQS是实现锁 实现Runnable是用于生成线程池中的运行线程
      */
@@ -192,6 +232,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
          * 当前线程完成的任务数
          */
         volatile long completedTasks;
+        /**
+         * Tasks submitted from this worker's thread; null unless work
+         * stealing.
+         */
+        final TaskQueue localTasks;
 
         /**
          * 构建Worker类,并传入生成线程需要执行的第一个任务,任务可以为空
@@ -204,6 +249,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             //通过state来保证启程启动后才能中断,防止出现调用了interruptWorkers(),但是正在启动的线程却接受不到中断指令的信息
             setState(-1);
             this.firstTask = firstTask;
+            this.localTasks = workStealing ? new TaskQueue() : null;
             this.thread = getThreadFactory().newThread(this);  //利用线程池和当前Runnable类开启一个线程,该线程还未启动
         }
 
@@ -214,6 +260,13 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             runWorker(this);
         }
 
+        /**
+         * Returns the pool this worker belongs to.
+         */
+        ThreadPoolExecutor pool() {
+            return ThreadPoolExecutor.this;
+        }
+
         /**
          * AQS锁方法 state=0表示无锁 state=1表示有锁
          *
@@ -297,6 +350,297 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         }
     }
 
+    /**
+     * A queued task whose queue-wait time is being measured, with the
+     * time it was queued.
+     */
+    static final class Probe {
+        final Runnable task;
+        final long queuedAt;
+        long checkedAt;  // when the probe was last found still queued
+
+        Probe(Runnable task, long now) {
+            this.task = task;
+            this.queuedAt = this.checkedAt = now;
+        }
+    }
+
+    /**
+     * The interval at which a submitter checks that the probe is still
+     * queued, rather than removed through the queue itself.
+     */
+    private static final long PROBE_CHECK_NANOS = 100L * 1000 * 1000;
+
+    /**
+     * Starts measuring the queue-wait time of a task about to be
+     * queued, unless another queued task is being measured.  A probe
+     * not run for PROBE_CHECK_NANOS is dropped if no longer queued.
+     *
+     * @return the new probe, to be withdrawn if the task is not queued,
+     *         or null
+     */
+    private Probe sample(Metrics m, Runnable task) {
+        long now = System.nanoTime();
+        Probe p = m.probe.get();
+        if (p != null) {
+            if (now - p.checkedAt < PROBE_CHECK_NANOS) {
+                return null;
+            }
+            p.checkedAt = now;
+            if (workQueue.contains(p.task) || !m.probe.compareAndSet(p, null)) {
+                return null;
+            }
+        }
+        Probe q = new Probe(task, now);
+        return m.probe.compareAndSet(null, q) ? q : null;
+    }
+
+    /**
+     * Offers a task to the work queue, sampling its queue-wait time if
+     * metrics are enabled.
+     */
+    private boolean enqueue(Metrics m, Runnable task) {
+        Probe p = (m != null) ? sample(m, task) : null;
+        if (workQueue.offer(task)) {
+            return true;
+        }
+        if (p != null) {
+            m.probe.compareAndSet(p, null);
+        }
+        return false;
+    }
+
+    /**
+     * Stops measuring a task that has left the queue without being run.
+     */
+    private void dropProbe(Runnable task) {
+        Metrics m = metrics;
+        Probe p;
+        if (m != null && (p = m.probe.get()) != null && p.task == task) {
+            m.probe.compareAndSet(p, null);
+        }
+    }
+
+    /**
+     * A bounded FIFO queue of tasks owned by one worker, after the
+     * work queues of ForkJoinPool.  Only the owning worker's thread
+     * pushes, at top; the owner and thieves remove at base by CAS of
+     * the slot, so removal from any thread is lock-free.  remove(Object)
+     * overwrites a slot with a tombstone that pollers skip.
+     */
+    static final class TaskQueue {
+        static final int CAPACITY = 1 << 13; // power of two
+        static final Object TOMBSTONE = new Object();
+
+        final Object[] array = new Object[CAPACITY];
+        volatile int base;
+        volatile int top;
+
+        /**
+         * Pushes a task, or returns false if full.  Call only from the
+         * owner.  The volatile write of top orders the push before the
+         * caller's subsequent read of idleWorkers.
+         */
+        boolean push(Runnable task) {
+            int s = top;
+            if (s - base >= CAPACITY)
+                return false;
+            U.putOrderedObject(array, slotOffset(s), task);
+            top = s + 1;
+            return true;
+        }
+
+        /**
+         * Takes the oldest task, or returns null if empty.
+         */
+        Runnable poll() {
+            for (int b; (b = base) - top < 0; ) {
+                long off = slotOffset(b);
+                Object t = U.getObjectVolatile(array, off);
+                if (t != null && base == b &&
+                    U.compareAndSwapObject(array, off, t, null)) {
+                    base = b + 1;
+                    if (t != TOMBSTONE)
+                        return (Runnable) t;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Replaces one occurrence of the task by a tombstone.
+         */
+        boolean remove(Object task) {
+            for (int i = base; i - top < 0; ++i) {
+                long off = slotOffset(i);
+                Object t = U.getObjectVolatile(array, off);
+                if (t != null && t != TOMBSTONE && task.equals(t) &&
+                    U.compareAndSwapObject(array, off, t, TOMBSTONE))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * Replaces all cancelled Futures by tombstones.
+         */
+        void purge() {
+            for (int i = base; i - top < 0; ++i) {
+                long off = slotOffset(i);
+                Object t = U.getObjectVolatile(array, off);
+                if (t instanceof Future<?> && ((Future<?>) t).isCancelled())
+                    U.compareAndSwapObject(array, off, t, TOMBSTONE);
+            }
+        }
+
+        /**
+         * Returns the number of queued slots, including tombstones.
+         */
+        int size() {
+            int n = top - base;
+            return (n < 0) ? 0 : n;
+        }
+
+        void drainTo(List<Runnable> list) {
+            for (Runnable r; (r = poll()) != null; )
+                list.add(r);
+        }
+
+        static long slotOffset(int i) {
+            return ((long) (i & (CAPACITY - 1)) << ASHIFT) + ABASE;
+        }
+
+        private static final sun.misc.Unsafe U;
+        private static final long ABASE;
+        private static final int ASHIFT;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                ABASE = U.arrayBaseOffset(Object[].class);
+                int scale = U.arrayIndexScale(Object[].class);
+                if ((scale & (scale - 1)) != 0)
+                    throw new Error("data type scale not a power of two");
+                ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /**
+     * Returns true if there are no queued tasks, shared or local.
+     */
+    private boolean isQueueEmpty() {
+        if (!workQueue.isEmpty())
+            return false;
+        if (workStealing) {
+            if (!strandedTasks.isEmpty())
+                return false;
+            for (Worker w : stealTargets)
+                if (w.localTasks.size() > 0)
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of queued tasks, shared or local.
+     */
+    private int queuedTaskCount() {
+        int n = workQueue.size();
+        if (workStealing) {
+            n += strandedTasks.size();
+            for (Worker w : stealTargets)
+                n += w.localTasks.size();
+        }
+        return n;
+    }
+
+    /**
+     * Republishes the worker snapshot used by thieves.  Call only
+     * while holding mainLock, after changing workers.
+     */
+    private void updateStealTargets() {
+        if (workStealing)
+            stealTargets = workers.toArray(new Worker[0]);
+    }
+
+    /**
+     * Queues a task submitted by a worker of this pool in its local
+     * queue, or returns false if full.  If any worker is blocked on
+     * workQueue, the oldest local task is moved there to wake it: the
+     * idle worker either sees the pushed task when it rescans after
+     * counting itself idle, or is counted before the push completes.
+     */
+    private boolean pushLocal(Worker w, Runnable task) {
+        TaskQueue q = w.localTasks;
+        if (!q.push(task))
+            return false;
+        if (idleWorkers.get() > 0) {
+            Runnable t = q.poll();
+            if (t != null && !workQueue.offer(t))
+                q.push(t);
+        }
+        return true;
+    }
+
+    /**
+     * Takes a task from another worker's local queue, visiting workers
+     * from a random start.
+     */
+    private Runnable steal(Worker w) {
+        Worker[] ws = stealTargets;
+        int n = ws.length;
+        if (n > 1) {
+            int i = ThreadLocalRandom.current().nextInt(n);
+            for (int k = 0; k < n; ++k, i = (i + 1 == n) ? 0 : i + 1) {
+                Worker v = ws[i];
+                Runnable r;
+                if (v != w && (r = v.localTasks.poll()) != null)
+                    return r;
+            }
+        }
+        return null;
+    }
+
+    private Runnable pollShared() {
+        Runnable r = workQueue.poll();
+        return (r != null) ? r : strandedTasks.poll();
+    }
+
+    /**
+     * Work-stealing counterpart of workQueue.take/poll in getTask:
+     * tries the shared queue and every other worker's local queue,
+     * then counts this worker idle, rescans, and blocks on workQueue.
+     */
+    private Runnable awaitTask(Worker w, boolean timed)
+        throws InterruptedException {
+        Runnable r;
+        if ((r = pollShared()) != null || (r = steal(w)) != null)
+            return r;
+        idleWorkers.incrementAndGet();
+        try {
+            if ((r = steal(w)) != null || (r = pollShared()) != null)
+                return r;
+            return timed ?
+                workQueue.poll(keepAliveTime, TimeUnit.NANOSECONDS) :
+                workQueue.take();
+        } finally {
+            idleWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Moves the local tasks of a worker that died abruptly to workQueue,
+     * or to strandedTasks if workQueue is full.
+     */
+    private void transferLocalTasks(Worker w) {
+        for (Runnable r; (r = w.localTasks.poll()) != null; ) {
+            if (!workQueue.offer(r))
+                strandedTasks.add(r);
+        }
+    }
+
     /**
      * 设置线程池状态至少为指定状态或指定状态以上
      */
@@ -323,8 +667,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             int c = ctl.get();
             if (isRunning(c) ||         //线程池状态为运行中,不可设置为Terminate
                     runStateAtLeast(c, TIDYING) ||   //线程池状态为TIDYING,Terminate,说明其他线程已开始该操作,此线程不需要执行
-                    (runStateOf(c) == SHUTDOWN && !workQueue
-                            .isEmpty())) { //线程池状态为SHUTDOWN且队列不为空,不可设置为Terminate
+                    (runStateOf(c) == SHUTDOWN && !isQueueEmpty())) { //线程池状态为SHUTDOWN且队列不为空,不可设置为Terminate
                 return;
             }
             if (workerCountOf(c) != 0) { //存在工作线程数,尝试向一个线程发送中断请求
@@ -342,6 +685,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     } finally {
                         ctl.set(ctlOf(TERMINATED, 0)); //设置线程池状态为TERMINATED
                         termination.signalAll(); //唤醒其它等待锁的线程
+                        Metrics m = metrics;
+                        if (m != null) {
+                            m.registration.unregister();
+                        }
                     }
                     return;
                 }
@@ -433,6 +780,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * 执行拒绝策略,ScheduledThreadPoolExecutor中可以使用, 因为该方法是受保护的
      */
     final void reject(Runnable command) {
+        Metrics m = metrics;
+        if (m != null) {
+            m.rejected.increment();
+        }
         handler.rejectedExecution(command, this);
     }
 
@@ -464,6 +815,16 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 }
             }
         }
+        if (workStealing) {
+            for (Worker w : workers)
+                w.localTasks.drainTo(taskList);
+            for (Runnable r; (r = strandedTasks.poll()) != null; )
+                taskList.add(r);
+        }
+        Metrics m = metrics;
+        if (m != null) {
+            m.probe.set(null);
+        }
         return taskList;
     }
 
@@ -483,7 +844,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             //不可创建线程的情况
             //线程池状态为STOP、TIDYING、TERMINATED
             //当线程池状态为SHUTDOWN时,不可接受新任务,创建的线程必须是不含初始任务的新线程,用来执行队列中未执行的任务
-            if (rs >= SHUTDOWN && !(rs == SHUTDOWN && firstTask == null && !workQueue.isEmpty())) {
+            if (rs >= SHUTDOWN && !(rs == SHUTDOWN && firstTask == null && !isQueueEmpty())) {
                 return false;
             }
 
@@ -526,6 +887,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                             throw new IllegalThreadStateException();
                         }
                         workers.add(w);  //添加worker即worker集合,保存所有的工作线程包装类
+                        updateStealTargets();
                         int s = workers.size();
                         if (s > largestPoolSize) { //记录同时工作的最大线程数
                             largestPoolSize = s;
@@ -557,6 +919,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         try {
             if (w != null) {
                 workers.remove(w); //移除worker
+                updateStealTargets();
             }
             decrementWorkerCount(); //线程数-1
             tryTerminate(); //所有线程数减少的地方都需要尝试设置线程状态为Terminate,
@@ -572,6 +935,8 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     private void processWorkerExit(Worker w, boolean completedAbruptly) {
         //非正常退出的话线程数-1,正常退出时已经-1了,这里不需要-1
         if (completedAbruptly) {
+            if (workStealing)
+                transferLocalTasks(w);  // while still counted
             decrementWorkerCount();
         }
 
@@ -580,6 +945,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         try {
             completedTaskCount += w.completedTasks;  //将该线程执行的任务数统计到completedTaskCount中
             workers.remove(w); //移除该线程
+            updateStealTargets();
         } finally {
             mainLock.unlock();
         }
@@ -590,7 +956,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         if (runStateLessThan(c, STOP)) {  //如果现在还不是STOP以上状态
             if (!completedAbruptly) {   //且是正常退出
                 int min = allowCoreThreadTimeOut ? 0 : corePoolSize;  //判断线程池中最小线程数
-                if (min == 0 && !workQueue.isEmpty()) {  //
+                if (min == 0 && !isQueueEmpty()) {  //
                     min = 1;
                 }
                 //判断当前线层池中的线程是否达到最小值,达到则不用创建新线程,达不到则创建
@@ -607,15 +973,24 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     /**
      * worker线程获取执行任务
      */
-    private Runnable getTask() {
+    private Runnable getTask(Worker w) {
         boolean timedOut = false; //默认该线程不需要回收,只有在通过指定回收时长内没有获取到任务才会设置为true,true表示需要判断是否回收该线程
 
         for (; ; ) {
             int c = ctl.get();
             int rs = runStateOf(c);
 
+            // Run own local tasks before any exit check, so that a worker
+            // only leaves (other than on STOP) with an empty local queue
+            if (workStealing && rs < STOP) {
+                Runnable r = w.localTasks.poll();
+                if (r != null) {
+                    return r;
+                }
+            }
+
             // 没有任务,线程数-1(这里也就是为什么正常退出的线程在processWorkerExit为什么没有-1的原因)
-            if (rs >= SHUTDOWN && (rs >= STOP || workQueue.isEmpty())) {
+            if (rs >= SHUTDOWN && (rs >= STOP || isQueueEmpty())) {
                 decrementWorkerCount();
                 return null;
             }
@@ -627,7 +1002,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
 
             //已下条件回收线程
             if ((wc > maximumPoolSize    //大于最大线程数
-                    || (timed && timedOut)) && (wc > 1 || workQueue.isEmpty())) { //上轮循环线程通过指定时长未获取到任务且满足回收条件(还存在正在运行的线程,或者只有该线程在运行但已经没有任务了)
+                    || (timed && timedOut)) && (wc > 1 || isQueueEmpty())) { //上轮循环线程通过指定时长未获取到任务且满足回收条件(还存在正在运行的线程,或者只有该线程在运行但已经没有任务了)
                 if (compareAndDecrementWorkerCount(c)) {
                     return null;
                 }
@@ -635,9 +1010,15 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             }
 
             try {
-                Runnable r = timed ?  //可回收时通过poll操作,不可回收时通过take操作
+                Metrics m = metrics;
+                long idleStart = (m != null) ? System.nanoTime() : 0L;
+                Runnable r = workStealing ? awaitTask(w, timed) :
+                        timed ?  //可回收时通过poll操作,不可回收时通过take操作
                         workQueue.poll(keepAliveTime, TimeUnit.NANOSECONDS) :
                         workQueue.take();
+                if (m != null) {
+                    m.idleTime.add(System.nanoTime() - idleStart);
+                }
                 if (r != null) {  //take方法取到的肯定不为空
                     return r;
                 }
@@ -660,9 +1041,19 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         Runnable task = w.firstTask; //执行的任务
         w.firstTask = null; //设置任务为空,方便回收
         w.unlock(); //创建线程时设置了state=-1保证不可中断,现在设置为允许中断
+        boolean queued = false;  // whether task was taken from a queue, not handed over
         boolean completedAbruptly = true;  //该标识用于表示线程是执行完任务正常结束,还是发生异常而结束的,true表示发生异常而结束
+        if (workStealing) {
+            currentWorker.set(w);
+        }
         try {
-            while (task != null || (task = getTask()) != null) {  //从队列中循环取任务
+            while (task != null || (task = getTask(w)) != null) {  //从队列中循环取任务
+                Metrics m = metrics;
+                Probe p;
+                if (queued && m != null && (p = m.probe.get()) != null && p.task == task &&
+                        m.probe.compareAndSet(p, null)) {
+                    m.queueWaitTime.record(System.nanoTime() - p.queuedAt);
+                }
                 w.lock();  //加锁是为了任务在执行过程中不可以被中断,调用中断任务interruptIdleWorkers()方法必须获取锁才可以设置中断
                 //这里必须保证STOP以上(含STOP)必须为中断状态,RUNNABLE状态必须为非中断,interruptIdleWorkers()方法时如果线程恰好没启动,就需要在这里设置中断状态
                 if ((runStateAtLeast(ctl.get(), STOP) ||
@@ -672,6 +1063,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 try {
                     beforeExecute(wt, task);   //该任务执行前,空实现,可以处理中断
                     Throwable thrown = null;
+                    long start = (m != null) ? System.nanoTime() : 0L;
                     try {
                         task.run();  //执行任务,也就是我们提交的Runnable
                     } catch (RuntimeException x) {
@@ -684,16 +1076,26 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                         thrown = x;
                         throw new Error(x);
                     } finally {
+                        if (m != null) {
+                            m.runTime.record(System.nanoTime() - start);
+                            if (thrown != null) {
+                                m.failed.increment();
+                            }
+                        }
                         afterExecute(task, thrown); //该任务执行后,空实现,可以处理中断
                     }
                 } finally {
                     task = null; //设置任务为空,方便回收
+                    queued = true;
                     w.completedTasks++; //完成的任务数+1
                     w.unlock();
                 }
             }
             completedAbruptly = false;  //设置正常结束
         } finally {
+            if (workStealing) {
+                currentWorker.remove();
+            }
             processWorkerExit(w, completedAbruptly);
         }
     }
@@ -740,6 +1142,57 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      */
     public ThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
                               BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler, false);
+    }
+
+    /**
+     * Creates a new {@code ThreadPoolExecutor} with the given initial
+     * parameters, optionally in work-stealing mode.
+     *
+     * <p>In work-stealing mode, each worker has a bounded local queue.
+     * A task submitted by {@link #execute} from one of this pool's own
+     * worker threads, once the pool has at least {@code corePoolSize}
+     * threads, is queued locally instead of in {@code workQueue}, and is
+     * normally run by the same thread after its current task.  A worker
+     * that finds its local queue empty polls {@code workQueue}, then
+     * steals the oldest task of another worker.  While any worker is
+     * blocked waiting on {@code workQueue}, local submissions are handed
+     * to it through {@code workQueue}, so that idle threads are not left
+     * waiting while tasks are queued.  Sizing, keep-alive, rejection and
+     * the {@link #beforeExecute beforeExecute} and
+     * {@link #afterExecute afterExecute} hooks behave as otherwise.
+     * Tasks queued locally are not visible through {@link #getQueue},
+     * but are counted by {@link #getTaskCount}, removed by
+     * {@link #remove} and {@link #purge}, and returned by
+     * {@link #shutdownNow}.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param workQueue the queue to use for holding tasks submitted from
+     *        threads outside the pool
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @param handler the handler to use when execution is blocked
+     *        because the thread bounds and queue capacities are reached
+     * @param workStealing true to give workers local queues
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code corePoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < corePoolSize}
+     * @throws NullPointerException if {@code workQueue}
+     *         or {@code threadFactory} or {@code handler} is null
+     * @since 1.8
+     */
+    public ThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                              BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory, RejectedExecutionHandler handler,
+                              boolean workStealing) {
         if (corePoolSize < 0 || maximumPoolSize <= 0 || maximumPoolSize < corePoolSize || keepAliveTime < 0) {
             throw new IllegalArgumentException();
         }
@@ -752,6 +1205,18 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         this.keepAliveTime = unit.toNanos(keepAliveTime);
         this.threadFactory = threadFactory;
         this.handler = handler;
+        this.workStealing = workStealing;
+        this.strandedTasks = workStealing ? new ConcurrentLinkedQueue<Runnable>() : null;
+    }
+
+    /**
+     * Returns true if this pool was created in work-stealing mode.
+     *
+     * @return true if workers keep local task queues
+     * @since 1.8
+     */
+    public boolean isWorkStealing() {
+        return workStealing;
     }
 
     /**
@@ -761,6 +1226,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         if (command == null) {  //任务体不可以为空
             throw new NullPointerException();
         }
+        Metrics m = metrics;
+        if (m != null) {
+            m.submitted.increment();
+        }
         int c = ctl.get();
         //当工作线程小于corePoolSize,尝试启动一个新的工作线程并将当前任务作为该线程的第一个任务
         if (workerCountOf(c) < corePoolSize) {
@@ -769,8 +1238,17 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             }
             c = ctl.get();
         }
+        // Work-stealing mode: keep submissions from our own workers local
+        Worker w;
+        if (workStealing && isRunning(c) && (w = currentWorker.get()) != null &&
+                w.pool() == this && pushLocal(w, command)) {
+            if (!isRunning(ctl.get()) && remove(command)) {
+                reject(command);
+            }
+            return;
+        }
         //不能启动核心线程时,将任务添加到阻塞队列中
-        if (isRunning(c) && workQueue.offer(command)) {
+        if (isRunning(c) && enqueue(m, command)) {
             int recheck = ctl.get();
             if (!isRunning(recheck) && remove(command)) {  //添加至队列后发现线程池状态变为非运行状态,移除该任务并执行拒绝策略
                 reject(command);
@@ -1027,6 +1505,18 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
 
     public boolean remove(Runnable task) {
         boolean removed = workQueue.remove(task);
+        if (!removed && workStealing && task != null) {
+            removed = strandedTasks.remove(task);
+            for (Worker w : stealTargets) {
+                if (removed) {
+                    break;
+                }
+                removed = w.localTasks.remove(task);
+            }
+        }
+        if (removed) {
+            dropProbe(task);
+        }
         tryTerminate(); // In case SHUTDOWN and now empty
         return removed;
     }
@@ -1054,6 +1544,17 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 }
             }
         }
+        if (workStealing) {
+            for (Worker w : stealTargets) {
+                w.localTasks.purge();
+            }
+            for (Iterator<Runnable> it = strandedTasks.iterator(); it.hasNext(); ) {
+                Runnable r = it.next();
+                if (r instanceof Future<?> && ((Future<?>) r).isCancelled()) {
+                    it.remove();
+                }
+            }
+        }
 
         tryTerminate(); // In case SHUTDOWN and now empty
     }
@@ -1123,7 +1624,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     ++n;
                 }
             }
-            return n + workQueue.size();
+            return n + queuedTaskCount();
         } finally {
             mainLock.unlock();
         }
@@ -1149,6 +1650,112 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     }
 
 
+    /**
+     * Starts recording metrics for this pool, if not already recording,
+     * and registers its management interface with the platform
+     * {@link javax.management.MBeanServer MBeanServer}.  Recording adds
+     * a few clock reads to each execution.  Queue-wait time is sampled:
+     * one queued task at a time is measured, from its submission until
+     * a worker starts it, so that no per-task state is kept.  The tasks
+     * queued, run, removed and returned are those submitted, and the
+     * behavior of the pool is otherwise unchanged.
+     * The interface is unregistered when the pool terminates or
+     * metrics are disabled.
+     *
+     * @return the management interface of this pool
+     * @throws IllegalStateException if the interface cannot be
+     *         registered, in which case metrics are not enabled
+     * @since 1.8
+     */
+    public ThreadPoolExecutorMXBean enableMetrics() {
+        final ReentrantLock mainLock = this.mainLock;
+        Metrics m;
+        mainLock.lock();
+        try {
+            if ((m = metrics) != null) {
+                return m;
+            }
+            metrics = m = new Metrics();
+        } finally {
+            mainLock.unlock();
+        }
+        try {
+            m.registration.register();
+        } catch (IllegalStateException e) {
+            mainLock.lock();
+            try {
+                if (metrics == m) {
+                    metrics = null;
+                }
+            } finally {
+                mainLock.unlock();
+            }
+            throw e;
+        }
+        if (isTerminated()) {
+            m.registration.unregister();
+        }
+        return m;
+    }
+
+    /**
+     * Stops recording metrics for this pool and unregisters its
+     * management interface.  Values already recorded remain readable
+     * through the interface returned by {@link #enableMetrics}.
+     *
+     * @since 1.8
+     */
+    public void disableMetrics() {
+        final ReentrantLock mainLock = this.mainLock;
+        Metrics m;
+        mainLock.lock();
+        try {
+            m = metrics;
+            metrics = null;
+        } finally {
+            mainLock.unlock();
+        }
+        if (m != null) {
+            m.registration.unregister();
+        }
+    }
+
+    /**
+     * The metrics of this pool, exposed as its management interface.
+     */
+    private final class Metrics implements ThreadPoolExecutorMXBean {
+        final LongAdder submitted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder idleTime = new LongAdder();
+        final PoolMetrics.Histogram queueWaitTime = new PoolMetrics.Histogram();
+        final PoolMetrics.Histogram runTime = new PoolMetrics.Histogram();
+        final AtomicReference<Probe> probe = new AtomicReference<>();
+        final String name = PoolMetrics.nextName();
+        final ObjectName objectName =
+                PoolMetrics.objectName("ThreadPoolExecutor", name);
+        final PoolMetrics.Registration registration =
+                new PoolMetrics.Registration(this, objectName);
+
+        public ObjectName getObjectName() { return objectName; }
+        public String getName() { return name; }
+        public int getCorePoolSize() { return ThreadPoolExecutor.this.getCorePoolSize(); }
+        public int getMaximumPoolSize() { return ThreadPoolExecutor.this.getMaximumPoolSize(); }
+        public int getPoolSize() { return ThreadPoolExecutor.this.getPoolSize(); }
+        public int getLargestPoolSize() { return ThreadPoolExecutor.this.getLargestPoolSize(); }
+        public int getActiveCount() { return ThreadPoolExecutor.this.getActiveCount(); }
+        public int getQueueSize() { return queuedTaskCount(); }
+        public long getCompletedTaskCount() { return ThreadPoolExecutor.this.getCompletedTaskCount(); }
+        public long getSubmittedTaskCount() { return submitted.sum(); }
+        public long getRejectedTaskCount() { return rejected.sum(); }
+        public long getFailedTaskCount() { return failed.sum(); }
+        public long[] getQueueWaitTimeHistogram() { return queueWaitTime.snapshot(); }
+        public long getTotalQueueWaitTime() { return queueWaitTime.total.sum(); }
+        public long[] getRunTimeHistogram() { return runTime.snapshot(); }
+        public long getTotalActiveTime() { return runTime.total.sum(); }
+        public long getTotalIdleTime() { return idleTime.sum(); }
+    }
+
     public String toString() {
         long ncompleted;
         int nworkers, nactive;
@@ -1175,7 +1782,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                 "[" + rs +
                 ", pool size = " + nworkers +
                 ", active threads = " + nactive +
-                ", queued tasks = " + workQueue.size() +
+                ", queued tasks = " + queuedTaskCount() +
                 ", completed tasks = " + ncompleted +
                 "]";
     }
@@ -0,0 +1,768 @@
+package java.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps delayed tasks in a
+ * hierarchical timing wheel rather than a priority queue, so that
+ * scheduling and cancelling a task take constant time however many
+ * tasks are outstanding.  It is intended for very large numbers of
+ * timeouts, most of which are cancelled before they expire, where
+ * {@link ScheduledThreadPoolExecutor} would spend its time maintaining
+ * the order of its heap under a single lock.
+ *
+ * <p>Time is divided into ticks of a fixed duration given on
+ * construction.  A single ticker thread advances the wheel once per
+ * tick and hands the tasks that have become due to a fixed number of
+ * dispatch threads, which run them.  A task therefore runs no earlier
+ * than its delay, and typically up to one tick later; the tick
+ * duration trades this precision against the ticker's overhead.
+ * Tasks due in the same tick are not run in any particular order.
+ *
+ * <p>Threads scheduling tasks never take a lock or touch the wheel:
+ * they append the task to a concurrent queue that the ticker drains
+ * on its next tick.  A cancelled task is unlinked from the wheel at
+ * once by the cancelling thread, or, if the ticker is busy with the
+ * wheel at that moment, by the ticker on its next tick, so cancelled
+ * tasks do not accumulate until their delays elapse.  While no tasks
+ * are outstanding the ticker parks rather than ticking.
+ *
+ * <p>Tasks submitted with {@code execute} or {@code submit}, or
+ * scheduled with a delay of zero or less, go directly to the dispatch
+ * threads.  As with {@code ScheduledThreadPoolExecutor} under its
+ * default policies, delayed tasks scheduled before {@link #shutdown}
+ * still run when due, periodic tasks stop, and the executor
+ * terminates once no delayed tasks remain.
+ *
+ * @since 1.8
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+        implements ScheduledExecutorService {
+
+    /** The default tick duration, in nanoseconds: one millisecond. */
+    private static final long DEFAULT_TICK_NANOS = 1000L * 1000L;
+
+    /** The default number of buckets in each level of the wheel. */
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    /** Sequence number to break scheduling ties among equal times. */
+    private static final AtomicLong sequencer = new AtomicLong();
+
+    // Run states, as in ThreadPoolExecutor
+    private static final int RUNNING  = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP     = 2;
+
+    private volatile int runState;
+
+    /** The duration of one tick, in nanoseconds. */
+    private final long tickNanos;
+
+    /** The System.nanoTime() value at which tick zero began. */
+    private final long startNanos;
+
+    /** log2 of the number of buckets in each level. */
+    private final int wheelBits;
+
+    /** The number of buckets in each level, minus one. */
+    private final int wheelMask;
+
+    /**
+     * The buckets of the wheel, by level.  Level i holds the tasks due
+     * between 2^(wheelBits*i) and 2^(wheelBits*(i+1)) ticks from the
+     * current tick, each bucket a doubly-linked list indexed by the
+     * bits of the deadline at that level.  Accessed only by the ticker
+     * or under wheelLock.
+     */
+    private final WheelTask<?>[][] wheel;
+
+    /** The tick the wheel has advanced to.  Guarded by wheelLock. */
+    private long currentTick;
+
+    /** The number of tasks in the wheel.  Written under wheelLock. */
+    private volatile int wheelCount;
+
+    /**
+     * Held by the ticker while it updates the wheel, so that
+     * shutdownNow can take the tasks in it.
+     */
+    private final ReentrantLock wheelLock = new ReentrantLock();
+
+    /** Tasks scheduled but not yet placed in the wheel. */
+    private final ConcurrentLinkedQueue<WheelTask<?>> pending =
+        new ConcurrentLinkedQueue<WheelTask<?>>();
+
+    /**
+     * Tasks cancelled while wheelLock was held, not yet unlinked from
+     * the wheel.  Drained by the ticker and by later cancellations.
+     */
+    private final ConcurrentLinkedQueue<WheelTask<?>> cancelled =
+        new ConcurrentLinkedQueue<WheelTask<?>>();
+
+    /** Runs tasks once they are due. */
+    private final ThreadPoolExecutor dispatcher;
+
+    private final ThreadFactory threadFactory;
+
+    /** Guards starting the ticker and shutdown. */
+    private final ReentrantLock mainLock = new ReentrantLock();
+
+    /** The ticker thread, started with the first delayed task. */
+    private volatile Thread ticker;
+
+    /** True while the ticker is parked with no outstanding tasks. */
+    private volatile boolean tickerIdle;
+
+    private class WheelTask<V> extends FutureTask<V>
+            implements RunnableScheduledFuture<V> {
+
+        /** Sequence number to break ties FIFO */
+        private final long sequenceNumber;
+
+        /** The time the task is enabled to execute in nanoTime units */
+        private volatile long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks.  A positive
+         * value indicates fixed-rate execution.  A negative value
+         * indicates fixed-delay execution.  A value of 0 indicates a
+         * non-repeating task.
+         */
+        private final long period;
+
+        /** The level of the bucket holding this task, or -1 if none */
+        int level = -1;
+
+        /** The index of the bucket holding this task */
+        int index;
+
+        /** Links within the bucket */
+        WheelTask<?> prev, next;
+
+        WheelTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        WheelTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+                return 0;
+            if (other instanceof WheelTask) {
+                WheelTask<?> x = (WheelTask<?>)other;
+                long diff = time - x.time;
+                if (diff < 0)
+                    return -1;
+                else if (diff > 0)
+                    return 1;
+                else if (sequenceNumber < x.sequenceNumber)
+                    return -1;
+                else
+                    return 1;
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        /**
+         * Sets the next time to run for a periodic task.
+         */
+        private void setNextRunTime() {
+            long p = period;
+            if (p > 0)
+                time += p;
+            else
+                time = triggerTime(-p);
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean c = super.cancel(mayInterruptIfRunning);
+            if (c)
+                unlinkCancelled(this);
+            return c;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reset/requeue if periodic.
+         */
+        public void run() {
+            boolean periodic = isPeriodic();
+            if (periodic && runState != RUNNING)
+                cancel(false);
+            else if (!periodic)
+                WheelTask.super.run();
+            else if (WheelTask.super.runAndReset()) {
+                setNextRunTime();
+                reschedule(this);
+            }
+        }
+    }
+
+    /**
+     * Creates a new executor with the given number of dispatch threads
+     * and a tick of one millisecond.
+     *
+     * @param poolSize the number of threads that run due tasks
+     * @throws IllegalArgumentException if {@code poolSize <= 0}
+     */
+    public TimingWheelScheduledExecutor(int poolSize) {
+        this(poolSize, DEFAULT_TICK_NANOS, NANOSECONDS,
+             Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new executor with the given number of dispatch threads,
+     * tick duration and thread factory, and a wheel of 512 buckets per
+     * level.
+     *
+     * @param poolSize the number of threads that run due tasks
+     * @param tickDuration the duration of one tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param threadFactory the factory to use to create the dispatch
+     *        threads and the ticker thread
+     * @throws IllegalArgumentException if {@code poolSize <= 0} or
+     *         {@code tickDuration} is less than one nanosecond
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int poolSize,
+                                        long tickDuration,
+                                        TimeUnit unit,
+                                        ThreadFactory threadFactory) {
+        this(poolSize, tickDuration, unit, DEFAULT_WHEEL_SIZE, threadFactory);
+    }
+
+    /**
+     * Creates a new executor with the given number of dispatch threads,
+     * tick duration, wheel size and thread factory.  Each level of the
+     * wheel has {@code wheelSize} buckets, rounded up to a power of two,
+     * and spans that many times the duration of the level below it;
+     * larger wheels cascade tasks between levels less often at the
+     * cost of more memory.
+     *
+     * @param poolSize the number of threads that run due tasks
+     * @param tickDuration the duration of one tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param wheelSize the number of buckets in each level of the wheel
+     * @param threadFactory the factory to use to create the dispatch
+     *        threads and the ticker thread
+     * @throws IllegalArgumentException if {@code poolSize <= 0},
+     *         {@code tickDuration} is less than one nanosecond, or
+     *         {@code wheelSize} is less than 2 or greater than 2^16
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int poolSize,
+                                        long tickDuration,
+                                        TimeUnit unit,
+                                        int wheelSize,
+                                        ThreadFactory threadFactory) {
+        if (unit == null || threadFactory == null)
+            throw new NullPointerException();
+        long tick = unit.toNanos(tickDuration);
+        if (poolSize <= 0 || tick <= 0L || wheelSize < 2 || wheelSize > 1 << 16)
+            throw new IllegalArgumentException();
+        int bits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.wheelBits = bits;
+        this.wheelMask = (1 << bits) - 1;
+        this.wheel = new WheelTask<?>[(63 + bits - 1) / bits][1 << bits];
+        this.tickNanos = tick;
+        this.threadFactory = threadFactory;
+        this.dispatcher = new ThreadPoolExecutor(poolSize, poolSize,
+                                                 0L, TimeUnit.MILLISECONDS,
+                                                 new LinkedBlockingQueue<Runnable>(),
+                                                 threadFactory);
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the nanoTime-based trigger time of a delayed action.
+     * Delays are capped so that trigger times can be compared
+     * without overflow.
+     */
+    private long triggerTime(long delay) {
+        return System.nanoTime() +
+            ((delay < (Long.MAX_VALUE >> 1)) ? delay : (Long.MAX_VALUE >> 1));
+    }
+
+    private long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(unit.toNanos((delay < 0) ? 0 : delay));
+    }
+
+    /**
+     * Main execution method for delayed or periodic tasks.  Due tasks
+     * go straight to the dispatcher; others are queued for the ticker.
+     */
+    private void delayedExecute(WheelTask<?> task) {
+        if (runState != RUNNING)
+            throw new RejectedExecutionException();
+        if (task.time - System.nanoTime() <= 0L)
+            dispatcher.execute(task);
+        else {
+            if (ticker == null)
+                startTicker();
+            pending.offer(task);
+            if (runState != RUNNING && pending.remove(task))
+                throw new RejectedExecutionException();
+            if (tickerIdle)
+                LockSupport.unpark(ticker);
+        }
+    }
+
+    /**
+     * Requeues a periodic task unless the executor has been shut down.
+     */
+    void reschedule(WheelTask<?> task) {
+        if (runState == RUNNING) {
+            pending.offer(task);
+            if (runState == RUNNING || !pending.remove(task)) {
+                if (tickerIdle)
+                    LockSupport.unpark(ticker);
+                return;
+            }
+        }
+        task.cancel(false);
+    }
+
+    private void startTicker() {
+        final ReentrantLock mainLock = this.mainLock;
+        mainLock.lock();
+        try {
+            if (ticker == null && runState == RUNNING) {
+                Thread t = threadFactory.newThread(new Runnable() {
+                    public void run() { runTicker(); }
+                });
+                if (t == null)
+                    throw new RejectedExecutionException();
+                ticker = t;
+                t.start();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * The ticker loop: each tick, applies pending schedules and
+     * cancellations, advances the wheel to the current time,
+     * dispatching due tasks, and then parks until the next tick.
+     */
+    private void runTicker() {
+        boolean cancelPeriodic = true;
+        try {
+            for (int rs; (rs = runState) != STOP; ) {
+                Thread.interrupted();          // parks are not interruptible
+                long now = System.nanoTime();
+                long target = (now - startNanos) / tickNanos;
+                final ReentrantLock wheelLock = this.wheelLock;
+                wheelLock.lock();
+                try {
+                    if (rs == SHUTDOWN && cancelPeriodic) {
+                        cancelPeriodic = false;
+                        cancelPeriodicTasks();
+                    }
+                    for (WheelTask<?> t; (t = cancelled.poll()) != null; )
+                        unlink(t);
+                    if (wheelCount == 0)       // skip empty ticks
+                        currentTick = target;
+                    for (WheelTask<?> t; (t = pending.poll()) != null; ) {
+                        if (rs != RUNNING && t.isPeriodic())
+                            t.cancel(false);
+                        else if (!t.isCancelled())
+                            place(t);
+                    }
+                    while (currentTick < target)
+                        advance();
+                } finally {
+                    wheelLock.unlock();
+                }
+                if (wheelCount == 0 && pending.isEmpty()) {
+                    if (rs != RUNNING)
+                        break;
+                    tickerIdle = true;
+                    if (pending.isEmpty() && runState == RUNNING)
+                        LockSupport.park(this);
+                    tickerIdle = false;
+                }
+                else {
+                    long next = startNanos + (target + 1) * tickNanos;
+                    LockSupport.parkNanos(this, next - System.nanoTime());
+                }
+            }
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    /**
+     * Places a task in the wheel relative to the current tick, or
+     * dispatches it if it is already due.
+     */
+    private void place(WheelTask<?> t) {
+        long d = t.time - startNanos;
+        long deadline = (d <= 0L) ? 0L : (d - 1) / tickNanos + 1;
+        long delta = deadline - currentTick;
+        if (delta <= 0L)
+            dispatch(t);
+        else {
+            int bits = wheelBits;
+            int level = (63 - Long.numberOfLeadingZeros(delta)) / bits;
+            int index = (int)(deadline >>> (level * bits)) & wheelMask;
+            WheelTask<?>[] buckets = wheel[level];
+            WheelTask<?> h = buckets[index];
+            t.level = level;
+            t.index = index;
+            t.prev = null;
+            t.next = h;
+            if (h != null)
+                h.prev = t;
+            buckets[index] = t;
+            ++wheelCount;
+        }
+    }
+
+    /**
+     * Unlinks a cancelled task from the wheel now if the wheel is free,
+     * together with any others left by earlier cancellations, and
+     * otherwise leaves it to whoever holds wheelLock, which is then
+     * the ticker or shutdownNow.  Queued cancellations are rechecked
+     * after release, so that none is stranded while the ticker parks.
+     */
+    void unlinkCancelled(WheelTask<?> task) {
+        cancelled.offer(task);
+        final ReentrantLock wheelLock = this.wheelLock;
+        while (!cancelled.isEmpty() && wheelLock.tryLock()) {
+            try {
+                for (WheelTask<?> t; (t = cancelled.poll()) != null; )
+                    unlink(t);
+            } finally {
+                wheelLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes a task from its bucket, if it is in one.
+     */
+    private void unlink(WheelTask<?> t) {
+        int level = t.level;
+        if (level >= 0) {
+            WheelTask<?> p = t.prev, n = t.next;
+            if (p == null)
+                wheel[level][t.index] = n;
+            else
+                p.next = n;
+            if (n != null)
+                n.prev = p;
+            t.prev = t.next = null;
+            t.level = -1;
+            --wheelCount;
+        }
+    }
+
+    /**
+     * Detaches and returns the list of tasks in a bucket.
+     */
+    private WheelTask<?> takeBucket(int level, int index) {
+        WheelTask<?>[] buckets = wheel[level];
+        WheelTask<?> h = buckets[index];
+        buckets[index] = null;
+        for (WheelTask<?> t = h; t != null; t = t.next) {
+            t.level = -1;
+            --wheelCount;
+        }
+        return h;
+    }
+
+    /**
+     * Advances the wheel by one tick.  Whenever a level's index wraps
+     * around, the next bucket of the level above is redistributed into
+     * the levels below it; the due bucket of level zero is then
+     * dispatched.
+     */
+    private void advance() {
+        long tick = ++currentTick;
+        int bits = wheelBits, mask = wheelMask;
+        for (int level = 1; level < wheel.length; ++level) {
+            if ((tick & ((1L << (level * bits)) - 1L)) != 0L)
+                break;
+            int index = (int)(tick >>> (level * bits)) & mask;
+            for (WheelTask<?> t = takeBucket(level, index), n; t != null; t = n) {
+                n = t.next;
+                t.prev = t.next = null;
+                place(t);
+            }
+        }
+        for (WheelTask<?> t = takeBucket(0, (int)tick & mask), n; t != null; t = n) {
+            n = t.next;
+            t.prev = t.next = null;
+            dispatch(t);
+        }
+    }
+
+    private void dispatch(WheelTask<?> t) {
+        if (!t.isCancelled()) {
+            try {
+                dispatcher.execute(t);
+            } catch (RejectedExecutionException ex) {
+                t.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Cancels and removes the periodic tasks in the wheel, on shutdown.
+     */
+    private void cancelPeriodicTasks() {
+        for (WheelTask<?>[] buckets : wheel) {
+            for (WheelTask<?> h : buckets) {
+                for (WheelTask<?> t = h, n; t != null; t = n) {
+                    n = t.next;
+                    if (t.isPeriodic()) {
+                        t.cancel(false);
+                        unlink(t);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+                                                triggerTime(delay, unit), 0L);
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<V> t = new WheelTask<V>(callable, triggerTime(delay, unit));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+                                                triggerTime(initialDelay, unit),
+                                                unit.toNanos(period));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+                                                triggerTime(initialDelay, unit),
+                                                unit.toNanos(-delay));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay.
+     *
+     * @throws RejectedExecutionException if the executor has been shut
+     *         down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void execute(Runnable command) {
+        schedule(command, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Runnable task, T result) {
+        return schedule(Executors.callable(task, result), 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted and
+     * delayed one-shot tasks are executed when due, periodic tasks are
+     * cancelled, and no new tasks are accepted.
+     */
+    public void shutdown() {
+        final ReentrantLock mainLock = this.mainLock;
+        Thread t;
+        mainLock.lock();
+        try {
+            if (runState < SHUTDOWN)
+                runState = SHUTDOWN;
+            t = ticker;
+        } finally {
+            mainLock.unlock();
+        }
+        if (t == null)
+            dispatcher.shutdown();
+        else
+            LockSupport.unpark(t);
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution, including delayed tasks.  These
+     * tasks are removed from the executor upon return.
+     *
+     * @return list of tasks that never commenced execution.  Each
+     *         element of this list is a {@link ScheduledFuture}.
+     */
+    public List<Runnable> shutdownNow() {
+        final ReentrantLock mainLock = this.mainLock;
+        Thread t;
+        mainLock.lock();
+        try {
+            runState = STOP;
+            t = ticker;
+        } finally {
+            mainLock.unlock();
+        }
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        final ReentrantLock wheelLock = this.wheelLock;
+        wheelLock.lock();
+        try {
+            for (int level = 0; level < wheel.length; ++level) {
+                for (int index = 0; index <= wheelMask; ++index) {
+                    for (WheelTask<?> w = takeBucket(level, index), n; w != null; w = n) {
+                        n = w.next;
+                        w.prev = w.next = null;
+                        if (!w.isCancelled())
+                            tasks.add(w);
+                    }
+                }
+            }
+            for (WheelTask<?> w; (w = pending.poll()) != null; ) {
+                if (!w.isCancelled())
+                    tasks.add(w);
+            }
+            cancelled.clear();
+        } finally {
+            wheelLock.unlock();
+        }
+        if (t == null)
+            dispatcher.shutdown();
+        else
+            LockSupport.unpark(t);
+        tasks.addAll(dispatcher.shutdownNow());
+        return tasks;
+    }
+
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return dispatcher.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return dispatcher.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Returns the duration of one tick.
+     *
+     * @param unit the time unit of the result
+     * @return the tick duration
+     */
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of threads that run due tasks.
+     *
+     * @return the number of dispatch threads
+     */
+    public int getPoolSize() {
+        return dispatcher.getCorePoolSize();
+    }
+
+    /**
+     * Returns an estimate of the number of delayed tasks that have not
+     * yet become due, including cancelled tasks not yet removed.
+     *
+     * @return the number of delayed tasks
+     */
+    public int getDelayedTaskCount() {
+        return wheelCount + pending.size();
+    }
+}
@@ -0,0 +1,695 @@
+package java.util.concurrent.atomic;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A histogram of non-negative {@code long} values that many threads
+ * may record into concurrently, such as latencies recorded by every
+ * request on every core.  Values are counted in log-linear buckets,
+ * as in HDR histograms: each power-of-two range of values is divided
+ * into the same number of linear sub-buckets, so that any value can
+ * be recovered from its bucket to a fixed number of significant
+ * decimal digits whatever its magnitude.
+ *
+ * <p>Like {@link LongAdder}, this class keeps its counts in a table of
+ * stripes that grows on contention, using the per-thread probe of
+ * {@code Striped64}: while threads do not contend, all counts go to a
+ * single base stripe; when a thread's update of a bucket fails
+ * because of contention, the thread moves to another stripe, creating
+ * stripes up to the number of CPUs.  Each stripe holds a full set of
+ * buckets, so threads recording on different stripes never write to
+ * the same cache lines.  Once the table has adapted, {@link #record}
+ * does not allocate, lock or retry.
+ *
+ * <p>Reading is comparatively expensive: {@link #snapshot} and
+ * {@link #snapshotThenReset} visit every bucket of every stripe and
+ * return an immutable {@link Snapshot}, which answers percentile and
+ * other queries and can be merged with snapshots of other histograms
+ * of the same configuration.  As with {@link LongAdder#sum}, a
+ * snapshot taken while values are being recorded is not an atomic
+ * view; values recorded concurrently with {@code snapshotThenReset}
+ * are counted in either that snapshot or the next.
+ *
+ * @since 1.8
+ */
+public class LongHistogram {
+
+    /** Number of CPUS, to place bound on table size */
+    private static final int NCPU = Striped64.NCPU;
+
+    /** The default number of significant decimal digits. */
+    private static final int DEFAULT_SIGNIFICANT_DIGITS = 2;
+
+    /** The largest value counted in its own bucket. */
+    private final long highestTrackableValue;
+
+    /** The number of significant decimal digits kept. */
+    private final int significantDigits;
+
+    /**
+     * The number of bits of each value that select its bucket within
+     * its power-of-two range, plus one.  Values below 2^subBucketBits
+     * have a bucket each.
+     */
+    private final int subBucketBits;
+
+    /** The number of buckets in each stripe. */
+    private final int bucketCount;
+
+    /** The stripe used while there is no contention. */
+    private final Stripe base;
+
+    /** Table of stripes. When non-null, size is a power of 2. */
+    private volatile Stripe[] stripes;
+
+    /** Spinlock (locked via CAS) used when resizing and/or creating stripes. */
+    private volatile int stripesBusy;
+
+    /**
+     * A set of buckets updated by the threads hashed to it, together
+     * with the sum and extremes of the values recorded in it.  Each
+     * product of a value and its count is added to the sum if neither
+     * overflows, and otherwise to the excess, which holds the bits of
+     * a double.
+     */
+    @sun.misc.Contended static final class Stripe {
+        final long[] counts;
+        volatile long sum;
+        volatile long excess;
+        volatile long min = Long.MAX_VALUE;
+        volatile long max = -1L;
+
+        Stripe(int bucketCount) {
+            counts = new long[bucketCount];
+        }
+
+        /**
+         * Adds to the count at the given offset, failing if another
+         * thread updated it first.
+         */
+        final boolean casAdd(long offset, long n) {
+            long c = U.getLongVolatile(counts, offset);
+            return U.compareAndSwapLong(counts, offset, c, c + n);
+        }
+
+        final void add(long offset, long n) {
+            if (n != 0L)
+                U.getAndAddLong(counts, offset, n);
+        }
+
+        /**
+         * Adds to the sum and updates the extremes, writing the
+         * extremes only if the value changes them.  Returns false if
+         * any update had to be retried because of another thread.
+         */
+        final boolean recordExtremes(long value, long n) {
+            boolean uncontended = true;
+            long m;
+            if (value != 0L && n != 0L) {
+                boolean added = false;
+                if (value <= Long.MAX_VALUE / n) {
+                    long p = value * n, s, t;
+                    while ((t = (s = sum) + p) >= 0L) {
+                        if (U.compareAndSwapLong(this, SUM, s, t)) {
+                            added = true;
+                            break;
+                        }
+                        uncontended = false;
+                    }
+                }
+                if (!added) {
+                    double d = (double)value * n;
+                    long b;
+                    while (!U.compareAndSwapLong
+                           (this, EXCESS, b = excess,
+                            Double.doubleToRawLongBits
+                            (Double.longBitsToDouble(b) + d)))
+                        uncontended = false;
+                }
+            }
+            while (value > (m = max) &&
+                   !U.compareAndSwapLong(this, MAX, m, value))
+                uncontended = false;
+            while (value < (m = min) &&
+                   !U.compareAndSwapLong(this, MIN, m, value))
+                uncontended = false;
+            return uncontended;
+        }
+    }
+
+    /**
+     * Creates a new histogram of all non-negative {@code long} values
+     * to two significant decimal digits.
+     */
+    public LongHistogram() {
+        this(Long.MAX_VALUE, DEFAULT_SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Creates a new histogram of values up to the given highest value,
+     * kept to the given number of significant decimal digits.  Values
+     * above the highest value are counted in the last bucket, though
+     * the largest recorded value is still reported exactly.  Memory
+     * use grows with the logarithm of the highest value, ten-fold with
+     * each added digit, and with the number of stripes created.
+     *
+     * @param highestTrackableValue the highest value counted in its
+     *        own bucket
+     * @param significantDigits the number of significant decimal
+     *        digits to which values are kept, from 1 to 5
+     * @throws IllegalArgumentException if {@code highestTrackableValue}
+     *         is less than 1 or {@code significantDigits} is not
+     *         between 1 and 5
+     */
+    public LongHistogram(long highestTrackableValue, int significantDigits) {
+        if (highestTrackableValue < 1L ||
+            significantDigits < 1 || significantDigits > 5)
+            throw new IllegalArgumentException();
+        long n = 1L;
+        for (int i = 0; i < significantDigits; ++i)
+            n *= 10L;
+        // smallest b with 2^(b-1) >= 10^digits: relative error <= 10^-digits
+        this.subBucketBits = 65 - Long.numberOfLeadingZeros(n - 1L);
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+        this.bucketCount = indexFor(highestTrackableValue, subBucketBits) + 1;
+        this.base = new Stripe(bucketCount);
+    }
+
+    /**
+     * Returns the index of the bucket of the given value.
+     */
+    static int indexFor(long value, int bits) {
+        if (value < (1L << bits))
+            return (int)value;
+        int k = 64 - bits - Long.numberOfLeadingZeros(value);
+        return (k << (bits - 1)) + (int)(value >>> k);
+    }
+
+    /**
+     * Returns the lowest value in the given bucket.
+     */
+    static long lowestValueAt(int index, int bits) {
+        if (index < (1 << bits))
+            return index;
+        int k = (index >>> (bits - 1)) - 1;
+        return (long)(index - (k << (bits - 1))) << k;
+    }
+
+    /**
+     * Returns the highest value in the given bucket.
+     */
+    static long highestValueAt(int index, int bits) {
+        if (index < (1 << bits))
+            return index;
+        int k = (index >>> (bits - 1)) - 1;
+        return ((long)(index - (k << (bits - 1)) + 1) << k) - 1L;
+    }
+
+    /**
+     * Records the given value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if {@code value} is negative
+     */
+    public void record(long value) {
+        record(value, 1L);
+    }
+
+    /**
+     * Records the given value the given number of times.
+     *
+     * @param value the value
+     * @param count the number of times to record it
+     * @throws IllegalArgumentException if {@code value} or
+     *         {@code count} is negative
+     */
+    public void record(long value, long count) {
+        if (value < 0L || count < 0L)
+            throw new IllegalArgumentException();
+        long v = (value < highestTrackableValue) ? value : highestTrackableValue;
+        long offset = ((long)indexFor(v, subBucketBits) << ASHIFT) + ABASE;
+        Stripe[] ss; Stripe s; int m;
+        if ((ss = stripes) == null)
+            s = base;
+        else if ((m = ss.length - 1) < 0)
+            s = null;
+        else
+            s = ss[Striped64.getProbe() & m];
+        if (s == null || !s.casAdd(offset, count))
+            s = recordContended(offset, count, s == null);
+        if (!s.recordExtremes(value, count))
+            recordContended(offset, 0L, false);
+    }
+
+    /**
+     * Handles cases of updates involving initialization, resizing,
+     * creating new stripes, and/or contention, as in
+     * Striped64.longAccumulate.  A zero count reports contention on
+     * the sum or extremes of a stripe, which is treated as a failed
+     * update of its bucket, so that it too moves the thread and grows
+     * the table.
+     *
+     * @param offset the offset of the bucket
+     * @param n the count to add, or zero
+     * @param wasUncontended false if CAS failed before call
+     * @return the stripe the count was added to
+     */
+    private Stripe recordContended(long offset, long n, boolean wasUncontended) {
+        int h;
+        if ((h = Striped64.getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = Striped64.getProbe();
+            wasUncontended = true;
+        }
+        boolean collide = false;                // True if last slot nonempty
+        for (;;) {
+            Stripe[] as; Stripe a; int k;
+            if ((as = stripes) != null && (k = as.length) > 0) {
+                if ((a = as[(k - 1) & h]) == null) {
+                    if (stripesBusy == 0) {     // Try to attach new Stripe
+                        Stripe r = new Stripe(bucketCount);
+                        if (stripesBusy == 0 && casStripesBusy()) {
+                            boolean created = false;
+                            try {               // Recheck under lock
+                                Stripe[] rs; int m, j;
+                                if ((rs = stripes) != null &&
+                                    (m = rs.length) > 0 &&
+                                    rs[j = (m - 1) & h] == null) {
+                                    rs[j] = r;
+                                    created = true;
+                                }
+                            } finally {
+                                stripesBusy = 0;
+                            }
+                            if (created) {
+                                r.add(offset, n);
+                                return r;
+                            }
+                            continue;           // Slot is now non-empty
+                        }
+                    }
+                    collide = false;
+                }
+                else if (!wasUncontended)       // CAS already known to fail
+                    wasUncontended = true;      // Continue after rehash
+                else if (n != 0L && a.casAdd(offset, n))
+                    return a;
+                else if (k >= NCPU || stripes != as) {
+                    a.add(offset, n);           // At max size or stale
+                    return a;
+                }
+                else if (!collide)
+                    collide = true;
+                else if (stripesBusy == 0 && casStripesBusy()) {
+                    try {
+                        if (stripes == as) {    // Expand table unless stale
+                            Stripe[] rs = new Stripe[k << 1];
+                            for (int i = 0; i < k; ++i)
+                                rs[i] = as[i];
+                            stripes = rs;
+                        }
+                    } finally {
+                        stripesBusy = 0;
+                    }
+                    collide = false;
+                    continue;                   // Retry with expanded table
+                }
+                h = Striped64.advanceProbe(h);
+            }
+            else if (stripesBusy == 0 && stripes == as && casStripesBusy()) {
+                Stripe r = null;
+                try {                           // Initialize table
+                    if (stripes == as) {
+                        Stripe[] rs = new Stripe[2];
+                        rs[h & 1] = r = new Stripe(bucketCount);
+                        stripes = rs;
+                    }
+                } finally {
+                    stripesBusy = 0;
+                }
+                if (r != null) {
+                    r.add(offset, n);
+                    return r;
+                }
+            }
+            else {                              // Fall back on using base
+                base.add(offset, n);
+                return base;
+            }
+        }
+    }
+
+    private boolean casStripesBusy() {
+        return U.compareAndSwapInt(this, STRIPESBUSY, 0, 1);
+    }
+
+    /**
+     * Returns a snapshot of the values recorded so far.
+     *
+     * @return a snapshot of this histogram
+     */
+    public Snapshot snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * Returns a snapshot of the values recorded so far and resets the
+     * histogram, as if by {@link #reset}.  This method may be used
+     * to report values by interval, since each value recorded is
+     * counted in exactly one snapshot.
+     *
+     * @return a snapshot of this histogram before it was reset
+     */
+    public Snapshot snapshotThenReset() {
+        return collect(true);
+    }
+
+    /**
+     * Resets the histogram to hold no values.  This method is
+     * effective only if there are no concurrent recordings.
+     */
+    public void reset() {
+        collect(true);
+    }
+
+    private Snapshot collect(boolean reset) {
+        long[] counts = new long[bucketCount];
+        long sum = 0L, min = Long.MAX_VALUE, max = -1L;
+        double excess = 0.0;
+        Stripe[] ss = stripes;
+        int n = (ss == null) ? 0 : ss.length;
+        for (int i = -1; i < n; ++i) {
+            Stripe s = (i < 0) ? base : ss[i];
+            if (s == null)
+                continue;
+            long[] a = s.counts;
+            for (int j = 0; j < a.length; ++j) {
+                long offset = ((long)j << ASHIFT) + ABASE;
+                counts[j] += reset ? U.getAndSetLong(a, offset, 0L) :
+                    U.getLongVolatile(a, offset);
+            }
+            long m, t;
+            if (reset) {
+                t = U.getAndSetLong(s, SUM, 0L);
+                excess += Double.longBitsToDouble(
+                    U.getAndSetLong(s, EXCESS, 0L));
+                m = U.getAndSetLong(s, MIN, Long.MAX_VALUE);
+                if (m < min)
+                    min = m;
+                m = U.getAndSetLong(s, MAX, -1L);
+            }
+            else {
+                t = s.sum;
+                excess += Double.longBitsToDouble(s.excess);
+                if ((m = s.min) < min)
+                    min = m;
+                m = s.max;
+            }
+            if (m > max)
+                max = m;
+            if (sum + t >= 0L)
+                sum += t;
+            else
+                excess += t;
+        }
+        return new Snapshot(subBucketBits, highestTrackableValue,
+                            counts, sum, excess, min, max);
+    }
+
+    /**
+     * Returns the highest value counted in its own bucket.
+     *
+     * @return the highest trackable value
+     */
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    /**
+     * Returns the number of significant decimal digits to which values
+     * are kept.
+     *
+     * @return the number of significant digits
+     */
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    /**
+     * Returns the String representation of a current snapshot.
+     *
+     * @return the String representation of a current snapshot
+     */
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /**
+     * An immutable view of the values recorded in a
+     * {@link LongHistogram}.  Values reported by a snapshot are the
+     * highest value equivalent to a recorded value at the histogram's
+     * precision, bounded by the smallest and largest values recorded.
+     *
+     * @since 1.8
+     */
+    public static final class Snapshot implements Serializable {
+        private static final long serialVersionUID = -3271828402650458134L;
+
+        private final int subBucketBits;
+        private final long highestTrackableValue;
+        private final long[] counts;
+        private final long totalCount;
+        private final long sum;
+        private final double excess;
+        private final long min;
+        private final long max;
+
+        Snapshot(int subBucketBits, long highestTrackableValue,
+                 long[] counts, long sum, double excess,
+                 long min, long max) {
+            long total = 0L;
+            for (long c : counts)
+                total += c;
+            this.subBucketBits = subBucketBits;
+            this.highestTrackableValue = highestTrackableValue;
+            this.counts = counts;
+            this.totalCount = total;
+            this.sum = sum;
+            this.excess = excess;
+            this.min = (total == 0L) ? 0L : min;
+            this.max = (total == 0L) ? 0L : max;
+        }
+
+        /**
+         * Returns the number of values recorded.
+         *
+         * @return the number of values
+         */
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Returns the sum of the values recorded.
+         *
+         * @return the sum of the values
+         * @throws ArithmeticException if the sum overflows a long
+         */
+        public long getSum() {
+            if (excess != 0.0)
+                throw new ArithmeticException("long overflow");
+            return sum;
+        }
+
+        /**
+         * Returns the smallest value recorded, or zero if none.
+         *
+         * @return the smallest value
+         */
+        public long getMin() {
+            return min;
+        }
+
+        /**
+         * Returns the largest value recorded, or zero if none.
+         *
+         * @return the largest value
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the arithmetic mean of the values recorded, or zero
+         * if none.
+         *
+         * @return the mean
+         */
+        public double getMean() {
+            return (totalCount == 0L) ? 0.0 :
+                ((double)sum + excess) / totalCount;
+        }
+
+        /**
+         * Returns the value at or below which the given percentage of
+         * the recorded values fall, or zero if none were recorded.
+         *
+         * @param percentile the percentage, from 0 to 100
+         * @return the value at the percentile
+         * @throws IllegalArgumentException if {@code percentile} is not
+         *         between 0 and 100
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (!(percentile >= 0.0 && percentile <= 100.0))
+                throw new IllegalArgumentException();
+            if (totalCount == 0L)
+                return 0L;
+            long rank = (long)Math.ceil(percentile / 100.0 * totalCount);
+            if (rank < 1L)
+                rank = 1L;
+            long seen = 0L;
+            int bits = subBucketBits;
+            for (int i = 0; i < counts.length; ++i) {
+                if ((seen += counts[i]) >= rank) {
+                    long v = highestValueAt(i, bits);
+                    return (v < min) ? min : (v > max) ? max : v;
+                }
+            }
+            return max;
+        }
+
+        /**
+         * Returns the number of values recorded that are equivalent to
+         * the given value at the histogram's precision.
+         *
+         * @param value the value
+         * @return the count of equivalent values
+         * @throws IllegalArgumentException if {@code value} is negative
+         */
+        public long getCountAtValue(long value) {
+            if (value < 0L)
+                throw new IllegalArgumentException();
+            if (value > highestTrackableValue)
+                value = highestTrackableValue;
+            return counts[indexFor(value, subBucketBits)];
+        }
+
+        /**
+         * Returns the number of buckets.
+         *
+         * @return the number of buckets
+         */
+        public int getBucketCount() {
+            return counts.length;
+        }
+
+        /**
+         * Returns the number of values counted in the given bucket.
+         *
+         * @param index the index of the bucket
+         * @return the count of the bucket
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public long getCountAt(int index) {
+            return counts[index];
+        }
+
+        /**
+         * Returns the lowest value counted in the given bucket.
+         *
+         * @param index the index of the bucket
+         * @return the lowest value of the bucket
+         * @throws IndexOutOfBoundsException if the index is out of range
+         */
+        public long getLowestValueAt(int index) {
+            if (index < 0 || index >= counts.length)
+                throw new IndexOutOfBoundsException();
+            return lowestValueAt(index, subBucketBits);
+        }
+
+        /**
+         * Returns a snapshot holding the values of both this snapshot
+         * and the given one.
+         *
+         * @param other the other snapshot
+         * @return the merged snapshot
+         * @throws IllegalArgumentException if the snapshots are of
+         *         histograms with different highest trackable values
+         *         or precision
+         */
+        public Snapshot merge(Snapshot other) {
+            if (other.subBucketBits != subBucketBits ||
+                other.highestTrackableValue != highestTrackableValue)
+                throw new IllegalArgumentException();
+            long[] a = counts.clone();
+            for (int i = 0; i < a.length; ++i)
+                a[i] += other.counts[i];
+            long lo, hi;
+            if (totalCount == 0L) {
+                lo = other.min;
+                hi = other.max;
+            }
+            else if (other.totalCount == 0L) {
+                lo = min;
+                hi = max;
+            }
+            else {
+                lo = Math.min(min, other.min);
+                hi = Math.max(max, other.max);
+            }
+            long s = sum + other.sum;
+            double e = excess + other.excess;
+            if (s < 0L) {
+                s = sum;
+                e += other.sum;
+            }
+            return new Snapshot(subBucketBits, highestTrackableValue,
+                                a, s, e, lo, hi);
+        }
+
+        /**
+         * Returns a String summarizing the snapshot.
+         *
+         * @return a String summarizing the snapshot
+         */
+        public String toString() {
+            return "count=" + totalCount + ", min=" + min +
+                ", mean=" + getMean() +
+                ", p50=" + getValueAtPercentile(50.0) +
+                ", p99=" + getValueAtPercentile(99.0) +
+                ", p999=" + getValueAtPercentile(99.9) +
+                ", max=" + max;
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long STRIPESBUSY;
+    private static final long SUM;
+    private static final long EXCESS;
+    private static final long MIN;
+    private static final long MAX;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            STRIPESBUSY = U.objectFieldOffset
+                (LongHistogram.class.getDeclaredField("stripesBusy"));
+            Class<?> sk = Stripe.class;
+            SUM = U.objectFieldOffset(sk.getDeclaredField("sum"));
+            EXCESS = U.objectFieldOffset(sk.getDeclaredField("excess"));
+            MIN = U.objectFieldOffset(sk.getDeclaredField("min"));
+            MAX = U.objectFieldOffset(sk.getDeclaredField("max"));
+            ABASE = U.arrayBaseOffset(long[].class);
+            int scale = U.arrayIndexScale(long[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
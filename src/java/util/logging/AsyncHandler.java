@@ -0,0 +1,533 @@
+package java.util.logging;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.MpscArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <tt>Handler</tt> that publishes to a target <tt>Handler</tt> on a
+ * background thread.
+ * <p>
+ * Publishing a <tt>LogRecord</tt> to an <tt>AsyncHandler</tt> only
+ * checks the record against the handler's level and filter and adds it
+ * to a bounded lock-free queue.  A writer thread takes records from the
+ * queue in batches and publishes them to the target, so formatting and
+ * I/O, and the locks of handlers such as <tt>StreamHandler</tt>, are
+ * taken off the logging thread.  The target is flushed after each batch
+ * that leaves the queue empty and after each batch containing a record
+ * at or above the <tt>flushLevel</tt>.
+ * <p>
+ * When the queue is full, the <tt>OverflowPolicy</tt> decides the fate
+ * of a new record: the logging thread may wait for space, the record
+ * may be dropped if its level is at or below the <tt>dropLevel</tt>, or
+ * it may be discarded whatever its level.  Dropped records are counted
+ * by {@link #getDroppedCount}.
+ * <p>
+ * By default the source class and method of each record are inferred
+ * on the logging thread before it is queued, since they cannot be
+ * inferred from the writer thread.  This walks the stack of the logging
+ * thread; it may be disabled if the records are formatted without
+ * their source or supply it explicitly.
+ * <p>
+ * Closing the handler, as <tt>LogManager</tt> does on reset and at
+ * shutdown, publishes all queued records before closing the target.
+ * <p>
+ * <b>Configuration:</b>
+ * By default each <tt>AsyncHandler</tt> is initialized using the following
+ * <tt>LogManager</tt> configuration properties where <tt>&lt;handler-name&gt;</tt>
+ * refers to the fully-qualified class name of the handler.
+ * If properties are not defined
+ * (or have invalid values) then the specified default values are used.
+ * If no default value is defined then a RuntimeException is thrown.
+ * <ul>
+ * <li>   &lt;handler-name&gt;.level
+ *        specifies the level for the <tt>Handler</tt>
+ *        (defaults to <tt>Level.ALL</tt>). </li>
+ * <li>   &lt;handler-name&gt;.filter
+ *        specifies the name of a <tt>Filter</tt> class to use
+ *        (defaults to no <tt>Filter</tt>). </li>
+ * <li>   &lt;handler-name&gt;.size
+ *        defines the capacity of the queue (defaults to 8192). </li>
+ * <li>   &lt;handler-name&gt;.overflow
+ *        defines the <tt>OverflowPolicy</tt> (defaults to <tt>BLOCK</tt>). </li>
+ * <li>   &lt;handler-name&gt;.drop
+ *        defines the <tt>dropLevel</tt> used by the <tt>DROP_LOWEST_LEVEL</tt>
+ *        policy (defaults to <tt>Level.INFO</tt>). </li>
+ * <li>   &lt;handler-name&gt;.flush
+ *        defines the <tt>flushLevel</tt> (defaults to <tt>Level.SEVERE</tt>). </li>
+ * <li>   &lt;handler-name&gt;.batch
+ *        defines the largest number of records published per batch
+ *        (defaults to 256). </li>
+ * <li>   &lt;handler-name&gt;.inferCaller
+ *        specifies whether the source of each record is inferred
+ *        before it is queued (defaults to <tt>true</tt>). </li>
+ * <li>   &lt;handler-name&gt;.target
+ *        specifies the name of the target <tt>Handler </tt> class.
+ *        (no default). </li>
+ * </ul>
+ * <p>
+ * For example, the properties for {@code AsyncHandler} would be:
+ * <ul>
+ * <li>   java.util.logging.AsyncHandler.target=java.util.logging.FileHandler </li>
+ * <li>   java.util.logging.AsyncHandler.overflow=DROP_LOWEST_LEVEL </li>
+ * </ul>
+ * <p>
+ * @since 1.8
+ */
+
+public class AsyncHandler extends Handler {
+    private final static int DEFAULT_SIZE = 8192;
+    private final static int DEFAULT_BATCH = 256;
+
+    /**
+     * The action taken when a record is published while the queue is
+     * full.
+     *
+     * @since 1.8
+     */
+    public enum OverflowPolicy {
+        /**
+         * The logging thread waits until there is space in the queue.
+         * If it is interrupted while waiting the record is dropped and
+         * the interrupt status is restored.
+         */
+        BLOCK,
+
+        /**
+         * The new record is dropped if its level is at or below the
+         * <tt>dropLevel</tt>; otherwise the logging thread waits for
+         * space as with <tt>BLOCK</tt>.  Under a sustained overload
+         * this sheds the least important records first while keeping
+         * warnings and errors.
+         */
+        DROP_LOWEST_LEVEL,
+
+        /**
+         * The new record is dropped.  The logging thread never waits.
+         */
+        DISCARD
+    }
+
+    /**
+     * A request queued behind the records to be written before it:
+     * to flush the target, or to stop the writer.
+     */
+    private static final class Marker extends LogRecord {
+        private static final long serialVersionUID = 4823064133574936178L;
+
+        final boolean close;
+        final transient CountDownLatch done = new CountDownLatch(1);
+
+        Marker(boolean close) {
+            super(Level.OFF, null);
+            this.close = close;
+        }
+    }
+
+    private volatile Level flushLevel;
+    private volatile Level dropLevel;
+    private volatile OverflowPolicy overflowPolicy;
+    private int size;
+    private int batchSize;
+    private boolean inferCaller;
+    private Handler target;
+    private MpscArrayBlockingQueue<LogRecord> queue;
+    private Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    // Private method to configure an AsyncHandler from LogManager
+    // properties and/or default values as specified in the class
+    // javadoc.
+    private void configure() {
+        LogManager manager = LogManager.getLogManager();
+        String cname = getClass().getName();
+
+        flushLevel = manager.getLevelProperty(cname +".flush", Level.SEVERE);
+        dropLevel = manager.getLevelProperty(cname +".drop", Level.INFO);
+        size = manager.getIntProperty(cname + ".size", DEFAULT_SIZE);
+        if (size <= 0) {
+            size = DEFAULT_SIZE;
+        }
+        batchSize = manager.getIntProperty(cname + ".batch", DEFAULT_BATCH);
+        if (batchSize <= 0) {
+            batchSize = DEFAULT_BATCH;
+        }
+        overflowPolicy = OverflowPolicy.BLOCK;
+        String val = manager.getStringProperty(cname + ".overflow", null);
+        if (val != null) {
+            try {
+                overflowPolicy = OverflowPolicy.valueOf(val);
+            } catch (IllegalArgumentException ex) {
+                // Drop through to the default.
+            }
+        }
+        inferCaller = manager.getBooleanProperty(cname + ".inferCaller", true);
+        setLevel(manager.getLevelProperty(cname +".level", Level.ALL));
+        setFilter(manager.getFilterProperty(cname +".filter", null));
+    }
+
+    /**
+     * Create an <tt>AsyncHandler</tt> and configure it based on
+     * <tt>LogManager</tt> configuration properties.
+     */
+    public AsyncHandler() {
+        sealed = false;
+        configure();
+        sealed = true;
+
+        LogManager manager = LogManager.getLogManager();
+        String handlerName = getClass().getName();
+        String targetName = manager.getProperty(handlerName+".target");
+        if (targetName == null) {
+            throw new RuntimeException("The handler " + handlerName
+                    + " does not specify a target");
+        }
+        Class<?> clz;
+        try {
+            clz = ClassLoader.getSystemClassLoader().loadClass(targetName);
+            target = (Handler) clz.newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("AsyncHandler can't load handler target \"" + targetName + "\"" , e);
+        }
+        init();
+    }
+
+    /**
+     * Create an <tt>AsyncHandler</tt> for the given target.
+     * <p>
+     * The <tt>AsyncHandler</tt> is configured based on <tt>LogManager</tt>
+     * properties (or their default values).
+     *
+     * @param target  the Handler to which to publish output.
+     */
+    public AsyncHandler(Handler target) {
+        if (target == null) {
+            throw new NullPointerException();
+        }
+        sealed = false;
+        configure();
+        sealed = true;
+        this.target = target;
+        init();
+    }
+
+    /**
+     * Create an <tt>AsyncHandler</tt>.
+     * <p>
+     * The <tt>AsyncHandler</tt> is configured based on <tt>LogManager</tt>
+     * properties (or their default values) except that the given queue
+     * size and overflow policy are used.
+     *
+     * @param target  the Handler to which to publish output.
+     * @param size    the number of log records to queue (must be greater than zero)
+     * @param overflowPolicy  the action taken when the queue is full
+     *
+     * @throws IllegalArgumentException if {@code size is <= 0}
+     */
+    public AsyncHandler(Handler target, int size, OverflowPolicy overflowPolicy) {
+        if (target == null || overflowPolicy == null) {
+            throw new NullPointerException();
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException();
+        }
+        sealed = false;
+        configure();
+        sealed = true;
+        this.target = target;
+        this.size = size;
+        this.overflowPolicy = overflowPolicy;
+        init();
+    }
+
+    // Initialize.  Size is a count of LogRecords.
+    private void init() {
+        queue = new MpscArrayBlockingQueue<>(Math.min(size, 1 << 30));
+        writer = AccessController.doPrivileged(new PrivilegedAction<Thread>() {
+            @Override
+            public Thread run() {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        write();
+                    }
+                }, "AsyncHandler writer");
+                t.setDaemon(true);
+                // Avoid keeping a strong reference to an application
+                // classloader.
+                t.setContextClassLoader(null);
+                t.start();
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Queue a <tt>LogRecord</tt> for publication by the writer thread.
+     * <p>
+     * If there is a <tt>Filter</tt>, its <tt>isLoggable</tt>
+     * method is called to check if the given log record is loggable.
+     * If not we return.  Otherwise, unless caller inference is disabled,
+     * the source of the record is inferred, and the record is added
+     * to the queue, subject to the <tt>OverflowPolicy</tt> if the queue
+     * is full.
+     *
+     * @param  record  description of the log event. A null record is
+     *                 silently ignored and is not published
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record) || closed) {
+            return;
+        }
+        if (inferCaller) {
+            record.getSourceClassName();
+        }
+        if (queue.offer(record)) {
+            return;
+        }
+        OverflowPolicy policy = overflowPolicy;
+        if (policy == OverflowPolicy.DISCARD ||
+                (policy == OverflowPolicy.DROP_LOWEST_LEVEL &&
+                 record.getLevel().intValue() <= dropLevel.intValue())) {
+            dropped.increment();
+            return;
+        }
+        if (!writer.isAlive()) {
+            // nothing will take from the queue; publish on this thread
+            synchronized (this) {
+                publishTarget(record);
+            }
+            return;
+        }
+        try {
+            queue.put(record);
+        } catch (InterruptedException ex) {
+            dropped.increment();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The writer loop: publish records to the target in batches until
+    // a close marker is reached, and then until the queue is empty, so
+    // that records published while the handler was closing are not lost.
+    private void write() {
+        List<LogRecord> batch = new ArrayList<>(batchSize);
+        Marker stop = null;
+        for (;;) {
+            if (stop == null) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException ex) {
+                    continue;
+                }
+                queue.drainTo(batch, batchSize - 1);
+            } else if (queue.drainTo(batch, batchSize) == 0) {
+                flushTarget();
+                stop.done.countDown();
+                return;
+            }
+            boolean flush = false;
+            int flushValue = flushLevel.intValue();
+            for (int i = 0; i < batch.size(); i++) {
+                LogRecord r = batch.get(i);
+                if (r instanceof Marker) {
+                    Marker m = (Marker) r;
+                    flushTarget();
+                    flush = false;
+                    if (m.close) {
+                        stop = m;
+                    } else {
+                        m.done.countDown();
+                    }
+                    continue;
+                }
+                publishTarget(r);
+                if (r.getLevel().intValue() >= flushValue) {
+                    flush = true;
+                }
+            }
+            batch.clear();
+            if (flush || (stop == null && queue.isEmpty())) {
+                flushTarget();
+            }
+        }
+    }
+
+    // Errors are reported too: the writer thread must survive whatever
+    // the target throws, or publishers would wait on a full queue.
+    private void publishTarget(LogRecord r) {
+        try {
+            target.publish(r);
+        } catch (Throwable t) {
+            reportError(null, asException(t), ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    private void flushTarget() {
+        try {
+            target.flush();
+        } catch (Throwable t) {
+            reportError(null, asException(t), ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    private static Exception asException(Throwable t) {
+        return (t instanceof Exception) ? (Exception) t : new Exception(t);
+    }
+
+    // Queue a marker behind the records published so far and wait
+    // for the writer to reach it.
+    private void await(Marker m) {
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                try {
+                    queue.put(m);
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            while (writer.isAlive()) {
+                try {
+                    m.done.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wait until the records queued before this call have been
+     * published to the target <tt>Handler</tt>, then flush the target.
+     */
+    @Override
+    public void flush() {
+        if (!closed && writer.isAlive()) {
+            await(new Marker(false));
+        } else {
+            target.flush();
+        }
+    }
+
+    /**
+     * Close the <tt>Handler</tt> and free all associated resources.
+     * The records queued before this call are published, then the
+     * target <tt>Handler</tt> is closed.
+     *
+     * @exception  SecurityException  if a security manager exists and if
+     *             the caller does not have <tt>LoggingPermission("control")</tt>.
+     */
+    @Override
+    public void close() throws SecurityException {
+        checkPermission();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (writer.isAlive()) {
+            await(new Marker(true));
+        }
+        target.close();
+        setLevel(Level.OFF);
+    }
+
+    /**
+     * Set the <tt>flushLevel</tt>.  The target is flushed after the
+     * writer publishes a record whose level is greater than or equal
+     * to the <tt>flushLevel</tt>.
+     *
+     * @param newLevel the new value of the <tt>flushLevel</tt>
+     * @exception  SecurityException  if a security manager exists and if
+     *             the caller does not have <tt>LoggingPermission("control")</tt>.
+     */
+    public void setFlushLevel(Level newLevel) throws SecurityException {
+        if (newLevel == null) {
+            throw new NullPointerException();
+        }
+        checkPermission();
+        flushLevel = newLevel;
+    }
+
+    /**
+     * Get the <tt>flushLevel</tt>.
+     *
+     * @return the value of the <tt>flushLevel</tt>
+     */
+    public Level getFlushLevel() {
+        return flushLevel;
+    }
+
+    /**
+     * Set the <tt>dropLevel</tt>.  Under the <tt>DROP_LOWEST_LEVEL</tt>
+     * policy, records whose level is less than or equal to the
+     * <tt>dropLevel</tt> are dropped while the queue is full.
+     *
+     * @param newLevel the new value of the <tt>dropLevel</tt>
+     * @exception  SecurityException  if a security manager exists and if
+     *             the caller does not have <tt>LoggingPermission("control")</tt>.
+     */
+    public void setDropLevel(Level newLevel) throws SecurityException {
+        if (newLevel == null) {
+            throw new NullPointerException();
+        }
+        checkPermission();
+        dropLevel = newLevel;
+    }
+
+    /**
+     * Get the <tt>dropLevel</tt>.
+     *
+     * @return the value of the <tt>dropLevel</tt>
+     */
+    public Level getDropLevel() {
+        return dropLevel;
+    }
+
+    /**
+     * Set the <tt>OverflowPolicy</tt> applied when the queue is full.
+     *
+     * @param policy the new <tt>OverflowPolicy</tt>
+     * @exception  SecurityException  if a security manager exists and if
+     *             the caller does not have <tt>LoggingPermission("control")</tt>.
+     */
+    public void setOverflowPolicy(OverflowPolicy policy) throws SecurityException {
+        if (policy == null) {
+            throw new NullPointerException();
+        }
+        checkPermission();
+        overflowPolicy = policy;
+    }
+
+    /**
+     * Get the <tt>OverflowPolicy</tt> applied when the queue is full.
+     *
+     * @return the <tt>OverflowPolicy</tt>
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Get the number of records dropped because the queue was full.
+     *
+     * @return the number of dropped records
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+}
@@ -2,6 +2,7 @@ package java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -77,6 +78,11 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
      */
     private boolean parallel;
 
+    /**
+     * 性能剖析数据, 仅在源上使用, 未开启剖析时为null
+     */
+    private StreamProfile profile;
+
     AbstractPipeline(Supplier<? extends Spliterator<?>> source, int sourceFlags, boolean parallel) {
         this.previousStage = null;
         this.sourceSupplier = source;
@@ -86,6 +92,8 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         this.combinedFlags = (~(sourceOrOpFlags << 1)) & StreamOpFlag.INITIAL_OPS_VALUE;
         this.depth = 0;
         this.parallel = parallel;
+        if (StreamProfile.ENABLED)
+            this.profile = new StreamProfile(StreamProfile.LOGGING_LISTENER);
     }
 
     /**
@@ -103,6 +111,8 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         this.combinedFlags = (~(sourceOrOpFlags << 1)) & StreamOpFlag.INITIAL_OPS_VALUE;
         this.depth = 0;
         this.parallel = parallel;
+        if (StreamProfile.ENABLED)
+            this.profile = new StreamProfile(StreamProfile.LOGGING_LISTENER);
     }
 
     /**
@@ -124,6 +134,34 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         this.depth = previousStage.depth + 1;
     }
 
+    /**
+     * Constructor for a stage that takes the place of the last stage of
+     * a pipeline, performing that stage's operation together with the
+     * operation being appended.  The new stage is linked to the replaced
+     * stage's upstream, and the replaced stage is marked as linked, just
+     * as if the new stage had been appended to it.
+     *
+     * @param opFlags the operation flags for the combined operations
+     * @param replaced the last stage, which must not be the source stage
+     * @throws IllegalStateException if the replaced stage has already
+     *         been linked or consumed
+     */
+    @SuppressWarnings("unchecked")
+    AbstractPipeline(int opFlags, AbstractPipeline<?, ?, ?> replaced) {
+        if (replaced.linkedOrConsumed) throw new IllegalStateException(MSG_STREAM_LINKED);
+        assert replaced.depth > 0;
+        replaced.linkedOrConsumed = true;
+        AbstractPipeline<?, E_IN, ?> p = replaced.previousStage;
+        p.nextStage = this;
+
+        this.previousStage = p;
+        this.sourceOrOpFlags = opFlags & StreamOpFlag.OP_MASK;
+        this.combinedFlags = StreamOpFlag.combineOpFlags(opFlags, p.combinedFlags);
+        this.sourceStage = p.sourceStage;
+        if (opIsStateful()) sourceStage.sourceAnyStateful = true;
+        this.depth = p.depth + 1;
+    }
+
     /**
      * 触发结果计算
      * 这里使用了访问者模式, 一个元素可能对多个中断消费
@@ -135,9 +173,15 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
             throw new IllegalStateException(MSG_STREAM_LINKED);
         linkedOrConsumed = true;
 
-        return isParallel()
+        StreamProfile p = sourceStage.profile;
+        if (p != null)
+            p.begin(isParallel());
+        R result = isParallel()
                 ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
                 : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
+        if (p != null)
+            p.end();
+        return result;
     }
 
     /**
@@ -154,11 +198,18 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
 
         // If the last intermediate operation is stateful then
         // evaluate directly to avoid an extra collection step
+        StreamProfile p = sourceStage.profile;
+        if (p != null)
+            p.begin(isParallel());
+        Node<E_OUT> node;
         if (isParallel() && previousStage != null && opIsStateful()) {
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            node = opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
         } else {
-            return evaluate(sourceSpliterator(0), true, generator);
+            node = evaluate(sourceSpliterator(0), true, generator);
         }
+        if (p != null)
+            p.end();
+        return node;
     }
 
     /**
@@ -210,6 +261,39 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         return (S) this;
     }
 
+    @Override
+    final StreamProfile getProfile() {
+        return sourceStage.profile;
+    }
+
+    /**
+     * 开启剖析, 终端操作完成时将剖析结果交给listener
+     */
+    final void enableProfile(Consumer<? super StreamProfile> listener) {
+        if (linkedOrConsumed)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        sourceStage.profile = new StreamProfile(listener);
+    }
+
+    /**
+     * Returns a name for the operation of this stage, for profiling:
+     * the name of the method that created it for anonymous stage
+     * classes, otherwise the name of the stage class.
+     */
+    String opName() {
+        Class<?> c = getClass();
+        java.lang.reflect.Method m = c.getEnclosingMethod();
+        if (m != null) {
+            Class<?> e = m.getDeclaringClass();
+            return BaseStream.class.isAssignableFrom(e)
+                ? m.getName()
+                : e.getSimpleName() + "." + m.getName();
+        }
+        Class<?> e = c.getEnclosingClass();
+        return (e == null) ? c.getSimpleName()
+            : e.getSimpleName() + "." + c.getSimpleName();
+    }
+
     @Override
     public void close() {
         linkedOrConsumed = true;
@@ -348,6 +432,8 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
         } else {
             throw new IllegalStateException(MSG_CONSUMED);
         }
+        if (sourceStage.profile != null)
+            sourceStage.profile.describeSource(spliterator);
 
         if (isParallel()) {
             // @@@ Merge parallelPrepare with the loop below and use the
@@ -436,12 +522,37 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>> ext
     final <P_IN> Sink<P_IN> wrapSink(Sink<E_OUT> sink) {
         Objects.requireNonNull(sink);
 
+        StreamProfile profile = sourceStage.profile;
+        if (profile != null)
+            return wrapProfilingSink(profile, sink);
         for (@SuppressWarnings("rawtypes") AbstractPipeline p = AbstractPipeline.this; p.depth > 0; p = p.previousStage) {
             sink = p.opWrapSink(p.previousStage.combinedFlags, sink);
         }
         return (Sink<P_IN>) sink;
     }
 
+    /**
+     * 开启剖析时的包装, 每个阶段的Sink前加入计数计时的Sink
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private <P_IN> Sink<P_IN> wrapProfilingSink(StreamProfile profile, Sink<E_OUT> sink) {
+        // 阶段序号按previousStage链计算, 并行时depth会在屏障处被重新编号
+        AbstractPipeline next = nextStage;
+        int index = 0;
+        for (AbstractPipeline p = AbstractPipeline.this; p.previousStage != null; p = p.previousStage)
+            ++index;
+        StreamProfile.ProfilingSink child = new StreamProfile.ProfilingSink(
+                profile.stage(index + 1, (next == null) ? "terminal" : next.opName()),
+                sink, null);
+        Sink s = child;
+        for (AbstractPipeline p = AbstractPipeline.this; p.depth > 0; p = p.previousStage) {
+            s = p.opWrapSink(p.previousStage.combinedFlags, s);
+            s = child = new StreamProfile.ProfilingSink(
+                    profile.stage(index--, p.opName()), s, child);
+        }
+        return (Sink<P_IN>) s;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     final <P_IN> Spliterator<E_OUT> wrapSpliterator(Spliterator<P_IN> sourceSpliterator) {
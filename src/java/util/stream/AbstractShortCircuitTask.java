@@ -100,6 +100,7 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
     @Override
     public void compute() {
         Spliterator<P_IN> rs = spliterator, ls;
+        StreamProfile profile = helper.getProfile();
         long sizeEstimate = rs.estimateSize();
         long sizeThreshold = getTargetSize(sizeEstimate);
         boolean forkRight = false;
@@ -112,7 +113,17 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
                 break;
             }
             if (sizeEstimate <= sizeThreshold || (ls = rs.trySplit()) == null) {
-                result = task.doLeaf();
+                if (profile == null)
+                    result = task.doLeaf();
+                else {
+                    long start = System.nanoTime();
+                    result = task.doLeaf();
+                    long nanos = System.nanoTime() - start;
+                    int depth = 0;
+                    for (K p = task.getParent(); p != null; p = p.getParent())
+                        ++depth;
+                    profile.recordLeaf(depth, sizeEstimate, nanos);
+                }
                 break;
             }
             K leftChild, rightChild, taskToFork;
@@ -132,6 +143,8 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
             }
             taskToFork.fork();
             sizeEstimate = rs.estimateSize();
+            if (profile != null)
+                profile.recordSplit();
         }
         task.setLocalResult(result);
         task.tryComplete();
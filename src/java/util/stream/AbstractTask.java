@@ -290,6 +290,7 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     @Override
     public void compute() {
         Spliterator<P_IN> rs = spliterator, ls; // right, left spliterators
+        StreamProfile profile = helper.getProfile();
         long sizeEstimate = rs.estimateSize();
         long sizeThreshold = getTargetSize(sizeEstimate);
         boolean forkRight = false;
@@ -312,11 +313,45 @@ abstract class AbstractTask<P_IN, P_OUT, R,
             }
             taskToFork.fork();
             sizeEstimate = rs.estimateSize();
+            if (profile != null)
+                profile.recordSplit();
+        }
+        if (profile == null)
+            task.setLocalResult(task.doLeaf());
+        else {
+            long start = System.nanoTime();
+            task.setLocalResult(task.doLeaf());
+            long nanos = System.nanoTime() - start;
+            int depth = 0;
+            for (K p = task.getParent(); p != null; p = p.getParent())
+                ++depth;
+            profile.recordLeaf(depth, sizeEstimate, nanos);
         }
-        task.setLocalResult(task.doLeaf());
         task.tryComplete();
     }
 
+    /**
+     * Returns the time at which a combine step starts if the pipeline is
+     * being profiled, for use with {@link #endCombine}, or zero.
+     *
+     * @return the current time if profiling, else zero
+     */
+    protected final long startCombine() {
+        return (helper.getProfile() == null) ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Records the time spent in a combine step started at the given time,
+     * if the pipeline is being profiled.
+     *
+     * @param start the value returned by {@link #startCombine}
+     */
+    protected final void endCombine(long start) {
+        StreamProfile profile = helper.getProfile();
+        if (profile != null)
+            profile.recordCombine(System.nanoTime() - start);
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -188,7 +188,8 @@ public final class Collectors {
 
 
     public static <T> Collector<T, ?, Long> counting() {
-        return reducing(0L, e -> 1L, Long::sum);
+        //累加到long[1]中, 避免每个元素装箱
+        return summingLong(e -> 1L);
     }
 
 
@@ -716,6 +717,195 @@ public final class Collectors {
         }
     }
 
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to an
+     * int-valued classification function, and returning the results in an
+     * {@link IntObjectMap}.
+     *
+     * <p>This is the int-keyed counterpart of {@link #groupingBy(Function)}:
+     * keys are held unboxed in an open-addressing table, so no key object
+     * or map entry is allocated per group.
+     *
+     * <p>There are no guarantees on the mutability, serializability, or
+     * thread-safety of the {@code List} objects returned.
+     * @implSpec
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByInt(classifier, toList());
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, IntObjectMap<List<T>>>
+    groupingByInt(ToIntFunction<? super T> classifier) {
+        return groupingByInt(classifier, toList());
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to an int-valued classification function, and then
+     * performing a reduction operation on the values associated with a
+     * given key using the specified downstream {@code Collector}.
+     *
+     * <p>The downstream collector operates on elements of type {@code T}
+     * and produces a result of type {@code D}.  The resulting collector
+     * produces an {@code IntObjectMap<D>}.  Downstream containers are
+     * created once per key, and keys are never boxed; combined with a
+     * primitive downstream such as {@link #summingLong(ToLongFunction)},
+     * which accumulates into a {@code long[]} cell, accumulation allocates
+     * nothing per element.
+     *
+     * <p>For example, to compute the total order value for each store:
+     * <pre>{@code
+     *     IntObjectMap<Long> totalByStore
+     *         = orders.stream().collect(groupingByInt(Order::getStoreId,
+     *                                                 summingLong(Order::getValue)));
+     * }</pre>
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, the {@code combiner} function operates by merging the keys
+     * from one map into another.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction)
+     * @see #groupingBy(Function, Collector)
+     * @since 1.8
+     */
+    public static <T, A, D>
+    Collector<T, ?, IntObjectMap<D>> groupingByInt(ToIntFunction<? super T> classifier,
+                                                   Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        IntFunction<A> newContainer = k -> downstreamSupplier.get();
+        BiConsumer<IntObjectMap<A>, T> accumulator = (m, t) -> {
+            A container = m.computeIfAbsent(classifier.applyAsInt(t), newContainer);
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<IntObjectMap<A>> merger = (m1, m2) -> {
+            m2.forEach((k, v) -> m1.merge(k, v, downstreamCombiner));
+            return m1;
+        };
+        Supplier<IntObjectMap<A>> supplier = IntObjectMap::new;
+
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(supplier, accumulator, merger, CH_ID);
+        } else {
+            @SuppressWarnings("unchecked")
+            Function<A, A> downstreamFinisher = (Function<A, A>) downstream.finisher();
+            Function<IntObjectMap<A>, IntObjectMap<D>> finisher = intermediate -> {
+                //替换已存在的key不会改变结构, 可以在遍历中进行
+                intermediate.forEach((k, v) -> intermediate.put(k, downstreamFinisher.apply(v)));
+                @SuppressWarnings("unchecked")
+                IntObjectMap<D> castResult = (IntObjectMap<D>) (IntObjectMap<?>) intermediate;
+                return castResult;
+            };
+            return new CollectorImpl<>(supplier, accumulator, merger, finisher, CH_NOID);
+        }
+    }
+
+    /**
+     * Returns a {@code Collector} that counts the input elements having
+     * each value of an int-valued classification function, producing an
+     * {@link IntIntMap} from keys to counts.  Neither keys nor counts are
+     * boxed, and no object is allocated per group.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector} producing the count of elements per key
+     *
+     * @see #summingIntByInt(ToIntFunction, ToIntFunction)
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, IntIntMap>
+    countingByInt(ToIntFunction<? super T> classifier) {
+        Objects.requireNonNull(classifier);
+        return new CollectorImpl<>(
+                IntIntMap::new,
+                (m, t) -> m.addTo(classifier.applyAsInt(t), 1),
+                (m1, m2) -> {
+                    m2.forEach(m1::addTo);
+                    return m1;
+                },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} that sums an int-valued function of the
+     * input elements having each value of an int-valued classification
+     * function, producing an {@link IntIntMap} from keys to sums.  Sums
+     * overflow as {@code int} addition does.  Neither keys nor sums are
+     * boxed, and no object is allocated per group.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} producing the sum of a derived property
+     *         per key
+     *
+     * @see #summingLongByLong(ToLongFunction, ToLongFunction)
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, IntIntMap>
+    summingIntByInt(ToIntFunction<? super T> classifier,
+                    ToIntFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<>(
+                IntIntMap::new,
+                (m, t) -> m.addTo(classifier.applyAsInt(t), mapper.applyAsInt(t)),
+                (m1, m2) -> {
+                    m2.forEach(m1::addTo);
+                    return m1;
+                },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} that sums a long-valued function of the
+     * input elements having each value of a long-valued classification
+     * function, producing a {@link LongLongMap} from keys to sums.  Neither
+     * keys nor sums are boxed, and no object is allocated per group.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} producing the sum of a derived property
+     *         per key
+     *
+     * @see #summingIntByInt(ToIntFunction, ToIntFunction)
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, LongLongMap>
+    summingLongByLong(ToLongFunction<? super T> classifier,
+                      ToLongFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<>(
+                LongLongMap::new,
+                (m, t) -> m.addTo(classifier.applyAsLong(t), mapper.applyAsLong(t)),
+                (m1, m2) -> {
+                    m2.forEach(m1::addTo);
+                    return m1;
+                },
+                CH_ID);
+    }
+
     /**
      * Returns a concurrent {@code Collector} implementing a "group by"
      * operation on input elements of type {@code T}, grouping elements
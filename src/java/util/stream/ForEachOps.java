@@ -61,7 +61,8 @@ final class ForEachOps {
             if (ordered)
                 new ForEachOrderedTask<>(helper, spliterator, this).invoke();
             else
-                new ForEachTask<>(helper, spliterator, helper.wrapSink(this)).invoke();
+                new ForEachTask<>(helper, spliterator, helper.wrapSink(this),
+                                  (helper.getProfile() == null) ? null : this).invoke();
             return null;
         }
 
@@ -155,14 +156,18 @@ final class ForEachOps {
         private Spliterator<S> spliterator;
         private final Sink<S> sink;
         private final PipelineHelper<T> helper;
+        // 剖析时每个叶子任务单独包装终端Sink, 因为剖析Sink不能被多线程共享
+        private final Sink<T> terminal;
         private long targetSize;
 
         ForEachTask(PipelineHelper<T> helper,
                     Spliterator<S> spliterator,
-                    Sink<S> sink) {
+                    Sink<S> sink,
+                    Sink<T> terminal) {
             super(null);
             this.sink = sink;
             this.helper = helper;
+            this.terminal = terminal;
             this.spliterator = spliterator;
             this.targetSize = 0L;
         }
@@ -171,6 +176,7 @@ final class ForEachOps {
             super(parent);
             this.spliterator = spliterator;
             this.sink = parent.sink;
+            this.terminal = parent.terminal;
             this.targetSize = parent.targetSize;
             this.helper = parent.helper;
         }
@@ -188,7 +194,10 @@ final class ForEachOps {
             while (!isShortCircuit || !taskSink.cancellationRequested()) {
                 if (sizeEstimate <= sizeThreshold ||
                         (leftSplit = rightSplit.trySplit()) == null) {
-                    task.helper.copyInto(taskSink, rightSplit);
+                    if (terminal == null)
+                        task.helper.copyInto(taskSink, rightSplit);
+                    else
+                        copyIntoProfiled(task, rightSplit, sizeEstimate);
                     break;
                 }
                 ForEachTask<S, T> leftTask = new ForEachTask<>(task, leftSplit);
@@ -205,10 +214,23 @@ final class ForEachOps {
                 }
                 taskToFork.fork();
                 sizeEstimate = rightSplit.estimateSize();
+                if (terminal != null)
+                    helper.getProfile().recordSplit();
             }
             task.spliterator = null;
             task.propagateCompletion();
         }
+
+        private void copyIntoProfiled(ForEachTask<S, T> task, Spliterator<S> split,
+                                      long sizeEstimate) {
+            long start = System.nanoTime();
+            task.helper.copyInto(task.helper.wrapSink(terminal), split);
+            long nanos = System.nanoTime() - start;
+            int depth = 0;
+            for (CountedCompleter<?> p = task.getCompleter(); p != null; p = p.getCompleter())
+                ++depth;
+            helper.getProfile().recordLeaf(depth, sizeEstimate, nanos);
+        }
     }
 
     /**
@@ -259,9 +281,10 @@ final class ForEachOps {
 
         private static <S, T> void doCompute(ForEachOrderedTask<S, T> task) {
             Spliterator<S> rightSplit = task.spliterator, leftSplit;
-            long sizeThreshold = task.targetSize;
+            StreamProfile profile = task.helper.getProfile();
+            long sizeThreshold = task.targetSize, sizeEstimate;
             boolean forkRight = false;
-            while (rightSplit.estimateSize() > sizeThreshold &&
+            while ((sizeEstimate = rightSplit.estimateSize()) > sizeThreshold &&
                     (leftSplit = rightSplit.trySplit()) != null) {
                 ForEachOrderedTask<S, T> leftChild =
                         new ForEachOrderedTask<>(task, leftSplit, task.leftPredecessor);
@@ -289,7 +312,10 @@ final class ForEachOps {
                     taskToFork = leftChild;
                 }
                 taskToFork.fork();
+                if (profile != null)
+                    profile.recordSplit();
             }
+            long start = (profile == null) ? 0L : System.nanoTime();
             if (task.getPendingCount() == 0) {
                 task.helper.wrapAndCopyInto(task.action, rightSplit);
             } else {
@@ -298,6 +324,13 @@ final class ForEachOps {
                         size -> (T[]) new Object[size]);
                 task.node = task.helper.wrapAndCopyInto(nb, rightSplit).build();
             }
+            if (profile != null) {
+                long nanos = System.nanoTime() - start;
+                int depth = 0;
+                for (CountedCompleter<?> p = task.getCompleter(); p != null; p = p.getCompleter())
+                    ++depth;
+                profile.recordLeaf(depth, sizeEstimate, nanos);
+            }
             task.tryComplete();
         }
 
@@ -91,6 +91,17 @@ abstract class IntPipeline<E_IN>
         super(upstream, opFlags);
     }
 
+    /**
+     * Constructor for replacing the last intermediate stage of a pipeline
+     * with one that also performs an appended operation.
+     *
+     * @param opFlags the operation flags for the combined operations
+     * @param replaced the last stage of the pipeline
+     */
+    IntPipeline(int opFlags, AbstractPipeline<?, ?, ?> replaced) {
+        super(opFlags, replaced);
+    }
+
     /**
      * Adapt a {@code Sink<Integer> to an {@code IntConsumer}, ideally simply
      * by casting.
@@ -223,18 +234,9 @@ abstract class IntPipeline<E_IN>
     @Override
     public final IntStream map(IntUnaryOperator mapper) {
         Objects.requireNonNull(mapper);
-        return new StatelessOp<Integer>(this, StreamShape.INT_VALUE,
-                                        StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
-            @Override
-            Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
-                return new Sink.ChainedInt<Integer>(sink) {
-                    @Override
-                    public void accept(int t) {
-                        downstream.accept(mapper.applyAsInt(t));
-                    }
-                };
-            }
-        };
+        if (this instanceof FusedOp)
+            return ((FusedOp) this).fuseMap(mapper);
+        return new FusedOp(this, null, mapper);
     }
 
     @Override
@@ -328,24 +330,9 @@ abstract class IntPipeline<E_IN>
     @Override
     public final IntStream filter(IntPredicate predicate) {
         Objects.requireNonNull(predicate);
-        return new StatelessOp<Integer>(this, StreamShape.INT_VALUE,
-                                        StreamOpFlag.NOT_SIZED) {
-            @Override
-            Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
-                return new Sink.ChainedInt<Integer>(sink) {
-                    @Override
-                    public void begin(long size) {
-                        downstream.begin(-1);
-                    }
-
-                    @Override
-                    public void accept(int t) {
-                        if (predicate.test(t))
-                            downstream.accept(t);
-                    }
-                };
-            }
-        };
+        if (this instanceof FusedOp && ((FusedOp) this).mapper == null)
+            return ((FusedOp) this).fuseFilter(predicate);
+        return new FusedOp(this, predicate, null);
     }
 
     @Override
@@ -593,12 +580,122 @@ abstract class IntPipeline<E_IN>
             assert upstream.getOutputShape() == inputShape;
         }
 
+        /**
+         * Construct a new IntStream by replacing the last stage of an
+         * existing stream with one that also performs an appended
+         * stateless operation.
+         * @param opFlags Operation flags for the combined operations
+         * @param replaced The last pipeline stage
+         */
+        StatelessOp(int opFlags, AbstractPipeline<?, ?, ?> replaced) {
+            super(opFlags, replaced);
+        }
+
         @Override
         final boolean opIsStateful() {
             return false;
         }
     }
 
+    /**
+     * A stage performing a filter followed by a map, either of which may
+     * be absent.  A filter or map appended to a stage without a map, or a
+     * map appended to any such stage, replaces that stage with one
+     * performing both, so that a run of these operations wraps a single
+     * sink rather than one per operation.  A filter appended after a map
+     * starts a new stage.
+     */
+    static final class FusedOp extends StatelessOp<Integer> {
+        final IntPredicate filter;    // null if none
+        final IntUnaryOperator mapper; // null if none
+
+        FusedOp(AbstractPipeline<?, Integer, ?> upstream,
+                IntPredicate filter, IntUnaryOperator mapper) {
+            super(upstream, StreamShape.INT_VALUE, opFlags(filter, mapper));
+            this.filter = filter;
+            this.mapper = mapper;
+        }
+
+        FusedOp(FusedOp replaced, IntPredicate filter, IntUnaryOperator mapper) {
+            super(opFlags(filter, mapper), replaced);
+            this.filter = filter;
+            this.mapper = mapper;
+        }
+
+        static int opFlags(Object filter, Object mapper) {
+            return ((filter == null) ? 0 : StreamOpFlag.NOT_SIZED) |
+                ((mapper == null) ? 0 :
+                 StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT);
+        }
+
+        /**
+         * Returns a stage replacing this one, which must have no map,
+         * that also applies the given predicate.
+         */
+        IntStream fuseFilter(IntPredicate predicate) {
+            IntPredicate f = filter;
+            return new FusedOp(this, (f == null) ? predicate : f.and(predicate),
+                               null);
+        }
+
+        /**
+         * Returns a stage replacing this one that also applies the given
+         * function to its results.
+         */
+        IntStream fuseMap(IntUnaryOperator function) {
+            IntUnaryOperator m = mapper;
+            return new FusedOp(this, filter,
+                               (m == null) ? function : m.andThen(function));
+        }
+
+        @Override
+        String opName() {
+            return (filter == null) ? "map" : (mapper == null) ? "filter" : "filter+map";
+        }
+
+        @Override
+        Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
+            IntPredicate f = filter;
+            IntUnaryOperator m = mapper;
+            if (f == null) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    @Override
+                    public void accept(int t) {
+                        downstream.accept(m.applyAsInt(t));
+                    }
+                };
+            }
+            else if (m == null) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        if (f.test(t))
+                            downstream.accept(t);
+                    }
+                };
+            }
+            else {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        if (f.test(t))
+                            downstream.accept(m.applyAsInt(t));
+                    }
+                };
+            }
+        }
+    }
+
     /**
      * Base class for a stateful intermediate stage of an IntStream.
      *
@@ -1860,6 +1860,7 @@ final class Nodes {
         public void compute() {
             SizedCollectorTask<P_IN, P_OUT, T_SINK, K> task = this;
             Spliterator<P_IN> rightSplit = spliterator, leftSplit;
+            StreamProfile profile = helper.getProfile();
             while (rightSplit.estimateSize() > task.targetSize &&
                    (leftSplit = rightSplit.trySplit()) != null) {
                 task.setPendingCount(1);
@@ -1867,11 +1868,23 @@ final class Nodes {
                 task.makeChild(leftSplit, task.offset, leftSplitSize).fork();
                 task = task.makeChild(rightSplit, task.offset + leftSplitSize,
                                       task.length - leftSplitSize);
+                if (profile != null)
+                    profile.recordSplit();
             }
 
             assert task.offset + task.length < MAX_ARRAY_SIZE;
             T_SINK sink = (T_SINK) task;
-            task.helper.wrapAndCopyInto(sink, rightSplit);
+            if (profile == null)
+                task.helper.wrapAndCopyInto(sink, rightSplit);
+            else {
+                long start = System.nanoTime();
+                task.helper.wrapAndCopyInto(sink, rightSplit);
+                long nanos = System.nanoTime() - start;
+                int depth = 0;
+                for (CountedCompleter<?> p = task.getCompleter(); p != null; p = p.getCompleter())
+                    ++depth;
+                profile.recordLeaf(depth, task.length, nanos);
+            }
             task.propagateCompletion();
         }
 
@@ -2180,8 +2193,11 @@ final class Nodes {
 
         @Override
         public void onCompletion(CountedCompleter<?> caller) {
-            if (!isLeaf())
+            if (!isLeaf()) {
+                long start = startCombine();
                 setLocalResult(concFactory.apply(leftChild.getLocalResult(), rightChild.getLocalResult()));
+                endCombine(start);
+            }
             super.onCompletion(caller);
         }
 
@@ -63,6 +63,12 @@ abstract class PipelineHelper<P_OUT> {
      */
     abstract <P_IN> Sink<P_IN> wrapSink(Sink<P_OUT> sink);
 
+    /**
+     * 获取剖析数据, 未开启剖析时返回null
+     * @return
+     */
+    abstract StreamProfile getProfile();
+
     /**
      * 包装源
      * @param spliterator
@@ -613,9 +613,11 @@ final class ReduceOps {
         @Override
         public void onCompletion(CountedCompleter<?> caller) {
             if (!isLeaf()) {
+                long start = startCombine();
                 S leftResult = leftChild.getLocalResult();
                 leftResult.combine(rightChild.getLocalResult());
                 setLocalResult(leftResult);
+                endCombine(start);
             }
             // GC spliterator, left and right child
             super.onCompletion(caller);
@@ -60,6 +60,15 @@ abstract class ReferencePipeline<P_IN, P_OUT> extends AbstractPipeline<P_IN, P_O
         super(upstream, opFlags);
     }
 
+    /**
+     * 替换管道的最后一个中间操作, 用于融合相邻的无状态操作
+     * @param opFlags 融合后操作的标识
+     * @param replaced 被替换的最后一个中间操作
+     */
+    ReferencePipeline(int opFlags, AbstractPipeline<?, ?, ?> replaced) {
+        super(opFlags, replaced);
+    }
+
     // Shape-specific methods
 
     /**
@@ -123,46 +132,23 @@ abstract class ReferencePipeline<P_IN, P_OUT> extends AbstractPipeline<P_IN, P_O
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public final Stream<P_OUT> filter(Predicate<? super P_OUT> predicate) {
         Objects.requireNonNull(predicate);
-        return new StatelessOp<P_OUT, P_OUT>(this, StreamShape.REFERENCE,
-                StreamOpFlag.NOT_SIZED) {
-            @Override
-            Sink<P_OUT> opWrapSink(int flags, Sink<P_OUT> sink) {
-                return new Sink.ChainedReference<P_OUT, P_OUT>(sink) {
-                    @Override
-                    public void begin(long size) {
-                        downstream.begin(-1);
-                    }
-
-                    @Override
-                    public void accept(P_OUT u) {
-                        if (predicate.test(u))
-                            downstream.accept(u);
-                    }
-                };
-            }
-        };
+        //与紧邻的无状态过滤操作融合, 避免再包装一层Sink
+        if (this instanceof FusedOp && ((FusedOp<?, ?>) this).mapper == null)
+            return ((FusedOp<?, P_OUT>) this).fuseFilter(predicate);
+        return new FusedOp<P_OUT, P_OUT>(this, predicate, null);
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public final <R> Stream<R> map(Function<? super P_OUT, ? extends R> mapper) {
         Objects.requireNonNull(mapper);
-        return new StatelessOp<P_OUT, R>(this, StreamShape.REFERENCE, StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
-
-            //设置回调,由尾至头包装,该方法会被下一个对象调用(内部维护了一个反向列表实现反调用)
-            @Override
-            Sink<P_OUT> opWrapSink(int flags, Sink<R> sink) {
-                return new Sink.ChainedReference<P_OUT, R>(sink) {
-                    @Override
-                    public void accept(P_OUT u) {
-                        //执行当前方法并将结果传递给第一个处理器
-                        downstream.accept(mapper.apply(u));
-                    }
-                };
-            }
-        };
+        //与紧邻的无状态映射或过滤操作融合, 避免再包装一层Sink
+        if (this instanceof FusedOp)
+            return ((FusedOp<?, P_OUT>) this).fuseMap(mapper);
+        return new FusedOp<P_OUT, R>(this, null, mapper);
     }
 
     @Override
@@ -552,12 +538,129 @@ abstract class ReferencePipeline<P_IN, P_OUT> extends AbstractPipeline<P_IN, P_O
             assert upstream.getOutputShape() == inputShape;
         }
 
+        StatelessOp(int opFlags, AbstractPipeline<?, ?, ?> replaced) {
+            super(opFlags, replaced);
+        }
+
         @Override
         final boolean opIsStateful() {
             return false;
         }
     }
 
+    /**
+     * A stage performing a filter followed by a map, either of which
+     * may be absent.  A filter or map appended to a stage without a map,
+     * or a map appended to any such stage, replaces that stage with one
+     * performing both, so that a run of these operations wraps a single
+     * sink rather than one per operation.  A filter appended after a
+     * map starts a new stage.
+     *
+     * @param <E_IN> type of elements in the upstream source
+     * @param <E_OUT> type of elements produced by this stage
+     */
+    static final class FusedOp<E_IN, E_OUT> extends StatelessOp<E_IN, E_OUT> {
+        final Predicate<? super E_IN> filter;              // null if none
+        final Function<? super E_IN, ? extends E_OUT> mapper; // null if none
+
+        FusedOp(AbstractPipeline<?, E_IN, ?> upstream,
+                Predicate<? super E_IN> filter,
+                Function<? super E_IN, ? extends E_OUT> mapper) {
+            super(upstream, StreamShape.REFERENCE, opFlags(filter, mapper));
+            this.filter = filter;
+            this.mapper = mapper;
+        }
+
+        FusedOp(FusedOp<E_IN, ?> replaced,
+                Predicate<? super E_IN> filter,
+                Function<? super E_IN, ? extends E_OUT> mapper) {
+            super(opFlags(filter, mapper), replaced);
+            this.filter = filter;
+            this.mapper = mapper;
+        }
+
+        static int opFlags(Object filter, Object mapper) {
+            return ((filter == null) ? 0 : StreamOpFlag.NOT_SIZED) |
+                ((mapper == null) ? 0 :
+                 StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT);
+        }
+
+        /**
+         * Returns a stage replacing this one that also applies the given
+         * predicate.  Requires that this stage has no map, so that its
+         * input and output types are the same.
+         */
+        @SuppressWarnings("unchecked")
+        Stream<E_OUT> fuseFilter(Predicate<? super E_OUT> predicate) {
+            Predicate<? super E_IN> f = filter,
+                p = (Predicate<? super E_IN>) predicate;
+            Predicate<E_IN> both = (f == null) ? p::test
+                : u -> f.test(u) && p.test(u);
+            return (Stream<E_OUT>) new FusedOp<E_IN, E_IN>(this, both, null);
+        }
+
+        /**
+         * Returns a stage replacing this one that also applies the given
+         * function to its results.
+         */
+        @SuppressWarnings("unchecked")
+        <R> Stream<R> fuseMap(Function<? super E_OUT, ? extends R> function) {
+            Function<? super E_IN, ? extends E_OUT> m = mapper;
+            Function<? super E_IN, ? extends R> both = (m == null)
+                ? (Function<? super E_IN, ? extends R>) function
+                : u -> function.apply(m.apply(u));
+            return new FusedOp<E_IN, R>(this, filter, both);
+        }
+
+        @Override
+        String opName() {
+            return (filter == null) ? "map" : (mapper == null) ? "filter" : "filter+map";
+        }
+
+        @Override
+        Sink<E_IN> opWrapSink(int flags, Sink<E_OUT> sink) {
+            Predicate<? super E_IN> f = filter;
+            Function<? super E_IN, ? extends E_OUT> m = mapper;
+            if (f == null) {
+                return new Sink.ChainedReference<E_IN, E_OUT>(sink) {
+                    @Override
+                    public void accept(E_IN u) {
+                        downstream.accept(m.apply(u));
+                    }
+                };
+            }
+            else if (m == null) {
+                return new Sink.ChainedReference<E_IN, E_OUT>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public void accept(E_IN u) {
+                        if (f.test(u))
+                            downstream.accept((E_OUT) u);
+                    }
+                };
+            }
+            else {
+                return new Sink.ChainedReference<E_IN, E_OUT>(sink) {
+                    @Override
+                    public void begin(long size) {
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void accept(E_IN u) {
+                        if (f.test(u))
+                            downstream.accept(m.apply(u));
+                    }
+                };
+            }
+        }
+    }
+
     /**
      * 有状态操作
      */
@@ -0,0 +1,115 @@
+package java.util.stream;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts stream elements to and from bytes, so that
+ * {@link SpillingStreams} can hold elements in temporary files while
+ * sorting or removing duplicates.  An element read back must be
+ * equivalent to the one written: equal to it, and ordered the same
+ * by any comparator in use.
+ *
+ * <p>Codecs for common element types are provided by the static
+ * factory methods of this interface.  These do not accept
+ * {@code null} elements.
+ *
+ * @param <T> the type of elements encoded
+ * @see SpillingStreams
+ * @since 1.8
+ */
+public interface SpillCodec<T> {
+
+    /**
+     * Writes the given element.
+     *
+     * @param out the output to write to
+     * @param element the element
+     * @throws IOException if an I/O error occurs
+     */
+    void write(DataOutput out, T element) throws IOException;
+
+    /**
+     * Reads an element written by {@link #write}.
+     *
+     * @param in the input to read from
+     * @return the element
+     * @throws IOException if an I/O error occurs
+     */
+    T read(DataInput in) throws IOException;
+
+    /**
+     * Returns a codec for strings, which writes each as its length
+     * followed by its UTF-8 encoding.
+     *
+     * @return a codec for strings
+     */
+    static SpillCodec<String> ofStrings() {
+        return new SpillCodec<String>() {
+            public void write(DataOutput out, String s) throws IOException {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(b.length);
+                out.write(b);
+            }
+
+            public String read(DataInput in) throws IOException {
+                byte[] b = new byte[in.readInt()];
+                in.readFully(b);
+                return new String(b, StandardCharsets.UTF_8);
+            }
+        };
+    }
+
+    /**
+     * Returns a codec for integers.
+     *
+     * @return a codec for integers
+     */
+    static SpillCodec<Integer> ofIntegers() {
+        return new SpillCodec<Integer>() {
+            public void write(DataOutput out, Integer i) throws IOException {
+                out.writeInt(i);
+            }
+
+            public Integer read(DataInput in) throws IOException {
+                return in.readInt();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec for longs.
+     *
+     * @return a codec for longs
+     */
+    static SpillCodec<Long> ofLongs() {
+        return new SpillCodec<Long>() {
+            public void write(DataOutput out, Long l) throws IOException {
+                out.writeLong(l);
+            }
+
+            public Long read(DataInput in) throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+
+    /**
+     * Returns a codec for doubles.
+     *
+     * @return a codec for doubles
+     */
+    static SpillCodec<Double> ofDoubles() {
+        return new SpillCodec<Double>() {
+            public void write(DataOutput out, Double d) throws IOException {
+                out.writeDouble(d);
+            }
+
+            public Double read(DataInput in) throws IOException {
+                return in.readDouble();
+            }
+        };
+    }
+}
@@ -0,0 +1,669 @@
+package java.util.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Sorting and duplicate removal for streams with more elements than
+ * fit in memory.  These are the counterparts of {@link Stream#sorted}
+ * and {@link Stream#distinct} that hold at most a given number of
+ * elements in memory, writing the rest to temporary files through a
+ * {@link SpillCodec} and reading them back as the result is consumed.
+ *
+ * <p>The returned streams are lazy: the source stream is consumed by
+ * the terminal operation of the returned stream, which performs the
+ * sort or duplicate removal before producing its first element.  If
+ * all elements fit within the limit, no file is written.  Temporary
+ * files are deleted when the result has been consumed, or when the
+ * returned stream is closed.  Closing the returned stream also closes
+ * the source stream, so a try-with-resources statement ensures that
+ * files are deleted if the pipeline fails part way:
+ * <pre>{@code
+ *     try (Stream<String> s = SpillingStreams.sorted(lines,
+ *             Comparator.naturalOrder(), SpillCodec.ofStrings(), 1 << 22)) {
+ *         s.forEach(out::println);
+ *     }
+ * }</pre>
+ *
+ * <p>I/O errors are thrown as {@link UncheckedIOException}.
+ *
+ * @see SpillCodec
+ * @since 1.8
+ */
+public final class SpillingStreams {
+    private SpillingStreams() {}
+
+    /** The maximum number of runs merged at once. */
+    static final int MAX_MERGE_FAN_IN = 128;
+
+    /** The log2 of the number of files duplicates are partitioned into. */
+    static final int PARTITION_BITS = 6;
+
+    /** The size of the buffers used for file I/O. */
+    static final int IO_BUFFER_SIZE = 1 << 16;
+
+    /** The initial size of the array holding a run. */
+    static final int INITIAL_RUN_CAPACITY = 1 << 10;
+
+    /**
+     * Returns a stream consisting of the elements of the given stream,
+     * sorted according to the provided comparator, holding at most
+     * {@code maxInMemory} elements in memory at once.  Temporary files
+     * are created in the default temporary-file directory.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the source stream
+     * @param comparator the comparator for elements
+     * @param codec the codec for writing elements to temporary files
+     * @param maxInMemory the maximum number of elements held in memory
+     * @return the sorted stream
+     * @throws IllegalArgumentException if {@code maxInMemory} is less
+     *         than one
+     * @see #sorted(Stream, Comparator, SpillCodec, int, Path)
+     */
+    public static <T> Stream<T> sorted(Stream<T> stream,
+                                       Comparator<? super T> comparator,
+                                       SpillCodec<T> codec, int maxInMemory) {
+        return sorted(stream, comparator, codec, maxInMemory, null);
+    }
+
+    /**
+     * Returns a stream consisting of the elements of the given stream,
+     * sorted according to the provided comparator, holding at most
+     * {@code maxInMemory} elements in memory at once.
+     *
+     * <p>Elements are collected into runs of {@code maxInMemory}
+     * elements, each of which is sorted with {@link Arrays#parallelSort}
+     * and written to a temporary file.  Each {@value #MAX_MERGE_FAN_IN}
+     * runs of the same length are merged into one longer run as soon as
+     * they have been written, so that the number of files open at once
+     * grows only with the logarithm of the number of runs.  The
+     * remaining runs are merged as the result is consumed.  The sort is
+     * stable: for
+     * ordered streams, elements that compare equal keep their
+     * encounter order.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the source stream
+     * @param comparator the comparator for elements
+     * @param codec the codec for writing elements to temporary files
+     * @param maxInMemory the maximum number of elements held in memory
+     * @param directory the directory for temporary files, or
+     *        {@code null} for the default temporary-file directory
+     * @return the sorted stream
+     * @throws IllegalArgumentException if {@code maxInMemory} is less
+     *         than one
+     */
+    public static <T> Stream<T> sorted(Stream<T> stream,
+                                       Comparator<? super T> comparator,
+                                       SpillCodec<T> codec, int maxInMemory,
+                                       Path directory) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(comparator);
+        Objects.requireNonNull(codec);
+        if (maxInMemory < 1)
+            throw new IllegalArgumentException("maxInMemory: " + maxInMemory);
+        SpillFiles files = new SpillFiles(directory);
+        return StreamSupport.stream(
+                () -> new Sorter<>(comparator, codec, maxInMemory, files).sort(stream),
+                Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED,
+                stream.isParallel())
+            .onClose(() -> closeAll(stream, files));
+    }
+
+    /**
+     * Returns a stream consisting of the distinct elements (according to
+     * {@link Object#equals(Object)}) of the given stream, holding at most
+     * {@code maxInMemory} elements in memory at once.  Temporary files
+     * are created in the default temporary-file directory.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the source stream
+     * @param codec the codec for writing elements to temporary files
+     * @param maxInMemory the maximum number of elements held in memory
+     * @return the stream of distinct elements
+     * @throws IllegalArgumentException if {@code maxInMemory} is less
+     *         than one
+     * @see #distinct(Stream, SpillCodec, int, Path)
+     */
+    public static <T> Stream<T> distinct(Stream<T> stream, SpillCodec<T> codec,
+                                         int maxInMemory) {
+        return distinct(stream, codec, maxInMemory, null);
+    }
+
+    /**
+     * Returns a stream consisting of the distinct elements (according to
+     * {@link Object#equals(Object)}) of the given stream, holding at most
+     * {@code maxInMemory} elements in memory at once.
+     *
+     * <p>Distinct elements are collected in memory until there are more
+     * than {@code maxInMemory} of them.  From then on, all elements are
+     * written to temporary files partitioned by hash code, and each
+     * file is later read back, its distinct elements are collected and
+     * produced, and it is split further only if it holds more than
+     * {@code maxInMemory} distinct elements.  Unlike {@link Stream#distinct}, encounter order is not
+     * preserved, and the returned stream is unordered.  A file whose
+     * elements all share one hash code cannot be split, and is read
+     * into memory whatever its size.
+     *
+     * @param <T> the type of the stream elements
+     * @param stream the source stream
+     * @param codec the codec for writing elements to temporary files
+     * @param maxInMemory the maximum number of elements held in memory
+     * @param directory the directory for temporary files, or
+     *        {@code null} for the default temporary-file directory
+     * @return the stream of distinct elements
+     * @throws IllegalArgumentException if {@code maxInMemory} is less
+     *         than one
+     */
+    public static <T> Stream<T> distinct(Stream<T> stream, SpillCodec<T> codec,
+                                         int maxInMemory, Path directory) {
+        Objects.requireNonNull(stream);
+        Objects.requireNonNull(codec);
+        if (maxInMemory < 1)
+            throw new IllegalArgumentException("maxInMemory: " + maxInMemory);
+        SpillFiles files = new SpillFiles(directory);
+        return StreamSupport.stream(
+                () -> new Deduplicator<>(codec, maxInMemory, files).distinct(stream),
+                Spliterator.DISTINCT,
+                stream.isParallel())
+            .onClose(() -> closeAll(stream, files));
+    }
+
+    private static void closeAll(Stream<?> stream, SpillFiles files) {
+        try {
+            stream.close();
+        } finally {
+            files.close();
+        }
+    }
+
+    /**
+     * The temporary files of one spilling operation.  Each is opened
+     * with {@link StandardOpenOption#DELETE_ON_CLOSE}, so is deleted
+     * when closed, either on its own once read or by {@link #close}.
+     */
+    static final class SpillFiles implements Closeable {
+        final Path directory;
+        final List<FileRun> open = new ArrayList<>();
+
+        SpillFiles(Path directory) {
+            this.directory = directory;
+        }
+
+        FileRun create() {
+            try {
+                Path p = (directory == null)
+                    ? Files.createTempFile("stream", ".spill")
+                    : Files.createTempFile(directory, "stream", ".spill");
+                FileChannel ch;
+                try {
+                    ch = FileChannel.open(p, StandardOpenOption.READ,
+                                          StandardOpenOption.WRITE,
+                                          StandardOpenOption.DELETE_ON_CLOSE);
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(p);
+                    throw e;
+                }
+                FileRun r = new FileRun(this, ch);
+                synchronized (this) {
+                    open.add(r);
+                }
+                return r;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void release(FileRun r) {
+            open.remove(r);
+        }
+
+        public void close() {
+            List<FileRun> runs;
+            synchronized (this) {
+                runs = new ArrayList<>(open);
+                open.clear();
+            }
+            for (FileRun r : runs)
+                r.close();
+        }
+    }
+
+    /**
+     * A temporary file holding a sequence of encoded elements, written
+     * once and then read once from the start.
+     */
+    static final class FileRun implements Closeable {
+        final SpillFiles files;
+        final FileChannel channel;
+        DataOutputStream out;
+        long count;
+
+        FileRun(SpillFiles files, FileChannel channel) {
+            this.files = files;
+            this.channel = channel;
+        }
+
+        <T> void write(SpillCodec<T> codec, T t) throws IOException {
+            DataOutputStream o;
+            if ((o = out) == null)
+                out = o = new DataOutputStream(new BufferedOutputStream(
+                        Channels.newOutputStream(channel), IO_BUFFER_SIZE));
+            codec.write(o, t);
+            ++count;
+        }
+
+        void finishWriting() throws IOException {
+            if (out != null) {
+                out.flush();
+                out = null;
+            }
+        }
+
+        <T> Cursor<T> reader(SpillCodec<T> codec, int index) throws IOException {
+            finishWriting();
+            channel.position(0L);
+            return new FileCursor<>(this, codec, index);
+        }
+
+        public void close() {
+            files.release(this);
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * A position in a sorted run.  Cursors are ordered by their current
+     * element, and then by index so that merging is stable.
+     */
+    abstract static class Cursor<T> {
+        final int index;
+        T head;
+
+        Cursor(int index) {
+            this.index = index;
+        }
+
+        /** Moves to the next element, returning false if none. */
+        abstract boolean advance() throws IOException;
+
+        void close() {}
+    }
+
+    static final class ArrayCursor<T> extends Cursor<T> {
+        final Object[] a;
+        final int fence;
+        int next;
+
+        ArrayCursor(Object[] a, int fence, int index) {
+            super(index);
+            this.a = a;
+            this.fence = fence;
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean advance() {
+            if (next >= fence)
+                return false;
+            head = (T) a[next];
+            a[next++] = null;
+            return true;
+        }
+    }
+
+    static final class FileCursor<T> extends Cursor<T> {
+        final FileRun run;
+        final SpillCodec<T> codec;
+        final DataInputStream in;
+        long remaining;
+
+        FileCursor(FileRun run, SpillCodec<T> codec, int index) {
+            super(index);
+            this.run = run;
+            this.codec = codec;
+            this.in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(run.channel), IO_BUFFER_SIZE));
+            this.remaining = run.count;
+        }
+
+        boolean advance() throws IOException {
+            if (remaining <= 0L) {
+                close();
+                return false;
+            }
+            --remaining;
+            head = codec.read(in);
+            return true;
+        }
+
+        void close() {
+            run.close();
+        }
+    }
+
+    /**
+     * Merges sorted runs.  Each call to {@link #next} takes the least
+     * element among the cursors, and the merge closes each file as it
+     * is exhausted.
+     */
+    static final class MergeIterator<T> implements Iterator<T> {
+        final PriorityQueue<Cursor<T>> heap;
+        final SpillFiles files;
+
+        MergeIterator(List<Cursor<T>> cursors, Comparator<? super T> comparator,
+                      SpillFiles files) throws IOException {
+            this.files = files;
+            this.heap = new PriorityQueue<>(Math.max(1, cursors.size()), (x, y) -> {
+                int c = comparator.compare(x.head, y.head);
+                return (c != 0) ? c : Integer.compare(x.index, y.index);
+            });
+            for (Cursor<T> c : cursors) {
+                if (c.advance())
+                    heap.add(c);
+            }
+        }
+
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+
+        public T next() {
+            Cursor<T> c = heap.poll();
+            if (c == null)
+                throw new NoSuchElementException();
+            T t = c.head;
+            try {
+                if (c.advance())
+                    heap.add(c);
+            } catch (IOException e) {
+                files.close();
+                throw new UncheckedIOException(e);
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Collects elements into sorted runs, spilling each full run to a
+     * file, and returns a spliterator merging the runs.
+     */
+    static final class Sorter<T> implements Consumer<T> {
+        final Comparator<? super T> comparator;
+        final SpillCodec<T> codec;
+        final int maxInMemory;
+        final SpillFiles files;
+        final List<FileRun> runs = new ArrayList<>();
+        /** The number of merges that produced each run. */
+        final List<Integer> levels = new ArrayList<>();
+        Object[] a;
+        int n;
+        long total;
+
+        Sorter(Comparator<? super T> comparator, SpillCodec<T> codec,
+               int maxInMemory, SpillFiles files) {
+            this.comparator = comparator;
+            this.codec = codec;
+            this.maxInMemory = maxInMemory;
+            this.files = files;
+            this.a = new Object[Math.min(maxInMemory, INITIAL_RUN_CAPACITY)];
+        }
+
+        public void accept(T t) {
+            if (n == a.length) {
+                if (n < maxInMemory)
+                    a = Arrays.copyOf(a, (int)Math.min((long)n << 1, maxInMemory));
+                else
+                    spill();
+            }
+            a[n++] = t;
+            ++total;
+        }
+
+        @SuppressWarnings("unchecked")
+        void sortRun() {
+            Arrays.parallelSort((T[]) a, 0, n, comparator);
+        }
+
+        void spill() {
+            sortRun();
+            FileRun r = files.create();
+            runs.add(r);
+            levels.add(0);
+            try {
+                for (int i = 0; i < n; ++i) {
+                    @SuppressWarnings("unchecked") T t = (T) a[i];
+                    r.write(codec, t);
+                    a[i] = null;
+                }
+                r.finishWriting();
+                n = 0;
+                // Levels never increase along the list, so the last
+                // MAX_MERGE_FAN_IN runs are of one level if the first
+                // of them is of the level of the last.
+                int k, last;
+                while ((k = runs.size() - MAX_MERGE_FAN_IN) >= 0 &&
+                       levels.get(k).intValue() ==
+                       levels.get(last = runs.size() - 1)) {
+                    List<FileRun> group = runs.subList(k, last + 1);
+                    FileRun merged = merge(group);
+                    int level = levels.get(k) + 1;
+                    group.clear();
+                    levels.subList(k, last + 1).clear();
+                    runs.add(merged);
+                    levels.add(level);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Spliterator<T> sort(Stream<T> stream) {
+            try {
+                stream.spliterator().forEachRemaining(this);
+                sortRun();
+                if (runs.isEmpty())
+                    return Spliterators.spliterator(a, 0, n, Spliterator.ORDERED);
+                List<FileRun> rs = runs;
+                while (rs.size() >= MAX_MERGE_FAN_IN)
+                    rs = mergePass(rs);
+                List<Cursor<T>> cursors = new ArrayList<>(rs.size() + 1);
+                for (FileRun r : rs)
+                    cursors.add(r.reader(codec, cursors.size()));
+                cursors.add(new ArrayCursor<T>(a, n, cursors.size()));
+                return Spliterators.spliterator(
+                        new MergeIterator<>(cursors, comparator, files),
+                        total, Spliterator.ORDERED);
+            } catch (IOException e) {
+                files.close();
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException | Error e) {
+                files.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Merges consecutive groups of runs into single runs, keeping
+         * the groups in order so that the sort remains stable.
+         */
+        List<FileRun> mergePass(List<FileRun> rs) throws IOException {
+            List<FileRun> merged = new ArrayList<>();
+            for (int i = 0; i < rs.size(); i += MAX_MERGE_FAN_IN) {
+                int end = Math.min(rs.size(), i + MAX_MERGE_FAN_IN);
+                merged.add(merge(rs.subList(i, end)));
+            }
+            return merged;
+        }
+
+        /**
+         * Merges runs into a single run, closing each as it is read.
+         */
+        FileRun merge(List<FileRun> rs) throws IOException {
+            List<Cursor<T>> cursors = new ArrayList<>(rs.size());
+            for (FileRun r : rs)
+                cursors.add(r.reader(codec, cursors.size()));
+            FileRun out = files.create();
+            MergeIterator<T> it = new MergeIterator<>(cursors, comparator, files);
+            while (it.hasNext())
+                out.write(codec, it.next());
+            out.finishWriting();
+            return out;
+        }
+    }
+
+    /**
+     * Collects distinct elements in memory, switching to partitioning
+     * all elements into files once there are too many, and returns a
+     * spliterator over the distinct elements.
+     */
+    static final class Deduplicator<T> implements Consumer<T> {
+        final SpillCodec<T> codec;
+        final int maxInMemory;
+        final SpillFiles files;
+        LinkedHashSet<T> seen = new LinkedHashSet<>();
+        FileRun[] partitions;
+
+        Deduplicator(SpillCodec<T> codec, int maxInMemory, SpillFiles files) {
+            this.codec = codec;
+            this.maxInMemory = maxInMemory;
+            this.files = files;
+        }
+
+        static int partition(Object x, int level) {
+            int h = Objects.hashCode(x);
+            h ^= (h >>> 16);
+            return (h >>> (level * PARTITION_BITS)) & ((1 << PARTITION_BITS) - 1);
+        }
+
+        FileRun[] newPartitions() {
+            FileRun[] ps = new FileRun[1 << PARTITION_BITS];
+            for (int i = 0; i < ps.length; ++i)
+                ps[i] = files.create();
+            return ps;
+        }
+
+        public void accept(T t) {
+            try {
+                FileRun[] ps;
+                if ((ps = partitions) != null)
+                    ps[partition(t, 0)].write(codec, t);
+                else if (seen.add(t) && seen.size() > maxInMemory) {
+                    partitions = ps = newPartitions();
+                    for (T x : seen)
+                        ps[partition(x, 0)].write(codec, x);
+                    seen = null;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Spliterator<T> distinct(Stream<T> stream) {
+            try {
+                stream.spliterator().forEachRemaining(this);
+                if (partitions == null)
+                    return seen.spliterator();
+                return Spliterators.spliteratorUnknownSize(
+                        new PartitionIterator(), Spliterator.DISTINCT);
+            } catch (RuntimeException | Error e) {
+                files.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Produces the distinct elements of each partition in turn,
+         * splitting partitions that are too large using further bits
+         * of the hash code.
+         */
+        final class PartitionIterator implements Iterator<T> {
+            final ArrayList<FileRun> runs = new ArrayList<>();
+            final ArrayList<Integer> levels = new ArrayList<>();
+            Iterator<T> current;
+
+            PartitionIterator() {
+                FileRun[] ps = partitions;
+                for (int i = ps.length - 1; i >= 0; --i)
+                    push(ps[i], 0);
+            }
+
+            void push(FileRun r, int level) {
+                if (r.count == 0L)
+                    r.close();
+                else {
+                    runs.add(r);
+                    levels.add(level);
+                }
+            }
+
+            public boolean hasNext() {
+                try {
+                    while (current == null || !current.hasNext()) {
+                        int k = runs.size() - 1;
+                        if (k < 0)
+                            return false;
+                        FileRun r = runs.remove(k);
+                        int level = levels.remove(k);
+                        FileCursor<T> in = (FileCursor<T>) r.reader(codec, 0);
+                        boolean canSplit = (level + 1) * PARTITION_BITS < Integer.SIZE;
+                        LinkedHashSet<T> set = new LinkedHashSet<>();
+                        while (in.advance()) {
+                            // split only when the distinct elements, not
+                            // merely the copies, exceed the memory bound
+                            if (set.add(in.head) && canSplit &&
+                                set.size() > maxInMemory) {
+                                FileRun[] ps = newPartitions();
+                                for (T x : set)
+                                    ps[partition(x, level + 1)].write(codec, x);
+                                set = null;
+                                while (in.advance())
+                                    ps[partition(in.head, level + 1)].write(codec, in.head);
+                                for (int i = ps.length - 1; i >= 0; --i)
+                                    push(ps[i], level + 1);
+                                break;
+                            }
+                        }
+                        if (set != null)
+                            current = set.iterator();
+                    }
+                    return true;
+                } catch (IOException e) {
+                    files.close();
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            public T next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return current.next();
+            }
+        }
+    }
+}
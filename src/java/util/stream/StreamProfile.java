@@ -0,0 +1,430 @@
+package java.util.stream;
+
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+import sun.util.logging.PlatformLogger;
+
+/**
+ * Measurements of one evaluation of a stream pipeline: the elements
+ * entering, and the time spent in, each stage, and for parallel
+ * evaluation, the shape of the tree of tasks the source was split
+ * into and the time spent combining their results.
+ *
+ * <p>Profiling is enabled for a pipeline by
+ * {@link StreamSupport#profiled StreamSupport.profiled}, which
+ * supplies a listener that receives the profile when the terminal
+ * operation completes.  It is enabled for all pipelines if the system
+ * property {@code java.util.stream.profile} is {@code true}, in which
+ * case each profile is logged at level {@code INFO} to the logger
+ * named {@code java.util.stream}.  Profiles of pipelines that are
+ * traversed through {@link BaseStream#iterator} or
+ * {@link BaseStream#spliterator} record stages but are not reported.
+ *
+ * <p>Stages are numbered from {@code 1}, the first intermediate
+ * operation, to the stage receiving the pipeline's output, which is
+ * named {@code "terminal"}.  The time of a stage is measured around
+ * each call into its sink, and excludes time spent in the sinks of
+ * later stages; for stateful operations such as {@code sorted}, it
+ * includes the time to buffer and process all elements.  Leaf sizes
+ * are the size estimates of the spliterators of leaf tasks, and are
+ * not recorded for spliterators of unknown size.
+ *
+ * @implNote
+ * Profiling calls {@link System#nanoTime} around every element passed
+ * between stages, which may slow short stages considerably; the
+ * relative times of stages are more reliable than their absolute
+ * times.
+ *
+ * @since 1.8
+ */
+public final class StreamProfile {
+    private static final String PROFILE_PROPERTY = "java.util.stream.profile";
+
+    /** Whether all pipelines are profiled. */
+    static final boolean ENABLED = AccessController.doPrivileged(
+            (PrivilegedAction<Boolean>) () -> Boolean.getBoolean(PROFILE_PROPERTY));
+
+    /** The listener for profiles enabled by the system property. */
+    static final Consumer<StreamProfile> LOGGING_LISTENER = p ->
+            PlatformLogger.getLogger("java.util.stream").info(p.toString());
+
+    private final Consumer<? super StreamProfile> listener;
+    private final TreeMap<Integer, Stage> stages = new TreeMap<>();
+    private final AtomicBoolean reported = new AtomicBoolean();
+    private final LongAdder splits = new LongAdder();
+    private final LongAdder leaves = new LongAdder();
+    private final LongAdder leafNanos = new LongAdder();
+    private final LongAdder sizedLeaves = new LongAdder();
+    private final LongAdder totalLeafSize = new LongAdder();
+    private final LongAccumulator maxLeafSize = new LongAccumulator(Math::max, 0L);
+    private final LongAccumulator minLeafSize = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0L);
+    private final LongAdder combines = new LongAdder();
+    private final LongAdder combineNanos = new LongAdder();
+    private volatile boolean parallel;
+    private volatile String source;
+    private volatile long startNanos;
+    private volatile long elapsedNanos;
+
+    StreamProfile(Consumer<? super StreamProfile> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Measurements of one stage of a pipeline.
+     *
+     * @since 1.8
+     */
+    public static final class Stage {
+        private final int index;
+        private final String name;
+        private final LongAdder elements = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        Stage(int index, String name) {
+            this.index = index;
+            this.name = name;
+        }
+
+        /**
+         * Returns the position of this stage in the pipeline, counting
+         * the first intermediate operation as {@code 1}.
+         *
+         * @return the position of this stage
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the name of this stage's operation, such as
+         * {@code "map"} or {@code "sorted"}.
+         *
+         * @return the name of the operation
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of elements that entered this stage.
+         *
+         * @return the number of elements
+         */
+        public long getElementCount() {
+            return elements.sum();
+        }
+
+        /**
+         * Returns the nanoseconds spent in this stage, summed over all
+         * threads, excluding time spent in later stages.
+         *
+         * @return the time spent in this stage
+         */
+        public long getNanos() {
+            return nanos.sum();
+        }
+
+        public String toString() {
+            return index + " " + name + ": " + getElementCount() +
+                " elements, " + (getNanos() / 1000L) + "us";
+        }
+    }
+
+    /**
+     * Returns the stages of the pipeline that received elements,
+     * in pipeline order.
+     *
+     * @return the stages
+     */
+    public List<Stage> getStages() {
+        synchronized (stages) {
+            return Collections.unmodifiableList(new ArrayList<>(stages.values()));
+        }
+    }
+
+    /**
+     * Returns a description of the pipeline's source spliterator: its
+     * class, its size estimate and its characteristics, or null if the
+     * pipeline has not been evaluated.
+     *
+     * @return a description of the source
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns whether the pipeline was evaluated in parallel.
+     *
+     * @return whether the pipeline was evaluated in parallel
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Returns the elapsed nanoseconds of the terminal operation.
+     *
+     * @return the elapsed time of the terminal operation
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of times parallel evaluation split a
+     * spliterator.
+     *
+     * @return the number of splits
+     */
+    public long getSplitCount() {
+        return splits.sum();
+    }
+
+    /**
+     * Returns the number of leaf tasks of parallel evaluation.
+     *
+     * @return the number of leaf tasks
+     */
+    public long getLeafCount() {
+        return leaves.sum();
+    }
+
+    /**
+     * Returns the greatest depth of a leaf task in the tree of tasks,
+     * the root being at depth {@code 0}.
+     *
+     * @return the greatest depth of a leaf task
+     */
+    public int getMaxDepth() {
+        return (int) maxDepth.get();
+    }
+
+    /**
+     * Returns the least size estimate of a leaf task's spliterator,
+     * or {@code 0} if none was recorded.
+     *
+     * @return the least leaf size
+     */
+    public long getMinLeafSize() {
+        return (sizedLeaves.sum() == 0L) ? 0L : minLeafSize.get();
+    }
+
+    /**
+     * Returns the greatest size estimate of a leaf task's spliterator,
+     * or {@code 0} if none was recorded.
+     *
+     * @return the greatest leaf size
+     */
+    public long getMaxLeafSize() {
+        return maxLeafSize.get();
+    }
+
+    /**
+     * Returns the average size estimate of leaf tasks' spliterators,
+     * or {@code 0.0} if none was recorded.
+     *
+     * @return the average leaf size
+     */
+    public double getAverageLeafSize() {
+        long n = sizedLeaves.sum();
+        return (n == 0L) ? 0.0 : (double) totalLeafSize.sum() / n;
+    }
+
+    /**
+     * Returns the nanoseconds spent processing leaf tasks, summed over
+     * all threads.
+     *
+     * @return the time spent in leaf tasks
+     */
+    public long getLeafNanos() {
+        return leafNanos.sum();
+    }
+
+    /**
+     * Returns the number of times the results of two tasks were
+     * combined.
+     *
+     * @return the number of combine steps
+     */
+    public long getCombineCount() {
+        return combines.sum();
+    }
+
+    /**
+     * Returns the nanoseconds spent combining the results of tasks,
+     * summed over all threads.
+     *
+     * @return the time spent combining results
+     */
+    public long getCombineNanos() {
+        return combineNanos.sum();
+    }
+
+    /**
+     * Returns a multi-line report of this profile.
+     *
+     * @return a report of this profile
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("stream profile: ")
+          .append(parallel ? "parallel" : "sequential")
+          .append(", ").append(elapsedNanos / 1000L).append("us elapsed")
+          .append("\n  source: ").append(source);
+        for (Stage s : getStages())
+            sb.append("\n  stage ").append(s);
+        if (parallel) {
+            sb.append("\n  tasks: ").append(getSplitCount()).append(" splits, ")
+              .append(getLeafCount()).append(" leaves, max depth ")
+              .append(getMaxDepth()).append(", ")
+              .append(getLeafNanos() / 1000L).append("us in leaves");
+            if (sizedLeaves.sum() != 0L)
+                sb.append("\n  leaf sizes: min ").append(getMinLeafSize())
+                  .append(", avg ").append(String.format("%.1f", getAverageLeafSize()))
+                  .append(", max ").append(getMaxLeafSize());
+            sb.append("\n  combine: ").append(getCombineCount()).append(" steps, ")
+              .append(getCombineNanos() / 1000L).append("us");
+        }
+        return sb.toString();
+    }
+
+    // Recording, called from the pipeline and its tasks
+
+    Stage stage(int index, String name) {
+        synchronized (stages) {
+            Stage s = stages.get(index);
+            if (s == null)
+                stages.put(index, s = new Stage(index, name));
+            return s;
+        }
+    }
+
+    void begin(boolean parallel) {
+        this.parallel = parallel;
+        this.startNanos = System.nanoTime();
+    }
+
+    void describeSource(Spliterator<?> spliterator) {
+        this.source = spliterator.getClass().getName() + ", estimated size " +
+            spliterator.estimateSize() + ", characteristics 0x" +
+            Integer.toHexString(spliterator.characteristics());
+    }
+
+    void end() {
+        elapsedNanos = System.nanoTime() - startNanos;
+        if (listener != null && reported.compareAndSet(false, true))
+            listener.accept(this);
+    }
+
+    void recordSplit() {
+        splits.increment();
+    }
+
+    void recordLeaf(int depth, long sizeEstimate, long nanos) {
+        leaves.increment();
+        leafNanos.add(nanos);
+        maxDepth.accumulate(depth);
+        if (sizeEstimate != Long.MAX_VALUE) {
+            sizedLeaves.increment();
+            totalLeafSize.add(sizeEstimate);
+            maxLeafSize.accumulate(sizeEstimate);
+            minLeafSize.accumulate(sizeEstimate);
+        }
+    }
+
+    void recordCombine(long nanos) {
+        combines.increment();
+        combineNanos.add(nanos);
+    }
+
+    /**
+     * A sink that counts the elements entering a stage and measures the
+     * time spent in it.  Counts and times are kept locally, as a sink is
+     * used by one thread, and added to the stage when the sink ends.  The
+     * time of the next stage's profiling sink, which is called from
+     * within this one, is subtracted.
+     */
+    static final class ProfilingSink<T>
+            implements Sink<T>, IntConsumer, LongConsumer, DoubleConsumer {
+        final Stage stage;
+        final Sink<T> downstream;
+        final ProfilingSink<?> next;
+        long count;
+        long nanos;
+
+        ProfilingSink(Stage stage, Sink<T> downstream, ProfilingSink<?> next) {
+            this.stage = stage;
+            this.downstream = downstream;
+            this.next = next;
+        }
+
+        @Override
+        public void begin(long size) {
+            long t = System.nanoTime();
+            downstream.begin(size);
+            nanos += System.nanoTime() - t;
+        }
+
+        @Override
+        public void end() {
+            long t = System.nanoTime();
+            downstream.end();
+            nanos += System.nanoTime() - t;
+            ProfilingSink<?> n = next;
+            stage.elements.add(count);
+            stage.nanos.add(nanos - ((n == null) ? 0L : n.nanos));
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return downstream.cancellationRequested();
+        }
+
+        @Override
+        public void accept(T t) {
+            ++count;
+            long s = System.nanoTime();
+            downstream.accept(t);
+            nanos += System.nanoTime() - s;
+        }
+
+        @Override
+        public void accept(int value) {
+            ++count;
+            long s = System.nanoTime();
+            downstream.accept(value);
+            nanos += System.nanoTime() - s;
+        }
+
+        @Override
+        public void accept(long value) {
+            ++count;
+            long s = System.nanoTime();
+            downstream.accept(value);
+            nanos += System.nanoTime() - s;
+        }
+
+        @Override
+        public void accept(double value) {
+            ++count;
+            long s = System.nanoTime();
+            downstream.accept(value);
+            nanos += System.nanoTime() - s;
+        }
+    }
+}
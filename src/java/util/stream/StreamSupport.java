@@ -26,6 +26,7 @@ package java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -313,4 +314,41 @@ public final class StreamSupport {
                                          StreamOpFlag.fromCharacteristics(characteristics),
                                          parallel);
     }
+
+    /**
+     * Enables profiling of the pipeline of the given stream, and returns
+     * the stream.  When the pipeline's terminal operation completes, its
+     * {@link StreamProfile} is passed to the listener.
+     *
+     * <p>This may be called on any stage of a pipeline that has not yet
+     * been linked to a further stage or consumed, and applies to the
+     * whole pipeline, including stages added later.  For example:
+     * <pre>{@code
+     *     long n = StreamSupport.profiled(orders.parallelStream()
+     *                                           .filter(Order::isOpen),
+     *                                     p -> log.info(p.toString()))
+     *                           .map(Order::getCustomer)
+     *                           .distinct()
+     *                           .count();
+     * }</pre>
+     *
+     * @param <S> the type of the stream
+     * @param stream the stream whose pipeline is to be profiled
+     * @param listener the listener receiving the profile
+     * @return the given stream
+     * @throws IllegalArgumentException if the stream was not created by
+     *         the {@code java.util.stream} implementation
+     * @throws IllegalStateException if the stream has already been
+     *         linked to a further stage or consumed
+     * @see StreamProfile
+     * @since 1.8
+     */
+    public static <S extends BaseStream<?, S>> S profiled(
+            S stream, Consumer<? super StreamProfile> listener) {
+        Objects.requireNonNull(listener);
+        if (!(stream instanceof AbstractPipeline))
+            throw new IllegalArgumentException("not a pipeline stream");
+        ((AbstractPipeline<?, ?, ?>) stream).enableProfile(listener);
+        return stream;
+    }
 }
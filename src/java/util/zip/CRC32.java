@@ -131,6 +131,84 @@ class CRC32 implements Checksum {
         return (long)crc & 0xffffffffL;
     }
 
+    /**
+     * Returns the CRC-32 of the concatenation of two sequences of bytes,
+     * given the CRC-32 of each and the length of the second.  This allows
+     * the CRC-32 of a large amount of data to be computed in parts, such
+     * as on several threads, and then combined in order.
+     *
+     * @param crc1 the CRC-32 of the first sequence
+     * @param crc2 the CRC-32 of the second sequence
+     * @param len2 the length of the second sequence
+     * @return the CRC-32 of the first sequence followed by the second
+     * @throws IllegalArgumentException if {@code len2} is negative
+     * @since 1.8
+     */
+    public static long combine(long crc1, long crc2, long len2) {
+        return combine(crc1, crc2, len2, POLY, X2N);
+    }
+
+    private static final int POLY = 0xedb88320;  // reflected polynomial
+
+    private static final int[] X2N = x2nTable(POLY);
+
+    /*
+     * Combines two CRCs by multiplying crc1 by x^(8*len2) modulo the
+     * CRC polynomial, as zlib does; shared with CRC32C.
+     */
+    static long combine(long crc1, long crc2, long len2, int poly, int[] x2n) {
+        if (len2 < 0)
+            throw new IllegalArgumentException("len2 < 0");
+        if (len2 == 0)
+            return crc1;
+        int p = multModP(x2nModP(len2, 3, poly, x2n), (int)crc1, poly) ^ (int)crc2;
+        return (long)p & 0xffffffffL;
+    }
+
+    /*
+     * Returns x^(2^n) modulo the polynomial, for n = 0..31.
+     */
+    static int[] x2nTable(int poly) {
+        int[] x2n = new int[32];
+        int p = 1 << 30;  // x^1
+        x2n[0] = p;
+        for (int n = 1; n < 32; n++)
+            x2n[n] = p = multModP(p, p, poly);
+        return x2n;
+    }
+
+    /*
+     * Returns a(x) multiplied by b(x) modulo the polynomial, where both
+     * are reflected; a must not be zero.
+     */
+    private static int multModP(int a, int b, int poly) {
+        int m = 1 << 31, p = 0;
+        for (;;) {
+            if ((a & m) != 0) {
+                p ^= b;
+                if ((a & (m - 1)) == 0)
+                    break;
+            }
+            m >>>= 1;
+            b = ((b & 1) != 0) ? (b >>> 1) ^ poly : b >>> 1;
+        }
+        return p;
+    }
+
+    /*
+     * Returns x^(n * 2^k) modulo the polynomial.
+     */
+    private static int x2nModP(long n, int k, int poly, int[] x2n) {
+        int p = 1 << 31;  // x^0
+        while (n != 0) {
+            if ((n & 1) != 0)
+                p = multModP(x2n[k & 31], p, poly);
+            n >>>= 1;
+            k++;
+        }
+        return p;
+    }
+
     private native static int update(int crc, int b);
     private native static int updateBytes(int crc, byte[] b, int off, int len);
 
@@ -0,0 +1,195 @@
+package java.util.zip;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A class that can be used to compute the CRC-32C of a data stream.
+ *
+ * <p>CRC-32C is defined in <a href="http://www.ietf.org/rfc/rfc3720.txt">RFC
+ * 3720</a>: Internet Small Computer Systems Interface (iSCSI).  It uses
+ * the Castagnoli polynomial, which detects more errors than the
+ * polynomial of {@link CRC32}, and is the checksum of several storage
+ * and network formats.  This implementation processes eight bytes at a
+ * time with precomputed tables.
+ *
+ * <p> Passing a {@code null} argument to a method in this class will cause
+ * a {@link NullPointerException} to be thrown.
+ *
+ * @see         Checksum
+ * @see         CRC32
+ * @since 1.8
+ */
+public final class CRC32C implements Checksum {
+
+    /*
+     * The reflected Castagnoli polynomial.
+     */
+    private static final int POLY = 0x82f63b78;
+
+    /*
+     * Tables for slicing-by-8: TABLE[k * 256 + n] is the CRC of byte n
+     * followed by k zero bytes.
+     */
+    private static final int[] TABLE = new int[8 * 256];
+    static {
+        for (int n = 0; n < 256; n++) {
+            int c = n;
+            for (int i = 0; i < 8; i++)
+                c = ((c & 1) != 0) ? (c >>> 1) ^ POLY : c >>> 1;
+            TABLE[n] = c;
+        }
+        for (int n = 256; n < TABLE.length; n++) {
+            int c = TABLE[n - 256];
+            TABLE[n] = (c >>> 8) ^ TABLE[c & 0xff];
+        }
+    }
+
+    private static final int[] X2N = CRC32.x2nTable(POLY);
+
+    /*
+     * The CRC in its inverted form, as it is updated.
+     */
+    private int crc = 0xffffffff;
+
+    /**
+     * Creates a new CRC32C object.
+     */
+    public CRC32C() {
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified byte (the low
+     * eight bits of the argument b).
+     *
+     * @param b the byte to update the checksum with
+     */
+    public void update(int b) {
+        crc = (crc >>> 8) ^ TABLE[(crc ^ b) & 0xff];
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified array of bytes.
+     *
+     * @throws  ArrayIndexOutOfBoundsException
+     *          if {@code off} is negative, or {@code len} is negative,
+     *          or {@code off+len} is greater than the length of the
+     *          array {@code b}
+     */
+    public void update(byte[] b, int off, int len) {
+        if (b == null) {
+            throw new NullPointerException();
+        }
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        crc = updateBytes(crc, b, off, off + len);
+    }
+
+    /**
+     * Updates the CRC-32C checksum with the specified array of bytes.
+     *
+     * @param b the array of bytes to update the checksum with
+     */
+    public void update(byte[] b) {
+        crc = updateBytes(crc, b, 0, b.length);
+    }
+
+    /**
+     * Updates the checksum with the bytes from the specified buffer.
+     *
+     * The checksum is updated using
+     * buffer.{@link java.nio.Buffer#remaining() remaining()}
+     * bytes starting at
+     * buffer.{@link java.nio.Buffer#position() position()}
+     * Upon return, the buffer's position will
+     * be updated to its limit; its limit will not have been changed.
+     *
+     * @param buffer the ByteBuffer to update the checksum with
+     */
+    public void update(ByteBuffer buffer) {
+        int pos = buffer.position();
+        int limit = buffer.limit();
+        assert (pos <= limit);
+        int rem = limit - pos;
+        if (rem <= 0)
+            return;
+        if (buffer.hasArray()) {
+            int off = buffer.arrayOffset() + pos;
+            crc = updateBytes(crc, buffer.array(), off, off + rem);
+        } else {
+            crc = updateBuffer(crc, buffer, pos, limit);
+        }
+        buffer.position(limit);
+    }
+
+    /**
+     * Resets CRC-32C to initial value.
+     */
+    public void reset() {
+        crc = 0xffffffff;
+    }
+
+    /**
+     * Returns CRC-32C value.
+     */
+    public long getValue() {
+        return (long)~crc & 0xffffffffL;
+    }
+
+    /**
+     * Returns the CRC-32C of the concatenation of two sequences of bytes,
+     * given the CRC-32C of each and the length of the second.  This
+     * allows the CRC-32C of a large amount of data to be computed in
+     * parts, such as on several threads, and then combined in order.
+     *
+     * @param crc1 the CRC-32C of the first sequence
+     * @param crc2 the CRC-32C of the second sequence
+     * @param len2 the length of the second sequence
+     * @return the CRC-32C of the first sequence followed by the second
+     * @throws IllegalArgumentException if {@code len2} is negative
+     */
+    public static long combine(long crc1, long crc2, long len2) {
+        return CRC32.combine(crc1, crc2, len2, POLY, X2N);
+    }
+
+    /*
+     * Updates the inverted crc with bytes b[off] to b[end - 1].
+     */
+    private static int updateBytes(int crc, byte[] b, int off, int end) {
+        final int[] t = TABLE;
+        for (; off <= end - 8; off += 8) {
+            int lo = crc ^ ((b[off] & 0xff) | (b[off + 1] & 0xff) << 8 |
+                            (b[off + 2] & 0xff) << 16 | b[off + 3] << 24);
+            int hi = (b[off + 4] & 0xff) | (b[off + 5] & 0xff) << 8 |
+                     (b[off + 6] & 0xff) << 16 | b[off + 7] << 24;
+            crc = slice8(t, lo, hi);
+        }
+        for (; off < end; off++)
+            crc = (crc >>> 8) ^ t[(crc ^ b[off]) & 0xff];
+        return crc;
+    }
+
+    /*
+     * Updates the inverted crc with the bytes of a buffer from pos to
+     * limit, reading eight at a time where it can.
+     */
+    private static int updateBuffer(int crc, ByteBuffer buffer, int pos, int limit) {
+        final int[] t = TABLE;
+        ByteBuffer le = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        for (; pos <= limit - 8; pos += 8) {
+            long v = le.getLong(pos);
+            crc = slice8(t, crc ^ (int)v, (int)(v >>> 32));
+        }
+        for (; pos < limit; pos++)
+            crc = (crc >>> 8) ^ t[(crc ^ buffer.get(pos)) & 0xff];
+        return crc;
+    }
+
+    private static int slice8(int[] t, int lo, int hi) {
+        return t[7 * 256 + (lo & 0xff)] ^ t[6 * 256 + ((lo >>> 8) & 0xff)] ^
+               t[5 * 256 + ((lo >>> 16) & 0xff)] ^ t[4 * 256 + (lo >>> 24)] ^
+               t[3 * 256 + (hi & 0xff)] ^ t[2 * 256 + ((hi >>> 8) & 0xff)] ^
+               t[256 + ((hi >>> 16) & 0xff)] ^ t[hi >>> 24];
+    }
+}
@@ -0,0 +1,284 @@
+package java.util.zip;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class consists of static methods that compute the CRC-32,
+ * CRC-32C or Adler-32 of a buffer or of a region of a file on several
+ * threads at once.
+ *
+ * <p>The data is split into segments, whose checksums are computed as
+ * tasks in the {@linkplain ForkJoinPool#commonPool() common pool} and
+ * then combined in order with {@link CRC32#combine CRC32.combine},
+ * {@link CRC32C#combine CRC32C.combine} or {@link Adler32#combine
+ * Adler32.combine}.  The result is the same as if the bytes had been
+ * passed to a single {@link Checksum} in order.  Regions of a file are
+ * read by mapping a segment at a time into memory, so a file of any size
+ * may be checked without holding all of it mapped.
+ *
+ * <p>The buffer or file must not be modified while its checksum is
+ * computed.
+ *
+ * <p> Passing a {@code null} argument to a method in this class will cause
+ * a {@link NullPointerException} to be thrown.
+ *
+ * @see Checksum
+ * @since 1.8
+ */
+public final class Checksums {
+
+    private Checksums() { }
+
+    /*
+     * Segments smaller than this are not split further.
+     */
+    private static final long MIN_SEGMENT = 1L << 20;
+
+    /*
+     * The largest part of a file mapped at a time.
+     */
+    private static final long MAX_MAPPING = 64L << 20;
+
+    /**
+     * Returns the CRC-32 of the remaining bytes of the buffer, whose
+     * position is advanced to its limit.
+     *
+     * @param buffer the buffer
+     * @return the CRC-32 of the bytes from the position to the limit
+     */
+    public static long crc32(ByteBuffer buffer) {
+        return checksum(Algorithm.CRC32, buffer);
+    }
+
+    /**
+     * Returns the CRC-32 of a region of a file.  The position of the
+     * channel is not changed.
+     *
+     * @param channel the channel, which must be open for reading
+     * @param position the position in the file at which the region starts
+     * @param size the size of the region
+     * @return the CRC-32 of the region
+     * @throws IllegalArgumentException if the position or size is
+     *         negative, or the region extends beyond the end of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public static long crc32(FileChannel channel, long position, long size)
+        throws IOException
+    {
+        return checksum(Algorithm.CRC32, channel, position, size);
+    }
+
+    /**
+     * Returns the CRC-32C of the remaining bytes of the buffer, whose
+     * position is advanced to its limit.
+     *
+     * @param buffer the buffer
+     * @return the CRC-32C of the bytes from the position to the limit
+     */
+    public static long crc32c(ByteBuffer buffer) {
+        return checksum(Algorithm.CRC32C, buffer);
+    }
+
+    /**
+     * Returns the CRC-32C of a region of a file.  The position of the
+     * channel is not changed.
+     *
+     * @param channel the channel, which must be open for reading
+     * @param position the position in the file at which the region starts
+     * @param size the size of the region
+     * @return the CRC-32C of the region
+     * @throws IllegalArgumentException if the position or size is
+     *         negative, or the region extends beyond the end of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public static long crc32c(FileChannel channel, long position, long size)
+        throws IOException
+    {
+        return checksum(Algorithm.CRC32C, channel, position, size);
+    }
+
+    /**
+     * Returns the Adler-32 of the remaining bytes of the buffer, whose
+     * position is advanced to its limit.
+     *
+     * @param buffer the buffer
+     * @return the Adler-32 of the bytes from the position to the limit
+     */
+    public static long adler32(ByteBuffer buffer) {
+        return checksum(Algorithm.ADLER32, buffer);
+    }
+
+    /**
+     * Returns the Adler-32 of a region of a file.  The position of the
+     * channel is not changed.
+     *
+     * @param channel the channel, which must be open for reading
+     * @param position the position in the file at which the region starts
+     * @param size the size of the region
+     * @return the Adler-32 of the region
+     * @throws IllegalArgumentException if the position or size is
+     *         negative, or the region extends beyond the end of the file
+     * @throws IOException if an I/O error occurs
+     */
+    public static long adler32(FileChannel channel, long position, long size)
+        throws IOException
+    {
+        return checksum(Algorithm.ADLER32, channel, position, size);
+    }
+
+    /**
+     * The supported checksums.
+     */
+    private enum Algorithm {
+        CRC32 {
+            long checksum(ByteBuffer b) {
+                java.util.zip.CRC32 c = new java.util.zip.CRC32();
+                c.update(b);
+                return c.getValue();
+            }
+            long combine(long c1, long c2, long len2) {
+                return java.util.zip.CRC32.combine(c1, c2, len2);
+            }
+        },
+        CRC32C {
+            long checksum(ByteBuffer b) {
+                java.util.zip.CRC32C c = new java.util.zip.CRC32C();
+                c.update(b);
+                return c.getValue();
+            }
+            long combine(long c1, long c2, long len2) {
+                return java.util.zip.CRC32C.combine(c1, c2, len2);
+            }
+        },
+        ADLER32 {
+            long checksum(ByteBuffer b) {
+                Adler32 c = new Adler32();
+                c.update(b);
+                return c.getValue();
+            }
+            long combine(long c1, long c2, long len2) {
+                return Adler32.combine(c1, c2, len2);
+            }
+        };
+
+        /** Returns the checksum of the remaining bytes of b. */
+        abstract long checksum(ByteBuffer b);
+
+        abstract long combine(long c1, long c2, long len2);
+    }
+
+    private static long checksum(Algorithm alg, ByteBuffer buffer) {
+        int pos = buffer.position(), limit = buffer.limit();
+        long value;
+        if (limit - pos <= MIN_SEGMENT)
+            value = alg.checksum(buffer.duplicate());
+        else
+            value = ForkJoinPool.commonPool().invoke(
+                new ChecksumTask(alg, buffer, null, pos, limit - pos,
+                                 threshold(limit - pos)));
+        buffer.position(limit);
+        return value;
+    }
+
+    private static long checksum(Algorithm alg, FileChannel channel,
+                                 long position, long size)
+        throws IOException
+    {
+        if (channel == null)
+            throw new NullPointerException();
+        if (position < 0 || size < 0)
+            throw new IllegalArgumentException("negative position or size");
+        if (position > channel.size() - size)
+            throw new IllegalArgumentException("region extends beyond end of file");
+        ChecksumTask t = new ChecksumTask(alg, null, channel, position, size,
+                                          threshold(size));
+        try {
+            return (size <= MIN_SEGMENT) ? t.compute() : ForkJoinPool.commonPool().invoke(t);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /*
+     * Returns the segment size that gives each thread of the pool a few
+     * segments.
+     */
+    private static long threshold(long size) {
+        int n = ForkJoinPool.getCommonPoolParallelism() * 4;
+        return Math.max(MIN_SEGMENT, (size + n - 1) / n);
+    }
+
+    /**
+     * Computes the checksum of a range of a buffer or file, splitting it
+     * in two while it is larger than the threshold.
+     */
+    @SuppressWarnings("serial")
+    private static final class ChecksumTask extends RecursiveTask<Long> {
+        final Algorithm alg;
+        final ByteBuffer buffer;     // the buffer, or null for the channel
+        final FileChannel channel;
+        final long position;
+        final long size;
+        final long threshold;
+
+        ChecksumTask(Algorithm alg, ByteBuffer buffer, FileChannel channel,
+                     long position, long size, long threshold) {
+            this.alg = alg;
+            this.buffer = buffer;
+            this.channel = channel;
+            this.position = position;
+            this.size = size;
+            this.threshold = threshold;
+        }
+
+        protected Long compute() {
+            if (size > threshold) {
+                long half = size >>> 1;
+                ChecksumTask left = new ChecksumTask(alg, buffer, channel,
+                                                     position, half, threshold);
+                ChecksumTask right = new ChecksumTask(alg, buffer, channel,
+                                                      position + half, size - half,
+                                                      threshold);
+                left.fork();
+                long r = right.compute();
+                long l = left.join();
+                return alg.combine(l, r, size - half);
+            }
+            if (buffer != null) {
+                ByteBuffer b = buffer.duplicate();
+                b.limit((int)(position + size)).position((int)position);
+                return alg.checksum(b);
+            }
+            long value = 0;
+            for (long off = 0; off < size; ) {
+                long n = Math.min(size - off, MAX_MAPPING);
+                long c;
+                MappedByteBuffer mbb;
+                try {
+                    mbb = channel.map(FileChannel.MapMode.READ_ONLY, position + off, n);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                try {
+                    c = alg.checksum(mbb);
+                } finally {
+                    // the mapping is private to this task
+                    sun.misc.Cleaner cl = ((sun.nio.ch.DirectBuffer)mbb).cleaner();
+                    if (cl != null)
+                        cl.clean();
+                }
+                value = (off == 0) ? c : alg.combine(value, c, n);
+                off += n;
+            }
+            if (size == 0)
+                value = alg.checksum(ByteBuffer.allocate(0));
+            return value;
+        }
+    }
+}
@@ -0,0 +1,755 @@
+package java.util.zip;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.zip.ZipConstants64.*;
+import static java.util.zip.ZipUtils.*;
+
+/**
+ * This class is used to read entries from a zip file, like
+ * {@link ZipFile}, but is implemented in Java over a memory-mapped file
+ * so that any number of threads may look up and read entries at once.
+ *
+ * <p>{@code ZipFile} serializes {@link ZipFile#getEntry getEntry},
+ * {@link ZipFile#getInputStream getInputStream} and every read of an
+ * entry's data on the {@code ZipFile} object, and shares a pool of
+ * inflaters under another lock, so threads reading one archive, such as
+ * class loaders at startup, wait for each other.  A
+ * {@code MappedZipFile} instead parses the central directory once, when
+ * it is opened, into an immutable hash index of the entry names; lookups
+ * then only read the index and the mapped directory, reads of entry data
+ * copy from the mapping at the stream's own position, and each thread
+ * reuses its own {@link Inflater}.  No method of this class or of its
+ * input streams takes a lock, except as described below.
+ *
+ * <p>An archive of at most {@code Integer.MAX_VALUE} bytes is mapped in
+ * its entirety, and the file is not held open after the mapping is made.
+ * For a larger archive only the central directory is mapped, and entry
+ * data is read with positional reads of a {@link FileChannel}.  Those
+ * reads are not interruptible: since interrupting a thread blocked in
+ * a channel read closes the channel, a reader that finds the channel so
+ * closed reopens it, under a lock, and retries, and a reader that was
+ * itself interrupted has its interrupt status restored afterwards.  The
+ * mapping is released when the {@code MappedZipFile} becomes
+ * unreachable, not when it is closed; as with {@code ZipFile}, modifying
+ * the file while it is mapped may cause unspecified behavior.  ZIP64
+ * archives are supported; encrypted entries, and entries compressed by
+ * methods other than {@code STORED} and {@code DEFLATED}, are rejected
+ * when the archive is opened.
+ *
+ * <p>Input streams returned by {@link #getInputStream getInputStream}
+ * may each be used by one thread at a time.  After the
+ * {@code MappedZipFile} is closed, lookups throw
+ * {@link IllegalStateException} and reads from its streams throw
+ * {@link ZipException}.
+ *
+ * <p> Unless otherwise noted, passing a <tt>null</tt> argument to a constructor
+ * or method in this class will cause a {@link NullPointerException} to be
+ * thrown.
+ *
+ * @see ZipFile
+ * @since 1.8
+ */
+public
+class MappedZipFile implements ZipConstants, Closeable {
+    private final String name;     // zip file name
+    private final long length;     // zip file length
+    private final Path path;       // the file, to reopen ch
+    private volatile FileChannel ch; // open only if the file is not mapped
+    private final ByteBuffer data; // the mapped file, or null
+    private final ByteBuffer cen;  // the mapped central directory
+    private final long locpos;     // position of the first LOC header
+    private final int total;       // total number of entries
+    private final int[] entryPos;  // CEN offsets of the entries, in order
+    private final int[] hashes;    // name hashes of the entries
+    private final int[] table;     // open-addressed index: entry + 1, or 0
+    private final byte[] comment;  // zip file comment, or null
+    private final ZipCoder zc;
+    private volatile boolean closeRequested;
+
+    private static final int STORED = ZipEntry.STORED;
+    private static final int DEFLATED = ZipEntry.DEFLATED;
+
+    /**
+     * Opens a zip file for reading.
+     *
+     * <p>The UTF-8 {@link java.nio.charset.Charset charset} is used to
+     * decode the entry names and comments.
+     *
+     * @param name the name of the zip file
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws SecurityException if a security manager exists and its
+     *         <code>checkRead</code> method doesn't allow read access to the file.
+     */
+    public MappedZipFile(String name) throws IOException {
+        this(new File(name), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a ZIP file for reading given the specified File object.
+     *
+     * <p>The UTF-8 {@link java.nio.charset.Charset charset} is used to
+     * decode the entry names and comments.
+     *
+     * @param file the ZIP file to be opened for reading
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws SecurityException if a security manager exists and its
+     *         <code>checkRead</code> method doesn't allow read access to the file.
+     */
+    public MappedZipFile(File file) throws IOException {
+        this(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a ZIP file for reading given the specified File object.
+     *
+     * @param file the ZIP file to be opened for reading
+     * @param charset
+     *        the {@linkplain java.nio.charset.Charset charset} to
+     *        be used to decode the ZIP entry name and comment that are not
+     *        encoded by using UTF-8 encoding (indicated by entry's general
+     *        purpose flag).
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws SecurityException if a security manager exists and its
+     *         <code>checkRead</code> method doesn't allow read access to the file.
+     */
+    public MappedZipFile(File file, Charset charset) throws IOException {
+        if (charset == null)
+            throw new NullPointerException("charset is null");
+        String name = file.getPath();
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null)
+            sm.checkRead(name);
+        this.name = name;
+        this.zc = ZipCoder.get(charset);
+        this.path = file.toPath();
+        FileChannel ch = this.ch = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long len = ch.size();
+            ByteBuffer data = null;
+            if (len <= Integer.MAX_VALUE)
+                data = ch.map(FileChannel.MapMode.READ_ONLY, 0, len)
+                         .order(ByteOrder.LITTLE_ENDIAN);
+            this.length = len;
+            this.data = data;
+
+            // Find the END header, searching back over a comment
+            int tailLen = (int) Math.min(len, ENDHDR + 0xFFFF);
+            if (tailLen < ENDHDR)
+                throw new ZipException("zip file is empty");
+            ByteBuffer tail = read(len - tailLen, tailLen);
+            int end = tailLen - ENDHDR;
+            for (; end >= 0; --end) {
+                if (tail.getInt(end) == (int) ENDSIG &&
+                    end + ENDHDR + u16(tail, end + ENDCOM) <= tailLen)
+                    break;
+            }
+            if (end < 0)
+                throw new ZipException("zip END header not found");
+            long endPos = len - tailLen + end;
+            long cenlen = u32(tail, end + ENDSIZ);
+            long cenoff = u32(tail, end + ENDOFF);
+            long count = u16(tail, end + ENDTOT);
+            int clen = u16(tail, end + ENDCOM);
+            if (clen > 0) {
+                byte[] c = new byte[clen];
+                ((ByteBuffer) tail.duplicate().position(end + ENDHDR)).get(c);
+                this.comment = c;
+            } else
+                this.comment = null;
+
+            if ((cenlen == ZIP64_MAGICVAL || cenoff == ZIP64_MAGICVAL ||
+                 count == ZIP64_MAGICCOUNT) && endPos >= ZIP64_LOCHDR) {
+                ByteBuffer loc64 = read(endPos - ZIP64_LOCHDR, ZIP64_LOCHDR);
+                if (loc64.getInt(0) == (int) ZIP64_LOCSIG) {
+                    long end64Pos = loc64.getLong(ZIP64_LOCOFF);
+                    if (end64Pos < 0 || end64Pos > endPos - ZIP64_ENDHDR)
+                        throw new ZipException("invalid zip64 END header");
+                    ByteBuffer end64 = read(end64Pos, ZIP64_ENDHDR);
+                    if (end64.getInt(0) != (int) ZIP64_ENDSIG)
+                        throw new ZipException("invalid zip64 END header");
+                    cenlen = end64.getLong(ZIP64_ENDSIZ);
+                    cenoff = end64.getLong(ZIP64_ENDOFF);
+                    count = end64.getLong(ZIP64_ENDTOT);
+                    endPos = end64Pos;
+                }
+            }
+            if (cenlen < 0 || cenlen > endPos)
+                throw new ZipException("invalid END header (bad central directory size)");
+            long cenpos = endPos - cenlen;
+            this.locpos = cenpos - cenoff;
+            if (locpos < 0)
+                throw new ZipException("invalid END header (bad central directory offset)");
+            if (cenlen > Integer.MAX_VALUE || count > cenlen / CENHDR)
+                throw new ZipException("invalid END header (bad entry count)");
+            ByteBuffer cen = (data != null)
+                ? slice(data, cenpos, (int) cenlen)
+                : this.ch.map(FileChannel.MapMode.READ_ONLY, cenpos, cenlen)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            this.cen = cen;
+            this.total = (int) count;
+            this.entryPos = new int[total];
+            this.hashes = new int[total];
+            this.table = new int[tableSize(total)];
+            initIndex();
+        } catch (IOException | RuntimeException x) {
+            this.ch.close();
+            throw x;
+        }
+        if (data != null) {
+            ch.close();  // the mapping stays valid
+            this.ch = null;
+        }
+    }
+
+    private static int u16(ByteBuffer b, int i) {
+        return b.getShort(i) & 0xffff;
+    }
+
+    private static long u32(ByteBuffer b, int i) {
+        return b.getInt(i) & 0xffffffffL;
+    }
+
+    private static ByteBuffer slice(ByteBuffer b, long pos, int len) {
+        ByteBuffer d = b.duplicate();
+        d.position((int) pos).limit((int) pos + len);
+        return d.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads len bytes at pos from the mapping if there is one, and
+     * otherwise from the channel.
+     */
+    private ByteBuffer read(long pos, int len) throws IOException {
+        if (pos < 0 || pos > length - len)
+            throw new ZipException("invalid zip file (bad offset)");
+        if (data != null)
+            return slice(data, pos, len);
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(b, pos);
+        b.flip();
+        return b;
+    }
+
+    /**
+     * Fills bb from the channel at pos.  If the channel has been closed
+     * because a reader, this one or another, was interrupted, it is
+     * reopened and the read is retried; the interrupt status of this
+     * thread is restored before returning.
+     */
+    private void readFully(ByteBuffer bb, long pos) throws IOException {
+        boolean interrupted = false;
+        try {
+            long p = pos - bb.position();
+            while (bb.hasRemaining()) {
+                FileChannel c = ch;
+                try {
+                    if (c.read(bb, p + bb.position()) < 0)
+                        throw new EOFException();
+                } catch (ClosedChannelException x) {
+                    if (x instanceof ClosedByInterruptException)
+                        interrupted |= Thread.interrupted();
+                    reopen(c);
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replaces the channel c, closed by an interrupt, with a new one,
+     * unless another reader has already done so.
+     */
+    private synchronized void reopen(FileChannel c) throws IOException {
+        ensureOpenOrZipException();
+        if (ch == c)
+            ch = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /** Returns a power of two at least twice n. */
+    private static int tableSize(int n) {
+        return Integer.highestOneBit(Math.max(n, 1) * 2 - 1) << 1;
+    }
+
+    /**
+     * Checks each CEN header and enters the entry in the name index.
+     */
+    private void initIndex() throws ZipException {
+        ByteBuffer cen = this.cen;
+        int limit = cen.limit(), mask = table.length - 1;
+        int p = 0;
+        for (int i = 0; i < total; ++i) {
+            if (p > limit - CENHDR)
+                throw new ZipException("invalid CEN header (bad header size)");
+            if (cen.getInt(p) != (int) CENSIG)
+                throw new ZipException("invalid CEN header (bad signature)");
+            int method = u16(cen, p + CENHOW);
+            if (method != STORED && method != DEFLATED)
+                throw new ZipException("invalid CEN header (bad compression method: "
+                                       + method + ")");
+            if ((u16(cen, p + CENFLG) & 1) != 0)
+                throw new ZipException("invalid CEN header (encrypted entry)");
+            int nlen = u16(cen, p + CENNAM);
+            int next = p + CENHDR + nlen + u16(cen, p + CENEXT) + u16(cen, p + CENCOM);
+            if (next > limit)
+                throw new ZipException("invalid CEN header (bad header size)");
+            int h = 0;
+            for (int j = p + CENHDR, e = j + nlen; j < e; ++j)
+                h = 31 * h + cen.get(j);
+            entryPos[i] = p;
+            hashes[i] = h;
+            int slot = h & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = i + 1;
+            p = next;
+        }
+    }
+
+    /**
+     * Returns the number of the entry with the given encoded name, or
+     * -1 if there is none.
+     */
+    private int find(byte[] bname, int len, int h) {
+        int mask = table.length - 1;
+        for (int slot = h & mask, e; (e = table[slot]) != 0;
+             slot = (slot + 1) & mask) {
+            int i = e - 1, p;
+            if (hashes[i] == h && u16(cen, (p = entryPos[i]) + CENNAM) == len) {
+                int q = p + CENHDR, j = 0;
+                while (j < len && cen.get(q + j) == bname[j])
+                    ++j;
+                if (j == len)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of the named entry, or if addSlash is true and
+     * there is none, of the entry named with a slash appended; or -1.
+     */
+    private int find(String name, boolean addSlash) {
+        byte[] bname = zc.getBytes(name);
+        int h = 0;
+        for (byte b : bname)
+            h = 31 * h + b;
+        int i = find(bname, bname.length, h);
+        if (i < 0 && addSlash && !name.endsWith("/")) {
+            int n = bname.length;
+            bname = java.util.Arrays.copyOf(bname, n + 1);
+            bname[n] = '/';
+            i = find(bname, n + 1, 31 * h + '/');
+        }
+        return i;
+    }
+
+    private void ensureOpen() {
+        if (closeRequested)
+            throw new IllegalStateException("zip file closed");
+    }
+
+    private void ensureOpenOrZipException() throws IOException {
+        if (closeRequested)
+            throw new ZipException("ZipFile closed");
+    }
+
+    /**
+     * Returns the zip file comment, or null if none.
+     *
+     * @return the comment string for the zip file, or null if none
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public String getComment() {
+        ensureOpen();
+        return (comment == null) ? null : zc.toString(comment, comment.length);
+    }
+
+    /**
+     * Returns the zip file entry for the specified name, or null
+     * if not found.
+     *
+     * @param name the name of the entry
+     * @return the zip file entry, or null if not found
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public ZipEntry getEntry(String name) {
+        if (name == null)
+            throw new NullPointerException("name");
+        ensureOpen();
+        int i = find(name, true);
+        return (i < 0) ? null : getZipEntry(i);
+    }
+
+    private byte[] bytes(int pos, int len) {
+        byte[] b = new byte[len];
+        ((ByteBuffer) cen.duplicate().position(pos)).get(b);
+        return b;
+    }
+
+    private ZipEntry getZipEntry(int i) {
+        ByteBuffer cen = this.cen;
+        int p = entryPos[i];
+        int nlen = u16(cen, p + CENNAM);
+        int elen = u16(cen, p + CENEXT);
+        int clen = u16(cen, p + CENCOM);
+        ZipEntry e = new ZipEntry();
+        e.flag = u16(cen, p + CENFLG);  // get the flag first
+        byte[] bname = bytes(p + CENHDR, nlen);
+        if (!zc.isUTF8() && (e.flag & EFS) != 0)
+            e.name = zc.toStringUTF8(bname, nlen);
+        else
+            e.name = zc.toString(bname, nlen);
+        e.time = dosToJavaTime(u32(cen, p + CENTIM));
+        e.crc = u32(cen, p + CENCRC);
+        e.method = u16(cen, p + CENHOW);
+        if (elen > 0)
+            e.setExtra0(bytes(p + CENHDR + nlen, elen), false);
+        e.size = size(p, 0);
+        e.csize = size(p, 1);
+        if (clen > 0) {
+            byte[] bcomm = bytes(p + CENHDR + nlen + elen, clen);
+            if (!zc.isUTF8() && (e.flag & EFS) != 0)
+                e.comment = zc.toStringUTF8(bcomm, clen);
+            else
+                e.comment = zc.toString(bcomm, clen);
+        }
+        return e;
+    }
+
+    /**
+     * Returns the uncompressed size (field 0), compressed size (field 1)
+     * or LOC header offset (field 2) of the entry at CEN offset p, read
+     * from its ZIP64 extra field if the CEN header holds the magic value.
+     */
+    private long size(int p, int field) {
+        ByteBuffer cen = this.cen;
+        long len = u32(cen, p + CENLEN), siz = u32(cen, p + CENSIZ),
+            off = u32(cen, p + CENOFF);
+        long v = (field == 0) ? len : (field == 1) ? siz : off;
+        if (v != ZIP64_MAGICVAL)
+            return v;
+        int q = p + CENHDR + u16(cen, p + CENNAM);
+        int end = q + u16(cen, p + CENEXT);
+        while (q + 4 <= end) {
+            int tag = u16(cen, q), sz = u16(cen, q + 2);
+            q += 4;
+            if (tag == EXTID_ZIP64) {
+                // only the overflowed fields are present, in this order
+                int r = q;
+                if (field > 0 && len == ZIP64_MAGICVAL)
+                    r += 8;
+                if (field > 1 && siz == ZIP64_MAGICVAL)
+                    r += 8;
+                if (r + 8 <= q + sz && r + 8 <= end)
+                    return cen.getLong(r);
+                break;
+            }
+            q += sz;
+        }
+        return v;
+    }
+
+    /**
+     * Returns an input stream for reading the contents of the specified
+     * zip file entry.
+     *
+     * @param entry the zip file entry
+     * @return the input stream for reading the contents of the specified
+     * zip file entry, or null if it is not in this zip file
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public InputStream getInputStream(ZipEntry entry) throws IOException {
+        if (entry == null)
+            throw new NullPointerException("entry");
+        ensureOpen();
+        int i = find(entry.name, false);
+        if (i < 0)
+            return null;
+        int p = entryPos[i];
+        long size = size(p, 0), csize = size(p, 1);
+        long locoff = locpos + size(p, 2);
+        ByteBuffer loc = read(locoff, LOCHDR);
+        if (loc.getInt(0) != (int) LOCSIG)
+            throw new ZipException("invalid LOC header (bad signature)");
+        long start = locoff + LOCHDR + u16(loc, LOCNAM) + u16(loc, LOCEXT);
+        int method = u16(cen, p + CENHOW);
+        long rem = (method == STORED) ? size : csize;
+        if (rem < 0 || start > length - rem)
+            throw new ZipException("invalid LOC header (bad entry size)");
+        EntryInputStream in = new EntryInputStream(start, rem, size);
+        if (method == STORED)
+            return in;
+        long bufsize = size + 2;
+        if (bufsize > 65536)
+            bufsize = 8192;
+        if (bufsize <= 0)
+            bufsize = 4096;
+        return new EntryInflaterInputStream(in, getInflater(), (int) bufsize);
+    }
+
+    /**
+     * Reads the raw data of an entry from the mapping, or from the
+     * channel if the file is not mapped.
+     */
+    private class EntryInputStream extends InputStream {
+        private final ByteBuffer buf;  // the stream's own view of the mapping
+        private final long size;       // uncompressed size of this entry
+        private long pos;              // file position of the next byte
+        private long rem;              // number of remaining bytes
+        private boolean closed;
+
+        EntryInputStream(long start, long rem, long size) {
+            this.buf = (data != null) ? data.duplicate() : null;
+            this.pos = start;
+            this.rem = rem;
+            this.size = size;
+        }
+
+        public int read(byte b[], int off, int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off)
+                throw new IndexOutOfBoundsException();
+            ensureOpenOrZipException();
+            if (closed)
+                throw new IOException("Stream closed");
+            if (rem == 0)
+                return -1;
+            if (len == 0)
+                return 0;
+            if (len > rem)
+                len = (int) rem;
+            ByteBuffer buf = this.buf;
+            if (buf != null) {
+                buf.position((int) pos);
+                buf.get(b, off, len);
+            } else {
+                readFully(ByteBuffer.wrap(b, off, len), pos);
+            }
+            pos += len;
+            rem -= len;
+            return len;
+        }
+
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return (read(b, 0, 1) == 1) ? b[0] & 0xff : -1;
+        }
+
+        public long skip(long n) throws IOException {
+            ensureOpenOrZipException();
+            if (n <= 0)
+                return 0;
+            if (n > rem)
+                n = rem;
+            pos += n;
+            rem -= n;
+            return n;
+        }
+
+        public int available() {
+            return rem > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) rem;
+        }
+
+        long size() {
+            return size;
+        }
+
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private class EntryInflaterInputStream extends InflaterInputStream {
+        private boolean closeRequested = false;
+        private boolean eof = false;
+        private final EntryInputStream ein;
+
+        EntryInflaterInputStream(EntryInputStream ein, Inflater inf, int size) {
+            super(ein, inf, size);
+            this.ein = ein;
+        }
+
+        public void close() throws IOException {
+            if (closeRequested)
+                return;
+            closeRequested = true;
+            super.close();
+            releaseInflater(inf);
+        }
+
+        // Override fill() method to provide an extra "dummy" byte
+        // at the end of the input stream. This is required when
+        // using the "nowrap" Inflater option.
+        protected void fill() throws IOException {
+            if (eof) {
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            }
+            len = in.read(buf, 0, buf.length);
+            if (len == -1) {
+                buf[0] = 0;
+                len = 1;
+                eof = true;
+            }
+            inf.setInput(buf, 0, len);
+        }
+
+        public int available() throws IOException {
+            if (closeRequested)
+                return 0;
+            long avail = ein.size() - inf.getBytesWritten();
+            return (avail > (long) Integer.MAX_VALUE ?
+                    Integer.MAX_VALUE : (int) avail);
+        }
+    }
+
+    /**
+     * Each thread keeps at most one idle inflater, shared by all
+     * MappedZipFiles, so that no lock is needed to reuse one.
+     */
+    private static final ThreadLocal<Inflater> cachedInflater =
+        new ThreadLocal<Inflater>();
+
+    /*
+     * Gets this thread's idle inflater or allocates a new one.
+     */
+    private static Inflater getInflater() {
+        Inflater inf = cachedInflater.get();
+        if (inf != null) {
+            cachedInflater.set(null);
+            if (!inf.ended())
+                return inf;
+        }
+        return new Inflater(true);
+    }
+
+    /*
+     * Keeps the specified inflater as this thread's idle inflater, or
+     * ends it if the thread already has one.
+     */
+    private static void releaseInflater(Inflater inf) {
+        if (!inf.ended()) {
+            if (cachedInflater.get() == null) {
+                inf.reset();
+                cachedInflater.set(inf);
+            } else
+                inf.end();
+        }
+    }
+
+    /**
+     * Returns the path name of the ZIP file.
+     * @return the path name of the ZIP file
+     */
+    public String getName() {
+        return name;
+    }
+
+    private class ZipEntryIterator implements Enumeration<ZipEntry>, Iterator<ZipEntry> {
+        private int i = 0;
+
+        public ZipEntryIterator() {
+            ensureOpen();
+        }
+
+        public boolean hasMoreElements() {
+            return hasNext();
+        }
+
+        public boolean hasNext() {
+            ensureOpen();
+            return i < total;
+        }
+
+        public ZipEntry nextElement() {
+            return next();
+        }
+
+        public ZipEntry next() {
+            ensureOpen();
+            if (i >= total)
+                throw new NoSuchElementException();
+            return getZipEntry(i++);
+        }
+    }
+
+    /**
+     * Returns an enumeration of the ZIP file entries.
+     * @return an enumeration of the ZIP file entries
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public Enumeration<? extends ZipEntry> entries() {
+        return new ZipEntryIterator();
+    }
+
+    /**
+     * Return an ordered {@code Stream} over the ZIP file entries.
+     * Entries appear in the {@code Stream} in the order they appear in
+     * the central directory of the ZIP file.
+     *
+     * @return an ordered {@code Stream} of entries in this ZIP file
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public Stream<? extends ZipEntry> stream() {
+        return StreamSupport.stream(Spliterators.spliterator(
+                new ZipEntryIterator(), size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT |
+                        Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns the number of entries in the ZIP file.
+     * @return the number of entries in the ZIP file
+     * @throws IllegalStateException if the zip file has been closed
+     */
+    public int size() {
+        ensureOpen();
+        return total;
+    }
+
+    /**
+     * Closes the ZIP file.
+     * <p> Closing this ZIP file will cause subsequent reads from input
+     * streams previously returned by {@link #getInputStream
+     * getInputStream} to fail.  The mapping of the file is released
+     * when it is no longer reachable.
+     *
+     * @throws IOException if an I/O error has occurred
+     */
+    public void close() throws IOException {
+        if (closeRequested)
+            return;
+        closeRequested = true;
+        synchronized (this) {  // no reopen after this
+            if (ch != null)
+                ch.close();
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package java.util.zip;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class implements an output stream filter for compressing data in
+ * the "deflate" compression format on several threads at once.
+ *
+ * <p>A {@link DeflaterOutputStream} compresses everything written to it
+ * on the writing thread, with one {@link Deflater}.  This stream instead
+ * collects the data written to it into blocks, and compresses each block
+ * as a separate task in a {@link ForkJoinPool}, while the writing thread
+ * goes on to fill the next block.  Each block is compressed with the
+ * last 32K of the previous block as its preset dictionary, and every
+ * block but the last is ended with a {@link Deflater#SYNC_FLUSH
+ * SYNC_FLUSH}, so the compressed blocks concatenate into a single
+ * deflate stream that any inflater can read, compressing almost as well
+ * as one produced by a single {@code Deflater}.  The checksums of the
+ * blocks are computed by the tasks and combined in order.
+ *
+ * <p>Compressed blocks are written to the underlying stream in order, by
+ * the writing thread, as they complete; at most a few blocks per thread
+ * of the pool are held in memory at a time, after which the writing
+ * thread waits for the oldest.
+ *
+ * <p>A stream may be written by one thread at a time.
+ *
+ * @see         DeflaterOutputStream
+ * @see         ParallelGZIPOutputStream
+ * @since 1.8
+ */
+public
+class ParallelDeflaterOutputStream extends FilterOutputStream {
+
+    /**
+     * The default number of bytes of input compressed by each task.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    /*
+     * Size of the deflate window, and so of the preset dictionary.
+     */
+    private static final int DICT_SIZE = 32 * 1024;
+
+    /*
+     * Stream formats.  In BGZF, each block is compressed without a
+     * dictionary and finished, so that a subclass can write it as a
+     * GZIP member of its own.
+     */
+    static final int ZLIB = 0;
+    static final int RAW  = 1;
+    static final int GZIP = 2;
+    static final int BGZF = 3;
+
+    private final int format;
+    private final int level;
+    private final int blockSize;
+    private final ForkJoinPool pool;
+    private final int maxPending;
+    private final ArrayDeque<DeflateTask> pending = new ArrayDeque<>();
+
+    private byte[] block;       // input for the next task
+    private int count;          // number of bytes in block
+    private byte[] prev;        // input of the last task, for its dictionary
+    private int prevCount;
+    private long check;         // checksum of the blocks written out
+    private long totalIn;       // uncompressed bytes written out
+    private boolean headerWritten;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * Creates a new output stream, producing the zlib format, with the
+     * default compression level, block size and pool.
+     *
+     * @param out the output stream
+     */
+    public ParallelDeflaterOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION, false);
+    }
+
+    /**
+     * Creates a new output stream with the specified compression level,
+     * and the default block size and pool.
+     *
+     * @param out the output stream
+     * @param level the compression level (0-9)
+     * @param nowrap if true then the ZLIB header and checksum fields are
+     *        not written, as for {@link Deflater#Deflater(int, boolean)}
+     * @exception IllegalArgumentException if the level is invalid
+     */
+    public ParallelDeflaterOutputStream(OutputStream out, int level, boolean nowrap) {
+        this(out, level, nowrap, DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new output stream with the specified compression level,
+     * block size and pool.
+     *
+     * @param out the output stream
+     * @param level the compression level (0-9)
+     * @param nowrap if true then the ZLIB header and checksum fields are
+     *        not written, as for {@link Deflater#Deflater(int, boolean)}
+     * @param blockSize the number of bytes of input compressed by each task
+     * @param pool the pool in which blocks are compressed
+     * @exception IllegalArgumentException if the level is invalid or
+     *            {@code blockSize <= 0}
+     */
+    public ParallelDeflaterOutputStream(OutputStream out, int level, boolean nowrap,
+                                        int blockSize, ForkJoinPool pool) {
+        this(out, level, blockSize, pool, nowrap ? RAW : ZLIB);
+    }
+
+    ParallelDeflaterOutputStream(OutputStream out, int level, int blockSize,
+                                 ForkJoinPool pool, int format) {
+        super(out);
+        if (out == null || pool == null) {
+            throw new NullPointerException();
+        } else if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level");
+        } else if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize <= 0");
+        }
+        this.level = level;
+        this.blockSize = blockSize;
+        this.pool = pool;
+        this.format = format;
+        this.maxPending = Math.max(2, 2 * pool.getParallelism());
+        this.block = new byte[blockSize];
+        this.check = (format == ZLIB) ? 1 : 0;
+    }
+
+    /**
+     * Writes a byte to the compressed output stream.
+     *
+     * @param b the byte to be written
+     * @exception IOException if an I/O error has occurred
+     */
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == blockSize)
+            submit(false);
+        block[count++] = (byte)b;
+    }
+
+    /**
+     * Writes an array of bytes to the compressed output stream. This
+     * method will block if the compression of earlier blocks has fallen
+     * behind.
+     *
+     * @param b the data to be written
+     * @param off the start offset of the data
+     * @param len the length of the data
+     * @exception IOException if an I/O error has occurred
+     */
+    public void write(byte[] b, int off, int len) throws IOException {
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        while (len > 0) {
+            if (count == blockSize)
+                submit(false);
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Flushes the compressed output stream.  The data written so far is
+     * compressed, ended with a {@link Deflater#SYNC_FLUSH SYNC_FLUSH},
+     * and written to the underlying stream, which is then flushed.
+     *
+     * @exception IOException if an I/O error has occurred
+     */
+    public void flush() throws IOException {
+        if (!finished) {
+            if (count > 0)
+                submit(false);
+            while (!pending.isEmpty())
+                writeTask(pending.poll());
+        }
+        out.flush();
+    }
+
+    /**
+     * Finishes writing compressed data to the output stream without closing
+     * the underlying stream. Use this method when applying multiple filters
+     * in succession to the same output stream.
+     *
+     * @exception IOException if an I/O error has occurred
+     */
+    public void finish() throws IOException {
+        if (!finished) {
+            // in BGZF every block is already finished
+            if (format != BGZF || count > 0)
+                submit(true);
+            while (!pending.isEmpty())
+                writeTask(pending.poll());
+            finished = true;
+            writeTrailer();
+            block = prev = null;
+        }
+    }
+
+    /**
+     * Writes remaining compressed data to the output stream and closes the
+     * underlying stream.
+     *
+     * @exception IOException if an I/O error has occurred
+     */
+    public void close() throws IOException {
+        if (!closed) {
+            try {
+                finish();
+            } finally {
+                closed = true;
+                out.close();
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("write beyond end of stream");
+        }
+    }
+
+    /*
+     * Starts compressing the current block, then writes out completed
+     * blocks while too many are pending.
+     */
+    private void submit(boolean last) throws IOException {
+        boolean member = (format == BGZF);
+        DeflateTask t = new DeflateTask(block, count, member ? null : prev,
+                                        prevCount, level, format,
+                                        last || member);
+        pending.add(t);
+        pool.execute(t);
+        prev = block;
+        prevCount = count;
+        block = last ? null : new byte[blockSize];
+        count = 0;
+        while (pending.size() > maxPending)
+            writeTask(pending.poll());
+    }
+
+    private void writeTask(DeflateTask t) throws IOException {
+        t.join();
+        writeBlock(t.output, t.outputLength, t.check, t.inputLength);
+        if (format == GZIP)
+            check = CRC32.combine(check, t.check, t.inputLength);
+        else if (format == ZLIB)
+            check = Adler32.combine(check, t.check, t.inputLength);
+        totalIn += t.inputLength;
+    }
+
+    /**
+     * Writes a compressed block to the underlying stream.  This method
+     * is called for every block, in order, with the block's checksum
+     * (its CRC-32 in the GZIP formats) and its uncompressed size.  This
+     * implementation writes the header of the stream format before the
+     * first block, and then the block as it is.
+     */
+    void writeBlock(byte[] b, int len, long check, int size) throws IOException {
+        if (!headerWritten) {
+            writeHeader();
+            headerWritten = true;
+        }
+        out.write(b, 0, len);
+    }
+
+    /**
+     * Writes the header of the stream format.
+     */
+    void writeHeader() throws IOException {
+        if (format == ZLIB) {
+            // CMF: deflate with a 32K window; FLG: FLEVEL, and FCHECK
+            // making CMF * 256 + FLG a multiple of 31
+            int cmf = 0x78;
+            int flevel = (level == Deflater.DEFAULT_COMPRESSION) ? 2
+                : (level < 2) ? 0 : (level < 6) ? 1 : (level == 6) ? 2 : 3;
+            int flg = flevel << 6;
+            flg += 31 - (cmf * 256 + flg) % 31;
+            out.write(cmf);
+            out.write(flg);
+        }
+    }
+
+    /**
+     * Writes the trailer of the stream format.
+     */
+    void writeTrailer() throws IOException {
+        if (format == ZLIB) {
+            // Adler-32, in network byte order
+            int v = (int)check;
+            out.write(new byte[] {
+                (byte)(v >>> 24), (byte)(v >>> 16), (byte)(v >>> 8), (byte)v });
+        }
+    }
+
+    /**
+     * Returns the combined checksum of the data written out so far.
+     */
+    long checksum() {
+        return check;
+    }
+
+    /**
+     * Returns the number of uncompressed bytes written out so far.
+     */
+    long totalIn() {
+        return totalIn;
+    }
+
+    /**
+     * Per-thread deflaters, one for each compression level, reset for
+     * each block.
+     */
+    private static final ThreadLocal<Deflater[]> deflaters =
+        new ThreadLocal<Deflater[]>() {
+            protected Deflater[] initialValue() {
+                return new Deflater[11];
+            }
+        };
+
+    /**
+     * Compresses one block, primed with the end of the previous one.
+     */
+    @SuppressWarnings("serial")
+    private static final class DeflateTask extends RecursiveAction {
+        final byte[] input;
+        final int inputLength;
+        final byte[] dict;
+        final int dictLength;
+        final int level;
+        final int format;
+        final boolean last;
+        byte[] output;
+        int outputLength;
+        long check;
+
+        DeflateTask(byte[] input, int inputLength, byte[] dict, int dictLength,
+                    int level, int format, boolean last) {
+            this.input = input;
+            this.inputLength = inputLength;
+            this.dict = dict;
+            this.dictLength = dictLength;
+            this.level = level;
+            this.format = format;
+            this.last = last;
+        }
+
+        protected void compute() {
+            Deflater[] cache = deflaters.get();
+            int i = level + 1;
+            Deflater def = cache[i];
+            if (def == null)
+                cache[i] = def = new Deflater(level, true);
+            else
+                def.reset();
+            if (dict != null && dictLength > 0) {
+                int n = Math.min(dictLength, DICT_SIZE);
+                def.setDictionary(dict, dictLength - n, n);
+            }
+            def.setInput(input, 0, inputLength);
+            if (last)
+                def.finish();
+            byte[] buf = new byte[inputLength + (inputLength >>> 10) + 64];
+            int len = 0;
+            for (;;) {
+                int n = def.deflate(buf, len, buf.length - len,
+                                    last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                len += n;
+                if (last ? def.finished() : len < buf.length)
+                    break;
+                if (len == buf.length)
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            output = buf;
+            outputLength = len;
+            if (format == GZIP || format == BGZF) {
+                CRC32 crc = new CRC32();
+                crc.update(input, 0, inputLength);
+                check = crc.getValue();
+            } else if (format == ZLIB) {
+                Adler32 adler = new Adler32();
+                adler.update(input, 0, inputLength);
+                check = adler.getValue();
+            }
+        }
+    }
+}
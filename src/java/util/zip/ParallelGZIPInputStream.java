@@ -0,0 +1,524 @@
+package java.util.zip;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class implements a stream filter for reading compressed data in
+ * the GZIP file format, decompressing several members of a multi-member
+ * file at once.
+ *
+ * <p>A deflate stream can only be decompressed from its start, but a
+ * GZIP file may consist of many members, each a complete deflate stream.
+ * When a member's header records its compressed size, in a {@code BC}
+ * subfield of the extra field as written by BGZF tools and by
+ * {@link ParallelGZIPOutputStream} in BGZF mode, this stream reads the
+ * whole member and decompresses it as a task in a
+ * {@link ForkJoinPool}, reading ahead to the following members while it
+ * does so.  Members without a recorded size are decompressed on the
+ * reading thread as they are read, as by {@link GZIPInputStream}.
+ * Decompressed data is returned in order, and the CRC-32 and size of
+ * each member are checked against its trailer.
+ *
+ * <p>As with {@code GZIPInputStream}, data that follows the last member
+ * and is not a valid member header is ignored.
+ *
+ * <p>A stream may be read by one thread at a time.
+ *
+ * @see         GZIPInputStream
+ * @see         ParallelGZIPOutputStream
+ * @since 1.8
+ */
+public
+class ParallelGZIPInputStream extends FilterInputStream {
+    /*
+     * GZIP header magic number.
+     */
+    private final static int GZIP_MAGIC = 0x8b1f;
+
+    /*
+     * File header flags.
+     */
+    private final static int FHCRC      = 2;    // Header CRC
+    private final static int FEXTRA     = 4;    // Extra field
+    private final static int FNAME      = 8;    // File name
+    private final static int FCOMMENT   = 16;   // File comment
+
+    private final ForkJoinPool pool;
+    private final int maxPending;
+    private final ArrayDeque<InflateTask> pending = new ArrayDeque<>();
+
+    private final byte[] ibuf = new byte[64 * 1024]; // compressed input
+    private int ipos, ilim;
+
+    private byte[] cur;               // decompressed data being returned
+    private int curPos, curLim;
+
+    private Inflater seq;             // inflater of a member read in line
+    private final CRC32 seqCrc = new CRC32();
+    private final CRC32 hcrc = new CRC32();
+    private int bsize;                // BSIZE of the last header, or -1
+
+    private boolean eos;              // no more members to read
+    private boolean closed;
+    private final byte[] singleByteBuf = new byte[1];
+
+    /**
+     * Creates a new input stream that decompresses members in the
+     * {@linkplain ForkJoinPool#commonPool() common pool}.
+     *
+     * @param in the input stream
+     * @exception ZipException if a GZIP format error has occurred or the
+     *                         compression method used is unsupported
+     * @exception IOException if an I/O error has occurred
+     */
+    public ParallelGZIPInputStream(InputStream in) throws IOException {
+        this(in, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new input stream that decompresses members in the
+     * specified pool.
+     *
+     * @param in the input stream
+     * @param pool the pool in which members are decompressed
+     * @exception ZipException if a GZIP format error has occurred or the
+     *                         compression method used is unsupported
+     * @exception IOException if an I/O error has occurred
+     */
+    public ParallelGZIPInputStream(InputStream in, ForkJoinPool pool)
+        throws IOException
+    {
+        super(in);
+        if (in == null || pool == null)
+            throw new NullPointerException();
+        this.pool = pool;
+        this.maxPending = Math.max(2, 2 * pool.getParallelism());
+        if (!readHeader())
+            throw new EOFException();
+        startMember();
+        schedule();
+    }
+
+    /**
+     * Check to make sure that this stream has not been closed
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Reads a byte of uncompressed data.
+     *
+     * @return the byte read, or -1 if the end of the compressed input
+     *         is reached
+     * @exception ZipException if the compressed input data is corrupt.
+     * @exception IOException if an I/O error has occurred.
+     */
+    public int read() throws IOException {
+        return read(singleByteBuf, 0, 1) == -1 ? -1 : singleByteBuf[0] & 0xff;
+    }
+
+    /**
+     * Reads uncompressed data into an array of bytes. If <code>len</code> is not
+     * zero, the method will block until some input can be decompressed; otherwise,
+     * no bytes are read and <code>0</code> is returned.
+     * @param b the buffer into which the data is read
+     * @param off the start offset in the destination array <code>b</code>
+     * @param len the maximum number of bytes read
+     * @return  the actual number of bytes read, or -1 if the end of the
+     *          compressed input stream is reached
+     *
+     * @exception  NullPointerException If <code>b</code> is <code>null</code>.
+     * @exception  IndexOutOfBoundsException If <code>off</code> is negative,
+     * <code>len</code> is negative, or <code>len</code> is greater than
+     * <code>b.length - off</code>
+     * @exception ZipException if the compressed input data is corrupt.
+     * @exception IOException if an I/O error has occurred.
+     */
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (b == null) {
+            throw new NullPointerException();
+        } else if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+        for (;;) {
+            if (curPos < curLim) {
+                int n = Math.min(len, curLim - curPos);
+                System.arraycopy(cur, curPos, b, off, n);
+                curPos += n;
+                return n;
+            }
+            if (!pending.isEmpty()) {
+                InflateTask t = pending.poll();
+                schedule();
+                t.join();
+                if (t.failure != null)
+                    throw t.failure;
+                cur = t.output;
+                curPos = 0;
+                curLim = t.outputLength;
+            } else if (seq != null) {
+                int n = inflate(b, off, len);
+                if (n > 0)
+                    return n;
+                schedule();
+            } else if (eos) {
+                return -1;
+            } else {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Returns 0 after EOF has been reached, otherwise always return 1.
+     *
+     * @return 1 before EOF and 0 after EOF.
+     * @exception  IOException  if an I/O error occurs.
+     */
+    public int available() throws IOException {
+        ensureOpen();
+        if (curPos < curLim)
+            return curLim - curPos;
+        return (eos && seq == null && pending.isEmpty()) ? 0 : 1;
+    }
+
+    /**
+     * Skips specified number of bytes of uncompressed data.
+     *
+     * @param n the number of bytes to skip
+     * @return the actual number of bytes skipped.
+     * @exception IOException if an I/O error has occurred
+     * @exception IllegalArgumentException if {@code n < 0}
+     */
+    public long skip(long n) throws IOException {
+        if (n < 0) {
+            throw new IllegalArgumentException("negative skip length");
+        }
+        ensureOpen();
+        byte[] b = new byte[(int)Math.min(n, 512)];
+        long total = 0;
+        while (total < n) {
+            int len = read(b, 0, (int)Math.min(n - total, b.length));
+            if (len == -1)
+                break;
+            total += len;
+        }
+        return total;
+    }
+
+    /**
+     * Tests if this input stream supports the <code>mark</code> and
+     * <code>reset</code> methods, which it does not.
+     *
+     * @return  <code>false</code>
+     */
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Marks the current position in this input stream, which does
+     * nothing for this class.
+     *
+     * @param readlimit ignored
+     */
+    public synchronized void mark(int readlimit) {
+    }
+
+    /**
+     * Repositions this stream to the position at the time the
+     * <code>mark</code> method was last called, which is not supported.
+     *
+     * @exception  IOException  always
+     */
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Closes this input stream and releases any system resources associated
+     * with the stream.
+     * @exception IOException if an I/O error has occurred
+     */
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            eos = true;
+            pending.clear();
+            cur = null;
+            curPos = curLim = 0;
+            if (seq != null) {
+                seq.end();
+                seq = null;
+            }
+            in.close();
+        }
+    }
+
+    /*
+     * Reads the headers of following members, submitting those with a
+     * recorded size, until enough are pending, the input ends, or a
+     * member must be decompressed in line.
+     */
+    private void schedule() throws IOException {
+        while (seq == null && !eos && pending.size() < maxPending) {
+            boolean header;
+            try {
+                header = readHeader();
+            } catch (IOException ignored) {
+                header = false;  // ignore any malformed, as GZIPInputStream
+            }
+            if (!header)
+                eos = true;
+            else
+                startMember();
+        }
+    }
+
+    /*
+     * Starts decompressing the member whose header was just read.
+     */
+    private void startMember() throws IOException {
+        if (bsize >= 0) {
+            byte[] member = new byte[bsize];
+            readFully(member, 0, bsize);
+            InflateTask t = new InflateTask(member, bsize - 8);
+            pending.add(t);
+            pool.execute(t);
+        } else {
+            seq = new Inflater(true);
+            seqCrc.reset();
+        }
+    }
+
+    /*
+     * Decompresses the in-line member; returns 0 at its end, after
+     * checking its trailer.
+     */
+    private int inflate(byte[] b, int off, int len) throws IOException {
+        Inflater inf = seq;
+        for (;;) {
+            int n;
+            try {
+                n = inf.inflate(b, off, len);
+            } catch (DataFormatException e) {
+                String s = e.getMessage();
+                throw new ZipException(s != null ? s : "Invalid ZLIB data format");
+            }
+            if (n > 0) {
+                seqCrc.update(b, off, n);
+                return n;
+            }
+            if (inf.finished() || inf.needsDictionary())
+                break;
+            if (inf.needsInput()) {
+                if (!fill())
+                    throw new EOFException("Unexpected end of ZLIB input stream");
+                inf.setInput(ibuf, ipos, ilim - ipos);
+                ipos = ilim;
+            }
+        }
+        ipos = ilim - inf.getRemaining();
+        long size = inf.getBytesWritten();
+        inf.end();
+        seq = null;
+        byte[] t = new byte[8];
+        readFully(t, 0, 8);
+        // rfc1952; ISIZE is the input size modulo 2^32
+        if (ZipUtils.get32(t, 0) != seqCrc.getValue() ||
+            ZipUtils.get32(t, 4) != (size & 0xffffffffL))
+            throw new ZipException("Corrupt GZIP trailer");
+        return 0;
+    }
+
+    /*
+     * Reads a GZIP member header, setting bsize to the number of bytes
+     * of the member that follow the header if it records them, or else
+     * to -1.  Returns false if there is no more input.
+     */
+    private boolean readHeader() throws IOException {
+        if (!fill())
+            return false;
+        hcrc.reset();
+        // Check header magic
+        if (readUShort() != GZIP_MAGIC) {
+            throw new ZipException("Not in GZIP format");
+        }
+        // Check compression method
+        if (readUByte() != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        // Read flags
+        int flg = readUByte();
+        // Skip MTIME, XFL, and OS fields
+        for (int i = 0; i < 6; i++)
+            readUByte();
+        int n = 2 + 2 + 6;
+        int blockSize = -1;
+        // Read optional extra field, looking for the BGZF block size
+        if ((flg & FEXTRA) == FEXTRA) {
+            int m = readUShort();
+            n += m + 2;
+            while (m >= 4) {
+                int si = readUShort();
+                int slen = readUShort();
+                m -= 4;
+                if (slen > m)
+                    throw new ZipException("Corrupt GZIP header");
+                if (si == ('B' | 'C' << 8) && slen == 2) {
+                    blockSize = readUShort() + 1;
+                } else {
+                    for (int i = 0; i < slen; i++)
+                        readUByte();
+                }
+                m -= slen;
+            }
+            while (m-- > 0)
+                readUByte();
+        }
+        // Skip optional file name
+        if ((flg & FNAME) == FNAME) {
+            do {
+                n++;
+            } while (readUByte() != 0);
+        }
+        // Skip optional file comment
+        if ((flg & FCOMMENT) == FCOMMENT) {
+            do {
+                n++;
+            } while (readUByte() != 0);
+        }
+        // Check optional header CRC
+        if ((flg & FHCRC) == FHCRC) {
+            int v = (int)hcrc.getValue() & 0xffff;
+            if (readUShort() != v) {
+                throw new ZipException("Corrupt GZIP header");
+            }
+            n += 2;
+        }
+        if (blockSize >= 0 && blockSize - n < 8)
+            throw new ZipException("Corrupt GZIP header");
+        bsize = (blockSize < 0) ? -1 : blockSize - n;
+        return true;
+    }
+
+    /*
+     * Refills the input buffer if it is empty; returns false at the end
+     * of the input.
+     */
+    private boolean fill() throws IOException {
+        while (ipos == ilim) {
+            int n = in.read(ibuf, 0, ibuf.length);
+            if (n == -1)
+                return false;
+            ipos = 0;
+            ilim = n;
+        }
+        return true;
+    }
+
+    private void readFully(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!fill())
+                throw new EOFException();
+            int n = Math.min(len, ilim - ipos);
+            System.arraycopy(ibuf, ipos, b, off, n);
+            ipos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /*
+     * Reads unsigned short in Intel byte order.
+     */
+    private int readUShort() throws IOException {
+        int b = readUByte();
+        return (readUByte() << 8) | b;
+    }
+
+    /*
+     * Reads unsigned byte of the header.
+     */
+    private int readUByte() throws IOException {
+        if (!fill())
+            throw new EOFException();
+        int b = ibuf[ipos++] & 0xff;
+        hcrc.update(b);
+        return b;
+    }
+
+    /**
+     * Per-thread inflaters, reset for each member.
+     */
+    private static final ThreadLocal<Inflater> inflaters =
+        new ThreadLocal<Inflater>() {
+            protected Inflater initialValue() {
+                return new Inflater(true);
+            }
+        };
+
+    /**
+     * Decompresses one member whose data is in memory, and checks its
+     * trailer.
+     */
+    @SuppressWarnings("serial")
+    private static final class InflateTask extends RecursiveAction {
+        final byte[] member;   // deflate data followed by the trailer
+        final int dataLength;
+        byte[] output;
+        int outputLength;
+        IOException failure;
+
+        InflateTask(byte[] member, int dataLength) {
+            this.member = member;
+            this.dataLength = dataLength;
+        }
+
+        protected void compute() {
+            try {
+                long crc = ZipUtils.get32(member, dataLength);
+                long isize = ZipUtils.get32(member, dataLength + 4);
+                Inflater inf = inflaters.get();
+                inf.reset();
+                inf.setInput(member, 0, dataLength);
+                // trust ISIZE only as far as deflate could expand the data
+                byte[] buf = new byte[(int)Math.min(isize, 1032L * dataLength + 1)];
+                int len = 0;
+                while (!inf.finished()) {
+                    if (len == buf.length)
+                        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, 512));
+                    int n = inf.inflate(buf, len, buf.length - len);
+                    len += n;
+                    if (n == 0 && !inf.finished() &&
+                        (inf.needsInput() || inf.needsDictionary()))
+                        throw new EOFException("Unexpected end of ZLIB input stream");
+                }
+                CRC32 c = new CRC32();
+                c.update(buf, 0, len);
+                if (c.getValue() != crc || (len & 0xffffffffL) != isize)
+                    throw new ZipException("Corrupt GZIP trailer");
+                output = buf;
+                outputLength = len;
+            } catch (DataFormatException e) {
+                String s = e.getMessage();
+                failure = new ZipException(s != null ? s : "Invalid ZLIB data format");
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package java.util.zip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class implements a stream filter for writing compressed data in
+ * the GZIP file format, compressing blocks of the data on several
+ * threads at once.
+ *
+ * <p>By default the data is compressed as described in
+ * {@link ParallelDeflaterOutputStream}, and written as a single GZIP
+ * member, so that the output can be read by {@link GZIPInputStream} or
+ * any other GZIP reader.  The CRC-32 of the data is combined from the
+ * CRC-32 of each block.  A single member can only be decompressed from
+ * its start, on one thread.
+ *
+ * <p>In BGZF mode each block is instead compressed on its own, without
+ * the end of the previous block as a dictionary, and written as a
+ * separate member whose header records its size in a {@code BC}
+ * subfield of the extra field, as in the BGZF format of the SAM/BAM
+ * specification.  The output is followed by the empty member that ends
+ * a BGZF file.  It compresses slightly less well, but is still read by
+ * any GZIP reader as a multi-member file, and {@link
+ * ParallelGZIPInputStream} decompresses its members in parallel.  A
+ * member may be at most 64K bytes long, so in this mode the block size
+ * is at most {@link #BGZF_BLOCK_SIZE}.
+ *
+ * @see         GZIPOutputStream
+ * @see         ParallelGZIPInputStream
+ * @since 1.8
+ */
+public
+class ParallelGZIPOutputStream extends ParallelDeflaterOutputStream {
+    /*
+     * GZIP header magic number.
+     */
+    private final static int GZIP_MAGIC = 0x8b1f;
+
+    /**
+     * The largest number of bytes of input, and the default, compressed
+     * into each member in BGZF mode.
+     */
+    public static final int BGZF_BLOCK_SIZE = 0xff00;
+
+    /*
+     * Length of the BGZF member header, and of the trailer.
+     */
+    private final static int BGZF_HEADER = 18;
+    private final static int TRAILER = 8;
+
+    /*
+     * The empty member that ends a BGZF file.
+     */
+    private final static byte[] BGZF_EOF = {
+        0x1f, (byte)0x8b, 8, 4, 0, 0, 0, 0, 0, (byte)0xff, 6, 0, 'B', 'C',
+        2, 0, 0x1b, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private final boolean bgzf;
+
+    /**
+     * Creates a new output stream with the default compression level,
+     * block size and pool.
+     *
+     * @param out the output stream
+     */
+    public ParallelGZIPOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE,
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new output stream with the specified compression level,
+     * block size and pool.
+     *
+     * @param out the output stream
+     * @param level the compression level (0-9)
+     * @param blockSize the number of bytes of input compressed by each task
+     * @param pool the pool in which blocks are compressed
+     * @exception IllegalArgumentException if the level is invalid or
+     *            {@code blockSize <= 0}
+     */
+    public ParallelGZIPOutputStream(OutputStream out, int level, int blockSize,
+                                    ForkJoinPool pool) {
+        super(out, level, blockSize, pool, GZIP);
+        this.bgzf = false;
+    }
+
+    /**
+     * Creates a new output stream with the default compression level
+     * and pool, and in BGZF mode if {@code bgzf} is true.  The block size
+     * is {@link #BGZF_BLOCK_SIZE} in BGZF mode, and the default block size
+     * otherwise.
+     *
+     * @param out the output stream
+     * @param bgzf true to write each block as a separate BGZF member
+     */
+    public ParallelGZIPOutputStream(OutputStream out, boolean bgzf) {
+        this(out, Deflater.DEFAULT_COMPRESSION,
+             bgzf ? BGZF_BLOCK_SIZE : DEFAULT_BLOCK_SIZE,
+             ForkJoinPool.commonPool(), bgzf);
+    }
+
+    /**
+     * Creates a new output stream with the specified compression level,
+     * block size and pool, and in BGZF mode if {@code bgzf} is true.
+     *
+     * @param out the output stream
+     * @param level the compression level (0-9)
+     * @param blockSize the number of bytes of input compressed by each task
+     * @param pool the pool in which blocks are compressed
+     * @param bgzf true to write each block as a separate BGZF member
+     * @exception IllegalArgumentException if the level is invalid,
+     *            {@code blockSize <= 0}, or {@code bgzf} is true and
+     *            {@code blockSize > BGZF_BLOCK_SIZE}
+     */
+    public ParallelGZIPOutputStream(OutputStream out, int level, int blockSize,
+                                    ForkJoinPool pool, boolean bgzf) {
+        super(out, level, checkBlockSize(blockSize, bgzf), pool,
+              bgzf ? BGZF : GZIP);
+        this.bgzf = bgzf;
+    }
+
+    private static int checkBlockSize(int blockSize, boolean bgzf) {
+        if (bgzf && blockSize > BGZF_BLOCK_SIZE)
+            throw new IllegalArgumentException("blockSize > BGZF_BLOCK_SIZE");
+        return blockSize;
+    }
+
+    /*
+     * Writes GZIP member header.
+     */
+    void writeHeader() throws IOException {
+        out.write(new byte[] {
+                      (byte) GZIP_MAGIC,        // Magic number (short)
+                      (byte)(GZIP_MAGIC >> 8),  // Magic number (short)
+                      Deflater.DEFLATED,        // Compression method (CM)
+                      0,                        // Flags (FLG)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Extra flags (XFLG)
+                      0                         // Operating system (OS)
+                  });
+    }
+
+    /*
+     * Writes GZIP member trailer, or in BGZF mode the empty member
+     * ending the file.
+     */
+    void writeTrailer() throws IOException {
+        if (bgzf) {
+            out.write(BGZF_EOF);
+            return;
+        }
+        int crc = (int)checksum();
+        int size = (int)totalIn();   // rfc1952; ISIZE is the input size modulo 2^32
+        out.write(new byte[] {
+                      (byte)crc, (byte)(crc >> 8), (byte)(crc >> 16), (byte)(crc >> 24),
+                      (byte)size, (byte)(size >> 8), (byte)(size >> 16), (byte)(size >> 24)
+                  });
+    }
+
+    /*
+     * Writes a block, in BGZF mode as a BGZF member: a GZIP member
+     * header with an extra field holding the BC subfield, the block,
+     * and its trailer.
+     */
+    void writeBlock(byte[] b, int len, long crc, int size) throws IOException {
+        if (!bgzf) {
+            super.writeBlock(b, len, crc, size);
+            return;
+        }
+        int bsize = BGZF_HEADER + len + TRAILER - 1;
+        if (bsize > 0xffff)
+            throw new ZipException("BGZF block too large");
+        out.write(new byte[] {
+                      (byte) GZIP_MAGIC,        // Magic number (short)
+                      (byte)(GZIP_MAGIC >> 8),  // Magic number (short)
+                      Deflater.DEFLATED,        // Compression method (CM)
+                      4,                        // Flags (FLG): FEXTRA
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Modification time MTIME (int)
+                      0,                        // Extra flags (XFLG)
+                      (byte) 255,               // Operating system (OS): unknown
+                      6, 0,                     // Extra field length XLEN (short)
+                      'B', 'C',                 // Subfield identifier
+                      2, 0,                     // Subfield length (short)
+                      (byte)bsize,              // Member size - 1 BSIZE (short)
+                      (byte)(bsize >> 8)        // Member size - 1 BSIZE (short)
+                  });
+        out.write(b, 0, len);
+        int c = (int)crc;
+        out.write(new byte[] {
+                      (byte)c, (byte)(c >> 8), (byte)(c >> 16), (byte)(c >> 24),
+                      (byte)size, (byte)(size >> 8), (byte)(size >> 16), (byte)(size >> 24)
+                  });
+    }
+}